@@ -73,6 +73,12 @@ public:
    virtual int plotCount() const = 0 ;
    virtual core::Error plotImageFilename(int index, 
                                          std::string* pImageFilename) const = 0;
+   // image file and size of a plot as last rendered (the filename is empty
+   // if the plot has no up to date image)
+   virtual core::Error plotRenderedImage(int index,
+                                         std::string* pImageFilename,
+                                         int* pWidth,
+                                         int* pHeight) const = 0;
    virtual int activePlotIndex() const = 0;
    virtual core::Error setActivePlot(int index) = 0;
    virtual core::Error removePlot(int index) = 0;
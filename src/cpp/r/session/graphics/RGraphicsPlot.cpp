@@ -195,6 +195,13 @@ std::string Plot::imageFilename() const
    return imageFilePath(storageUuid()).filename();
 }
 
+bool Plot::hasRenderedImage() const
+{
+   return hasStorage() &&
+          !needsUpdate_ &&
+          imageFilePath(storageUuid()).exists();
+}
+
 Error Plot::renderToDisplay()
 {
    Error error = graphicsDevice_.restoreSnapshot(snapshotFilePath());
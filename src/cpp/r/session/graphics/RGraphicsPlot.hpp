@@ -63,6 +63,7 @@ public:
    core::Error renderFromDisplay();
    core::Error renderFromDisplaySnapshot(SEXP snapshot);
    std::string imageFilename() const;
+   bool hasRenderedImage() const;
    
    core::Error renderToDisplay();
    
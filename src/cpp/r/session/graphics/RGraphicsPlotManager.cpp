@@ -127,6 +127,24 @@ Error PlotManager::plotImageFilename(int index,
       return Success();
    }
 }      
+
+Error PlotManager::plotRenderedImage(int index,
+                                     std::string* pImageFilename,
+                                     int* pWidth,
+                                     int* pHeight) const
+{
+   if (!isValidPlotIndex(index))
+      return plotIndexError(index, ERROR_LOCATION);
+
+   const Plot& plot = *(plots_[index]);
+   if (plot.hasRenderedImage())
+      *pImageFilename = plot.imageFilename();
+   else
+      pImageFilename->clear();
+   *pWidth = plot.renderedSize().width;
+   *pHeight = plot.renderedSize().height;
+   return Success();
+}
    
 int PlotManager::activePlotIndex() const
 {
@@ -67,6 +67,10 @@ public:
    virtual int plotCount() const;
    virtual core::Error plotImageFilename(int index, 
                                          std::string* pImageFilename) const;
+   virtual core::Error plotRenderedImage(int index,
+                                         std::string* pImageFilename,
+                                         int* pWidth,
+                                         int* pHeight) const;
    virtual int activePlotIndex() const;
    virtual core::Error setActivePlot(int index) ;
    virtual core::Error removePlot(int index);
@@ -14,6 +14,7 @@
 #include "SessionClientEventService.hpp"
 
 #include <algorithm>
+#include <sstream>
 
 #include <boost/function.hpp>
 
@@ -26,6 +27,7 @@
 
 
 #include <core/http/Request.hpp>
+#include <core/http/Response.hpp>
 
 #include <session/SessionOptions.hpp>
 #include <session/SessionHttpConnectionListener.hpp>
@@ -40,6 +42,8 @@ namespace {
 
 const int kLastChanceWaitSeconds = 4;
 
+const char * const kEventRecordsContentType = "application/x-ndjson";
+
 bool hasEventIdLessThanOrEqualTo(const json::Value& event, int targetId)
 {
    const json::Object& eventJSON = event.get_obj();
@@ -181,6 +185,20 @@ void ClientEventService::setClientEventResult(
 }
 
 
+void ClientEventService::writeClientEventRecords(std::ostream& os)
+{
+   LOCK_MUTEX(mutex_)
+   {
+      for (json::Array::const_iterator it = clientEvents_.begin();
+           it != clientEvents_.end(); ++it)
+      {
+         json::write(*it, os);
+         os << "\n";
+      }
+   }
+   END_LOCK_MUTEX
+}
+
 void ClientEventService::run()
 {
    try
@@ -271,6 +289,20 @@ void ClientEventService::run()
             ptrConnection->sendJsonRpcError(paramError);
             continue;
          }
+
+         // does the client want the events streamed as newline delimited
+         // records? (so it can process them as they arrive rather than
+         // waiting for and then parsing the entire response)
+         bool streamRecords = false;
+         if (request.params.size() > 1)
+         {
+            paramError = json::readParam(request.params, 1, &streamRecords);
+            if (paramError)
+            {
+               ptrConnection->sendJsonRpcError(paramError);
+               continue;
+            }
+         }
            
          // remove all events already seen by the client from our internal list
          erasePreviouslyDeliveredEvents(lastClientEventIdSeen);
@@ -330,13 +362,39 @@ void ClientEventService::run()
                addClientEvent(event);
             }
 
-            // send them (pass false for kEventsPending b/c responses from the
-            // event service shouldn't interact with automatic event service
-            // starting/re-starting)
-            json::JsonRpcResponse response;
-            setClientEventResult(&response);
-            response.setField(kEventsPending, "false");
-            ptrConnection->sendJsonRpcResponse(response);
+            if (streamRecords)
+            {
+               // one json event object per line
+               http::Response response;
+               if (ptrConnection->request().acceptsEncoding(
+                                                      http::kGzipEncoding))
+               {
+                  response.setContentEncoding(http::kGzipEncoding);
+               }
+               response.setNoCacheHeaders();
+               response.setContentType(kEventRecordsContentType);
+
+               std::stringstream recordsStream;
+               writeClientEventRecords(recordsStream);
+               Error error = response.setBody(recordsStream);
+               if (error)
+               {
+                  LOG_ERROR(error);
+                  response.setError(http::status::InternalServerError,
+                                    error.code().message());
+               }
+               ptrConnection->sendResponse(response);
+            }
+            else
+            {
+               // send them (pass false for kEventsPending b/c responses from
+               // the event service shouldn't interact with automatic event
+               // service starting/re-starting)
+               json::JsonRpcResponse response;
+               setClientEventResult(&response);
+               response.setField(kEventsPending, "false");
+               ptrConnection->sendJsonRpcResponse(response);
+            }
          }
          else
          {
@@ -57,6 +57,7 @@ private:
    bool havePendingClientEvents();
    void addClientEvent(const core::json::Object& eventObject);
    void setClientEventResult(core::json::JsonRpcResponse* pResponse);
+   void writeClientEventRecords(std::ostream& os);
 
   
 private:
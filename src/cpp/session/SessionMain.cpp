@@ -25,6 +25,7 @@
 #include <boost/function.hpp>
 #include <boost/lexical_cast.hpp>
 #include <boost/format.hpp>
+#include <boost/foreach.hpp>
 
 #include <boost/signals.hpp>
 #include <boost/date_time/posix_time/posix_time.hpp>
@@ -132,6 +133,9 @@ std::vector<module_context::RBrowseFileHandler> s_rBrowseFileHandlers;
 // names of waitForMethod handlers (used to screen out of bkgnd processing)
 std::vector<std::string> s_waitForMethodNames;
 
+// names of rpc methods which may take a long time to run
+std::vector<std::string> s_slowRpcMethodNames;
+
 // last prompt we issued
 std::string s_lastPrompt;
 
@@ -163,6 +167,7 @@ const char * const kChooseFileCompleted = "choose_file_completed";
 const char * const kLocatorCompleted = "locator_completed";
 const char * const kQuitSession = "quit_session" ;   
 const char * const kInterrupt = "interrupt";
+const char * const kMulticall = "multicall";
 
 // convenience function for disallowing suspend (note still doesn't override
 // the presence of s_forceSuspend = 1)
@@ -431,6 +436,26 @@ void handleClientInit(const boost::function<void()>& initFunction,
    sessionInfo["vcs_available"] = boost::algorithm::join(vcsAvailable, ",");
    sessionInfo["vcs"] = modules::source_control::activeVCSName();
 
+   // methods the client must send in requests of their own rather than in
+   // a multicall: those we handle before dispatching (or which the http
+   // listener handles itself), those we wait for while R is blocked, and
+   // slow ones which would hold up the responses to the rest of a batch
+   json::Array unbatchableMethods;
+   unbatchableMethods.push_back(kClientInit);
+   unbatchableMethods.push_back(kQuitSession);
+   unbatchableMethods.push_back(kInterrupt);
+   unbatchableMethods.push_back(kConsoleInput);
+   unbatchableMethods.push_back(kMulticall);
+   unbatchableMethods.push_back("abort");
+   unbatchableMethods.push_back("http_log");
+   unbatchableMethods.push_back("suspend_session");
+   unbatchableMethods.push_back("user_prompt_completed");
+   BOOST_FOREACH(const std::string& methodName, s_waitForMethodNames)
+      unbatchableMethods.push_back(methodName);
+   BOOST_FOREACH(const std::string& methodName, s_slowRpcMethodNames)
+      unbatchableMethods.push_back(methodName);
+   sessionInfo["unbatchable_methods"] = unbatchableMethods;
+
    // send response  (we always set kEventsPending to false so that the client
    // won't poll for events until it is ready)
    json::JsonRpcResponse jsonRpcResponse ;
@@ -570,6 +595,170 @@ void handleRpcRequest(const core::json::JsonRpcRequest& request,
 
 }
 
+// multicall: a batch of independent rpc calls sent in a single request.
+// each call is dispatched in order and its response recorded in its slot;
+// once every call has completed the responses are sent back together
+struct MulticallState
+{
+   MulticallState(boost::shared_ptr<HttpConnection> ptrConnection,
+                  boost::posix_time::ptime executeStartTime,
+                  std::size_t count)
+      : ptrConnection(ptrConnection),
+        executeStartTime(executeStartTime),
+        responses(count),
+        pending(count)
+   {
+   }
+
+   boost::shared_ptr<HttpConnection> ptrConnection;
+   boost::posix_time::ptime executeStartTime;
+   std::vector<json::JsonRpcResponse> responses;
+   std::size_t pending;
+};
+
+void sendMulticallResponse(boost::shared_ptr<MulticallState> pState)
+{
+   // are there (or will there likely be) events pending? (we can only
+   // answer this for the batch as a whole)
+   bool eventsAdded =
+         clientEventQueue().eventAddedSince(pState->executeStartTime);
+
+   json::Array responses;
+   BOOST_FOREACH(json::JsonRpcResponse& response, pState->responses)
+   {
+      if (!eventsAdded && !response.hasAfterResponse())
+         response.setField(kEventsPending, "false");
+      responses.push_back(response.getRawResponse());
+   }
+
+   // each call carries its own events pending flag
+   json::JsonRpcResponse multicallResponse;
+   multicallResponse.setResult(responses);
+   multicallResponse.setField(kEventsPending, "false");
+   pState->ptrConnection->sendJsonRpcResponse(multicallResponse);
+
+   // run after responses (then detect changes again)
+   BOOST_FOREACH(json::JsonRpcResponse& response, pState->responses)
+   {
+      if (response.hasAfterResponse())
+      {
+         response.runAfterResponse();
+         if (!response.suppressDetectChanges())
+            detectChanges(module_context::ChangeSourceRPC);
+      }
+   }
+}
+
+void endHandleMulticallCall(boost::shared_ptr<MulticallState> pState,
+                            std::size_t index,
+                            const core::Error& executeError,
+                            json::JsonRpcResponse* pJsonRpcResponse)
+{
+   json::JsonRpcResponse& response = pState->responses[index];
+   if (executeError)
+   {
+      response.setError(executeError);
+   }
+   else if (pJsonRpcResponse)
+   {
+      // allow modules to detect changes after rpc calls
+      if (!pJsonRpcResponse->suppressDetectChanges())
+         detectChanges(module_context::ChangeSourceRPC);
+
+      response = *pJsonRpcResponse;
+   }
+
+   if (--pState->pending == 0)
+      sendMulticallResponse(pState);
+}
+
+void handleMulticallRequest(const core::json::JsonRpcRequest& request,
+                            boost::shared_ptr<HttpConnection> ptrConnection)
+{
+   using namespace boost::posix_time;
+   ptime executeStartTime = microsec_clock::universal_time();
+
+   // params is an array of { method, params } objects
+   std::vector<json::JsonRpcRequest> calls;
+   BOOST_FOREACH(const json::Value& callJson, request.params)
+   {
+      if (callJson.type() != json::ObjectType)
+      {
+         ptrConnection->sendJsonRpcError(
+                  Error(json::errc::ParamTypeMismatch, ERROR_LOCATION));
+         return;
+      }
+
+      json::JsonRpcRequest call = request;
+      call.params = json::Array();
+      call.kwparams = json::Object();
+      Error error = json::readObject(callJson.get_obj(),
+                                     "method", &call.method,
+                                     "params", &call.params);
+      if (error)
+      {
+         ptrConnection->sendJsonRpcError(error);
+         return;
+      }
+      calls.push_back(call);
+   }
+
+   if (calls.empty())
+   {
+      json::JsonRpcResponse response;
+      response.setResult(json::Array());
+      response.setField(kEventsPending, "false");
+      ptrConnection->sendJsonRpcResponse(response);
+      return;
+   }
+
+   boost::shared_ptr<MulticallState> pState(
+            new MulticallState(ptrConnection, executeStartTime, calls.size()));
+
+   for (std::size_t i = 0; i < calls.size(); i++)
+   {
+      const json::JsonRpcRequest& call = calls[i];
+      json::JsonRpcAsyncMethods::const_iterator it =
+                                        s_jsonRpcMethods.find(call.method);
+      if (it == s_jsonRpcMethods.end())
+      {
+         Error executeError = Error(json::errc::MethodNotFound,
+                                    ERROR_LOCATION);
+         executeError.addProperty("method", call.method);
+         LOG_ERROR(executeError);
+         endHandleMulticallCall(pState, i, executeError, NULL);
+         continue;
+      }
+
+      std::pair<bool, json::JsonRpcAsyncFunction> reg = it->second;
+      json::JsonRpcAsyncFunction handlerFunction = reg.second;
+      if (reg.first)
+      {
+         // direct return
+         handlerFunction(call,
+                         boost::bind(endHandleMulticallCall,
+                                     pState,
+                                     i,
+                                     _1,
+                                     _2));
+      }
+      else
+      {
+         // indirect return (asyncHandle style)
+         std::string handle = core::system::generateUuid(true);
+         json::JsonRpcResponse response;
+         response.setAsyncHandle(handle);
+         endHandleMulticallCall(pState, i, Success(), &response);
+
+         handlerFunction(call,
+                         boost::bind(endHandleRpcRequestIndirect,
+                                     handle,
+                                     _1,
+                                     _2));
+      }
+   }
+}
+
 bool isMethod(const std::string& uri, const std::string& method)
 {
    return boost::algorithm::ends_with(uri, method);
@@ -704,6 +893,14 @@ void handleConnection(boost::shared_ptr<HttpConnection> ptrConnection,
                r::exec::setInterruptsPending(true);
          }
 
+         // batch of rpc methods
+         else if ( jsonRpcRequest.method == kMulticall )
+         {
+            jsonRpcRequest.isBackgroundConnection =
+                  (connectionType == BackgroundConnection);
+            handleMulticallRequest(jsonRpcRequest, ptrConnection);
+         }
+
          // other rpc method, handle it
          else
          {
@@ -2069,6 +2266,13 @@ Error registerRpcMethod(const std::string& name,
    return Success();
 }
 
+Error registerSlowRpcMethod(const std::string& name,
+                            const core::json::JsonRpcFunction& function)
+{
+   s_slowRpcMethodNames.push_back(name);
+   return registerRpcMethod(name, function);
+}
+
 namespace {
 
 bool continueChildProcess(core::system::ProcessOperations&)
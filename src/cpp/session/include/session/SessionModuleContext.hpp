@@ -112,6 +112,12 @@ core::Error registerAsyncRpcMethod(
 core::Error registerRpcMethod(const std::string& name,
                               const core::json::JsonRpcFunction& function);
 
+// register an rpc method which may take a long time to run (e.g. because
+// it runs an external program). the client never batches calls to these
+// with other calls, so that they don't hold up the other calls' responses
+core::Error registerSlowRpcMethod(const std::string& name,
+                                  const core::json::JsonRpcFunction& function);
+
 
 core::Error executeAsync(const core::json::JsonRpcFunction& function,
                          const core::json::JsonRpcRequest& request,
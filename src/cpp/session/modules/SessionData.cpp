@@ -19,6 +19,7 @@
 
 #include <boost/bind.hpp>
 #include <boost/format.hpp>
+#include <boost/foreach.hpp>
 
 #include <core/Log.hpp>
 #include <core/Error.hpp>
@@ -35,6 +36,7 @@
 #include <r/RFunctionHook.hpp>
 
 #include <session/SessionModuleContext.hpp>
+#include <session/SessionSourceDatabase.hpp>
 
 #include "SessionContentUrls.hpp"
 
@@ -245,6 +247,14 @@ SEXP dataViewerHook(SEXP call, SEXP op, SEXP args, SEXP rho)
       // append document footer
       html += "</body></html>\n";
 
+      // keep the data so the viewer can page through all of it (the html
+      // above is limited to kMaxRows x kMaxColumns and is used for printing)
+      std::string cacheKey;
+      r::exec::RFunction cacheFx(".rs.cacheViewData", dataSEXP);
+      error = cacheFx.call(&cacheKey);
+      if (error)
+         throw r::exec::RErrorException(error.summary());
+
       // fire show data event
       json::Object dataItem;
       dataItem["title"] = title;
@@ -253,6 +263,7 @@ SEXP dataViewerHook(SEXP call, SEXP op, SEXP args, SEXP rho)
       dataItem["variables"] = columnCount;
       dataItem["displayedVariables"] = displayedColumns;
       dataItem["contentUrl"] = content_urls::provision(title, html, ".htm");
+      dataItem["cacheKey"] = cacheKey;
       ClientEvent event(client_events::kShowData, dataItem);
       module_context::enqueClientEvent(event);
 
@@ -270,6 +281,32 @@ SEXP dataViewerHook(SEXP call, SEXP op, SEXP args, SEXP rho)
 }
   
 
+void onClientInit()
+{
+   // a new client only has the viewers that are still open among its source
+   // docs, so data cached for any others can no longer be reached
+   std::vector<boost::shared_ptr<source_database::SourceDocument> > docs;
+   Error error = source_database::list(&docs);
+   if (error)
+   {
+      LOG_ERROR(error);
+      return;
+   }
+
+   std::vector<std::string> cacheKeys;
+   BOOST_FOREACH(boost::shared_ptr<source_database::SourceDocument>& pDoc, docs)
+   {
+      const json::Object& properties = pDoc->properties();
+      json::Object::const_iterator it = properties.find("cacheKey");
+      if (it != properties.end() && json::isType<std::string>(it->second))
+         cacheKeys.push_back(it->second.get_str());
+   }
+
+   error = r::exec::RFunction(".rs.pruneViewDataCache", cacheKeys).call();
+   if (error)
+      LOG_ERROR(error);
+}
+
 } // anonymous namespace
    
 Error initialize()
@@ -277,6 +314,8 @@ Error initialize()
    using boost::bind;
    using namespace r::function_hook ;
    using namespace session::module_context;
+   events().onClientInit.connect(bind(onClientInit));
+
    ExecBlock initBlock ;
    initBlock.addFunctions()
       (bind(registerReplaceHook, "dataentry", dataEntryHook, (CCODE*)NULL))
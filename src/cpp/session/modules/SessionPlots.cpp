@@ -661,6 +661,51 @@ void onShowManipulator()
    renderGraphicsOutput(true, true);
 }
 
+// the rendered images of the requested plots (those without an up to date
+// image are omitted). these are the same strong named images the display
+// uses so the client can fetch them ahead of navigating to the plots
+Error getPlotImages(const json::JsonRpcRequest& request,
+                    json::JsonRpcResponse* pResponse)
+{
+   json::Array indexesJson;
+   Error error = json::readParam(request.params, 0, &indexesJson);
+   if (error)
+      return error;
+
+   r::session::graphics::Display& display = r::session::graphics::display();
+   json::Array imagesJson;
+   for (std::size_t i=0; i<indexesJson.size(); i++)
+   {
+      if (indexesJson[i].type() != json::IntegerType)
+         return Error(json::errc::ParamTypeMismatch, ERROR_LOCATION);
+
+      int index = indexesJson[i].get_int();
+      if (index < 0 || index >= display.plotCount())
+         continue;
+
+      std::string filename;
+      int width, height;
+      error = display.plotRenderedImage(index, &filename, &width, &height);
+      if (error)
+      {
+         LOG_ERROR(error);
+         continue;
+      }
+      if (filename.empty())
+         continue;
+
+      json::Object imageJson;
+      imageJson["index"] = index;
+      imageJson["filename"] = filename;
+      imageJson["width"] = width;
+      imageJson["height"] = height;
+      imagesJson.push_back(imageJson);
+   }
+
+   pResponse->setResult(imagesJson);
+   return Success();
+}
+
 Error setManipulatorValues(const json::JsonRpcRequest& request,
                            json::JsonRpcResponse* pResponse)
 {
@@ -729,6 +774,7 @@ Error initialize()
       (bind(registerRpcMethod, "copy_plot_to_clipboard_metafile", copyPlotToClipboardMetafile))
       (bind(registerRpcMethod, "get_unique_save_plot_stem", getUniqueSavePlotStem))
       (bind(registerRpcMethod, "get_save_plot_context", getSavePlotContext))
+      (bind(registerRpcMethod, "get_plot_images", getPlotImages))
       (bind(registerRpcMethod, "set_manipulator_values", setManipulatorValues))
       (bind(registerRpcMethod, "manipulator_plot_clicked", manipulatorPlotClicked))
       (bind(registerUriHandler, kGraphics "/plot_zoom_png", handleZoomPngRequest))
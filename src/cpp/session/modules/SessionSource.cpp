@@ -356,6 +356,30 @@ Error saveDocument(const json::JsonRpcRequest& request,
    return Success();
 }
 
+// Replaces the subrange [offset, offset+length) of contents with the
+// replacement text. Offset and length are specified in characters, but
+// contents is in UTF8 bytes, so we convert before using.
+Error replaceContentsRange(int offset,
+                           int length,
+                           const std::string& replacement,
+                           std::string* pContents)
+{
+   using namespace core::string_utils;
+
+   std::string::iterator rangeBegin = pContents->begin();
+   Error error = utf8Advance(rangeBegin, offset, pContents->end(), &rangeBegin);
+   if (error)
+      return error;
+
+   std::string::iterator rangeEnd = rangeBegin;
+   error = utf8Advance(rangeEnd, length, pContents->end(), &rangeEnd);
+   if (error)
+      return error;
+
+   pContents->replace(rangeBegin, rangeEnd, replacement);
+   return Success();
+}
+
 Error saveDocumentDiff(const json::JsonRpcRequest& request,
                        json::JsonRpcResponse* pResponse)
 {
@@ -405,20 +429,9 @@ Error saveDocumentDiff(const json::JsonRpcRequest& request,
    {
       std::string contents(pDoc->contents());
 
-      // Offset and length are specified in characters, but contents
-      // is in UTF8 bytes. Convert before using.
-      std::string::iterator rangeBegin = contents.begin();
-      error = utf8Advance(rangeBegin, offset, contents.end(), &rangeBegin);
+      error = replaceContentsRange(offset, length, replacement, &contents);
       if (error)
          return Success(); // UTF8 decoding failed. Abort differential save.
-
-      std::string::iterator rangeEnd = rangeBegin;
-      error = utf8Advance(rangeEnd, length, contents.end(), &rangeEnd);
-      if (error)
-         return Success(); // UTF8 decoding failed. Abort differential save.
-
-      contents.erase(rangeBegin, rangeEnd);
-      contents.insert(rangeBegin, replacement.begin(), replacement.end());
       
       error = saveDocumentCore(contents, jsonPath, jsonType, jsonEncoding, pDoc);
       if (error)
@@ -435,6 +448,99 @@ Error saveDocumentDiff(const json::JsonRpcRequest& request,
    return Success();
 }
 
+Error saveDocumentHunks(const json::JsonRpcRequest& request,
+                        json::JsonRpcResponse* pResponse)
+{
+   using namespace core::string_utils;
+
+   // unique id and jsonPath (can be null for auto-save)
+   std::string id;
+   json::Value jsonPath, jsonType, jsonEncoding;
+
+   // An ordered list of {offset, length, text} edits. Each one replaces
+   // the subrange [offset, offset+length) of the document as it stands
+   // after all of the preceding edits have been applied.
+   json::Array hunks;
+
+   // The length (in characters) the document should have once all of the
+   // hunks have been applied. Used as a cheap check that the client and
+   // server agree on the result.
+   int expectedLength;
+
+   // This is the expected hash of the current document. If the
+   // current hash value is different than this value, then the
+   // document cannot be patched and the request should be discarded.
+   std::string hash;
+
+   // read params
+   Error error = json::readParams(request.params,
+                                  &id,
+                                  &jsonPath,
+                                  &jsonType,
+                                  &jsonEncoding,
+                                  &hunks,
+                                  &expectedLength,
+                                  &hash);
+   if (error)
+      return error ;
+
+   // if this has no path then it is an autosave, in this case
+   // suppress change detection
+   bool hasPath = json::isType<std::string>(jsonPath);
+   if (!hasPath)
+       pResponse->setSuppressDetectChanges(true);
+
+   // get the doc
+   boost::shared_ptr<SourceDocument> pDoc(new SourceDocument());
+   error = source_database::get(id, pDoc);
+   if (error)
+      return error ;
+
+   // Don't even attempt anything if we're not working off the same original
+   if (pDoc->hash() != hash)
+      return Success();
+
+   std::string contents(pDoc->contents());
+   for (json::Array::const_iterator it = hunks.begin();
+        it != hunks.end();
+        ++it)
+   {
+      if (!json::isType<json::Object>(*it))
+         return Success(); // Malformed hunk. Abort differential save.
+
+      std::string text;
+      int offset, length;
+      error = json::readObject(it->get_obj(),
+                               "offset", &offset,
+                               "length", &length,
+                               "text", &text);
+      if (error)
+         return Success(); // Malformed hunk. Abort differential save.
+
+      error = replaceContentsRange(offset, length, text, &contents);
+      if (error)
+         return Success(); // UTF8 decoding failed. Abort differential save.
+   }
+
+   // Verify that we ended up with the document the client has
+   std::string::iterator contentsEnd = contents.begin();
+   error = utf8Advance(contentsEnd, expectedLength, contents.end(), &contentsEnd);
+   if (error || contentsEnd != contents.end())
+      return Success(); // Length mismatch. Abort differential save.
+
+   error = saveDocumentCore(contents, jsonPath, jsonType, jsonEncoding, pDoc);
+   if (error)
+      return error;
+
+   // write to the source_database
+   error = sourceDatabasePutWithUpdatedContents(pDoc);
+   if (error)
+      return error;
+
+   pResponse->setResult(pDoc->hash());
+   return Success();
+}
+
 Error checkForExternalEdit(const json::JsonRpcRequest& request,
                            json::JsonRpcResponse* pResponse)
 {
@@ -618,6 +724,25 @@ Error modifyDocumentProperties(const json::JsonRpcRequest& request,
    return source_database::put(pDoc);
 }
 
+Error getSourceDocument(const json::JsonRpcRequest& request,
+                        json::JsonRpcResponse* pResponse)
+{
+   std::string id;
+   Error error = json::readParams(request.params, &id);
+   if (error)
+      return error;
+
+   boost::shared_ptr<SourceDocument> pDoc(new SourceDocument());
+   error = source_database::get(id, pDoc);
+   if (error)
+      return error;
+
+   json::Object jsonDoc;
+   pDoc->writeToJson(&jsonDoc);
+   pResponse->setResult(jsonDoc);
+   return Success();
+}
+
 Error closeDocument(const json::JsonRpcRequest& request,
                     json::JsonRpcResponse* pResponse)
 {
@@ -780,6 +905,13 @@ Error clientInitDocuments(core::json::Array* pJsonDocs)
 
       json::Object jsonDoc ;
       pDoc->writeToJson(&jsonDoc);
+
+      // the client doesn't need the contents of saved files until their
+      // tabs are activated (it fetches them with get_source_document), so
+      // leave them out to keep the session info small
+      if (!pDoc->path().empty() && !pDoc->dirty())
+         jsonDoc["contents"] = json::Value();
+
       pJsonDocs->push_back(jsonDoc);
 
       // update the source index
@@ -813,12 +945,14 @@ Error initialize()
       (bind(registerRpcMethod, "open_document", openDocument))
       (bind(registerRpcMethod, "save_document", saveDocument))
       (bind(registerRpcMethod, "save_document_diff", saveDocumentDiff))
+      (bind(registerRpcMethod, "save_document_hunks", saveDocumentHunks))
       (bind(registerRpcMethod, "check_for_external_edit", checkForExternalEdit))
       (bind(registerRpcMethod, "ignore_external_edit", ignoreExternalEdit))
       (bind(registerRpcMethod, "set_source_document_on_save", setSourceDocumentOnSave))
       (bind(registerRpcMethod, "modify_document_properties", modifyDocumentProperties))
       (bind(registerRpcMethod, "revert_document", revertDocument))
       (bind(registerRpcMethod, "reopen_with_encoding", reopenWithEncoding))
+      (bind(registerRpcMethod, "get_source_document", getSourceDocument))
       (bind(registerRpcMethod, "close_document", closeDocument))
       (bind(registerRpcMethod, "close_all_documents", closeAllDocuments))
       (bind(sourceModuleRFile, "SessionSource.R"));
@@ -246,7 +246,9 @@ public:
    }
 
    virtual core::Error log(const std::string& rev,
+                           int skip,
                            int maxentries,
+                           const std::string& filter,
                            std::vector<CommitInfo>* pOutput)
    {
       return Success();
@@ -644,21 +646,25 @@ public:
    }
 
    core::Error log(const std::string& rev,
+                   int skip,
                    int maxentries,
+                   const std::string& filter,
                    std::vector<CommitInfo>* pOutput)
    {
       std::vector<std::string> outLines;
 
-      std::vector<std::string> args;
-      args.push_back("log");
-      args.push_back("--pretty=raw");
-      args.push_back("--abbrev-commit");
-      args.push_back("--abbrev=8");
-
       ShellCommand cmd = git() << "log";
       cmd << "--pretty=raw" << "--abbrev-commit" << "--abbrev=8";
+      if (skip > 0)
+         cmd << "--skip=" + boost::lexical_cast<std::string>(skip);
       if (maxentries >= 0)
          cmd << "-" + boost::lexical_cast<std::string>(maxentries);
+      if (!filter.empty())
+      {
+         // match commit messages only, as a plain case-insensitive string
+         cmd << "--regexp-ignore-case" << "--fixed-strings";
+         cmd << "--grep=" + filter;
+      }
       if (!rev.empty())
          cmd << rev;
 
@@ -1170,13 +1176,18 @@ Error vcsHistory(const json::JsonRpcRequest& request,
                  json::JsonRpcResponse* pResponse)
 {
    std::string rev;
-   int maxentries;
-   Error error = json::readParams(request.params, &rev, &maxentries);
+   int skip, maxentries;
+   std::string filter;
+   Error error = json::readParams(request.params,
+                                  &rev,
+                                  &skip,
+                                  &maxentries,
+                                  &filter);
    if (error)
       return error;
 
    std::vector<CommitInfo> commits;
-   error = s_pVcsImpl_->log(rev, maxentries, &commits);
+   error = s_pVcsImpl_->log(rev, skip, maxentries, filter, &commits);
    if (error)
       return error;
 
@@ -1851,18 +1862,18 @@ core::Error initialize()
       (bind(registerRpcMethod, "vcs_revert", vcsRevert))
       (bind(registerRpcMethod, "vcs_stage", vcsStage))
       (bind(registerRpcMethod, "vcs_unstage", vcsUnstage))
-      (bind(registerRpcMethod, "vcs_list_branches", vcsListBranches))
+      (bind(registerSlowRpcMethod, "vcs_list_branches", vcsListBranches))
       (bind(registerRpcMethod, "vcs_checkout", vcsCheckout))
-      (bind(registerRpcMethod, "vcs_full_status", vcsFullStatus))
+      (bind(registerSlowRpcMethod, "vcs_full_status", vcsFullStatus))
       (bind(registerRpcMethod, "vcs_commit_git", vcsCommitGit))
       (bind(registerRpcMethod, "vcs_clone", vcsClone))
       (bind(registerRpcMethod, "vcs_push", vcsPush))
       (bind(registerRpcMethod, "vcs_pull", vcsPull))
-      (bind(registerRpcMethod, "vcs_diff_file", vcsDiffFile))
+      (bind(registerSlowRpcMethod, "vcs_diff_file", vcsDiffFile))
       (bind(registerRpcMethod, "vcs_apply_patch", vcsApplyPatch))
-      (bind(registerRpcMethod, "vcs_history", vcsHistory))
+      (bind(registerSlowRpcMethod, "vcs_history", vcsHistory))
       (bind(registerRpcMethod, "vcs_execute_command", vcsExecuteCommand))
-      (bind(registerRpcMethod, "vcs_show", vcsShow));
+      (bind(registerSlowRpcMethod, "vcs_show", vcsShow));
    error = initBlock.execute();
    if (error)
       return error;
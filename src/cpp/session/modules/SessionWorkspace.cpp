@@ -14,6 +14,8 @@
 #include "SessionWorkspace.hpp"
 
 #include <algorithm>
+#include <map>
+#include <set>
 
 #include <boost/bind.hpp>
 #include <boost/format.hpp>
@@ -29,6 +31,7 @@
 #include <r/RExec.hpp>
 #include <r/RRoutines.hpp>
 #include <r/RErrorCategory.hpp>
+#include <r/RJson.hpp>
 #include <r/session/RSession.hpp>
 
 #include <session/SessionModuleContext.hpp>
@@ -215,14 +218,19 @@ void onResume(const Settings& settings)
 }
 
 
+// maximum number of removed variable names to remember versions for
+const std::size_t kMaxRemovedVersions = 1000;
+
 // detect changes in the environment by inspecting the list of variable
 // names as well as the SEXP pointers (a new pointer implies a mutation of
-// an object)
+// an object). each detected change bumps a version number, and we remember
+// the version at which each variable was last assigned or removed so that
+// clients can ask for just what changed since the version they last saw
 class GlobalEnvironmentMonitor : boost::noncopyable
 {
 public:
    GlobalEnvironmentMonitor() 
-      : initialized_(false) 
+      : initialized_(false), version_(0), baseVersion_(0)
    {
    }
    
@@ -231,6 +239,39 @@ public:
       initialized_ = false;
       lastEnv_.clear();
    }
+
+   int version() const { return version_; }
+
+   // get the names of variables assigned or removed after the specified
+   // version. if we can't tell (the version predates our records) then all
+   // variables are returned as assigned and fullListing is set to true
+   void changesSince(int version,
+                     bool* pFullListing,
+                     std::vector<std::string>* pAssigned,
+                     std::vector<std::string>* pRemoved) const
+   {
+      *pFullListing = version < baseVersion_ || version > version_;
+
+      typedef std::map<std::string,int>::const_iterator iterator;
+      for (iterator it = assignedVersions_.begin();
+           it != assignedVersions_.end();
+           ++it)
+      {
+         if (*pFullListing || it->second > version)
+            pAssigned->push_back(it->first);
+      }
+
+      if (*pFullListing)
+         return;
+
+      for (iterator it = removedVersions_.begin();
+           it != removedVersions_.end();
+           ++it)
+      {
+         if (it->second > version)
+            pRemoved->push_back(it->first);
+      }
+   }
    
    void checkForChanges()
    {
@@ -243,6 +284,7 @@ public:
       {
          enqueRefreshEvent();
          initialized_ = true;
+         resetVersions(currentEnv);
       }
       
       // if there are changes
@@ -253,6 +295,7 @@ public:
          if (currentEnv.empty() || lastEnv_.empty())
          {
             enqueRefreshEvent();
+            resetVersions(currentEnv);
          }
          else
          {
@@ -282,6 +325,8 @@ public:
             std::for_each(addedVars.begin(), 
                           addedVars.end(), 
                           enqueAssignedEvent);
+
+            recordChanges(removedVars, addedVars);
          }
       }
       
@@ -295,6 +340,48 @@ public:
    }
    
 private:
+
+   void resetVersions(const std::vector<r::sexp::Variable>& currentEnv)
+   {
+      version_++;
+      baseVersion_ = version_;
+      assignedVersions_.clear();
+      removedVersions_.clear();
+      for (std::vector<Variable>::const_iterator it = currentEnv.begin();
+           it != currentEnv.end();
+           ++it)
+      {
+         assignedVersions_[it->first] = version_;
+      }
+   }
+
+   void recordChanges(const std::vector<r::sexp::Variable>& removedVars,
+                      const std::vector<r::sexp::Variable>& addedVars)
+   {
+      // a long session can remove a great many distinct names; rather than
+      // remember them all just make older clients take a full listing
+      if (removedVersions_.size() + removedVars.size() > kMaxRemovedVersions)
+      {
+         baseVersion_ = version_;
+         removedVersions_.clear();
+      }
+
+      version_++;
+      for (std::vector<Variable>::const_iterator it = removedVars.begin();
+           it != removedVars.end();
+           ++it)
+      {
+         assignedVersions_.erase(it->first);
+         removedVersions_[it->first] = version_;
+      }
+      for (std::vector<Variable>::const_iterator it = addedVars.begin();
+           it != addedVars.end();
+           ++it)
+      {
+         removedVersions_.erase(it->first);
+         assignedVersions_[it->first] = version_;
+      }
+   }
    
    void listEnvironment(std::vector<r::sexp::Variable>* pEnvironment)
    {
@@ -313,10 +400,81 @@ private:
 private:
    std::vector<r::sexp::Variable> lastEnv_; 
    bool initialized_ ;
+
+   // current version, and the oldest version we can compute changes from
+   int version_;
+   int baseVersion_;
+
+   // version at which each current variable was last assigned, and at
+   // which each variable removed since baseVersion_ was removed
+   std::map<std::string,int> assignedVersions_;
+   std::map<std::string,int> removedVersions_;
 };
 
 // global environment monitor
 GlobalEnvironmentMonitor s_globalEnvironmentMonitor;
+
+Error listObjectsSince(const json::JsonRpcRequest& request,
+                       json::JsonRpcResponse* pResponse)
+{
+   int version;
+   Error error = json::readParams(request.params, &version);
+   if (error)
+      return error;
+
+   bool fullListing;
+   std::vector<std::string> assigned, removed;
+   s_globalEnvironmentMonitor.changesSince(version,
+                                           &fullListing,
+                                           &assigned,
+                                           &removed);
+
+   // describe the assigned objects (in a single call so that the client
+   // gets the same columnar listing as list_objects)
+   r::sexp::Protect rProtect;
+   SEXP objectsSEXP;
+   error = r::exec::RFunction(".rs.describeObjects",
+                              assigned).call(&objectsSEXP, &rProtect);
+   if (error)
+      return error;
+
+   // objects that were removed after they were assigned aren't described;
+   // report those as removed instead
+   std::vector<std::string> described;
+   error = r::sexp::getNamedListElement(objectsSEXP, "name", &described);
+   if (error)
+      return error;
+   std::set<std::string> describedSet(described.begin(), described.end());
+   for (std::vector<std::string>::const_iterator it = assigned.begin();
+        it != assigned.end();
+        ++it)
+   {
+      if (describedSet.find(*it) == describedSet.end())
+         removed.push_back(*it);
+   }
+
+   json::Value objectsJson;
+   error = r::json::jsonValueFromObject(objectsSEXP, &objectsJson);
+   if (error)
+      return error;
+
+   json::Array removedJson;
+   for (std::vector<std::string>::const_iterator it = removed.begin();
+        it != removed.end();
+        ++it)
+   {
+      removedJson.push_back(*it);
+   }
+
+   json::Object result;
+   result["version"] = s_globalEnvironmentMonitor.version();
+   result["full"] = fullListing;
+   result["objects"] = objectsJson;
+   result["removed"] = removedJson;
+   pResponse->setResult(result);
+
+   return Success();
+}
    
 void onClientInit()
 {
@@ -354,6 +512,7 @@ Error initialize()
    ExecBlock initBlock ;
    initBlock.addFunctions()
       (bind(registerRBrowseFileHandler, handleRBrowseEnv))
+      (bind(registerRpcMethod, "list_objects_since", listObjectsSince))
       (bind(sourceModuleRFile, "SessionWorkspace.R"));
    return initBlock.execute();
 }
@@ -0,0 +1,110 @@
+/*
+ * ArrayQueue.java
+ *
+ * Copyright (C) 2009-11 by RStudio, Inc.
+ *
+ * This program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client;
+
+/**
+ * A growable FIFO queue backed by a circular array. Both add() and remove()
+ * are O(1) (amortized for add), unlike ArrayList.remove(0) which shifts
+ * every remaining element. GWT doesn't emulate java.util.ArrayDeque so
+ * we provide our own.
+ */
+public class ArrayQueue<T>
+{
+   public ArrayQueue()
+   {
+      this(16);
+   }
+
+   public ArrayQueue(int initialCapacity)
+   {
+      elements_ = new Object[Math.max(initialCapacity, 1)];
+   }
+
+   public void add(T value)
+   {
+      if (size_ == elements_.length)
+         grow();
+
+      elements_[(head_ + size_) % elements_.length] = value;
+      size_++;
+   }
+
+   @SuppressWarnings("unchecked")
+   public T peek()
+   {
+      if (size_ == 0)
+         return null;
+      return (T) elements_[head_];
+   }
+
+   @SuppressWarnings("unchecked")
+   public T peekLast()
+   {
+      if (size_ == 0)
+         return null;
+      return (T) elements_[(head_ + size_ - 1) % elements_.length];
+   }
+
+   @SuppressWarnings("unchecked")
+   public T remove()
+   {
+      if (size_ == 0)
+         return null;
+
+      T value = (T) elements_[head_];
+      elements_[head_] = null;
+      head_ = (head_ + 1) % elements_.length;
+      size_--;
+      return value;
+   }
+
+   @SuppressWarnings("unchecked")
+   public T get(int index)
+   {
+      if (index < 0 || index >= size_)
+         throw new IndexOutOfBoundsException("Index: " + index +
+                                             ", Size: " + size_);
+      return (T) elements_[(head_ + index) % elements_.length];
+   }
+
+   public void clear()
+   {
+      for (int i = 0; i < size_; i++)
+         elements_[(head_ + i) % elements_.length] = null;
+      head_ = 0;
+      size_ = 0;
+   }
+
+   public int size()
+   {
+      return size_;
+   }
+
+   public boolean isEmpty()
+   {
+      return size_ == 0;
+   }
+
+   private void grow()
+   {
+      Object[] elements = new Object[elements_.length * 2];
+      for (int i = 0; i < size_; i++)
+         elements[i] = elements_[(head_ + i) % elements_.length];
+      elements_ = elements;
+      head_ = 0;
+   }
+
+   private Object[] elements_;
+   private int head_ = 0;
+   private int size_ = 0;
+}
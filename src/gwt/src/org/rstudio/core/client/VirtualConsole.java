@@ -12,12 +12,21 @@
  */
 package org.rstudio.core.client;
 
-import org.rstudio.core.client.regex.Match;
-import org.rstudio.core.client.regex.Pattern;
-
 /**
  * Simulates a console that behaves like the R console, specifically with
  * regard to \r (carriage return) and \b (backspace) characters.
+ *
+ * The cursor can never move past the start of the current (last) line
+ * except by backspacing over a newline, so the buffer is kept as a block
+ * of completed lines plus the current line. This makes the cost of
+ * submitting output proportional to the size of the output rather than
+ * the size of the buffer (which matters a great deal for progress bars
+ * that print \r thousands of times).
+ *
+ * Callers that mirror the buffer elsewhere (e.g. in a DOM text node) can
+ * use the dirty range API to patch only what changed: every character
+ * from getDirtyStart() to the end of the buffer may have changed since
+ * the last call to markClean(); everything before it is unchanged.
  */
 public class VirtualConsole
 {
@@ -30,25 +39,19 @@ public class VirtualConsole
       if (StringUtil.isNullOrEmpty(data))
          return;
 
-      if (CONTROL_SPECIAL.match(data, 0) == null)
-      {
-         text(data);
-         return;
-      }
-
       int tail = 0;
-      Match match = CONTROL.match(data, 0);
-      while (match != null)
+      for (int i = 0; i < data.length(); i++)
       {
-         int pos = match.getIndex();
+         char c = data.charAt(i);
+         if (c != '\r' && c != '\b' && c != '\n')
+            continue;
 
          // If we passed over any plain text on the way to this control
          // character, add it.
-         text(data.substring(tail, pos));
-
-         tail = pos + 1;
+         text(data, tail, i);
+         tail = i + 1;
 
-         switch (data.charAt(pos))
+         switch (c)
          {
             case '\r':
                carriageReturn();
@@ -59,55 +62,125 @@ public class VirtualConsole
             case '\n':
                newline();
                break;
-            default:
-               assert false : "Unknown control char, please check regex";
-               text(data.charAt(pos) + "");
-               break;
          }
-
-         match = match.nextMatch();
       }
 
       // If there was any plain text after the last control character, add it
-      text(data.substring(tail));
+      text(data, tail, data.length());
+   }
+
+   /**
+    * Offset of the first character that may have changed since the last
+    * call to markClean(). Equal to getLength() if nothing has changed.
+    */
+   public int getDirtyStart()
+   {
+      return Math.min(dirtyStart_, getLength());
+   }
+
+   public boolean isDirty()
+   {
+      return dirtyStart_ < getLength() || dirtyStart_ < cleanLength_;
+   }
+
+   /**
+    * The text from getDirtyStart() to the end of the buffer.
+    */
+   public String getDirtyText()
+   {
+      int start = getDirtyStart();
+      int committedLength = lines_.length();
+      if (start >= committedLength)
+         return line_.substring(start - committedLength);
+      else
+         return lines_.substring(start) + line_.toString();
+   }
+
+   public void markClean()
+   {
+      dirtyStart_ = cleanLength_ = getLength();
+   }
+
+   public int getLength()
+   {
+      return lines_.length() + line_.length();
+   }
+
+   /**
+    * Number of newline characters in the buffer.
+    */
+   public int getLineCount()
+   {
+      return lineCount_;
+   }
+
+   /**
+    * True if the buffer ends with a line not (yet) terminated by a newline.
+    */
+   public boolean hasPartialLine()
+   {
+      return line_.length() > 0;
    }
 
    private void backspace()
    {
-      if (pos == 0)
-         return;
-      o.deleteCharAt(--pos);
+      if (pos_ > 0)
+      {
+         line_.deleteCharAt(--pos_);
+         markDirty(lines_.length() + pos_);
+      }
+      else if (lines_.length() > 0)
+      {
+         // Backspacing over a newline joins the current line to the
+         // previous one, so pull the previous line back out of the
+         // block of completed lines
+         int end = lines_.length() - 1;
+         int start = lines_.lastIndexOf("\n", end - 1) + 1;
+         String previousLine = lines_.substring(start, end);
+         lines_.setLength(start);
+         line_.insert(0, previousLine);
+         pos_ = previousLine.length();
+         lineCount_--;
+         markDirty(start + pos_);
+      }
    }
 
    private void carriageReturn()
    {
-      if (pos == 0)
-         return;
-      while (pos > 0 && o.charAt(pos - 1) != '\n')
-         pos--;
-      // Now we're either at the beginning of the buffer, or just past a '\n'
+      pos_ = 0;
    }
 
    private void newline()
    {
-      while (pos < o.length() && o.charAt(pos) != '\n')
-         pos++;
-      // Now we're either at the end of the buffer, or on top of a '\n'
-      text("\n");
+      lines_.append(line_).append('\n');
+      line_.setLength(0);
+      pos_ = 0;
+      lineCount_++;
    }
 
-   private void text(String text)
+   private void text(String data, int start, int end)
    {
-      assert text.indexOf('\r') < 0 && text.indexOf('\b') < 0;
+      if (start >= end)
+         return;
 
-      o.replace(pos, pos + text.length(), text);
-      pos += text.length();
+      int length = end - start;
+      markDirty(lines_.length() + pos_);
+      if (pos_ == line_.length())
+         line_.append(data, start, end);
+      else
+         line_.replace(pos_, pos_ + length, data.substring(start, end));
+      pos_ += length;
+   }
+
+   private void markDirty(int offset)
+   {
+      dirtyStart_ = Math.min(dirtyStart_, offset);
    }
 
    @Override
    public String toString()
    {
-      return o.toString();
+      return lines_.toString() + line_.toString();
    }
 
    public static String consolify(String text)
@@ -117,8 +190,12 @@ public class VirtualConsole
       return console.toString();
    }
 
-   private final StringBuilder o = new StringBuilder();
-   private int pos = 0;
-   private static final Pattern CONTROL = Pattern.create("[\r\b\n]");
-   private static final Pattern CONTROL_SPECIAL = Pattern.create("[\r\b]");
+   // Completed lines (each terminated by a newline)
+   private final StringBuilder lines_ = new StringBuilder();
+   // The current line (never contains a newline) and the cursor within it
+   private final StringBuilder line_ = new StringBuilder();
+   private int pos_ = 0;
+   private int lineCount_ = 0;
+   private int dirtyStart_ = 0;
+   private int cleanLength_ = 0;
 }
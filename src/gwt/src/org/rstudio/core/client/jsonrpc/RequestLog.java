@@ -12,39 +12,164 @@
  */
 package org.rstudio.core.client.jsonrpc;
 
-import java.util.ArrayList;
-
+/**
+ * A fixed-capacity ring of recent requests, used by the request log
+ * visualization. Logging is disabled (and costs nothing) unless something
+ * turns it on, and request/response payloads are truncated so that large
+ * responses aren't kept alive just because they were logged.
+ */
 public class RequestLog
 {
    public static RequestLogEntry log(String requestId, String requestData)
    {
+      if (!enabled_)
+         return DISABLED_ENTRY;
+
+      // when sampling only record every nth request
+      if (sampleInterval_ > 1 && (sampleCounter_++ % sampleInterval_) != 0)
+         return DISABLED_ENTRY;
+
       RequestLogEntry entry = new RequestLogEntry(System.currentTimeMillis(),
-                                                  requestId, requestData);
-      entries_.add(entry);
+                                                  requestId,
+                                                  truncate(requestData));
 
-      for (int i = 0; entries_.size() > MAX_ENTRIES && i < entries_.size(); i++)
+      if (entries_ == null)
+         entries_ = new RequestLogEntry[capacity_];
+
+      // overwrite the oldest entry once we're full
+      entries_[(head_ + size_) % entries_.length] = entry;
+      if (size_ < entries_.length)
+         size_++;
+      else
+         head_ = (head_ + 1) % entries_.length;
+
+      return entry;
+   }
+
+   public static boolean isEnabled()
+   {
+      return enabled_;
+   }
+
+   /**
+    * Turns logging on or off. Turning it off discards the entries logged
+    * so far.
+    */
+   public static void setEnabled(boolean enabled)
+   {
+      enabled_ = enabled;
+      if (!enabled)
+         clear();
+   }
+
+   public static void setCapacity(int capacity)
+   {
+      capacity_ = Math.max(1, capacity);
+      clear();
+   }
+
+   /**
+    * Maximum number of characters of request and response data to keep
+    * per entry (or -1 to keep everything).
+    */
+   public static void setMaxPayloadLength(int maxPayloadLength)
+   {
+      maxPayloadLength_ = maxPayloadLength;
+   }
+
+   /**
+    * Log only one of every sampleInterval requests (1 to log every one).
+    */
+   public static void setSampleInterval(int sampleInterval)
+   {
+      sampleInterval_ = Math.max(1, sampleInterval);
+      sampleCounter_ = 0;
+   }
+
+   public static void clear()
+   {
+      entries_ = null;
+      head_ = 0;
+      size_ = 0;
+   }
+
+   static String truncate(String data)
+   {
+      if (data == null ||
+          maxPayloadLength_ < 0 ||
+          data.length() <= maxPayloadLength_)
       {
-         RequestLogEntry oldEntry = entries_.get(i);
-         if (!oldEntry.isAlive())
-         {
-            entries_.remove(i);
-            i--;
-         }
+         return data;
       }
 
-      return entry;
+      return data.substring(0, maxPayloadLength_) +
+             "... [" + (data.length() - maxPayloadLength_) +
+             " characters truncated]";
+   }
+
+   /**
+    * Records that a multicall carrying the given number of requests was
+    * sent (see RpcRequestBatcher).
+    */
+   public static void logBatch(int size)
+   {
+      batchCount_++;
+      batchedRequestCount_ += size;
+      maxBatchSize_ = Math.max(maxBatchSize_, size);
+   }
+
+   public static int getBatchCount()
+   {
+      return batchCount_;
+   }
+
+   public static int getBatchedRequestCount()
+   {
+      return batchedRequestCount_;
+   }
+
+   public static int getMaxBatchSize()
+   {
+      return maxBatchSize_;
+   }
+
+   public static double getAverageBatchSize()
+   {
+      if (batchCount_ == 0)
+         return 0;
+      return (double) batchedRequestCount_ / batchCount_;
    }
 
    public static RequestLogEntry[] getEntries()
    {
-      RequestLogEntry[] entries = new RequestLogEntry[entries_.size()];
-      for (int i = 0; i < entries.length; i++)
-         entries[i] = entries_.get(i).clone();
+      RequestLogEntry[] entries = new RequestLogEntry[size_];
+      for (int i = 0; i < size_; i++)
+         entries[i] = entries_[(head_ + i) % entries_.length].clone();
       return entries;
    }
 
-   private static final ArrayList<RequestLogEntry> entries_ =
-         new ArrayList<RequestLogEntry>();
+   // returned when we aren't logging (so callers needn't check for null)
+   private static final RequestLogEntry DISABLED_ENTRY =
+                                       new RequestLogEntry(0, null, null)
+   {
+      @Override
+      public void logResponse(int responseType, String data)
+      {
+      }
+   };
+
+   private static boolean enabled_ = false;
+   private static int capacity_ = 50;
+   private static int maxPayloadLength_ = 2048;
+   private static int sampleInterval_ = 1;
+   private static int sampleCounter_ = 0;
+
+   // allocated on first use (so there's no cost unless logging is enabled)
+   private static RequestLogEntry[] entries_ = null;
+   private static int head_ = 0;
+   private static int size_ = 0;
 
-   private static final int MAX_ENTRIES = 50;
+   private static int batchCount_ = 0;
+   private static int batchedRequestCount_ = 0;
+   private static int maxBatchSize_ = 0;
 }
@@ -65,7 +65,7 @@ public class RequestLogEntry
    {
       responseType_ = responseType;
       responseTime_ = System.currentTimeMillis();
-      responseData_ = data;
+      responseData_ = RequestLog.truncate(data);
    }
 
    public int getResponseType()
@@ -0,0 +1,162 @@
+/*
+ * RpcMethodMetrics.java
+ *
+ * Copyright (C) 2009-11 by RStudio, Inc.
+ *
+ * This program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.jsonrpc;
+
+import com.google.gwt.json.client.JSONArray;
+import com.google.gwt.json.client.JSONNumber;
+import com.google.gwt.json.client.JSONObject;
+import com.google.gwt.json.client.JSONString;
+
+/**
+ * Counters and a fixed-bucket latency histogram for a single rpc method.
+ * Recording is O(number of buckets) with no allocation.
+ */
+public class RpcMethodMetrics
+{
+   // upper bounds (inclusive) of the latency buckets, in milliseconds. the
+   // last bucket holds everything slower than the last bound
+   public static final int[] BUCKET_BOUNDS_MS = {
+      5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000
+   };
+
+   RpcMethodMetrics(String method)
+   {
+      method_ = method;
+   }
+
+   void recordCall(int latencyMs, int requestChars, int responseChars,
+                   boolean error)
+   {
+      count_++;
+      totalMs_ += latencyMs;
+      maxMs_ = Math.max(maxMs_, latencyMs);
+      requestChars_ += requestChars;
+      responseChars_ += responseChars;
+      if (error)
+         errors_++;
+
+      int bucket = 0;
+      while (bucket < BUCKET_BOUNDS_MS.length &&
+             latencyMs > BUCKET_BOUNDS_MS[bucket])
+      {
+         bucket++;
+      }
+      buckets_[bucket]++;
+   }
+
+   void recordRetry()
+   {
+      retries_++;
+   }
+
+   public String getMethod()
+   {
+      return method_;
+   }
+
+   public int getCount()
+   {
+      return count_;
+   }
+
+   public int getErrorCount()
+   {
+      return errors_;
+   }
+
+   public int getRetryCount()
+   {
+      return retries_;
+   }
+
+   // sizes are in characters of JSON text (not encoded bytes)
+   public double getRequestChars()
+   {
+      return requestChars_;
+   }
+
+   public double getResponseChars()
+   {
+      return responseChars_;
+   }
+
+   public int getMaxMs()
+   {
+      return maxMs_;
+   }
+
+   public double getMeanMs()
+   {
+      return count_ == 0 ? 0 : totalMs_ / count_;
+   }
+
+   /**
+    * Estimates the given percentile (0-100) of latency as the upper bound
+    * of the bucket it falls in (or the maximum for the last bucket).
+    */
+   public int getPercentileMs(double percentile)
+   {
+      if (count_ == 0)
+         return 0;
+
+      double target = Math.ceil(count_ * percentile / 100.0);
+      int seen = 0;
+      for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++)
+      {
+         seen += buckets_[i];
+         if (seen >= target)
+            return Math.min(BUCKET_BOUNDS_MS[i], maxMs_);
+      }
+      return maxMs_;
+   }
+
+   public int[] getBuckets()
+   {
+      int[] buckets = new int[buckets_.length];
+      for (int i = 0; i < buckets.length; i++)
+         buckets[i] = buckets_[i];
+      return buckets;
+   }
+
+   public JSONObject toJson()
+   {
+      JSONObject json = new JSONObject();
+      json.put("method", new JSONString(method_));
+      json.put("count", new JSONNumber(count_));
+      json.put("errors", new JSONNumber(errors_));
+      json.put("retries", new JSONNumber(retries_));
+      json.put("request_chars", new JSONNumber(requestChars_));
+      json.put("response_chars", new JSONNumber(responseChars_));
+      json.put("mean_ms", new JSONNumber(getMeanMs()));
+      json.put("max_ms", new JSONNumber(maxMs_));
+      json.put("p50_ms", new JSONNumber(getPercentileMs(50)));
+      json.put("p95_ms", new JSONNumber(getPercentileMs(95)));
+      json.put("p99_ms", new JSONNumber(getPercentileMs(99)));
+
+      JSONArray buckets = new JSONArray();
+      for (int i = 0; i < buckets_.length; i++)
+         buckets.set(i, new JSONNumber(buckets_[i]));
+      json.put("buckets", buckets);
+      return json;
+   }
+
+   private final String method_;
+   private int count_ = 0;
+   private int errors_ = 0;
+   private int retries_ = 0;
+   private double totalMs_ = 0;
+   private int maxMs_ = 0;
+   private double requestChars_ = 0;
+   private double responseChars_ = 0;
+   private final int[] buckets_ = new int[BUCKET_BOUNDS_MS.length + 1];
+}
@@ -0,0 +1,106 @@
+/*
+ * RpcMetrics.java
+ *
+ * Copyright (C) 2009-11 by RStudio, Inc.
+ *
+ * This program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.jsonrpc;
+
+import com.google.gwt.json.client.JSONArray;
+import com.google.gwt.json.client.JSONNumber;
+import com.google.gwt.json.client.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+
+/**
+ * Always-on per-method rpc metrics (latency histogram, payload sizes,
+ * retries and errors). Unlike RequestLog this keeps aggregate counters
+ * only, so it covers the whole session at a fixed cost per method.
+ */
+public class RpcMetrics
+{
+   public static void recordCall(String method,
+                                 long startTime,
+                                 int requestChars,
+                                 int responseChars,
+                                 boolean error)
+   {
+      int latencyMs = (int) (System.currentTimeMillis() - startTime);
+      getMethodMetrics(method).recordCall(latencyMs,
+                                          requestChars,
+                                          responseChars,
+                                          error);
+   }
+
+   public static void recordRetry(String method)
+   {
+      getMethodMetrics(method).recordRetry();
+   }
+
+   /**
+    * Metrics for all methods called so far, busiest first.
+    */
+   public static ArrayList<RpcMethodMetrics> getMetrics()
+   {
+      ArrayList<RpcMethodMetrics> metrics =
+                     new ArrayList<RpcMethodMetrics>(metrics_.values());
+      Collections.sort(metrics, new Comparator<RpcMethodMetrics>()
+      {
+         public int compare(RpcMethodMetrics a, RpcMethodMetrics b)
+         {
+            return b.getCount() - a.getCount();
+         }
+      });
+      return metrics;
+   }
+
+   public static void reset()
+   {
+      metrics_.clear();
+      startTime_ = System.currentTimeMillis();
+   }
+
+   public static String toJson()
+   {
+      JSONObject json = new JSONObject();
+      json.put("start_time", new JSONNumber(startTime_));
+      json.put("end_time", new JSONNumber(System.currentTimeMillis()));
+
+      JSONArray bounds = new JSONArray();
+      for (int i = 0; i < RpcMethodMetrics.BUCKET_BOUNDS_MS.length; i++)
+         bounds.set(i, new JSONNumber(RpcMethodMetrics.BUCKET_BOUNDS_MS[i]));
+      json.put("bucket_bounds_ms", bounds);
+
+      JSONArray methods = new JSONArray();
+      ArrayList<RpcMethodMetrics> metrics = getMetrics();
+      for (int i = 0; i < metrics.size(); i++)
+         methods.set(i, metrics.get(i).toJson());
+      json.put("methods", methods);
+
+      return json.toString();
+   }
+
+   private static RpcMethodMetrics getMethodMetrics(String method)
+   {
+      RpcMethodMetrics metrics = metrics_.get(method);
+      if (metrics == null)
+      {
+         metrics = new RpcMethodMetrics(method);
+         metrics_.put(method, metrics);
+      }
+      return metrics;
+   }
+
+   private static final HashMap<String, RpcMethodMetrics> metrics_ =
+                                    new HashMap<String, RpcMethodMetrics>();
+   private static long startTime_ = System.currentTimeMillis();
+}
@@ -0,0 +1,259 @@
+/*
+ * RpcRecordStreamRequest.java
+ *
+ * Copyright (C) 2009-11 by RStudio, Inc.
+ *
+ * This program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.jsonrpc;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.json.client.JSONArray;
+import com.google.gwt.json.client.JSONNumber;
+import com.google.gwt.json.client.JSONObject;
+import com.google.gwt.json.client.JSONString;
+import com.google.gwt.user.client.Random;
+import org.rstudio.core.client.jsonrpc.RequestLogEntry.ResponseType;
+
+/**
+ * A json-rpc request whose response is a stream of newline delimited json
+ * records rather than a single json object. The response is read
+ * progressively (as the browser receives it) and each record is parsed
+ * and delivered as soon as its terminating newline arrives, so large
+ * responses neither delay processing until the last byte nor require a
+ * single large parse. A record with an "error" field ends the stream with
+ * that error.
+ */
+public class RpcRecordStreamRequest
+{
+   public interface Callback
+   {
+      void onRecordReceived(RpcRecordStreamRequest request,
+                            JavaScriptObject record);
+      void onCompleted(RpcRecordStreamRequest request);
+      void onError(RpcRecordStreamRequest request, RpcError error);
+   }
+
+   public static native boolean isSupported() /*-{
+      if (typeof($wnd.XMLHttpRequest) == 'undefined')
+         return false;
+      return 'onprogress' in new $wnd.XMLHttpRequest();
+   }-*/;
+
+   public RpcRecordStreamRequest(String url,
+                                 String method,
+                                 JSONArray params,
+                                 String clientId,
+                                 double clientVersion)
+   {
+      url_ = url;
+      method_ = method;
+      params_ = params;
+      clientId_ = clientId;
+      clientVersion_ = clientVersion;
+   }
+
+   public void send(Callback callback)
+   {
+      callback_ = callback;
+
+      JSONObject request = new JSONObject();
+      request.put("method", new JSONString(method_));
+      if (params_ != null)
+         request.put("params", params_);
+      if (clientId_ != null)
+         request.put("clientId", new JSONString(clientId_));
+      request.put("version", new JSONNumber(clientVersion_));
+
+      String requestId = Integer.toString(Random.nextInt());
+      String requestString = request.toString();
+      requestLogEntry_ = RequestLog.log(requestId, requestString);
+      requestChars_ = requestString.length();
+      startTime_ = System.currentTimeMillis();
+
+      xhr_ = sendNative(url_, requestString, requestId);
+   }
+
+   public void cancel()
+   {
+      if (xhr_ != null)
+      {
+         abortNative(xhr_);
+         xhr_ = null;
+      }
+
+      if (requestLogEntry_ != null)
+      {
+         requestLogEntry_.logResponse(ResponseType.Cancelled, "Cancelled");
+         requestLogEntry_ = null;
+      }
+
+      done_ = true;
+   }
+
+   private native JavaScriptObject sendNative(String url,
+                                              String body,
+                                              String requestId) /*-{
+      var self = this;
+      var xhr = new $wnd.XMLHttpRequest();
+      xhr.open("POST", url, true);
+      xhr.setRequestHeader("Content-Type", "application/json");
+      xhr.setRequestHeader("Accept", "application/x-ndjson");
+      xhr.setRequestHeader("X-RS-RID", requestId);
+
+      var onProgress = $entry(function() {
+         // responseText isn't readable until the LOADING state
+         if (xhr.readyState == 3)
+            self.@org.rstudio.core.client.jsonrpc.RpcRecordStreamRequest::onProgress(Ljava/lang/String;)(xhr.responseText);
+      });
+      xhr.onprogress = onProgress;
+      xhr.onreadystatechange = $entry(function() {
+         if (xhr.readyState == 3)
+         {
+            onProgress();
+         }
+         else if (xhr.readyState == 4)
+         {
+            xhr.onreadystatechange = function() {};
+            xhr.onprogress = null;
+            self.@org.rstudio.core.client.jsonrpc.RpcRecordStreamRequest::onDone(ILjava/lang/String;)(xhr.status, xhr.responseText);
+         }
+      });
+
+      xhr.send(body);
+      return xhr;
+   }-*/;
+
+   private native void abortNative(JavaScriptObject xhr) /*-{
+      xhr.onreadystatechange = function() {};
+      xhr.onprogress = null;
+      xhr.abort();
+   }-*/;
+
+   private void onProgress(String responseText)
+   {
+      if (done_ || responseText == null)
+         return;
+
+      // deliver each complete record we haven't yet seen (note that the
+      // response text always includes everything received so far)
+      int start = consumed_;
+      int newline;
+      while ((newline = responseText.indexOf('\n', start)) != -1)
+      {
+         String line = responseText.substring(start, newline);
+         start = newline + 1;
+         consumed_ = start;
+         if (line.length() > 0 && !onRecord(line))
+            return;
+      }
+   }
+
+   private void onDone(int status, String responseText)
+   {
+      if (done_)
+         return;
+
+      if (status == 200)
+      {
+         onProgress(responseText);
+         if (done_)
+            return;
+
+         // a trailing record without a newline (e.g. a json-rpc error sent
+         // in place of the stream)
+         if (responseText != null && consumed_ < responseText.length())
+         {
+            String line = responseText.substring(consumed_).trim();
+            consumed_ = responseText.length();
+            if (line.length() > 0 && !onRecord(line))
+               return;
+         }
+
+         done_ = true;
+         xhr_ = null;
+         requestLogEntry_.logResponse(ResponseType.Normal,
+                                      recordCount_ + " records");
+         RpcMetrics.recordCall(method_,
+                               startTime_,
+                               requestChars_,
+                               consumed_,
+                               false);
+         callback_.onCompleted(this);
+      }
+      else
+      {
+         String message = "Status code " +
+                          Integer.toString(status) +
+                          " returned";
+         if (status == 0)
+            message = "Unable to establish connection with R session";
+
+         requestLogEntry_.logResponse(ResponseType.Unknown, message);
+         fail(RpcError.create(RpcError.TRANSMISSION_ERROR, message));
+      }
+   }
+
+   // returns false if the stream has ended
+   private boolean onRecord(String line)
+   {
+      RpcResponse record = RpcResponse.parse(line);
+      if (record == null)
+      {
+         requestLogEntry_.logResponse(ResponseType.Error, line);
+         fail(RpcError.create(RpcError.TRANSMISSION_ERROR,
+                              "Unable to parse event record"));
+         return false;
+      }
+
+      if (record.getError() != null)
+      {
+         requestLogEntry_.logResponse(ResponseType.Normal, line);
+         fail(record.getError());
+         return false;
+      }
+
+      recordCount_++;
+      callback_.onRecordReceived(this, record);
+
+      // the callback may have cancelled us
+      return !done_;
+   }
+
+   private void fail(RpcError error)
+   {
+      RpcMetrics.recordCall(method_, startTime_, requestChars_, 0, true);
+
+      if (xhr_ != null)
+      {
+         abortNative(xhr_);
+         xhr_ = null;
+      }
+      done_ = true;
+      callback_.onError(this, error);
+   }
+
+   public int getRecordCount()
+   {
+      return recordCount_;
+   }
+
+   private final String url_;
+   private final String method_;
+   private final JSONArray params_;
+   private final String clientId_;
+   private final double clientVersion_;
+   private Callback callback_;
+   private JavaScriptObject xhr_;
+   private RequestLogEntry requestLogEntry_;
+   private int consumed_ = 0;
+   private int recordCount_ = 0;
+   private int requestChars_ = 0;
+   private long startTime_ = 0;
+   private boolean done_ = false;
+}
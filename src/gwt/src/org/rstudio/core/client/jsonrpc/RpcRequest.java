@@ -13,6 +13,7 @@
 
 package org.rstudio.core.client.jsonrpc;
 
+import com.google.gwt.core.client.JsArray;
 import com.google.gwt.http.client.*;
 import com.google.gwt.json.client.JSONArray;
 import com.google.gwt.json.client.JSONNumber;
@@ -22,6 +23,9 @@ import com.google.gwt.user.client.Random;
 import org.rstudio.core.client.Debug;
 import org.rstudio.core.client.jsonrpc.RequestLogEntry.ResponseType;
 
+import java.util.ArrayList;
+import java.util.List;
+
 // NOTE: RpcRequest is an immutable object (all fields are marked final).
 // this means that it is safe to re-submit an RpcRequest since the 
 // re-submission will always be identical to the initial submission (useful
@@ -48,6 +52,53 @@ public class RpcRequest
       clientVersion_ = new JSONNumber(clientVersion);
    }
    
+   private RpcRequest(String url,
+                      String method,
+                      JSONArray params,
+                      JSONString clientId,
+                      JSONNumber clientVersion)
+   {
+      url_ = url;
+      method_ = method;
+      params_ = params;
+      kwparams_ = null;
+      clientId_ = clientId;
+      clientVersion_ = clientVersion;
+   }
+   
+   // create a multicall request which carries each of the passed requests
+   // (the client id and version are taken from the first request)
+   static RpcRequest createBatch(String url, 
+                                 String method, 
+                                 List<RpcRequest> requests)
+   {
+      JSONArray calls = new JSONArray();
+      for (int i = 0; i < requests.size(); i++)
+      {
+         RpcRequest request = requests.get(i);
+         JSONObject call = new JSONObject();
+         call.put("method", new JSONString(request.method_));
+         call.put("params", request.params_ != null ? request.params_ 
+                                                    : new JSONArray());
+         calls.set(i, call);
+         request.batchedChars_ = call.toString().length();
+      }
+      
+      RpcRequest first = requests.get(0);
+      RpcRequest batch = new RpcRequest(url, 
+                                        method, 
+                                        calls, 
+                                        first.clientId_, 
+                                        first.clientVersion_);
+      batch.batchedRequests_ = new ArrayList<RpcRequest>(requests);
+      return batch;
+   }
+   
+   public String getMethod()
+   {
+      return method_;
+   }
+   
    public void send(RpcRequestCallback callback)
    {
       // final references for access from anonymous class
@@ -77,9 +128,10 @@ public class RpcRequest
       builder.setHeader("X-RS-RID", requestId);
       
       // send request
+      final long startTime = System.currentTimeMillis();
+      final String requestString = request.toString();
       try
       {
-         String requestString = request.toString();
          if (TRACE)
             Debug.log("Request: " + requestString) ;
 
@@ -91,6 +143,7 @@ public class RpcRequest
             {      
                requestLogEntry_.logResponse(ResponseType.Error,
                                            exception.getLocalizedMessage());
+               recordMetrics(startTime, requestString, null, null);
                // ERROR: Request failed
                RpcError error = RpcError.create(
                                           RpcError.TRANSMISSION_ERROR,
@@ -115,6 +168,10 @@ public class RpcRequest
                      requestLogEntry_.logResponse(ResponseType.Normal,
                                                  responseText);
                      rpcResponse = RpcResponse.parse(responseText);
+                     recordMetrics(startTime,
+                                   requestString,
+                                   responseText,
+                                   rpcResponse);
                      
                      // response received and validated, process it!
                      requestCallback.onResponseReceived(enclosingRequest, 
@@ -147,6 +204,7 @@ public class RpcRequest
                  
                   requestLogEntry_.logResponse(ResponseType.Unknown,
                                               message);
+                  recordMetrics(startTime, requestString, null, null);
                   RpcError error = RpcError.create(
                                              RpcError.TRANSMISSION_ERROR,
                                              message) ;
@@ -163,6 +221,7 @@ public class RpcRequest
         
          if (requestLogEntry_ != null)
             requestLogEntry_.logResponse(ResponseType.Unknown, message);
+         recordMetrics(startTime, requestString, null, null);
          
          RpcError error = RpcError.create(RpcError.TRANSMISSION_ERROR,
                                           message);
@@ -170,8 +229,62 @@ public class RpcRequest
       }
    }
    
+   private void recordMetrics(long startTime,
+                              String requestString,
+                              String responseText,
+                              RpcResponse response)
+   {
+      int requestChars = requestString.length();
+      int responseChars = responseText != null ? responseText.length() : 0;
+      boolean error = response == null || response.getError() != null;
+      if (batchedRequests_ == null)
+      {
+         RpcMetrics.recordCall(method_, 
+                               startTime, 
+                               requestChars, 
+                               responseChars, 
+                               error);
+         return;
+      }
+      
+      // charge each call of a batch with its own part of the request and
+      // response, leaving just the envelope to the multicall method
+      JsArray<RpcResponse> responses = null;
+      if (!error)
+         responses = response.<JsArray<RpcResponse>>getResult();
+      for (int i = 0; i < batchedRequests_.size(); i++)
+      {
+         RpcRequest call = batchedRequests_.get(i);
+         RpcResponse callResponse = null;
+         if (responses != null && i < responses.length())
+            callResponse = responses.get(i);
+         int callResponseChars = 0;
+         if (callResponse != null)
+            callResponseChars =
+                        new JSONObject(callResponse).toString().length();
+         
+         RpcMetrics.recordCall(call.method_,
+                               startTime,
+                               call.batchedChars_,
+                               callResponseChars,
+                               callResponse == null ||
+                               callResponse.getError() != null);
+         requestChars -= call.batchedChars_;
+         responseChars -= callResponseChars;
+      }
+      RpcMetrics.recordCall(method_, 
+                            startTime, 
+                            Math.max(requestChars, 0), 
+                            Math.max(responseChars, 0), 
+                            error);
+   }
+   
    public void cancel()
    {
+      // requests which are waiting in (or travelling with) a batch have no
+      // request of their own, the batcher checks this flag instead
+      cancelled_ = true;
+      
       if (request_ != null)
       {
          request_.cancel();
@@ -184,6 +297,11 @@ public class RpcRequest
          requestLogEntry_ = null;
       }
    }
+   
+   boolean isCancelled()
+   {
+      return cancelled_;
+   }
      
    final private String url_ ;
    final private String method_ ;
@@ -193,6 +311,12 @@ public class RpcRequest
    final private JSONNumber clientVersion_;
    private Request request_ = null;
    private RequestLogEntry requestLogEntry_ = null;
+   private boolean cancelled_ = false;
+   
+   // for a multicall, the requests it carries, and for each of those, the
+   // length of its part of the multicall request
+   private ArrayList<RpcRequest> batchedRequests_ = null;
+   private int batchedChars_ = 0;
    
      
 }
@@ -0,0 +1,223 @@
+/*
+ * RpcRequestBatcher.java
+ *
+ * Copyright (C) 2009-11 by RStudio, Inc.
+ *
+ * This program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.jsonrpc;
+
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+import com.google.gwt.user.client.Command;
+
+import java.util.ArrayList;
+
+/**
+ * Collects requests sent during the same event loop turn and sends them
+ * to the server as a single multicall request. The server replies with a
+ * response for each call, which is delivered to that call's callback
+ * exactly as if the request had been sent on its own. A turn in which
+ * only one request was sent doesn't pay for the envelope.
+ *
+ * Failures of the round trip as a whole are retried once for all of the
+ * calls together (callers shouldn't install retry logic of their own for
+ * batched calls). Calls which are cancelled before their response
+ * arrives are dropped from the batch or have their response discarded.
+ */
+public class RpcRequestBatcher
+{
+   public interface ErrorResolver
+   {
+      // return true if the error was resolved and retry will be executed
+      boolean resolveAndRetry(RpcError error, Command retry);
+   }
+
+   public RpcRequestBatcher(String url, 
+                            String method, 
+                            ErrorResolver errorResolver)
+   {
+      url_ = url;
+      method_ = method;
+      errorResolver_ = errorResolver;
+   }
+
+   public void send(RpcRequest request, RpcRequestCallback callback)
+   {
+      requests_.add(request);
+      callbacks_.add(callback);
+
+      if (!flushScheduled_)
+      {
+         flushScheduled_ = true;
+         Scheduler.get().scheduleFinally(new ScheduledCommand()
+         {
+            public void execute()
+            {
+               flush();
+            }
+         });
+      }
+   }
+
+   private void flush()
+   {
+      flushScheduled_ = false;
+
+      ArrayList<RpcRequest> requests = requests_;
+      ArrayList<RpcRequestCallback> callbacks = callbacks_;
+      requests_ = new ArrayList<RpcRequest>();
+      callbacks_ = new ArrayList<RpcRequestCallback>();
+
+      sendCalls(requests, callbacks, false);
+   }
+
+   private void sendCalls(ArrayList<RpcRequest> allRequests,
+                          ArrayList<RpcRequestCallback> allCallbacks,
+                          final boolean retried)
+   {
+      // drop calls which were cancelled while waiting to be sent
+      final ArrayList<RpcRequest> requests = new ArrayList<RpcRequest>();
+      final ArrayList<RpcRequestCallback> callbacks =
+                                          new ArrayList<RpcRequestCallback>();
+      for (int i = 0; i < allRequests.size(); i++)
+      {
+         if (!allRequests.get(i).isCancelled())
+         {
+            requests.add(allRequests.get(i));
+            callbacks.add(allCallbacks.get(i));
+         }
+      }
+
+      if (requests.isEmpty())
+         return;
+
+      final boolean single = requests.size() == 1;
+      final Command retry = new Command()
+      {
+         public void execute()
+         {
+            RpcMetrics.recordRetry(single ? requests.get(0).getMethod()
+                                          : method_);
+            sendCalls(requests, callbacks, true);
+         }
+      };
+
+      RpcRequest request;
+      if (single)
+      {
+         request = requests.get(0);
+      }
+      else
+      {
+         RequestLog.logBatch(requests.size());
+         request = RpcRequest.createBatch(url_, method_, requests);
+      }
+
+      // note that a batch records the metrics for each of its calls
+      request.send(new RpcRequestCallback()
+      {
+         public void onError(RpcRequest request, RpcError error)
+         {
+            // a batch that didn't make it is sent again (once) as a whole
+            // rather than leaving each of its calls to retry on its own
+            if (!single && !retried)
+            {
+               retry.execute();
+               return;
+            }
+
+            for (int i = 0; i < requests.size(); i++)
+            {
+               RpcRequest callRequest = requests.get(i);
+               if (callRequest.isCancelled())
+                  continue;
+               callbacks.get(i).onError(callRequest, error);
+            }
+         }
+
+         public void onResponseReceived(RpcRequest request,
+                                        RpcResponse response)
+         {
+            // an error for the batch as a whole (e.g. unauthorized) is
+            // resolved once and otherwise applies to each of the calls
+            if (response.getError() != null)
+            {
+               if (!retried && 
+                   errorResolver_ != null &&
+                   errorResolver_.resolveAndRetry(response.getError(), 
+                                                  retry))
+               {
+                  return;
+               }
+
+               for (int i = 0; i < requests.size(); i++)
+               {
+                  RpcRequest callRequest = requests.get(i);
+                  if (callRequest.isCancelled())
+                     continue;
+                  callbacks.get(i).onResponseReceived(callRequest, response);
+               }
+               return;
+            }
+
+            if (single)
+            {
+               callbacks.get(0).onResponseReceived(requests.get(0), 
+                                                   response);
+               return;
+            }
+
+            JsArray<RpcResponse> responses =
+                              response.<JsArray<RpcResponse>>getResult();
+            for (int i = 0; i < requests.size(); i++)
+            {
+               RpcRequest callRequest = requests.get(i);
+               RpcRequestCallback callback = callbacks.get(i);
+
+               RpcResponse callResponse = null;
+               if (responses != null && i < responses.length())
+                  callResponse = responses.get(i);
+               if (callRequest.isCancelled())
+                  continue;
+
+               if (callResponse == null)
+               {
+                  callback.onError(callRequest, RpcError.create(
+                                       RpcError.TRANSMISSION_ERROR,
+                                       "No response for " +
+                                       callRequest.getMethod()));
+                  continue;
+               }
+
+               // handle exceptions per call (as RpcRequest does) so that
+               // one failing callback doesn't affect the others
+               try
+               {
+                  callback.onResponseReceived(callRequest, callResponse);
+               }
+               catch(Exception e)
+               {
+                  callback.onError(callRequest, RpcError.create(
+                                                RpcError.TRANSMISSION_ERROR,
+                                                e.getLocalizedMessage()));
+               }
+            }
+         }
+      });
+   }
+
+   private final String url_;
+   private final String method_;
+   private final ErrorResolver errorResolver_;
+   private ArrayList<RpcRequest> requests_ = new ArrayList<RpcRequest>();
+   private ArrayList<RpcRequestCallback> callbacks_ =
+                                          new ArrayList<RpcRequestCallback>();
+   private boolean flushScheduled_ = false;
+}
@@ -36,6 +36,7 @@ import org.rstudio.core.client.command.KeyboardShortcut;
 import org.rstudio.core.client.jsonrpc.RequestLog;
 import org.rstudio.core.client.jsonrpc.RequestLogEntry;
 import org.rstudio.core.client.jsonrpc.RequestLogEntry.ResponseType;
+import org.rstudio.core.client.jsonrpc.RpcMetrics;
 import org.rstudio.core.client.widget.ModalDialog;
 import org.rstudio.core.client.widget.OperationWithInput;
 import org.rstudio.core.client.widget.ScrollPanelWithClick;
@@ -83,6 +84,10 @@ public class RequestLogVisualization extends Composite
    public RequestLogVisualization(ApplicationServerOperations server)
    {
       server_ = server;
+
+      // the log is only kept while we're showing it
+      RequestLog.setEnabled(true);
+
       overviewPanel_ = new LayoutPanel();
       overviewPanel_.getElement().getStyle().setProperty("borderRight",
                                                          "2px dashed #888");
@@ -106,16 +111,7 @@ public class RequestLogVisualization extends Composite
       detail_.getElement().getStyle().setBackgroundColor("#FFE");
 
       instructions_ = new HTML();
-      instructions_.setHTML("<p>Click on a request to see details. Click on the " +
-                            "background to show these instructions again.</p>" +
-                            "<h4>Available commands:</h4>" +
-                            "<ul>" +
-                            "<li>Esc: Close</li>" +
-                            "<li>P: Play/pause</li>" +
-                            "<li>E: Export</li>" +
-                            "<li>I: Import</li>" +
-                            "<li>+/-: Zoom in/out</li>" +
-                            "</ul>");
+      updateInstructions();
       detail_.setWidget(instructions_);
 
       outerPanel.addSouth(detail_, 200);
@@ -140,20 +136,48 @@ public class RequestLogVisualization extends Composite
    protected void onUnload()
    {
       timer_.cancel();
+      RequestLog.setEnabled(false);
       super.onUnload();
    }
 
+   private void updateInstructions()
+   {
+      double avgBatchSize =
+                     Math.round(RequestLog.getAverageBatchSize() * 10) / 10.0;
+      instructions_.setHTML("<p>Requests are logged while this view is open. " +
+                            "Press R to refresh.</p>" +
+                            "<p>Click on a request to see details. Click on the " +
+                            "background to show these instructions again.</p>" +
+                            "<h4>Available commands:</h4>" +
+                            "<ul>" +
+                            "<li>Esc: Close</li>" +
+                            "<li>P: Play/pause</li>" +
+                            "<li>E: Export</li>" +
+                            "<li>I: Import</li>" +
+                            "<li>+/-: Zoom in/out</li>" +
+                            "<li>M: RPC metrics</li>" +
+                            "<li>J: Export RPC metrics (JSON)</li>" +
+                            "</ul>" +
+                            "<h4>Batching:</h4>" +
+                            "<p>" + RequestLog.getBatchedRequestCount() +
+                            " requests sent in " + RequestLog.getBatchCount() +
+                            " multicall batches (average size " +
+                            avgBatchSize + ", max " +
+                            RequestLog.getMaxBatchSize() + ")</p>");
+   }
+
    private void refresh(boolean reloadEntries, boolean scrollToEnd)
    {
       if (reloadEntries)
       {
          entries_ = RequestLog.getEntries();
          now_ = System.currentTimeMillis();
+         updateInstructions();
       }
 
       overviewPanel_.clear();
 
-      startTime_ = entries_[0].getRequestTime();
+      startTime_ = entries_.length > 0 ? entries_[0].getRequestTime() : now_;
       long duration = now_ - startTime_;
       int totalWidth = (int) (duration * scaleMillisToPixels_);
       totalHeight_ = entries_.length * BAR_HEIGHT;
@@ -260,6 +284,7 @@ public class RequestLogVisualization extends Composite
             CloseEvent.fire(RequestLogVisualization.this,
                             RequestLogVisualization.this);
             handlerRegistration_.removeHandler();
+            RequestLog.setEnabled(false);
          }
          else if (keyCode == 'R'
                   && KeyboardShortcut.getModifierValue(event.getNativeEvent()) == 0)
@@ -290,6 +315,17 @@ public class RequestLogVisualization extends Composite
                                                      null);
             dialog.showModal();
          }
+         else if (keyCode == 'M')
+         {
+            detail_.setWidget(new RpcMetricsTable());
+         }
+         else if (keyCode == 'J')
+         {
+            TextBoxDialog dialog = new TextBoxDialog("Export RPC Metrics",
+                                                     RpcMetrics.toJson(),
+                                                     null);
+            dialog.showModal();
+         }
          else if (keyCode == 'I')
          {
             TextBoxDialog dialog = new TextBoxDialog(
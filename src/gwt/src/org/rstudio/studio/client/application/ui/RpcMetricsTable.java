@@ -0,0 +1,85 @@
+/*
+ * RpcMetricsTable.java
+ *
+ * Copyright (C) 2009-11 by RStudio, Inc.
+ *
+ * This program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.application.ui;
+
+import com.google.gwt.dom.client.Style.Overflow;
+import com.google.gwt.safehtml.shared.SafeHtmlBuilder;
+import com.google.gwt.user.client.ui.Composite;
+import com.google.gwt.user.client.ui.HTML;
+import org.rstudio.core.client.jsonrpc.RpcMethodMetrics;
+import org.rstudio.core.client.jsonrpc.RpcMetrics;
+
+import java.util.ArrayList;
+
+public class RpcMetricsTable extends Composite
+{
+   public RpcMetricsTable()
+   {
+      SafeHtmlBuilder sb = new SafeHtmlBuilder();
+      sb.appendHtmlConstant("<table cellspacing='0' cellpadding='2'><tr>");
+      for (String header : HEADERS)
+      {
+         sb.appendHtmlConstant("<th align='left'>");
+         sb.appendEscaped(header);
+         sb.appendHtmlConstant("</th>");
+      }
+      sb.appendHtmlConstant("</tr>");
+
+      ArrayList<RpcMethodMetrics> metrics = RpcMetrics.getMetrics();
+      for (RpcMethodMetrics m : metrics)
+      {
+         sb.appendHtmlConstant("<tr>");
+         cell(sb, m.getMethod());
+         cell(sb, m.getCount() + "");
+         cell(sb, m.getErrorCount() + "");
+         cell(sb, m.getRetryCount() + "");
+         cell(sb, Math.round(m.getMeanMs()) + "");
+         cell(sb, m.getPercentileMs(50) + "");
+         cell(sb, m.getPercentileMs(95) + "");
+         cell(sb, m.getPercentileMs(99) + "");
+         cell(sb, m.getMaxMs() + "");
+         cell(sb, formatChars(m.getRequestChars()));
+         cell(sb, formatChars(m.getResponseChars()));
+         sb.appendHtmlConstant("</tr>");
+      }
+      sb.appendHtmlConstant("</table>");
+
+      HTML html = new HTML(sb.toSafeHtml());
+      html.setSize("100%", "100%");
+      html.getElement().getStyle().setOverflow(Overflow.AUTO);
+      initWidget(html);
+   }
+
+   private void cell(SafeHtmlBuilder sb, String value)
+   {
+      sb.appendHtmlConstant("<td>");
+      sb.appendEscaped(value);
+      sb.appendHtmlConstant("</td>");
+   }
+
+   // sizes are counted in characters of JSON text rather than bytes
+   private String formatChars(double chars)
+   {
+      if (chars < 1000)
+         return Math.round(chars) + "";
+      else if (chars < 1000 * 1000)
+         return Math.round(chars / 1000) + "K";
+      else
+         return Math.round(chars / (1000 * 1000)) + "M";
+   }
+
+   private static final String[] HEADERS = {
+      "Method", "Calls", "Errors", "Retries", "Mean (ms)", "p50", "p95",
+      "p99", "Max", "Sent (chars)", "Received (chars)"
+   };
+}
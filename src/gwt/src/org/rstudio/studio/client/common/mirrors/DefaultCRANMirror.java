@@ -13,8 +13,10 @@
 package org.rstudio.studio.client.common.mirrors;
 
 import org.rstudio.core.client.widget.OperationWithInput;
+import org.rstudio.studio.client.application.events.EventBus;
 import org.rstudio.studio.client.common.GlobalDisplay;
 import org.rstudio.studio.client.common.SimpleRequestCallback;
+import org.rstudio.studio.client.common.mirrors.events.CRANMirrorChangedEvent;
 import org.rstudio.studio.client.common.mirrors.model.CRANMirror;
 import org.rstudio.studio.client.common.mirrors.model.MirrorsServerOperations;
 import org.rstudio.studio.client.server.ServerRequestCallback;
@@ -30,10 +32,12 @@ public class DefaultCRANMirror
 {
    @Inject
    public DefaultCRANMirror(MirrorsServerOperations server,
-                            GlobalDisplay globalDisplay)
+                            GlobalDisplay globalDisplay,
+                            EventBus events)
    {
       server_ = server;
       globalDisplay_ = globalDisplay;
+      events_ = events;
    }
    
    public void choose(OperationWithInput<CRANMirror> onChosen)
@@ -59,6 +63,10 @@ public class DefaultCRANMirror
                       @Override
                       public void onResponseReceived(Void response)
                       {
+                         // anything derived from the old mirror (e.g. the
+                         // list of available packages) is now stale
+                         events_.fireEvent(new CRANMirrorChangedEvent());
+                         
                          // successfully set, call onConfigured
                          onConfigured.execute();
                       }
@@ -71,6 +79,8 @@ public class DefaultCRANMirror
    
    private final GlobalDisplay globalDisplay_;
    
+   private final EventBus events_;
+   
    private final ChooseMirrorDialog.Source<CRANMirror> mirrorDS_ = 
       new ChooseMirrorDialog.Source<CRANMirror>() {
          
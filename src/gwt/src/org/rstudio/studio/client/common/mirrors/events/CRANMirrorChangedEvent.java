@@ -0,0 +1,37 @@
+/*
+ * CRANMirrorChangedEvent.java
+ *
+ * Copyright (C) 2009-11 by RStudio, Inc.
+ *
+ * This program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.common.mirrors.events;
+
+import com.google.gwt.event.shared.GwtEvent;
+
+public class CRANMirrorChangedEvent extends GwtEvent<CRANMirrorChangedHandler>
+{
+   public static final GwtEvent.Type<CRANMirrorChangedHandler> TYPE =
+      new GwtEvent.Type<CRANMirrorChangedHandler>();
+   
+   public CRANMirrorChangedEvent()
+   {
+   }
+   
+   @Override
+   protected void dispatch(CRANMirrorChangedHandler handler)
+   {
+      handler.onCRANMirrorChanged(this);
+   }
+
+   @Override
+   public GwtEvent.Type<CRANMirrorChangedHandler> getAssociatedType()
+   {
+      return TYPE;
+   }
+}
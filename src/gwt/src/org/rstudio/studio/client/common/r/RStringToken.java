@@ -25,6 +25,17 @@ public class RStringToken extends RToken
       wellFormed_ = wellFormed ;
    }
    
+   RStringToken(String source,
+                int tokenType,
+                int offset,
+                int length,
+                boolean wellFormed)
+   {
+      super(source, tokenType, offset, length) ;
+
+      wellFormed_ = wellFormed ;
+   }
+   
    public boolean isWellFormed()
    {
       return wellFormed_ ;
@@ -0,0 +1,146 @@
+/*
+ * RTokenBuffer.java
+ *
+ * Copyright (C) 2009-11 by RStudio, Inc.
+ *
+ * This program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.common.r;
+
+/**
+ * The tokens of a piece of R code as parallel arrays of types, offsets and
+ * lengths, filled by RTokenizer.tokenize. A buffer can be reused for each
+ * new piece of code, in which case tokenizing allocates nothing once the
+ * arrays have grown large enough. Token contents are only extracted from
+ * the code when asked for.
+ */
+public class RTokenBuffer
+{
+   public int size()
+   {
+      return size_ ;
+   }
+   
+   public String getSource()
+   {
+      return source_ ;
+   }
+   
+   public int getTokenType(int index)
+   {
+      return types_[index] ;
+   }
+   
+   public int getOffset(int index)
+   {
+      return offsets_[index] ;
+   }
+   
+   public int getLength(int index)
+   {
+      return lengths_[index] ;
+   }
+   
+   /**
+    * Whether the string token at the given index is terminated.
+    */
+   public boolean isWellFormed(int index)
+   {
+      return wellFormed_[index] ;
+   }
+   
+   public String getContent(int index)
+   {
+      int offset = offsets_[index] ;
+      return source_.substring(offset, offset + lengths_[index]) ;
+   }
+   
+   /**
+    * Equivalent to getContent(index).equals(content) but without
+    * extracting the token's content.
+    */
+   public boolean contentEquals(int index, String content)
+   {
+      return lengths_[index] == content.length() &&
+             source_.startsWith(content, offsets_[index]) ;
+   }
+   
+   public RToken getToken(int index)
+   {
+      if (types_[index] == RToken.STRING)
+      {
+         return new RStringToken(source_,
+                                 types_[index],
+                                 offsets_[index],
+                                 lengths_[index],
+                                 wellFormed_[index]) ;
+      }
+      else
+      {
+         return new RToken(source_,
+                           types_[index],
+                           offsets_[index],
+                           lengths_[index]) ;
+      }
+   }
+   
+   public void removeLast()
+   {
+      if (size_ > 0)
+         size_-- ;
+   }
+   
+   void reset(String source)
+   {
+      source_ = source ;
+      size_ = 0 ;
+   }
+   
+   void add(int tokenType, int offset, int length, boolean wellFormed)
+   {
+      if (size_ == types_.length)
+         grow() ;
+      
+      types_[size_] = tokenType ;
+      offsets_[size_] = offset ;
+      lengths_[size_] = length ;
+      wellFormed_[size_] = wellFormed ;
+      size_++ ;
+   }
+   
+   private void grow()
+   {
+      int capacity = types_.length * 2 ;
+      
+      int[] types = new int[capacity] ;
+      int[] offsets = new int[capacity] ;
+      int[] lengths = new int[capacity] ;
+      boolean[] wellFormed = new boolean[capacity] ;
+      for (int i = 0; i < size_; i++)
+      {
+         types[i] = types_[i] ;
+         offsets[i] = offsets_[i] ;
+         lengths[i] = lengths_[i] ;
+         wellFormed[i] = wellFormed_[i] ;
+      }
+      
+      types_ = types ;
+      offsets_ = offsets ;
+      lengths_ = lengths ;
+      wellFormed_ = wellFormed ;
+   }
+   
+   private static final int INITIAL_CAPACITY = 64 ;
+   
+   private String source_ = "" ;
+   private int size_ = 0 ;
+   private int[] types_ = new int[INITIAL_CAPACITY] ;
+   private int[] offsets_ = new int[INITIAL_CAPACITY] ;
+   private int[] lengths_ = new int[INITIAL_CAPACITY] ;
+   private boolean[] wellFormed_ = new boolean[INITIAL_CAPACITY] ;
+}
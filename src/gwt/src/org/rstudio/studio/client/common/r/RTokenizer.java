@@ -12,11 +12,15 @@
  */
 package org.rstudio.studio.client.common.r;
 
-import org.rstudio.core.client.regex.Match;
-import org.rstudio.core.client.regex.Pattern;
-
 import java.util.ArrayList;
 
+/**
+ * Splits R code into tokens by scanning it a character at a time, using a
+ * table of character classes for ASCII. The scanner itself allocates
+ * nothing: tokenize() writes each token's type and extent into a reusable
+ * RTokenBuffer, and nextToken() wraps the same scan in an RToken for
+ * callers that want one token at a time.
+ */
 public class RTokenizer
 {
    public RTokenizer(String data)
@@ -27,19 +31,50 @@ public class RTokenizer
    
    public static ArrayList<RToken> asTokens(String code)
    {
-      ArrayList<RToken> results = new ArrayList<RToken>() ;
-      RTokenizer rt = new RTokenizer(code) ;
-      RToken t ;
-      while (null != (t = rt.nextToken()))
-         results.add(t) ;
+      RTokenBuffer buffer = tokenize(code, new RTokenBuffer()) ;
+      ArrayList<RToken> results = new ArrayList<RToken>(buffer.size()) ;
+      for (int i = 0; i < buffer.size(); i++)
+         results.add(buffer.getToken(i)) ;
       return results ;
    }
+   
+   /**
+    * Replaces the contents of the buffer with the tokens of the code and
+    * returns it.
+    */
+   public static RTokenBuffer tokenize(String code, RTokenBuffer buffer)
+   {
+      buffer.reset(code) ;
+      RTokenizer rt = new RTokenizer(code) ;
+      while (rt.scan())
+         buffer.add(rt.tokenType_, rt.tokenOffset_, rt.tokenLength_,
+                    rt.tokenWellFormed_) ;
+      return buffer ;
+   }
 
    public RToken nextToken()
    {
-      if (eol())
+      if (!scan())
          return null ;
       
+      if (tokenType_ == RToken.STRING)
+      {
+         return new RStringToken(data_, tokenType_, tokenOffset_,
+                                 tokenLength_, tokenWellFormed_) ;
+      }
+      else
+      {
+         return new RToken(data_, tokenType_, tokenOffset_, tokenLength_) ;
+      }
+   }
+   
+   // scans the next token into the token fields, returning false at the
+   // end of the data
+   private boolean scan()
+   {
+      if (eol())
+         return false ;
+      
       char c = peek() ;
       
       switch (c)
@@ -49,12 +84,12 @@ public class RTokenizer
       case ';': case ',':
          return consumeToken(c, 1) ;
       case '[':
-         if (peek(1, false) == '[')
+         if (peek(1) == '[')
             return consumeToken(RToken.LDBRACKET, 2) ;
          else
             return consumeToken(c, 1) ;
       case ']':
-         if (peek(1, false) == ']')
+         if (peek(1) == ']')
             return consumeToken(RToken.RDBRACKET, 2) ;
          else
             return consumeToken(c, 1) ;
@@ -72,19 +107,12 @@ public class RTokenizer
          return matchWhitespace() ;
       }
       
-      char cNext = peek(1, false) ;
+      char cNext = peek(1) ;
       
-      if ((c >= '0' && c <= '9')
-            || (c == '.' && cNext >= '0' && cNext <= '9'))
-      {
-         RToken numberToken = matchNumber() ;
-         if (numberToken.getLength() > 0)
-            return numberToken ;
-         
-         assert false : "matchNumber() returned a zero-length token" ;
-      }
+      if (isDigit(c) || (c == '.' && isDigit(cNext)))
+         return matchNumber() ;
       
-      if (Character.isLetter(c) || c == '.')
+      if (isLetter(c) || c == '.')
       {
          // From Section 10.3.2, identifiers must not start with
          // a period followed by a digit.
@@ -95,113 +123,135 @@ public class RTokenizer
          return matchIdentifier() ;
       }
 
-      RToken oper = matchOperator() ;
-      if (oper != null)
-         return oper ;
+      if (matchOperator())
+         return true ;
       
       // Error!!
       return consumeToken(RToken.ERROR, 1) ;
    }
    
-   private RToken matchWhitespace()
+   private boolean matchWhitespace()
    {
-      String whitespace = peek("[\\s\\u00A0]+") ;
-      assert whitespace != null ;
-      return consumeToken(RToken.WHITESPACE, whitespace.length()) ;
+      int end = pos_ + 1 ;
+      while (end < data_.length() && isWhitespace(data_.charAt(end)))
+         end++ ;
+      return consumeToken(RToken.WHITESPACE, end - pos_) ;
    }
    
-   private RToken matchStringLiteral()
+   private boolean matchStringLiteral()
    {
-      int start = pos_ ;
-      char quot = eat() ;
+      char quot = peek() ;
       
       assert quot == '"' || quot == '\'' ;
       
       boolean wellFormed = false ;
       
-      while (!eol())
+      int end = pos_ + 1 ;
+      while (end < data_.length())
       {
-         eatUntil("[\\\\\'\"]", true) ;
-         if (eol())
-            break ;
-         
-         char c = eat() ;
+         char c = data_.charAt(end++) ;
          if (c == quot)
          {
             wellFormed = true ;
             break ;
          }
 
-         if (c == '\\')
+         if (c == '\\' && end < data_.length())
          {
-            if (!eol())
-               eat() ;
             // Actually the escape expression can be longer than
             // just the backslash plus one character--but we don't
             // need to distinguish escape expressions from other 
             // literal text other than for the purposes of breaking
             // out of the string
+            end++ ;
          }
       }
       
-      return new RStringToken(RToken.STRING, 
-                        data_.substring(start, pos_), 
-                        start, 
-                        pos_-start, wellFormed) ;
+      consumeToken(RToken.STRING, end - pos_) ;
+      tokenWellFormed_ = wellFormed ;
+      return true ;
    }
    
-   private RToken matchNumber()
+   private boolean matchNumber()
    {
-      String num = peek("0x[0-9a-fA-F]*L?") ;
-      if (num == null)
-         num = peek("[0-9]*(\\.[0-9]*)?([eE][+-]?[0-9]*)?[Li]?") ;
+      int end = pos_ ;
+      
+      if (peek() == '0' && peek(1) == 'x')
+      {
+         // 0x[0-9a-fA-F]*L?
+         end += 2 ;
+         while (end < data_.length() && isHexDigit(data_.charAt(end)))
+            end++ ;
+         if (charAt(end) == 'L')
+            end++ ;
+      }
+      else
+      {
+         // [0-9]*(\.[0-9]*)?([eE][+-]?[0-9]*)?[Li]?
+         end = skipDigits(end) ;
+         if (charAt(end) == '.')
+            end = skipDigits(end + 1) ;
+         if (charAt(end) == 'e' || charAt(end) == 'E')
+         {
+            end++ ;
+            if (charAt(end) == '+' || charAt(end) == '-')
+               end++ ;
+            end = skipDigits(end) ;
+         }
+         if (charAt(end) == 'L' || charAt(end) == 'i')
+            end++ ;
+      }
 
       // We should only be in this method if 0-9 was matched, so this should
-      // be a safe assumption
-      assert num != null ;
+      // be a non-empty token
+      assert end > pos_ : "matchNumber() found a zero-length token" ;
 
-      return consumeToken(RToken.NUMBER, num.length()) ;
+      return consumeToken(RToken.NUMBER, end - pos_) ;
    }
    
-   private RToken matchIdentifier()
+   private boolean matchIdentifier()
    {
-      int start = pos_ ;
-      eat() ;
-      String rest = peek("[\\w.]*") ;
-      pos_ += (rest != null ? rest : "").length() ;
-      return new RToken(RToken.ID, 
-                        data_.substring(start, pos_), 
-                        start, 
-                        pos_ - start) ;
+      // the first character has already been checked; the rest are [\w.]
+      int end = pos_ + 1 ;
+      while (end < data_.length())
+      {
+         char c = data_.charAt(end) ;
+         if (c != '.' && !hasClass(c, WORD))
+            break ;
+         end++ ;
+      }
+      return consumeToken(RToken.ID, end - pos_) ;
    }
 
-   private RToken matchQuotedIdentifier()
+   private boolean matchQuotedIdentifier()
    {
-      String iden = peek("`[^`]*`") ;
-      if (iden == null)
+      int close = data_.indexOf('`', pos_ + 1) ;
+      if (close == -1)
          return consumeToken(RToken.ERROR, 1);
       else
-         return consumeToken(RToken.ID, iden.length());
+         return consumeToken(RToken.ID, close + 1 - pos_);
    }
 
-   private RToken matchComment()
+   private boolean matchComment()
    {
-      String comment = peek("#.*?$");
-      return consumeToken(RToken.COMMENT, comment.length());
+      int end = pos_ + 1 ;
+      while (end < data_.length() && !isLineTerminator(data_.charAt(end)))
+         end++ ;
+      return consumeToken(RToken.COMMENT, end - pos_);
    }
    
-   private RToken matchUserOperator()
+   private boolean matchUserOperator()
    {
-      String oper = peek("%[^%]*%") ;
-      if (oper == null)
+      int close = data_.indexOf('%', pos_ + 1) ;
+      if (close == -1)
          return consumeToken(RToken.ERROR, 1) ;
       else
-         return consumeToken(RToken.UOPER, oper.length()) ;
+         return consumeToken(RToken.UOPER, close + 1 - pos_) ;
    }
    
-   private RToken matchOperator()
+   private boolean matchOperator()
    {
-      char cNext = peek(1, false) ;
+      char cNext = peek(1) ;
       
       switch (peek())
       {
@@ -223,7 +273,7 @@ public class RTokenizer
       case '!': // also !=
          return consumeToken(RToken.OPER, cNext == '=' ? 2 : 1) ;
       default:
-         return null ;
+         return false ;
       }
    }
 
@@ -234,70 +284,115 @@ public class RTokenizer
    
    private char peek()
    {
-      return peek(0, true) ;
+      return data_.charAt(pos_) ;
    }
    
-   private char peek(int lookahead, boolean throwOnEOL)
+   private char peek(int lookahead)
    {
-      if (!throwOnEOL && (pos_ + lookahead) >= data_.length())
-         return 0 ;
-      return data_.charAt(pos_ + lookahead) ;
+      return charAt(pos_ + lookahead) ;
    }
    
-   private char eat()
+   // the character at the given index, or 0 past the end of the data
+   private char charAt(int index)
    {
-      char result = data_.charAt(pos_) ;
-      pos_++ ; // don't inline--we want the previous line to throw if EOL
-      return result ;
+      return index < data_.length() ? data_.charAt(index) : 0 ;
    }
    
-   private String peek(String regex)
+   private int skipDigits(int index)
    {
-      Match match = Pattern.create(regex).match(data_, pos_) ;
-      if (match == null)
-         return null ;
-      int idx = match.getIndex() ;
-      if (idx != pos_)
-         return null ;
-      
-      return match.getValue() ;
+      while (index < data_.length() && isDigit(data_.charAt(index)))
+         index++ ;
+      return index ;
    }
    
-   private String eatUntil(String regex, boolean eatAllOnFailure)
-   {
-      int start = pos_ ;
-      Match match = Pattern.create(regex).match(data_, pos_) ;
-      if (match == null)
-      {
-         if (eatAllOnFailure)
-         {
-            pos_ = data_.length() ;
-            return data_.substring(start) ;
-         }
-         else
-         {
-            return null ;
-         }
-      }
-      else
-      {
-         pos_ = match.getIndex() ;
-         return data_.substring(start, pos_) ;
-      }
-   }
-   
-   private RToken consumeToken(int tokenType, int length)
+   private boolean consumeToken(int tokenType, int length)
    {
       if (length == 0)
          throw new IllegalArgumentException("Can't create zero-length token") ;
       if (pos_ + length > data_.length())
          throw new IllegalArgumentException("Premature EOF") ;
       
-      int start = pos_ ;
+      tokenType_ = tokenType ;
+      tokenOffset_ = pos_ ;
+      tokenLength_ = length ;
+      tokenWellFormed_ = true ;
       pos_ += length ;
-      return new RToken(tokenType, data_.substring(start, pos_), start, length) ;
+      return true ;
+   }
+   
+   private static boolean hasClass(char c, int charClass)
+   {
+      return c < 128 && (CHAR_CLASSES[c] & charClass) != 0 ;
+   }
+   
+   private static boolean isDigit(char c)
+   {
+      return hasClass(c, DIGIT) ;
+   }
+   
+   private static boolean isHexDigit(char c)
+   {
+      return hasClass(c, HEX_DIGIT) ;
+   }
+   
+   private static boolean isLetter(char c)
+   {
+      return c < 128 ? hasClass(c, LETTER) : Character.isLetter(c) ;
+   }
+   
+   // the characters matched by \s in a JavaScript regex
+   private static boolean isWhitespace(char c)
+   {
+      if (c < 128)
+         return hasClass(c, SPACE) ;
+      
+      switch (c)
+      {
+      case '\u00A0': case '\u1680': case '\u180E':
+      case '\u2028': case '\u2029': case '\u202F':
+      case '\u205F': case '\u3000': case '\uFEFF':
+         return true ;
+      default:
+         return c >= '\u2000' && c <= '\u200A' ;
+      }
+   }
+   
+   // the characters that end a line for the purposes of $ in a multiline regex
+   private static boolean isLineTerminator(char c)
+   {
+      return c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029' ;
+   }
+   
+   private static final int DIGIT     = 0x01 ;
+   private static final int HEX_DIGIT = 0x02 ;
+   private static final int LETTER    = 0x04 ;
+   private static final int WORD      = 0x08 ; // [A-Za-z0-9_]
+   private static final int SPACE     = 0x10 ;
+   
+   private static final byte[] CHAR_CLASSES = new byte[128] ;
+   static
+   {
+      for (char c = '0'; c <= '9'; c++)
+         CHAR_CLASSES[c] = DIGIT | HEX_DIGIT | WORD ;
+      for (char c = 'a'; c <= 'z'; c++)
+         CHAR_CLASSES[c] = LETTER | WORD ;
+      for (char c = 'A'; c <= 'Z'; c++)
+         CHAR_CLASSES[c] = LETTER | WORD ;
+      for (char c = 'a'; c <= 'f'; c++)
+         CHAR_CLASSES[c] |= HEX_DIGIT ;
+      for (char c = 'A'; c <= 'F'; c++)
+         CHAR_CLASSES[c] |= HEX_DIGIT ;
+      CHAR_CLASSES['_'] = WORD ;
+      for (char c : new char[] {' ', '\t', '\n', '\u000B', '\f', '\r'})
+         CHAR_CLASSES[c] = SPACE ;
    }
    
    private final String data_ ;
    private int pos_ ;
+   
+   // the most recently scanned token
+   private int tokenType_ ;
+   private int tokenOffset_ ;
+   private int tokenLength_ ;
+   private boolean tokenWellFormed_ ;
 }
@@ -77,10 +77,16 @@ public interface VCSServerOperations
 
    /**
     * @param spec Revision list or description. "" for default.
+    * @param skip Number of (matching) entries to skip before the first one
+    *    returned. 0 to start at the most recent.
     * @param maxentries Limit the number of entries returned. -1 for no limit.
+    * @param filter Only return entries whose commit message contains this
+    *    text (case insensitive). "" for no filter.
     */
    void vcsHistory(String spec,
+                   int skip,
                    int maxentries,
+                   String filter,
                    ServerRequestCallback<RpcObjectList<CommitInfo>> requestCallback);
 
    void vcsExecuteCommand(
@@ -20,6 +20,7 @@ import com.google.gwt.core.client.JsArrayNumber;
 import com.google.gwt.core.client.JsArrayString;
 import com.google.gwt.http.client.URL;
 import com.google.gwt.json.client.*;
+import com.google.gwt.user.client.Command;
 import com.google.gwt.user.client.Random;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
@@ -61,9 +62,12 @@ import org.rstudio.studio.client.workbench.views.packages.model.PackageInfo;
 import org.rstudio.studio.client.workbench.views.packages.model.PackageInstallContext;
 import org.rstudio.studio.client.workbench.views.packages.model.PackageUpdate;
 import org.rstudio.studio.client.workbench.views.plots.model.SavePlotAsImageContext;
+import org.rstudio.studio.client.workbench.views.plots.model.PlotImage;
 import org.rstudio.studio.client.workbench.views.plots.model.Point;
 import org.rstudio.studio.client.workbench.views.source.editors.text.IconvListResult;
 import org.rstudio.studio.client.workbench.views.source.model.CheckForExternalEditResult;
+import org.rstudio.studio.client.workbench.views.source.model.DataBlock;
+import org.rstudio.studio.client.workbench.views.source.model.DocumentHunk;
 import org.rstudio.studio.client.workbench.views.source.model.PublishPdfResult;
 import org.rstudio.studio.client.workbench.views.source.model.SourceDocument;
 import org.rstudio.studio.client.workbench.views.vcs.dialog.CommitInfo;
@@ -88,6 +92,27 @@ public class RemoteServer implements Server
       eventBus_ = eventBus;
       serverAuth_ = new RemoteServerAuth(this);
       serverEventListener_ = new RemoteServerEventListener(this);
+      requestBatcher_ = new RpcRequestBatcher(
+                  GWT.getHostPageBaseURL() + RPC_SCOPE + "/" + MULTICALL,
+                  MULTICALL,
+                  new RpcRequestBatcher.ErrorResolver() {
+                     public boolean resolveAndRetry(RpcError error,
+                                                    final Command retry)
+                     {
+                        return resolveRpcErrorAndRetry(error, 
+                                                       new RetryHandler() {
+                           public void onRetry()
+                           {
+                              retry.execute();
+                           }
+
+                           public void onError(ServerError error)
+                           {
+                              // not called by resolveRpcErrorAndRetry
+                           }
+                        });
+                     }
+                  });
    }
    
    // complete initialization now that the workbench is ready
@@ -400,6 +425,15 @@ public class RemoteServer implements Server
       sendRequest(RPC_SCOPE, LIST_OBJECTS, requestCallback);
    }
 
+   public void listObjectsSince(
+         int version,
+         ServerRequestCallback<WorkspaceObjectChanges> requestCallback)
+   {
+      JSONArray params = new JSONArray();
+      params.set(0, new JSONNumber(version));
+      sendRequest(RPC_SCOPE, LIST_OBJECTS_SINCE, params, requestCallback);
+   }
+
   
    public void removeAllObjects(ServerRequestCallback<Void> requestCallback)
    {
@@ -835,6 +869,18 @@ public class RemoteServer implements Server
       sendRequest(RPC_SCOPE, PREVIOUS_PLOT, requestCallback);
    }
    
+   public void getPlotImages(
+                  int[] indexes,
+                  ServerRequestCallback<JsArray<PlotImage>> requestCallback)
+   {
+      JSONArray indexesJson = new JSONArray();
+      for (int i=0; i<indexes.length; i++)
+         indexesJson.set(i, new JSONNumber(indexes[i]));
+      JSONArray params = new JSONArray();
+      params.set(0, indexesJson);
+      sendRequest(RPC_SCOPE, GET_PLOT_IMAGES, params, requestCallback);
+   }
+   
    public void removePlot(ServerRequestCallback<Void> requestCallback)
    {
       sendRequest(RPC_SCOPE, REMOVE_PLOT, requestCallback);
@@ -1014,6 +1060,26 @@ public class RemoteServer implements Server
       sendRequest(RPC_SCOPE, SAVE_DOCUMENT_DIFF, params, requestCallback);
    }
 
+   public void saveDocumentHunks(String id,
+                                 String path,
+                                 String fileType,
+                                 String encoding,
+                                 JsArray<DocumentHunk> hunks,
+                                 int expectedLength,
+                                 String hash,
+                                 ServerRequestCallback<String> requestCallback)
+   {
+      JSONArray params = new JSONArray();
+      params.set(0, new JSONString(id));
+      params.set(1, path == null ? JSONNull.getInstance() : new JSONString(path));
+      params.set(2, fileType == null ? JSONNull.getInstance() : new JSONString(fileType));
+      params.set(3, encoding == null ? JSONNull.getInstance() : new JSONString(encoding));
+      params.set(4, new JSONArray(hunks));
+      params.set(5, new JSONNumber(expectedLength));
+      params.set(6, new JSONString(hash));
+      sendRequest(RPC_SCOPE, SAVE_DOCUMENT_HUNKS, params, requestCallback);
+   }
+
    public void checkForExternalEdit(
          String id,
          ServerRequestCallback<CheckForExternalEditResult> requestCallback)
@@ -1033,6 +1099,13 @@ public class RemoteServer implements Server
       sendRequest(RPC_SCOPE, CLOSE_DOCUMENT, id, requestCallback);
    }
 
+   public void getSourceDocument(
+                     String id,
+                     ServerRequestCallback<SourceDocument> requestCallback)
+   {
+      sendRequest(RPC_SCOPE, GET_SOURCE_DOCUMENT, id, requestCallback);
+   }
+
    public void closeAllDocuments(ServerRequestCallback<Void> requestCallback)
    {
       sendRequest(RPC_SCOPE, CLOSE_ALL_DOCUMENTS, requestCallback);
@@ -1139,6 +1212,34 @@ public class RemoteServer implements Server
       sendRequest(RPC_SCOPE, REMOVE_CONTENT_URL, contentUrl, requestCallback);
    }
 
+   public void getDataBlock(String cacheKey,
+                            int rowStart,
+                            int rowCount,
+                            int columnStart,
+                            int columnCount,
+                            int sortColumn,
+                            boolean ascending,
+                            String filter,
+                            ServerRequestCallback<DataBlock> requestCallback)
+   {
+      JSONArray params = new JSONArray();
+      params.set(0, new JSONString(cacheKey));
+      params.set(1, new JSONNumber(rowStart));
+      params.set(2, new JSONNumber(rowCount));
+      params.set(3, new JSONNumber(columnStart));
+      params.set(4, new JSONNumber(columnCount));
+      params.set(5, new JSONNumber(sortColumn));
+      params.set(6, JSONBoolean.getInstance(ascending));
+      params.set(7, new JSONString(filter));
+      sendRequest(RPC_SCOPE, GET_DATA_BLOCK, params, requestCallback);
+   }
+
+   public void removeCachedData(String cacheKey,
+                                ServerRequestCallback<Void> requestCallback)
+   {
+      sendRequest(RPC_SCOPE, REMOVE_CACHED_DATA, cacheKey, requestCallback);
+   }
+
    public void detectFreeVars(String code,
                               ServerRequestCallback<JsArrayString> requestCallback)
    {
@@ -1411,12 +1512,16 @@ public class RemoteServer implements Server
 
    @Override
    public void vcsHistory(String spec,
+                          int skip,
                           int maxentries,
+                          String filter,
                           ServerRequestCallback<RpcObjectList<CommitInfo>> requestCallback)
    {
       JSONArray params = new JSONArray();
       params.set(0, new JSONString(spec));
-      params.set(1, new JSONNumber(maxentries));
+      params.set(1, new JSONNumber(skip));
+      params.set(2, new JSONNumber(maxentries));
+      params.set(3, new JSONString(filter));
       sendRequest(RPC_SCOPE, VCS_HISTORY, params, requestCallback);
    }
 
@@ -1458,6 +1563,62 @@ public class RemoteServer implements Server
                          retryHandler);
    }
    
+   RpcRecordStreamRequest getEventStream(
+         int lastEventId,
+         final RemoteServerEventListener.EventStreamCallback streamCallback,
+         final RetryHandler retryHandler)
+   {
+      JSONArray params = new JSONArray();
+      params.set(0, new JSONNumber(lastEventId));
+      params.set(1, JSONBoolean.getInstance(true));
+      
+      RpcRecordStreamRequest request = new RpcRecordStreamRequest(
+                           getApplicationURL(EVENTS_SCOPE) + "/get_events",
+                           "get_events",
+                           params,
+                           clientId_,
+                           clientVersion_);
+      
+      request.send(new RpcRecordStreamRequest.Callback() {
+         
+         public void onRecordReceived(RpcRecordStreamRequest request,
+                                      JavaScriptObject record)
+         {
+            if (disconnected_ || streamCallback.cancelled())
+            {
+               request.cancel();
+               return;
+            }
+            
+            streamCallback.onEventReceived(
+                  record.<RemoteServerEventListener.ClientEvent>cast());
+         }
+         
+         public void onCompleted(RpcRecordStreamRequest request)
+         {
+            if (disconnected_ || streamCallback.cancelled())
+               return;
+            
+            streamCallback.onResponseReceived(null);
+         }
+         
+         public void onError(RpcRecordStreamRequest request, RpcError error)
+         {
+            // same handling as for errors from sendRequest
+            if (disconnected_ || streamCallback.cancelled())
+               return;
+            
+            if (resolveRpcErrorAndRetry(error, retryHandler))
+               return;
+            
+            if (!handleRpcErrorInternally(error))
+               streamCallback.onError(new RemoteServerError(error));
+         }
+      });
+      
+      return request;
+   }
+   
    void handleUnauthorizedError()
    {
       // disconnect
@@ -1539,6 +1700,7 @@ public class RemoteServer implements Server
          {
             // retry one time (passing null as last param ensures there
             // is no retry handler installed)
+            RpcMetrics.recordRetry(method);
             sendRequest(scope, method, params, requestCallback, null);    
          }   
 
@@ -1576,8 +1738,13 @@ public class RemoteServer implements Server
                                              clientId_,
                                              clientVersion_);
       
+      // batched calls are retried by the batcher (once, for the whole
+      // batch) so they don't install a retry handler of their own
+      final boolean batchable = isBatchable(scope, method);
+      final RetryHandler callRetryHandler = batchable ? null : retryHandler;
+      
       // send the request
-      rpcRequest.send(new RpcRequestCallback() {
+      RpcRequestCallback rpcRequestCallback = new RpcRequestCallback() {
          public void onError(RpcRequest request, RpcError error)
          {
             // ignore errors if:
@@ -1593,7 +1760,7 @@ public class RemoteServer implements Server
             
             // if we have a retry handler then see if we can resolve the
             // error and then retry
-            if ( resolveRpcErrorAndRetry(error, retryHandler) ) 
+            if ( resolveRpcErrorAndRetry(error, callRetryHandler) ) 
                return ;
 
             // first crack goes to globally registered rpc error handlers
@@ -1626,7 +1793,7 @@ public class RemoteServer implements Server
                
                // if we have a retry handler then see if we can resolve the
                // error and then retry
-               if ( resolveRpcErrorAndRetry(error, retryHandler) ) 
+               if ( resolveRpcErrorAndRetry(error, callRetryHandler) ) 
                   return ;
                
                // give first crack to internal handlers, then forward to caller
@@ -1655,11 +1822,40 @@ public class RemoteServer implements Server
                   serverEventListener_.ensureEvents();
             }
          }
-      });
+      };
+      
+      // independent rpc calls made in the same event loop turn share a 
+      // single round trip to the server
+      if (batchable)
+         requestBatcher_.send(rpcRequest, rpcRequestCallback);
+      else
+         rpcRequest.send(rpcRequestCallback);
       
       // return the request
       return rpcRequest;
    }
+   
+   private boolean isBatchable(String scope, String method)
+   {
+      if (!scope.equals(RPC_SCOPE))
+         return false;
+      
+      // the server tells us which methods it handles specially (or waits
+      // for while R is blocked, or which take long enough to hold up the
+      // rest of a batch). before it has done so we don't batch at all.
+      SessionInfo sessionInfo = session_.getSessionInfo();
+      if (sessionInfo == null)
+         return false;
+      JsArrayString unbatchable = sessionInfo.getUnbatchableMethods();
+      if (unbatchable == null)
+         return false;
+      for (int i = 0; i < unbatchable.length(); i++)
+      {
+         if (unbatchable.get(i).equals(method))
+            return false;
+      }
+      return true;
+   }
      
    private boolean eventsPending(RpcResponse response)
    {
@@ -1782,6 +1978,7 @@ public class RemoteServer implements Server
    
    private final RemoteServerAuth serverAuth_;
    private final RemoteServerEventListener serverEventListener_ ;
+   private final RpcRequestBatcher requestBatcher_;
 
    private final Provider<ConsoleProcessFactory> pConsoleProcessFactory_;
   
@@ -1804,6 +2001,7 @@ public class RemoteServer implements Server
    private static final String ACCEPT_AGREEMENT = "accept_agreement";
    private static final String SUSPEND_SESSION = "suspend_session";
    private static final String QUIT_SESSION = "quit_session";
+   private static final String MULTICALL = "multicall";
    
    private static final String SET_WORKBENCH_METRICS = "set_workbench_metrics";
    private static final String SET_PREFS = "set_prefs";
@@ -1830,6 +2028,7 @@ public class RemoteServer implements Server
    private static final String PROCESS_WRITE_STDIN = "process_write_stdin";
 
    private static final String LIST_OBJECTS = "list_objects";
+   private static final String LIST_OBJECTS_SINCE = "list_objects_since";
    private static final String REMOVE_ALL_OBJECTS = "remove_all_objects";
    private static final String SET_OBJECT_VALUE = "set_object_value";
    private static final String GET_OBJECT_VALUE = "get_object_value";
@@ -1869,6 +2068,7 @@ public class RemoteServer implements Server
 
    private static final String NEXT_PLOT = "next_plot";
    private static final String PREVIOUS_PLOT = "previous_plot";
+   private static final String GET_PLOT_IMAGES = "get_plot_images";
    private static final String REMOVE_PLOT = "remove_plot";
    private static final String CLEAR_PLOTS = "clear_plots";
    private static final String REFRESH_PLOT = "refresh_plot";
@@ -1889,9 +2089,11 @@ public class RemoteServer implements Server
    private static final String OPEN_DOCUMENT = "open_document";
    private static final String SAVE_DOCUMENT = "save_document";
    private static final String SAVE_DOCUMENT_DIFF = "save_document_diff";
+   private static final String SAVE_DOCUMENT_HUNKS = "save_document_hunks";
    private static final String CHECK_FOR_EXTERNAL_EDIT = "check_for_external_edit";
    private static final String IGNORE_EXTERNAL_EDIT = "ignore_external_edit";
    private static final String CLOSE_DOCUMENT = "close_document";
+   private static final String GET_SOURCE_DOCUMENT = "get_source_document";
    private static final String CLOSE_ALL_DOCUMENTS = "close_all_documents";
    private static final String SET_SOURCE_DOCUMENT_ON_SAVE
          = "set_source_document_on_save";
@@ -1900,6 +2102,8 @@ public class RemoteServer implements Server
    private static final String REVERT_DOCUMENT = "revert_document";
    private static final String REOPEN_WITH_ENCODING = "reopen_with_encoding";
    private static final String REMOVE_CONTENT_URL = "remove_content_url";
+   private static final String GET_DATA_BLOCK = "get_data_block";
+   private static final String REMOVE_CACHED_DATA = "remove_cached_data";
    private static final String DETECT_FREE_VARS = "detect_free_vars";
    private static final String ICONVLIST = "iconvlist";
    private static final String PUBLISH_PDF = "publish_pdf";
@@ -21,8 +21,10 @@ import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.Window;
 import com.google.gwt.user.client.Window.ClosingEvent;
 import com.google.gwt.user.client.Window.ClosingHandler;
+import org.rstudio.core.client.ArrayQueue;
 import org.rstudio.core.client.files.FileSystemItem;
 import org.rstudio.core.client.jsonrpc.RpcObjectList;
+import org.rstudio.core.client.jsonrpc.RpcRecordStreamRequest;
 import org.rstudio.core.client.jsonrpc.RpcRequest;
 import org.rstudio.core.client.jsonrpc.RpcRequestCallback;
 import org.rstudio.core.client.jsonrpc.RpcResponse;
@@ -70,7 +72,6 @@ import org.rstudio.studio.client.workbench.views.workspace.events.WorkspaceObjec
 import org.rstudio.studio.client.workbench.views.workspace.events.WorkspaceRefreshEvent;
 import org.rstudio.studio.client.workbench.views.workspace.model.WorkspaceObjectInfo;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 
 
@@ -135,6 +136,18 @@ class RemoteServerEventListener
       public final native <T> T getData() /*-{
          return this.data;
       }-*/;
+      
+      public final native void appendData(String data) /*-{
+         this.data = this.data + data;
+      }-*/;
+   }
+
+   /**
+    * Translates a client event of a given type into an EventBus event.
+    */
+   interface EventDispatcher
+   {
+      void dispatch(ClientEvent event, EventBus eventBus);
    }
 
    /**
@@ -152,6 +165,14 @@ class RemoteServerEventListener
       public final RpcRequestCallback callback;
    }
 
+   // receives events from a streamed get_events request as they arrive
+   // (onResponseReceived is called once the stream has completed)
+   static abstract class EventStreamCallback 
+                                 extends ServerRequestCallback<Void>
+   {
+      public abstract void onEventReceived(ClientEvent event);
+   }
+
    public RemoteServerEventListener(RemoteServer server)
    {
       server_ = server;
@@ -160,6 +181,7 @@ class RemoteServerEventListener
       listenErrorCount_ = 0;
       isListening_ = false;
       sessionWasQuit_ = false;
+      registerDispatchers();
       
       // we take the liberty of stopping ourselves if the window is on 
       // the verge of being closed. this allows us to prevent the scenario:
@@ -240,6 +262,16 @@ class RemoteServerEventListener
          activeRequest_.cancel();
          activeRequest_ = null;
       }
+      if (activeStreamCallback_ != null)
+      {
+         activeStreamCallback_.cancel();
+         activeStreamCallback_ = null;
+      }
+      if (activeStream_ != null)
+      {
+         activeStream_.cancel();
+         activeStream_ = null;
+      }
    }
    
    // ensure that we are actively listening for events (used to make 
@@ -347,6 +379,14 @@ class RemoteServerEventListener
       // abort if we are no longer running
       if (!isListening_)
          return;
+      
+      // prefer streaming events (so we can dispatch them as they arrive)
+      // falling back to a single response if that's not possible
+      if (streamEvents_)
+      {
+         doListenStream();
+         return;
+      }
           
       // setup request callback (save reference for cancellation)
       activeRequestCallback_ = new ServerRequestCallback<JsArray<ClientEvent>>() 
@@ -391,46 +431,59 @@ class RemoteServerEventListener
          
          @Override
          public void onError(ServerError error)
-         {           
-            // stop listening for events
-            stop();
-            
-            // if this was server unavailable then signal event and return
-            if (error.getCode() == ServerError.UNAVAILABLE)
-            {
-               ServerUnavailableEvent event = new ServerUnavailableEvent();
-               server_.getEventBus().fireEvent(event);   
-               return;
-            }
-            
-            // attempt to restart listening, but throttle restart attempts
-            // in both timing (500ms delay) and quantity (no more than 5
-            // attempts). We do this because unthrottled restart attempts could
-            // result in our server getting hammered with requests)
-            if (listenErrorCount_++ <= 5)
-            {
-               Timer startTimer = new Timer() {
-                  @Override
-                  public void run()
-                  {
-                     // only start again if we haven't been started 
-                     // by some other means (e.g. ensureListening, etc)
-                     if (!isListening_)
-                        start();
-                  }
-               };
-               startTimer.schedule(500);
-            }
-            // otherwise reset the listen error count and remain stopped
-            else
-            {
-               listenErrorCount_ = 0;
-            }
+         {
+            onListenError(error);
          }
       };
       
+      // send request
+      activeRequest_ = server_.getEvents(lastEventId_, 
+                                         activeRequestCallback_,
+                                         createListenRetryHandler());
+   }
+   
+   private void onListenError(ServerError error)
+   {           
+      // stop listening for events
+      stop();
+      
+      // if this was server unavailable then signal event and return
+      if (error.getCode() == ServerError.UNAVAILABLE)
+      {
+         ServerUnavailableEvent event = new ServerUnavailableEvent();
+         server_.getEventBus().fireEvent(event);   
+         return;
+      }
+      
+      // attempt to restart listening, but throttle restart attempts
+      // in both timing (500ms delay) and quantity (no more than 5
+      // attempts). We do this because unthrottled restart attempts could
+      // result in our server getting hammered with requests)
+      if (listenErrorCount_++ <= 5)
+      {
+         Timer startTimer = new Timer() {
+            @Override
+            public void run()
+            {
+               // only start again if we haven't been started 
+               // by some other means (e.g. ensureListening, etc)
+               if (!isListening_)
+                  start();
+            }
+         };
+         startTimer.schedule(500);
+      }
+      // otherwise reset the listen error count and remain stopped
+      else
+      {
+         listenErrorCount_ = 0;
+      }
+   }
+   
+   private RetryHandler createListenRetryHandler()
+   {
       // retry handler (restart listener)
-      RetryHandler retryHandler = new RetryHandler() {
+      return new RetryHandler() {
 
          public void onRetry()
          {
@@ -449,15 +502,84 @@ class RemoteServerEventListener
             stop();
          }
       };
+   }
+
+   private void doListenStream()
+   {
+      activeStreamCallback_ = new EventStreamCallback()
+      {
+         @Override
+         public void onEventReceived(ClientEvent event)
+         {
+            watchdog_.notifyResponseReceived();
+            receivedEvents_ = true;
+            
+            // we can stop listening in the middle of dispatching events
+            if (!isListening_)
+               return;
+            
+            try
+            {
+               enqueueEventForDispatch(event);
+               lastEventId_ = event.getId();
+            }
+            catch(Throwable e)
+            {
+               GWT.log("ERROR: Processing client events", e);
+            }
+         }
+         
+         @Override
+         public void onResponseReceived(Void response)
+         {
+            // keep watchdog appraised of successful receipt of events
+            watchdog_.notifyResponseReceived();
+            receivedEvents_ = true;
+            activeStream_ = null;
+            
+            // listen for more events
+            listen();
+         }
+         
+         @Override
+         public void onError(ServerError error)
+         {
+            activeStream_ = null;
+            
+            // if we've never managed to stream events then something
+            // between us and the server doesn't support it, so go back to 
+            // the plain request/response protocol
+            if (!receivedEvents_ && 
+                error.getCode() == ServerError.TRANSMISSION)
+            {
+               streamEvents_ = false;
+            }
+            
+            onListenError(error);
+         }
+      };
       
-      // send request
-      activeRequest_ = server_.getEvents(lastEventId_, 
-                                         activeRequestCallback_,
-                                         retryHandler);                             
+      activeStream_ = server_.getEventStream(lastEventId_,
+                                             activeStreamCallback_,
+                                             createListenRetryHandler());
    }
 
    private void enqueueEventForDispatch(ClientEvent event)
    {
+      // fold runs of console output (or error) into the not yet dispatched
+      // event at the end of the queue. since we only ever merge with the 
+      // immediately preceding event the interleaving of output and error 
+      // text is preserved
+      if (isCoalescable(event))
+      {
+         ClientEvent lastEvent = pendingEvents_.peekLast();
+         if (lastEvent != null && lastEvent.getType().equals(event.getType()))
+         {
+            lastEvent.appendData(event.<String>getData());
+            return;
+         }
+      }
+      
       pendingEvents_.add(event);
       if (pendingEvents_.size() == 1)
       {
@@ -465,239 +587,388 @@ class RemoteServerEventListener
          {
             public boolean execute()
             {
-               final int MAX_EVENTS_AT_ONCE = 200;
-               for (int i = 0;
-                    i < MAX_EVENTS_AT_ONCE && pendingEvents_.size() > 0;
-                    i++)
+               // dispatch for as long as our time slice allows rather than
+               // for a fixed number of events (a handful of expensive events
+               // can blow the frame just as easily as thousands of cheap
+               // ones). we always dispatch at least one event per slice so
+               // that we're guaranteed to make progress.
+               long startTime = System.currentTimeMillis();
+               do
                {
-                  ClientEvent currentEvent = pendingEvents_.remove(0);
-                  dispatchEvent(currentEvent);
+                  dispatchEvent(pendingEvents_.remove());
                }
-               return pendingEvents_.size() > 0;
+               while (!pendingEvents_.isEmpty() &&
+                      (System.currentTimeMillis() - startTime) <
+                                                      kDispatchSliceMs);
+
+               return !pendingEvents_.isEmpty();
             }
          });
       }
    }
    
+   private boolean isCoalescable(ClientEvent event)
+   {
+      String type = event.getType();
+      return type.equals(ClientEvent.ConsoleOutput) ||
+             type.equals(ClientEvent.ConsoleError);
+   }
+   
    private void dispatchEvent(ClientEvent event) 
    { 
       String type = event.getType();
-      EventBus eventBus = server_.getEventBus();
       try
       {
-         if (type.equals(ClientEvent.Busy))
+         EventDispatcher dispatcher = dispatchers_.get(type);
+         if (dispatcher != null)
+            dispatcher.dispatch(event, server_.getEventBus());
+         else
+            GWT.log("WARNING: Server event not dispatched: " + type, null);
+      }
+      catch(Throwable e)
+      {
+         GWT.log("WARNING: Exception occured dispatching event: " + type, e);
+      }
+   }
+   
+   private void registerDispatcher(String type, EventDispatcher dispatcher)
+   {
+      dispatchers_.put(type, dispatcher);
+   }
+   
+   private void registerDispatchers()
+   {
+      registerDispatcher(ClientEvent.Busy, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             boolean busy = event.<Bool>getData().getValue();
             eventBus.fireEvent(new BusyEvent(busy));
          }
-         else if (type.equals(ClientEvent.ConsoleOutput))
+      });
+
+      registerDispatcher(ClientEvent.ConsoleOutput, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             String output = event.getData();
             eventBus.fireEvent(new ConsoleWriteOutputEvent(output));
          }
-         else if (type.equals(ClientEvent.ConsoleError))
+      });
+
+      registerDispatcher(ClientEvent.ConsoleError, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             String error = event.getData();
             eventBus.fireEvent(new ConsoleWriteErrorEvent(error));
          }
-         else if (type.equals(ClientEvent.ConsoleWritePrompt))
+      });
+
+      registerDispatcher(ClientEvent.ConsoleWritePrompt, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             String prompt = event.getData();
             eventBus.fireEvent(new ConsoleWritePromptEvent(prompt));
          }
-         else if (type.equals(ClientEvent.ConsoleWriteInput))
+      });
+
+      registerDispatcher(ClientEvent.ConsoleWriteInput, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             String input = event.getData();
             eventBus.fireEvent(new ConsoleWriteInputEvent(input));
          }
-         else if (type.equals(ClientEvent.ConsolePrompt))
+      });
+
+      registerDispatcher(ClientEvent.ConsolePrompt, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             ConsolePrompt prompt = event.getData();
             eventBus.fireEvent(new ConsolePromptEvent(prompt));
          }
-         else if (type.equals(ClientEvent.ShowEditor))
+      });
+
+      registerDispatcher(ClientEvent.ShowEditor, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             String content = event.getData();
             eventBus.fireEvent(new ShowEditorEvent(content));
          }
-         else if (type.equals(ClientEvent.FileChanged))
+      });
+
+      registerDispatcher(ClientEvent.FileChanged, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             FileChange fileChange = event.getData();
             eventBus.fireEvent(new FileChangeEvent(fileChange));
          }
-         else if (type.equals(ClientEvent.WorkingDirChanged))
+      });
+
+      registerDispatcher(ClientEvent.WorkingDirChanged, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             String path = event.getData();
             eventBus.fireEvent(new WorkingDirChangedEvent(path));
          }
-         else if (type.equals(ClientEvent.WorkspaceRefresh))
+      });
+
+      registerDispatcher(ClientEvent.WorkspaceRefresh, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             eventBus.fireEvent(new WorkspaceRefreshEvent());
          }
-         else if (type.equals(ClientEvent.WorkspaceAssign))
+      });
+
+      registerDispatcher(ClientEvent.WorkspaceAssign, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             WorkspaceObjectInfo objectInfo = event.getData();
             eventBus.fireEvent(new WorkspaceObjectAssignedEvent(objectInfo));
          }
-         else if (type.equals(ClientEvent.WorkspaceRemove))
+      });
+
+      registerDispatcher(ClientEvent.WorkspaceRemove, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             String objectName = event.getData();
             eventBus.fireEvent(new WorkspaceObjectRemovedEvent(objectName));
          }
-         else if (type.equals(ClientEvent.ShowHelp))
+      });
+
+      registerDispatcher(ClientEvent.ShowHelp, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             String helpUrl = event.getData();
             eventBus.fireEvent(new ShowHelpEvent(helpUrl));
          }
-         else if (type.equals(ClientEvent.ShowErrorMessage))
+      });
+
+      registerDispatcher(ClientEvent.ShowErrorMessage, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             ErrorMessage errorMessage = event.getData();
             eventBus.fireEvent(new ShowErrorMessageEvent(errorMessage));
          }
-         else if (type.equals(ClientEvent.ChooseFile))
+      });
+
+      registerDispatcher(ClientEvent.ChooseFile, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             boolean newFile = event.<Bool>getData().getValue();
             eventBus.fireEvent(new ChooseFileEvent(newFile));
          }
-         else if (type.equals(ClientEvent.BrowseUrl))
+      });
+
+      registerDispatcher(ClientEvent.BrowseUrl, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             BrowseUrlInfo urlInfo = event.getData();
             eventBus.fireEvent(new BrowseUrlEvent(urlInfo));
          }
-         else if (type.equals(ClientEvent.PlotsStateChanged))
+      });
+
+      registerDispatcher(ClientEvent.PlotsStateChanged, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             PlotsState plotsState = event.getData();
             eventBus.fireEvent(new PlotsChangedEvent(plotsState));
          }
-         else if (type.equals(ClientEvent.ViewData))
+      });
+
+      registerDispatcher(ClientEvent.ViewData, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             DataView dataView = event.getData();
             eventBus.fireEvent(new ViewDataEvent(dataView));
          }
-         else if (type.equals(ClientEvent.InstalledPackagesChanged))
+      });
+
+      registerDispatcher(ClientEvent.InstalledPackagesChanged, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             eventBus.fireEvent(new InstalledPackagesChangedEvent());
          }
-         else if (type.equals(ClientEvent.PackageStatusChanged))
+      });
+
+      registerDispatcher(ClientEvent.PackageStatusChanged, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             PackageStatus status = event.getData();
             eventBus.fireEvent(new PackageStatusChangedEvent(status));
          }
-         else if (type.equals(ClientEvent.Locator))
+      });
+
+      registerDispatcher(ClientEvent.Locator, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             eventBus.fireEvent(new LocatorEvent());
          }
-         else if (type.equals(ClientEvent.ConsoleResetHistory))
+      });
+
+      registerDispatcher(ClientEvent.ConsoleResetHistory, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             ConsoleResetHistory reset = event.getData();
             eventBus.fireEvent(new ConsoleResetHistoryEvent(reset));
          }
-         else if (type.equals(ClientEvent.SessionSerialization))
+      });
+
+      registerDispatcher(ClientEvent.SessionSerialization, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             SessionSerializationAction action = event.getData();
             eventBus.fireEvent(new SessionSerializationEvent(action));
          }
-         else if (type.equals(ClientEvent.HistoryEntriesAdded))
+      });
+
+      registerDispatcher(ClientEvent.HistoryEntriesAdded, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             RpcObjectList<HistoryEntry> entries = event.getData();
             eventBus.fireEvent(new HistoryEntriesAddedEvent(entries));
          }
-         else if (type.equals(ClientEvent.QuotaStatus))
+      });
+
+      registerDispatcher(ClientEvent.QuotaStatus, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             QuotaStatus quotaStatus = event.getData();
             eventBus.fireEvent(new QuotaStatusEvent(quotaStatus));
          }
-         else if (type.equals(ClientEvent.OAuthApproval))
+      });
+
+      registerDispatcher(ClientEvent.OAuthApproval, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             OAuthApproval oauthApproval = event.getData();
             eventBus.fireEvent(new OAuthApprovalEvent(oauthApproval));
          }
-         else if (type.equals(ClientEvent.PublishPdf))
+      });
+
+      registerDispatcher(ClientEvent.PublishPdf, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             String path = event.getData();
             eventBus.fireEvent(new PublishPdfEvent(path));
          }
-         else if (type.equals(ClientEvent.FileEdit))
+      });
+
+      registerDispatcher(ClientEvent.FileEdit, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             FileSystemItem file = event.getData();
             eventBus.fireEvent(new FileEditEvent(file));
          }
-         else if (type.equals(ClientEvent.ShowContent))
+      });
+
+      registerDispatcher(ClientEvent.ShowContent, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             ContentItem content = event.getData();
             eventBus.fireEvent(new ShowContentEvent(content));
          }
-         else if (type.equals(ClientEvent.ShowData))
+      });
+
+      registerDispatcher(ClientEvent.ShowData, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             DataItem data = event.getData();
             eventBus.fireEvent(new ShowDataEvent(data));
          }
-         else if (type.equals(ClientEvent.AbendWarning))
-         {            
+      });
+
+      registerDispatcher(ClientEvent.AbendWarning, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
+         {
             eventBus.fireEvent(new SessionAbendWarningEvent());
          }
-         else if (type.equals(ClientEvent.ShowWarningBar))
+      });
+
+      registerDispatcher(ClientEvent.ShowWarningBar, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             WarningBarMessage message = event.getData();
             eventBus.fireEvent(new ShowWarningBarEvent(message));
          }
-         else if (type.equals(ClientEvent.OpenProjectError))
+      });
+
+      registerDispatcher(ClientEvent.OpenProjectError, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             OpenProjectError error = event.getData();
             eventBus.fireEvent(new OpenProjectErrorEvent(error));
          }
-         else if (type.equals(ClientEvent.VcsRefresh))
+      });
+
+      registerDispatcher(ClientEvent.VcsRefresh, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             eventBus.fireEvent(new VcsRefreshEvent(Reason.NA));
          }
-         else if (type.equals(ClientEvent.AskPass))
+      });
+
+      registerDispatcher(ClientEvent.AskPass, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             AskPassEvent.Data data = event.getData();
             eventBus.fireEvent(new AskPassEvent(data.getPrompt()));
          }
-         else if (type.equals(ClientEvent.ConsoleProcessOutput))
+      });
+
+      registerDispatcher(ClientEvent.ConsoleProcessOutput, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             ServerConsoleOutputEvent.Data data = event.getData();
             eventBus.fireEvent(new ServerConsoleOutputEvent(data.getHandle(),
                                                             data.getOutput(),
                                                             data.isError()));
          }
-         else if (type.equals(ClientEvent.ConsoleProcessExit))
+      });
+
+      registerDispatcher(ClientEvent.ConsoleProcessExit, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             ServerProcessExitEvent.Data data = event.getData();
             eventBus.fireEvent(new ServerProcessExitEvent(data.getHandle(),
                                                           data.getExitCode()));
          }
-         else if (type.equals(ClientEvent.Quit))
+      });
+
+      registerDispatcher(ClientEvent.Quit, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
-            // NOTE: we don't explicily stop listending for events here 
+            // NOTE: we don't explicily stop listending for events here
             // for two reasons:
             //
             //   1) There could be additional console output events which
             //      occur after Quit
             //
-            //   2) We will automatically stop listening as a result of 
+            //   2) We will automatically stop listening as a result of
             //      receiving ServiceUnavailable on the next listen()
             //
-            
+
             // set flag to avoid ensureListening/ensureEvents calls trying
             // to spark the event stream back up after the user has quit
             sessionWasQuit_ = true;
-        
+
             // fire event
             boolean switchProjects = event.<Bool>getData().getValue();
             eventBus.fireEvent(new QuitEvent(switchProjects));
          }
-         else if (type.equals(ClientEvent.Suicide))
+      });
+
+      registerDispatcher(ClientEvent.Suicide, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             // NOTE: we don't explicitly stop listening for events here
             // for the reasons cited above in ClientEvent.Quit
-            
+
             // fire event
             String message = event.getData();
             eventBus.fireEvent(new SuicideEvent(message));
          }
-         else if (type.equals(ClientEvent.AsyncCompletion))
+      });
+
+      registerDispatcher(ClientEvent.AsyncCompletion, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             AsyncCompletion completion = event.getData();
             String handle = completion.getHandle();
@@ -715,20 +986,15 @@ class RemoteServerEventListener
                asyncResponses_.put(handle, completion.getResponse());
             }
          }
-         else if (type.equals(ClientEvent.SaveActionChanged))
+      });
+
+      registerDispatcher(ClientEvent.SaveActionChanged, new EventDispatcher() {
+         public void dispatch(ClientEvent event, EventBus eventBus)
          {
             SaveAction action = event.getData();
             eventBus.fireEvent(new SaveActionChangedEvent(action));
          }
-         else
-         {
-            GWT.log("WARNING: Server event not dispatched: " + type, null);
-         }
-      }
-      catch(Throwable e)
-      {
-         GWT.log("WARNING: Exception occured dispatching event: " + type, e);
-      }
+      });
    }
    
    // NOTE: the design of the Watchdog likely results in more restarts of
@@ -822,8 +1088,20 @@ class RemoteServerEventListener
    
    private RpcRequest activeRequest_ ;
    private ServerRequestCallback<JsArray<ClientEvent>> activeRequestCallback_;
+   private RpcRecordStreamRequest activeStream_;
+   private EventStreamCallback activeStreamCallback_;
+   private boolean streamEvents_ = RpcRecordStreamRequest.isSupported();
+   private boolean receivedEvents_ = false;
+
+   // maximum time to spend dispatching events before yielding to the browser
+   private final int kDispatchSliceMs = 25;
 
-   private final ArrayList<ClientEvent> pendingEvents_ = new ArrayList<ClientEvent>();
+   private final ArrayQueue<ClientEvent> pendingEvents_ =
+                                             new ArrayQueue<ClientEvent>();
+   
+   // maps client event types to the dispatchers which handle them
+   private final HashMap<String, EventDispatcher> dispatchers_
+         = new HashMap<String, EventDispatcher>();
    
    private Watchdog watchdog_ = new Watchdog();
 
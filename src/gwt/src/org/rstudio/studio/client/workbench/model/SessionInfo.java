@@ -137,6 +137,12 @@ public class SessionInfo extends JavaScriptObject
    public final native String getVcsName() /*-{
       return this.vcs;
    }-*/;
+   
+   // rpc methods which must be sent in their own request rather than as
+   // part of a multicall batch (null for servers which don't batch)
+   public final native JsArrayString getUnbatchableMethods() /*-{
+      return this.unbatchable_methods;
+   }-*/;
 
    // TODO: The check for null was for migration in the presence of 
    // sessions that couldn't suspend (3/21/2011). Remove this check
@@ -25,9 +25,11 @@ import org.rstudio.core.client.widget.OperationWithInput;
 import org.rstudio.core.client.widget.SelectWidget;
 import org.rstudio.core.client.widget.TextBoxWithButton;
 import org.rstudio.studio.client.application.Desktop;
+import org.rstudio.studio.client.application.events.EventBus;
 import org.rstudio.studio.client.application.model.SaveAction;
 import org.rstudio.studio.client.common.FileDialogs;
 import org.rstudio.studio.client.common.mirrors.DefaultCRANMirror;
+import org.rstudio.studio.client.common.mirrors.events.CRANMirrorChangedEvent;
 import org.rstudio.studio.client.common.mirrors.model.CRANMirror;
 import org.rstudio.studio.client.workbench.model.RemoteFileSystemContext;
 import org.rstudio.studio.client.workbench.prefs.model.GeneralPrefs;
@@ -46,9 +48,11 @@ public class GeneralPreferencesPane extends PreferencesPane
    public GeneralPreferencesPane(PreferencesDialogResources res,
                                  RemoteFileSystemContext fsContext,
                                  FileDialogs fileDialogs,
-                                 final DefaultCRANMirror defaultCRANMirror)
+                                 final DefaultCRANMirror defaultCRANMirror,
+                                 EventBus events)
    {
       res_ = res;
+      events_ = events;
       fsContext_ = fsContext;
       fileDialogs_ = fileDialogs;
 
@@ -117,6 +121,7 @@ public class GeneralPreferencesPane extends PreferencesPane
                      {
                         cranMirror_ = cranMirror;
                         cranMirrorTextBox_.setText(cranMirror_.getDisplay());
+                        cranMirrorChanged_ = true;
                      }     
                   });
                  
@@ -245,6 +250,18 @@ public class GeneralPreferencesPane extends PreferencesPane
       }
    }
 
+   @Override
+   public void onApplied()
+   {
+      // anything derived from the old mirror (e.g. the list of available
+      // packages) is now stale
+      if (cranMirrorChanged_)
+      {
+         cranMirrorChanged_ = false;
+         events_.fireEvent(new CRANMirrorChangedEvent());
+      }
+   }
+
    @Override
    public String getName()
    {
@@ -252,6 +269,7 @@ public class GeneralPreferencesPane extends PreferencesPane
    }
 
    private final PreferencesDialogResources res_;
+   private final EventBus events_;
    private final FileSystemContext fsContext_;
    private final FileDialogs fileDialogs_;
    private SelectWidget saveWorkspace_;
@@ -262,5 +280,6 @@ public class GeneralPreferencesPane extends PreferencesPane
    private final CheckBox removeHistoryDuplicates_;
    private CRANMirror cranMirror_ = CRANMirror.empty();
    private TextBoxWithButton cranMirrorTextBox_;
+   private boolean cranMirrorChanged_ = false;
    private CheckBox restoreLastProject_;
 }
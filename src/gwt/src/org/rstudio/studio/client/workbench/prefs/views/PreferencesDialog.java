@@ -174,6 +174,9 @@ public class PreferencesDialog extends ModalDialogBase
                @Override
                public void onResponseReceived(Void response)
                {
+                  for (PreferencesPane pane : panes_)
+                     pane.onApplied();
+                  
                   progressIndicator_.onCompleted();
                   if (onCompleted != null)
                      onCompleted.execute();
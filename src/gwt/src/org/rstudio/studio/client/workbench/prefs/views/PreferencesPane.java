@@ -44,6 +44,11 @@ public abstract class PreferencesPane extends VerticalPanel
          cmd.execute();
    }
    
+   // called once the prefs set by onApply have been saved
+   public void onApplied()
+   {
+   }
+   
    public abstract String getName();
 
    public HandlerRegistration addEnsureVisibleHandler(EnsureVisibleHandler handler)
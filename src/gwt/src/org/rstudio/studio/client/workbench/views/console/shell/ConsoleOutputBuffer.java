@@ -0,0 +1,285 @@
+/*
+ * ConsoleOutputBuffer.java
+ *
+ * Copyright (C) 2009-11 by RStudio, Inc.
+ *
+ * This program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.console.shell;
+
+import com.google.gwt.dom.client.DivElement;
+import com.google.gwt.dom.client.Document;
+import com.google.gwt.dom.client.Element;
+import com.google.gwt.dom.client.Node;
+import com.google.gwt.dom.client.SpanElement;
+import com.google.gwt.dom.client.Style.Unit;
+import org.rstudio.core.client.dom.DomUtils;
+
+import java.util.ArrayList;
+
+/**
+ * Holds console output as a list of chunks of (roughly) CHUNK_LINES lines
+ * each. Only chunks within (or near) the visible viewport are kept as live
+ * DOM; the rest are collapsed into an empty placeholder of the same height
+ * with their contents retained as a single HTML string. This lets the
+ * console keep a very large scrollback without a correspondingly large DOM.
+ *
+ * The last chunk is always materialized since that's where new output is
+ * appended (and where trailing output is patched in place).
+ */
+public class ConsoleOutputBuffer
+{
+   private static class Chunk
+   {
+      Chunk(Element element)
+      {
+         this.element = element;
+      }
+
+      boolean isMaterialized()
+      {
+         return html == null;
+      }
+
+      final Element element;
+      int lines;
+      // non-null when the chunk is collapsed into a placeholder
+      String html;
+      int height;
+   }
+
+   public ConsoleOutputBuffer(Element container)
+   {
+      container_ = container;
+   }
+
+   public int getLineCount()
+   {
+      return lines_;
+   }
+
+   public boolean isLastChunkFull()
+   {
+      return chunks_.isEmpty() ||
+             chunks_.get(chunks_.size() - 1).lines >= CHUNK_LINES;
+   }
+
+   /**
+    * Appends a node (containing the given number of lines) to the end of
+    * the buffer.
+    */
+   public void append(Node node, int lines)
+   {
+      if (isLastChunkFull())
+         addChunk(false);
+
+      Chunk chunk = chunks_.get(chunks_.size() - 1);
+      chunk.element.appendChild(node);
+      chunk.lines += lines;
+      lines_ += lines;
+   }
+
+   /**
+    * Records a change in the number of lines contained in the last chunk
+    * (i.e. after the last node appended has been modified in place).
+    */
+   public void addLines(int lines)
+   {
+      if (chunks_.isEmpty())
+         return;
+
+      chunks_.get(chunks_.size() - 1).lines += lines;
+      lines_ += lines;
+   }
+
+   public void prepend(Node node, int lines)
+   {
+      if (chunks_.isEmpty() || chunks_.get(0).lines >= CHUNK_LINES)
+         addChunk(true);
+
+      Chunk chunk = chunks_.get(0);
+      materialize(chunk);
+      chunk.element.insertFirst(node);
+      chunk.lines += lines;
+      lines_ += lines;
+   }
+
+   /**
+    * Prepends a chunk of pre-rendered HTML without materializing it. The
+    * placeholder height is estimated from the line count and corrected
+    * when the chunk is first scrolled into view.
+    */
+   public void prependHtml(String html, int lines)
+   {
+      if (lines == 0)
+         return;
+
+      Chunk chunk = addChunk(true);
+      chunk.lines = lines;
+      lines_ += lines;
+
+      // the only chunk must stay live since it's where appends land
+      if (chunks_.size() == 1)
+      {
+         chunk.element.setInnerHTML(html);
+      }
+      else
+      {
+         chunk.html = html;
+         chunk.height = lines * getLineHeight();
+         chunk.element.getStyle().setHeight(chunk.height, Unit.PX);
+      }
+   }
+
+   public Node getFirstNode()
+   {
+      if (chunks_.isEmpty())
+         return null;
+
+      Chunk chunk = chunks_.get(0);
+      materialize(chunk);
+      return chunk.element.getFirstChild();
+   }
+
+   /**
+    * Removes lines from the top of the buffer, dropping whole chunks where
+    * possible. Returns the number of lines actually removed.
+    */
+   public int trimLines(int linesToTrim)
+   {
+      int trimmed = 0;
+      while (trimmed < linesToTrim && !chunks_.isEmpty())
+      {
+         Chunk chunk = chunks_.get(0);
+         if (chunk.lines <= linesToTrim - trimmed && chunks_.size() > 1)
+         {
+            chunk.element.removeFromParent();
+            chunks_.remove(0);
+            trimmed += chunk.lines;
+            continue;
+         }
+
+         materialize(chunk);
+         int chunkTrimmed = DomUtils.trimLines(chunk.element,
+                                               linesToTrim - trimmed);
+         chunk.lines -= chunkTrimmed;
+         trimmed += chunkTrimmed;
+         break;
+      }
+
+      lines_ -= trimmed;
+      return trimmed;
+   }
+
+   public void clear()
+   {
+      container_.setInnerText("");
+      chunks_.clear();
+      lines_ = 0;
+   }
+
+   /**
+    * Materializes chunks overlapping the range [top, bottom) (in pixels
+    * relative to the container) and collapses all others. Returns the
+    * change in height of the content above top, so the caller can adjust
+    * its scroll position to compensate.
+    */
+   public int updateViewport(int top, int bottom, boolean allowCollapse)
+   {
+      int count = chunks_.size();
+      if (count < 2)
+         return 0;
+
+      // read all positions up front so we only force a single layout
+      int containerTop = container_.getAbsoluteTop();
+      int[] tops = new int[count];
+      int[] heights = new int[count];
+      for (int i = 0; i < count; i++)
+      {
+         Element el = chunks_.get(i).element;
+         tops[i] = el.getAbsoluteTop() - containerTop;
+         heights[i] = el.getOffsetHeight();
+      }
+
+      int delta = 0;
+      for (int i = 0; i < count - 1; i++)
+      {
+         Chunk chunk = chunks_.get(i);
+         boolean visible = tops[i] < bottom && tops[i] + heights[i] > top;
+         if (visible && !chunk.isMaterialized())
+         {
+            materialize(chunk);
+            if (tops[i] < top)
+               delta += chunk.element.getOffsetHeight() - heights[i];
+         }
+         else if (!visible && chunk.isMaterialized() && allowCollapse)
+         {
+            collapse(chunk, heights[i]);
+         }
+      }
+      return delta;
+   }
+
+   private Chunk addChunk(boolean atTop)
+   {
+      DivElement div = Document.get().createDivElement();
+      Chunk chunk = new Chunk(div);
+      if (atTop)
+      {
+         container_.insertFirst(div);
+         chunks_.add(0, chunk);
+      }
+      else
+      {
+         container_.appendChild(div);
+         chunks_.add(chunk);
+      }
+      return chunk;
+   }
+
+   private void materialize(Chunk chunk)
+   {
+      if (chunk.isMaterialized())
+         return;
+
+      chunk.element.getStyle().clearHeight();
+      chunk.element.setInnerHTML(chunk.html);
+      chunk.html = null;
+   }
+
+   private void collapse(Chunk chunk, int height)
+   {
+      chunk.html = chunk.element.getInnerHTML();
+      chunk.height = height;
+      chunk.element.setInnerHTML("");
+      chunk.element.getStyle().setHeight(height, Unit.PX);
+   }
+
+   private int getLineHeight()
+   {
+      if (lineHeight_ <= 0)
+      {
+         SpanElement span = Document.get().createSpanElement();
+         span.setInnerText("X");
+         container_.appendChild(span);
+         lineHeight_ = span.getOffsetHeight();
+         span.removeFromParent();
+         if (lineHeight_ <= 0)
+            return DEFAULT_LINE_HEIGHT;
+      }
+      return lineHeight_;
+   }
+
+   private final Element container_;
+   private final ArrayList<Chunk> chunks_ = new ArrayList<Chunk>();
+   private int lines_ = 0;
+   private int lineHeight_ = 0;
+
+   public static final int CHUNK_LINES = 500;
+   private static final int DEFAULT_LINE_HEIGHT = 15;
+}
@@ -22,6 +22,7 @@ import com.google.gwt.dom.client.Style.Unit;
 import com.google.gwt.dom.client.Text;
 import com.google.gwt.event.dom.client.*;
 import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.gwt.safehtml.shared.SafeHtmlUtils;
 import com.google.gwt.user.client.Element;
 import com.google.gwt.user.client.ui.*;
 import com.google.inject.Inject;
@@ -48,6 +49,8 @@ import org.rstudio.studio.client.workbench.views.source.editors.text.AceEditor.N
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.CursorChangedEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.CursorChangedHandler;
 
+import java.util.ArrayList;
+
 public class ShellPane extends Composite implements Shell.Display,
                                                     RequiresResize
 {
@@ -61,6 +64,7 @@ public class ShellPane extends Composite implements Shell.Display,
       output_ = new PreWidget();
       output_.setStylePrimaryName(styles_.output());
       output_.addClickHandler(secondaryInputHandler);
+      outputBuffer_ = new ConsoleOutputBuffer(output_.getElement());
 
       pendingInput_ = new PreWidget();
       pendingInput_.setStyleName(styles_.output());
@@ -162,6 +166,13 @@ public class ShellPane extends Composite implements Shell.Display,
       scrollPanel_.addStyleName("ace_scroller");
       scrollPanel_.addClickHandler(secondaryInputHandler);
       scrollPanel_.addKeyDownHandler(secondaryInputHandler);
+      scrollPanel_.addScrollHandler(new ScrollHandler()
+      {
+         public void onScroll(ScrollEvent event)
+         {
+            scheduleViewportUpdate();
+         }
+      });
 
       secondaryInputHandler.setInput(editor);
 
@@ -217,18 +228,60 @@ public class ShellPane extends Composite implements Shell.Display,
 
    public void consoleWriteError(String error)
    {
-      output(error, styles_.error(), false);
-      scrollToBottomAsync();
+      queueOutput(error, styles_.error());
    }
 
    public void consoleWriteOutput(String output)
    {
-      output(output, styles_.output(), false);
+      queueOutput(output, styles_.output());
+   }
+
+   // Output and error text is buffered and written to the DOM at the end
+   // of the current browser event loop, so that no matter how many chunks
+   // arrive together we only do one DOM update (per contiguous run of a
+   // single stream) and one scroll.
+   private void queueOutput(String text, String className)
+   {
+      if (pendingOutputClass_ != null && 
+          !pendingOutputClass_.equals(className))
+      {
+         flushPendingOutput();
+      }
+
+      pendingOutputClass_ = className;
+      pendingOutput_.append(text);
+
+      if (!flushScheduled_)
+      {
+         flushScheduled_ = true;
+         Scheduler.get().scheduleFinally(new ScheduledCommand()
+         {
+            public void execute()
+            {
+               flushScheduled_ = false;
+               flushPendingOutput();
+            }
+         });
+      }
+   }
+
+   private void flushPendingOutput()
+   {
+      if (pendingOutputClass_ == null)
+         return;
+
+      String text = pendingOutput_.toString();
+      String className = pendingOutputClass_;
+      pendingOutput_.setLength(0);
+      pendingOutputClass_ = null;
+
+      output(text, className, false);
       scrollToBottomAsync();
    }
 
    public void consoleWriteInput(String input)
    {
+      flushPendingOutput();
       pendingInput_.setText("");
       pendingInput_.setVisible(false);
       output(input, styles_.command() + KEYWORD_CLASS_NAME, false);
@@ -237,6 +290,7 @@ public class ShellPane extends Composite implements Shell.Display,
 
    public void consoleWritePrompt(String prompt)
    {
+      flushPendingOutput();
       output(prompt, styles_.prompt() + KEYWORD_CLASS_NAME, false);
       scrollToBottomAsync();
    }
@@ -269,24 +323,35 @@ public class ShellPane extends Composite implements Shell.Display,
       boolean isOutput = StringUtil.isNullOrEmpty(className)
                          || className.equals(styles_.output());
 
+      // Don't let a single stream of output grow the last chunk of the
+      // buffer indefinitely; once it's full (and we're at a line boundary,
+      // so there's nothing for \r or \b to pound over) start a new one
+      if (trailingOutput_ != null &&
+          outputBuffer_.isLastChunkFull() &&
+          !trailingOutputConsole_.hasPartialLine())
+      {
+         trailingOutput_ = null;
+         trailingOutputConsole_ = null;
+      }
+
       if (isOutput && !addToTop && trailingOutput_ != null)
       {
          // Short-circuit the case where we're appending output to the
          // bottom, and there's already some output there. We need to
          // treat this differently in case the new output uses control
          // characters to pound over parts of the previous output.
+         //
+         // Rather than re-rendering the whole block we only patch the
+         // range of text that the VirtualConsole reports as changed.
 
-         int oldLineCount = DomUtils.countLines(trailingOutput_, true);
+         int oldLineCount = getDisplayedLineCount(trailingOutputConsole_);
          trailingOutputConsole_.submit(text);
-         trailingOutput_.setNodeValue(
-               ensureNewLine(trailingOutputConsole_.toString()));
-         int newLineCount = DomUtils.countLines(trailingOutput_, true);
-         lines_ += newLineCount - oldLineCount;
+         patchTrailingOutput();
+         outputBuffer_.addLines(
+               getDisplayedLineCount(trailingOutputConsole_) - oldLineCount);
       }
       else
       {
-         Element outEl = output_.getElement();
-
          text = VirtualConsole.consolify(text);
          if (isOutput)
          {
@@ -308,9 +373,7 @@ public class ShellPane extends Composite implements Shell.Display,
             // If we're prepending output to the top of the console, then
             // it's safe to add a newline if the next chunk (which is already
             // there) is something besides output.
-            if (!addToTop ||
-                (!outEl.hasChildNodes()
-                 || outEl.getFirstChild().getNodeType() != Node.TEXT_NODE))
+            if (!addToTop || !isTextNode(outputBuffer_.getFirstNode()))
             {
                consoleSnapshot = ensureNewLine(consoleSnapshot);
             }
@@ -320,6 +383,8 @@ public class ShellPane extends Composite implements Shell.Display,
             {
                trailingOutput_ = (Text) node;
                trailingOutputConsole_ = console;
+               trailingOutputConsole_.markClean();
+               trailingOutputTrimmed_ = 0;
             }
          }
          else
@@ -335,16 +400,53 @@ public class ShellPane extends Composite implements Shell.Display,
             }
          }
 
+         int lines = DomUtils.countLines(node, true);
          if (addToTop)
-            outEl.insertFirst(node);
+            outputBuffer_.prepend(node, lines);
          else
-            outEl.appendChild(node);
-
-         lines_ += DomUtils.countLines(node, true);
+            outputBuffer_.append(node, lines);
       }
       return !trimExcess();
    }
 
+   private void patchTrailingOutput()
+   {
+      VirtualConsole console = trailingOutputConsole_;
+      if (!console.isDirty())
+         return;
+
+      // The text node lags the console by however many characters have
+      // been trimmed off its front (see trimExcess)
+      String dirtyText = console.getDirtyText();
+      int start = console.getDirtyStart() - trailingOutputTrimmed_;
+      if (start < 0)
+      {
+         dirtyText = dirtyText.substring(Math.min(-start, dirtyText.length()));
+         start = 0;
+      }
+
+      // As in the non-incremental case, make sure the output ends with a
+      // newline so a prompt will appear on its own line
+      if (console.hasPartialLine())
+         dirtyText += "\n";
+
+      DomUtils.deleteTextData(trailingOutput_,
+                              start,
+                              trailingOutput_.getLength() - start);
+      DomUtils.insertTextData(trailingOutput_, start, dirtyText);
+      console.markClean();
+   }
+
+   private int getDisplayedLineCount(VirtualConsole console)
+   {
+      return console.getLineCount() + (console.hasPartialLine() ? 1 : 0);
+   }
+
+   private boolean isTextNode(Node node)
+   {
+      return node != null && node.getNodeType() == Node.TEXT_NODE;
+   }
+
    private String ensureNewLine(String s)
    {
       if (s.length() == 0 || s.charAt(s.length() - 1) == '\n')
@@ -358,11 +460,28 @@ public class ShellPane extends Composite implements Shell.Display,
       if (maxLines_ <= 0)
          return false;  // No limit in effect
 
-      int linesToTrim = lines_ - maxLines_;
+      int linesToTrim = outputBuffer_.getLineCount() - maxLines_;
       if (linesToTrim > 0)
       {
-         lines_ -= DomUtils.trimLines(output_.getElement(),
-                                      lines_ - maxLines_);
+         outputBuffer_.trimLines(linesToTrim);
+         
+         // Keep track of how much of the trailing output has been trimmed
+         // so that incremental updates land in the right place
+         if (trailingOutput_ != null)
+         {
+            if (!output_.getElement().isOrHasChild(trailingOutput_))
+            {
+               trailingOutput_ = null;
+               trailingOutputConsole_ = null;
+            }
+            else
+            {
+               trailingOutputTrimmed_ =
+                     trailingOutputConsole_.getLength() +
+                     (trailingOutputConsole_.hasPartialLine() ? 1 : 0) -
+                     trailingOutput_.getLength();
+            }
+         }
          return true;
       }
 
@@ -371,58 +490,152 @@ public class ShellPane extends Composite implements Shell.Display,
 
    public void playbackActions(final RpcObjectList<ConsoleAction> actions)
    {
+      // Rather than inserting each action into the DOM we render the
+      // actions (newest first) into chunks of HTML which are handed to the
+      // output buffer collapsed; only the ones that are actually scrolled
+      // into view ever get materialized.
       Scheduler.get().scheduleIncremental(new RepeatingCommand()
       {
          private int i = actions.length() - 1;
-         private int chunksize = 1000;
+         private boolean nextIsOutput = isTextNode(outputBuffer_.getFirstNode());
+         private final ArrayList<String> chunkHtml = new ArrayList<String>();
+         private int chunkLines = 0;
 
          public boolean execute()
          {
-            int end = i - chunksize;
-            chunksize = 10;
-            for (; i > end && i >= 0; i--)
+            long startTime = System.currentTimeMillis();
+            while (i >= 0 && !isFull())
             {
                // User hit Ctrl+L at some point--we're done.
                if (cleared_)
                   return false;
 
-               boolean canContinue = false;
+               addAction(actions.get(i--));
+               if (chunkLines >= ConsoleOutputBuffer.CHUNK_LINES)
+                  flushChunk();
 
-               ConsoleAction action = actions.get(i);
-               switch (action.getType())
+               if (System.currentTimeMillis() - startTime > kPlaybackSliceMs)
                {
-                  case ConsoleAction.INPUT:
-                     canContinue = output(action.getData() + "\n",
-                                          styles_.command() + " " + KEYWORD_CLASS_NAME,
-                                          true);
-                     break;
-                  case ConsoleAction.OUTPUT:
-                     canContinue = output(action.getData(),
-                                          styles_.output(),
-                                          true);
-                     break;
-                  case ConsoleAction.ERROR:
-                     canContinue = output(action.getData(),
-                                          styles_.error(),
-                                          true);
-                     break;
-                  case ConsoleAction.PROMPT:
-                     canContinue = output(action.getData(),
-                                          styles_.prompt() + " " + KEYWORD_CLASS_NAME,
-                                          true);
-                     break;
+                  if (!DomUtils.selectionExists())
+                     scrollPanel_.scrollToBottom();
+                  return true;
                }
-               if (!canContinue)
-                  return false;
             }
+
+            flushChunk();
+            trimExcess();
             if (!DomUtils.selectionExists())
                scrollPanel_.scrollToBottom();
+            scheduleViewportUpdate();
+            return false;
+         }
+
+         private boolean isFull()
+         {
+            return maxLines_ > 0 &&
+                   outputBuffer_.getLineCount() + chunkLines >= maxLines_;
+         }
+
+         private void addAction(ConsoleAction action)
+         {
+            String text = action.getData();
+            String className = null;
+            switch (action.getType())
+            {
+               case ConsoleAction.INPUT:
+                  text = text + "\n";
+                  className = styles_.command() + " " + KEYWORD_CLASS_NAME;
+                  break;
+               case ConsoleAction.OUTPUT:
+                  break;
+               case ConsoleAction.ERROR:
+                  className = styles_.error();
+                  break;
+               case ConsoleAction.PROMPT:
+                  className = styles_.prompt() + " " + KEYWORD_CLASS_NAME;
+                  break;
+               default:
+                  return;
+            }
+
+            text = VirtualConsole.consolify(text);
+            String html;
+            if (className == null)
+            {
+               // see comment in output() regarding ensureNewLine
+               if (!nextIsOutput)
+                  text = ensureNewLine(text);
+               html = SafeHtmlUtils.htmlEscape(text);
+               nextIsOutput = true;
+            }
+            else
+            {
+               html = "<span class=\"" + className + "\">" +
+                      SafeHtmlUtils.htmlEscape(text) + "</span>";
+               nextIsOutput = false;
+            }
+
+            chunkHtml.add(html);
+            chunkLines += countNewlines(text);
+         }
+
+         private void flushChunk()
+         {
+            if (chunkHtml.isEmpty())
+               return;
 
-            return i >= 0;
+            StringBuilder html = new StringBuilder();
+            for (int j = chunkHtml.size() - 1; j >= 0; j--)
+               html.append(chunkHtml.get(j));
+            outputBuffer_.prependHtml(html.toString(), chunkLines);
+
+            chunkHtml.clear();
+            chunkLines = 0;
          }
       });
    }
 
+   private int countNewlines(String text)
+   {
+      int count = 0;
+      for (int i = text.indexOf('\n'); i >= 0; i = text.indexOf('\n', i + 1))
+         count++;
+      return count;
+   }
+
+   private void scheduleViewportUpdate()
+   {
+      if (viewportUpdatePending_)
+         return;
+
+      viewportUpdatePending_ = true;
+      Scheduler.get().scheduleDeferred(new ScheduledCommand()
+      {
+         public void execute()
+         {
+            viewportUpdatePending_ = false;
+            updateViewport();
+         }
+      });
+   }
+
+   private void updateViewport()
+   {
+      int height = scrollPanel_.getOffsetHeight();
+      if (!isAttached() || height == 0)
+         return;
+
+      // keep a screen's worth of output live on either side of the viewport,
+      // and never collapse output that the user may be selecting
+      int scrollTop = scrollPanel_.getVerticalScrollPosition();
+      int top = scrollPanel_.getAbsoluteTop() - output_.getAbsoluteTop();
+      int delta = outputBuffer_.updateViewport(top - height,
+                                               top + 2 * height,
+                                               !DomUtils.selectionExists());
+      if (delta != 0)
+         scrollPanel_.setVerticalScrollPosition(scrollTop + delta);
+   }
+
    public void setFocus(boolean focused)
    {
       input_.setFocus(focused) ;
@@ -543,8 +756,11 @@ public class ShellPane extends Composite implements Shell.Display,
 
    public void clearOutput()
    {
-      output_.setText("") ;
-      lines_ = 0;
+      pendingOutput_.setLength(0);
+      pendingOutputClass_ = null;
+      outputBuffer_.clear();
+      trailingOutput_ = null;
+      trailingOutputConsole_ = null;
       cleared_ = true;
    }
 
@@ -650,17 +866,25 @@ public class ShellPane extends Composite implements Shell.Display,
    {
       if (getWidget() instanceof RequiresResize)
          ((RequiresResize)getWidget()).onResize();
+      scheduleViewportUpdate();
    }
 
-   private int lines_ = 0;
    private int maxLines_ = -1;
    private boolean cleared_ = false;
+   // Output not yet written to the DOM (see queueOutput)
+   private final StringBuilder pendingOutput_ = new StringBuilder();
+   private String pendingOutputClass_ = null;
+   private boolean flushScheduled_ = false;
    private final PreWidget output_ ;
+   private final ConsoleOutputBuffer outputBuffer_ ;
+   private boolean viewportUpdatePending_ = false;
    private PreWidget pendingInput_ ;
    // Save a reference to the most recent output text node in case the
    // next bit of output contains \b or \r control characters
    private Text trailingOutput_ ;
    private VirtualConsole trailingOutputConsole_ ;
+   // Number of characters trimmed from the front of trailingOutput_
+   private int trailingOutputTrimmed_ ;
    private final HTML prompt_ ;
    private final AceEditor input_ ;
    private final DockPanel inputLine_ ;
@@ -670,4 +894,5 @@ public class ShellPane extends Composite implements Shell.Display,
    private final TimeBufferedCommand scrollToBottomCommand_;
 
    private static final String KEYWORD_CLASS_NAME = " ace_keyword";
+   private static final int kPlaybackSliceMs = 25;
 }
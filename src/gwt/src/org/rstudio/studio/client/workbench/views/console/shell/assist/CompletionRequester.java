@@ -17,19 +17,43 @@ import org.rstudio.core.client.dom.DomUtils;
 import org.rstudio.studio.client.common.codetools.CodeToolsServerOperations;
 import org.rstudio.studio.client.common.codetools.Completions;
 import org.rstudio.studio.client.common.r.RToken;
+import org.rstudio.studio.client.common.r.RTokenBuffer;
 import org.rstudio.studio.client.common.r.RTokenizer;
 import org.rstudio.studio.client.server.ServerError;
 import org.rstudio.studio.client.server.ServerRequestCallback;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 
+/**
+ * Gets completions from the server, remembering the most recent results
+ * (for each place they were requested) so that completing a longer token
+ * in the same place -- as the user types, backspaces, or comes back to it
+ * -- can be answered by narrowing them rather than asking the server again.
+ */
 public class CompletionRequester
 {
    private final CodeToolsServerOperations server_ ;
    
-   private String cachedLinePrefix_ ;
-   private CompletionResult cachedResult_ ;
+   // cached results keyed by the line up to the end of their token, in
+   // access order so that the least recently used can be evicted
+   private final LinkedHashMap<String, CachedCompletions> cache_ =
+         new LinkedHashMap<String, CachedCompletions>(16, 0.75f, true)
+         {
+            @Override
+            protected boolean removeEldestEntry(
+                              Map.Entry<String, CachedCompletions> eldest)
+            {
+               return size() > MAX_CACHED_RESULTS ;
+            }
+         } ;
+   private final RTokenBuffer tokenBuffer_ = new RTokenBuffer() ;
+   
+   private static final int MAX_CACHED_RESULTS = 20 ;
    
    public CompletionRequester(CodeToolsServerOperations server)
    {
@@ -41,33 +65,13 @@ public class CompletionRequester
                      final int pos,
                      final ServerRequestCallback<CompletionResult> callback)
    {
-      if (cachedResult_ != null && cachedResult_.guessedFunctionName == null)
+      final String linePrefix = line.substring(0, pos) ;
+      
+      CompletionResult cached = getCachedCompletions(linePrefix) ;
+      if (cached != null)
       {
-         if (line.substring(0, pos).startsWith(cachedLinePrefix_))
-         {
-            String diff = line.substring(cachedLinePrefix_.length(), pos) ;
-            if (diff.length() > 0)
-            {
-               ArrayList<RToken> tokens = RTokenizer.asTokens("a" + diff) ;
-               
-               // when we cross a :: the list may actually grow, not shrink
-               if (!diff.endsWith("::"))
-               {
-                  while (tokens.size() > 0 
-                        && tokens.get(tokens.size()-1).getContent().equals(":"))
-                  {
-                     tokens.remove(tokens.size()-1) ;
-                  }
-               
-                  if (tokens.size() == 1
-                        && tokens.get(0).getTokenType() == RToken.ID)
-                  {
-                     callback.onResponseReceived(narrow(diff)) ;
-                     return ;
-                  }
-               }
-            }
-         }
+         callback.onResponseReceived(cached) ;
+         return ;
       }
       
       server_.getCompletions(line, pos, new ServerRequestCallback<Completions>() {
@@ -80,8 +84,6 @@ public class CompletionRequester
          @Override
          public void onResponseReceived(Completions response)
          {
-            cachedLinePrefix_ = line.substring(0, pos) ;
-
             JsArrayString comp = response.getCompletions() ;
             JsArrayString pkgs = response.getPackages() ;
             ArrayList<QualifiedName> newComp = new ArrayList<QualifiedName>() ;
@@ -89,33 +91,178 @@ public class CompletionRequester
             for (int i = 0; i < comp.length(); i++)
                newComp.add(new QualifiedName(comp.get(i), pkgs.get(i))) ;
             
-            cachedResult_ = new CompletionResult(
+            CompletionResult result = new CompletionResult(
                                            response.getToken(),
                                            newComp,
                                            response.getGuessedFunctionName()) ;
             
-            callback.onResponseReceived(cachedResult_) ;
+            // argument completions depend on the enclosing call rather
+            // than just the token so they can't be narrowed
+            if (result.guessedFunctionName == null)
+               cache_.put(linePrefix, new CachedCompletions(result)) ;
+            
+            callback.onResponseReceived(result) ;
          }
       }) ;
    }
    
+   /**
+    * Forgets all cached results (e.g. because the objects in scope may have
+    * changed).
+    */
    public void flushCache()
    {
-      cachedLinePrefix_ = null ;
-      cachedResult_ = null ;
+      cache_.clear() ;
    }
    
-   private CompletionResult narrow(String diff)
+   // narrows the cached results for the longest cached line prefix that
+   // this one extends by identifier characters only (null if there is none)
+   private CompletionResult getCachedCompletions(String linePrefix)
    {
-      assert cachedResult_.guessedFunctionName == null ;
+      String bestKey = null ;
+      for (String key : cache_.keySet())
+      {
+         if (linePrefix.startsWith(key) &&
+             (bestKey == null || key.length() > bestKey.length()) &&
+             canNarrow(linePrefix.substring(key.length())))
+         {
+            bestKey = key ;
+         }
+      }
       
-      String token = cachedResult_.token + diff ;
-      ArrayList<QualifiedName> newCompletions = new ArrayList<QualifiedName>() ;
-      for (QualifiedName qname : cachedResult_.completions)
-         if (qname.name.startsWith(token))
-            newCompletions.add(qname) ;
+      if (bestKey == null)
+         return null ;
+      
+      // get (rather than peek at) the entry to mark it as recently used
+      return cache_.get(bestKey).narrow(
+                                 linePrefix.substring(bestKey.length())) ;
+   }
+   
+   private boolean canNarrow(String diff)
+   {
+      if (diff.length() == 0)
+         return true ;
+      
+      // when we cross a :: the list may actually grow, not shrink
+      if (diff.endsWith("::"))
+         return false ;
+      
+      RTokenBuffer tokens = RTokenizer.tokenize("a" + diff, tokenBuffer_) ;
+      while (tokens.size() > 0 
+            && tokens.contentEquals(tokens.size()-1, ":"))
+      {
+         tokens.removeLast() ;
+      }
+   
+      return tokens.size() == 1 && tokens.getTokenType(0) == RToken.ID ;
+   }
+   
+   /**
+    * A completion result along with its names in sorted order, so that
+    * those starting with a longer token can be found by binary search.
+    */
+   private static class CachedCompletions
+   {
+      public CachedCompletions(CompletionResult result)
+      {
+         assert result.guessedFunctionName == null ;
+         
+         result_ = result ;
+         
+         final ArrayList<QualifiedName> completions = result.completions ;
+         Integer[] order = new Integer[completions.size()] ;
+         for (int i = 0; i < order.length; i++)
+            order[i] = i ;
+         Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b)
+            {
+               return completions.get(a).name.compareTo(
+                                                completions.get(b).name) ;
+            }
+         }) ;
+         
+         sortedNames_ = new String[order.length] ;
+         sortedOrder_ = new int[order.length] ;
+         for (int i = 0; i < order.length; i++)
+         {
+            sortedOrder_[i] = order[i] ;
+            sortedNames_[i] = completions.get(order[i]).name ;
+         }
+      }
+      
+      /**
+       * The completions for the cached token extended by diff, in the order
+       * the server returned them. If none start with the extended token, 
+       * falls back to those whose name contains diff as a subsequence 
+       * after the cached token (e.g. "dat" + "fr" matches data.frame).
+       */
+      public CompletionResult narrow(String diff)
+      {
+         if (diff.length() == 0)
+            return result_ ;
+         
+         String token = result_.token + diff ;
+         
+         int[] matches = new int[sortedNames_.length] ;
+         int matchCount = 0 ;
+         for (int i = lowerBound(token);
+              i < sortedNames_.length && sortedNames_[i].startsWith(token);
+              i++)
+         {
+            matches[matchCount++] = sortedOrder_[i] ;
+         }
+         
+         if (matchCount == 0)
+         {
+            int tokenLength = result_.token.length() ;
+            for (int i = 0; i < sortedNames_.length; i++)
+            {
+               if (isSubsequence(diff, sortedNames_[i], tokenLength))
+                  matches[matchCount++] = sortedOrder_[i] ;
+            }
+         }
+         
+         Arrays.sort(matches, 0, matchCount) ;
+         ArrayList<QualifiedName> newCompletions = 
+                                    new ArrayList<QualifiedName>(matchCount) ;
+         for (int i = 0; i < matchCount; i++)
+            newCompletions.add(result_.completions.get(matches[i])) ;
+         
+         return new CompletionResult(token, newCompletions, null) ;
+      }
+      
+      // index of the first name not less than the token
+      private int lowerBound(String token)
+      {
+         int low = 0 ;
+         int high = sortedNames_.length ;
+         while (low < high)
+         {
+            int mid = (low + high) >>> 1 ;
+            if (sortedNames_[mid].compareTo(token) < 0)
+               low = mid + 1 ;
+            else
+               high = mid ;
+         }
+         return low ;
+      }
+      
+      private static boolean isSubsequence(String chars, 
+                                           String name, 
+                                           int start)
+      {
+         int next = 0 ;
+         for (int i = start; i < name.length() && next < chars.length(); i++)
+         {
+            if (name.charAt(i) == chars.charAt(next))
+               next++ ;
+         }
+         return next == chars.length() ;
+      }
       
-      return new CompletionResult(token, newCompletions, null) ;
+      private final CompletionResult result_ ;
+      private final String[] sortedNames_ ;
+      private final int[] sortedOrder_ ;
    }
 
    public static class CompletionResult
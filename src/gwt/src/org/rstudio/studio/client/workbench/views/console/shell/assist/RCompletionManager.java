@@ -38,6 +38,8 @@ import org.rstudio.studio.client.server.ServerError;
 import org.rstudio.studio.client.server.ServerRequestCallback;
 import org.rstudio.studio.client.server.Void;
 import org.rstudio.studio.client.workbench.codesearch.model.FunctionDefinition;
+import org.rstudio.studio.client.workbench.views.console.events.ConsolePromptEvent;
+import org.rstudio.studio.client.workbench.views.console.events.ConsolePromptHandler;
 import org.rstudio.studio.client.workbench.views.console.shell.assist.CompletionRequester.CompletionResult;
 import org.rstudio.studio.client.workbench.views.console.shell.assist.CompletionRequester.QualifiedName;
 import org.rstudio.studio.client.workbench.views.console.shell.editor.InputEditorDisplay;
@@ -118,6 +120,23 @@ public class RCompletionManager implements CompletionManager
       globalDisplay_ = globalDisplay;
       fileTypeRegistry_ = fileTypeRegistry;
       eventBus_ = eventBus;
+      
+      // cached completions may be out of date once R has run something.
+      // there's a completion manager per editor (and they aren't told when
+      // they're done with) so rather than each one listening for prompts
+      // they share a count of them, kept by a single handler
+      if (!countingPrompts_)
+      {
+         countingPrompts_ = true;
+         eventBus_.addHandler(ConsolePromptEvent.TYPE, 
+                              new ConsolePromptHandler()
+         {
+            public void onConsolePrompt(ConsolePromptEvent event)
+            {
+               promptCount_++;
+            }
+         });
+      }
    }
 
    public void close()
@@ -364,28 +383,21 @@ public class RCompletionManager implements CompletionManager
    }
 
    private void invalidatePendingRequests()
-   {
-      invalidatePendingRequests(true) ;
-   }
-
-   private void invalidatePendingRequests(boolean flushCache)
    {
       invalidation_.invalidate();
       if (popup_.isShowing())
          popup_.hide() ;
-      if (flushCache)
-         requester_.flushCache() ;
    }
 
    /**
     * If false, the suggest operation was aborted
     */
-   private boolean beginSuggest(boolean flushCache)
+   private boolean beginSuggest(boolean canAutoAccept)
    {
       if (!input_.isSelectionCollapsed())
          return false ;
       
-      invalidatePendingRequests(flushCache) ;
+      invalidatePendingRequests() ;
 
       String line = input_.getText() ;
       if (!input_.hasSelection())
@@ -397,7 +409,12 @@ public class RCompletionManager implements CompletionManager
       if (selection == null)
          return false;
 
-      boolean canAutoAccept = flushCache;
+      if (cachePromptCount_ != promptCount_)
+      {
+         requester_.flushCache() ;
+         cachePromptCount_ = promptCount_;
+      }
+
       context_ = new CompletionRequestContext(invalidation_.getInvalidationToken(),
                                               selection,
                                               canAutoAccept) ;
@@ -521,7 +538,6 @@ public class RCompletionManager implements CompletionManager
             return ;
          
          popup_.hide() ;
-         requester_.flushCache() ;
          
          if (value == null)
          {
@@ -576,5 +592,11 @@ public class RCompletionManager implements CompletionManager
    private String token_ ;
    
    private final Invalidation invalidation_ = new Invalidation();
+   
+   // the number of console prompts seen (and how many had been when the
+   // cached completions were fetched)
+   private static boolean countingPrompts_ = false;
+   private static int promptCount_ = 0;
+   private int cachePromptCount_ = 0;
    private CompletionRequestContext context_ ;
 }
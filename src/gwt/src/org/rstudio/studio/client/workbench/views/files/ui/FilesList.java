@@ -14,6 +14,8 @@ package org.rstudio.studio.client.workbench.views.files.ui;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -34,7 +36,12 @@ import org.rstudio.studio.client.workbench.views.files.model.FileChange;
 import com.google.gwt.cell.client.CheckboxCell;
 import com.google.gwt.cell.client.ImageResourceCell;
 import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+import com.google.gwt.dom.client.Element;
 import com.google.gwt.dom.client.Style.Unit;
+import com.google.gwt.event.dom.client.ScrollEvent;
+import com.google.gwt.event.dom.client.ScrollHandler;
 import com.google.gwt.resources.client.ImageResource;
 import com.google.gwt.safehtml.shared.SafeHtmlBuilder;
 import com.google.gwt.safehtml.shared.SafeHtmlUtils;
@@ -51,6 +58,7 @@ import com.google.gwt.view.client.DefaultSelectionEventManager;
 import com.google.gwt.view.client.ListDataProvider;
 import com.google.gwt.view.client.MultiSelectionModel;
 import com.google.gwt.view.client.ProvidesKey;
+import com.google.gwt.view.client.Range;
 
 public class FilesList extends Composite
 {
@@ -94,6 +102,19 @@ public class FilesList extends Composite
       scrollPanel_ = new ScrollPanel();
       initWidget(scrollPanel_);
       scrollPanel_.setWidget(filesCellTable_);   
+      
+      // only the rows scrolled into view (a page at a time) are rendered
+      scrollPanel_.addScrollHandler(new ScrollHandler() {
+         @Override
+         public void onScroll(ScrollEvent event)
+         {
+            Element el = scrollPanel_.getElement();
+            int remaining = el.getScrollHeight() - el.getScrollTop() 
+                            - el.getClientHeight();
+            if (remaining < SHOW_MORE_THRESHOLD_PX)
+               showMoreRows();
+         }
+      });
    }
    
    private Column<FileSystemItem, Boolean> addSelectionColumn()
@@ -378,8 +399,11 @@ public class FilesList extends Composite
       containingPath_ = containingPath;
       parentPath_ = containingPath_.getParentPath();
       
-      // set page size (+1 for parent path)
-      filesCellTable_.setPageSize(files.length() + 1);
+      // any pending changes were for the previous listing
+      pendingChanges_.clear();
+      
+      // render the first page of rows only
+      filesCellTable_.setVisibleRange(0, PAGE_SIZE);
       
       // get underlying list
       List<FileSystemItem> fileList = dataProvider_.getList();
@@ -425,62 +449,100 @@ public class FilesList extends Composite
    }
    
    public void updateWithAction(FileChange viewAction)
-   {        
-      final FileSystemItem file = viewAction.getFile();
-      final List<FileSystemItem> files = getFiles();
-      switch(viewAction.getType())
+   {
+      // changes tend to arrive in bursts (e.g. a checkout or build touching
+      // thousands of files) so we apply all of those received during the
+      // current event loop together
+      pendingChanges_.add(viewAction);
+      if (pendingChanges_.size() == 1)
       {
-      case FileChange.ADD:
-         if (file.getParentPath().equalTo(containingPath_))
-         {
-            int row = rowForFile(file);
-            if (row == -1)
+         Scheduler.get().scheduleFinally(new ScheduledCommand() {
+            @Override
+            public void execute()
             {
-               files.add(file);
-               filesCellTable_.setPageSize(files.size() + 1);
+               applyPendingChanges();
             }
-            else
+         });
+      }
+   }
+   
+   private void applyPendingChanges()
+   {
+      if (pendingChanges_.isEmpty())
+         return;
+      
+      ArrayList<FileChange> changes = pendingChanges_;
+      pendingChanges_ = new ArrayList<FileChange>();
+      
+      final List<FileSystemItem> files = getFiles();
+      HashMap<String, Integer> rows = indexFiles(files);
+      HashSet<Integer> deletedRows = new HashSet<Integer>();
+      
+      for (FileChange change : changes)
+      {
+         final FileSystemItem file = change.getFile();
+         String key = keyForFile(file);
+         Integer row = rows.get(key);
+         switch(change.getType())
+         {
+         case FileChange.ADD:
+            if (file.getParentPath().equalTo(containingPath_))
             {
-               // since we eagerly perform renames at the client UI
-               // layer then sometimes an "added" file is really just
-               // a rename. in this case the file already exists due
-               // to the eager rename in the client but still needs its
-               // metadata updated
-               files.set(row, file);
+               if (row == null)
+               {
+                  rows.put(key, files.size());
+                  files.add(file);
+               }
+               else
+               {
+                  // since we eagerly perform renames at the client UI
+                  // layer then sometimes an "added" file is really just
+                  // a rename. in this case the file already exists due
+                  // to the eager rename in the client but still needs its
+                  // metadata updated
+                  files.set(row, file);
+               }
             }
-         }
-         break;
-         
-      case FileChange.MODIFIED:
-         {
-            int row = rowForFile(file);
-            if (row != -1)
+            break;
+            
+         case FileChange.MODIFIED:
+            if (row != null)
                files.set(row, file);
-         }
-         break;
- 
-      case FileChange.DELETE:
-         {
-            int row = rowForFile(file);
-            if (row != -1)
+            break;
+    
+         case FileChange.DELETE:
+            if (row != null)
             {
-               files.remove(row);
-               
-               // if a file is deleted and then re-added within the same
-               // event loop (as occurs when gedit saves a text file) the
-               // table doesn't always update correctly (it has a duplicate
-               // of the item deleted / re-added). the call to flush overcomes
-               // this issue
-               dataProvider_.flush();
+               // removed below in a single pass (so the rows recorded in the
+               // index stay valid until then)
+               rows.remove(key);
+               deletedRows.add(row);
             }
+            break;
+         
+         default:
+            Debug.log("Unexpected file change type: " + change.getType());
+            
+            break;
          }
-         break;
+      }
       
-      default:
-         Debug.log("Unexpected file change type: " + viewAction.getType());
-         
-         break;
+      if (!deletedRows.isEmpty())
+      {
+         ArrayList<FileSystemItem> remaining = new ArrayList<FileSystemItem>(
+                                       files.size() - deletedRows.size());
+         for (int i=0; i<files.size(); i++)
+            if (!deletedRows.contains(i))
+               remaining.add(files.get(i));
+         files.clear();
+         files.addAll(remaining);
       }
+      
+      // if a file is deleted and then re-added within the same event loop
+      // (as occurs when gedit saves a text file) the table doesn't always
+      // update correctly (it has a duplicate of the item deleted / re-added).
+      // the call to flush overcomes this issue
+      dataProvider_.flush();
    }
    
    public void renameFile(FileSystemItem from, FileSystemItem to)
@@ -498,14 +560,28 @@ public class FilesList extends Composite
       return dataProvider_.getList();
    }
    
-   private int rowForFile(FileSystemItem file)
+   // maps each file's key to its row
+   private HashMap<String, Integer> indexFiles(List<FileSystemItem> files)
    {
-      List<FileSystemItem> files = getFiles();
+      HashMap<String, Integer> rows = new HashMap<String, Integer>();
       for (int i=0; i<files.size(); i++)
-         if (files.get(i).equalTo(file))
-            return i ;
-      
-      return -1;
+         rows.put(keyForFile(files.get(i)), i);
+      return rows;
+   }
+   
+   // files with the same key are equalTo one another
+   private String keyForFile(FileSystemItem file)
+   {
+      return (file.isDirectory() ? "d:" : "f:") + file.getPath().toLowerCase();
+   }
+   
+   private void showMoreRows()
+   {
+      Range range = filesCellTable_.getVisibleRange();
+      int end = range.getStart() + range.getLength();
+      if (end < filesCellTable_.getRowCount())
+         filesCellTable_.setVisibleRange(range.getStart(), 
+                                         range.getLength() + PAGE_SIZE);
    }
    
    private void applyColumnSortList()
@@ -589,6 +665,11 @@ public class FilesList extends Composite
     }
     
    
+   private ArrayList<FileChange> pendingChanges_ = new ArrayList<FileChange>();
+   
+   private static final int PAGE_SIZE = 200;
+   private static final int SHOW_MORE_THRESHOLD_PX = 300;
+   
    private FileSystemItem containingPath_ = null;
    private FileSystemItem parentPath_ = null;
   
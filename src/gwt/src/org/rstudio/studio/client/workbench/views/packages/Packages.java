@@ -15,6 +15,7 @@ package org.rstudio.studio.client.workbench.views.packages;
 import com.google.gwt.core.client.JsArray;
 import com.google.gwt.event.shared.HandlerRegistration;
 import com.google.gwt.user.client.Command;
+import com.google.gwt.user.client.Timer;
 import com.google.inject.Inject;
 
 import org.rstudio.core.client.StringUtil;
@@ -51,14 +52,13 @@ import org.rstudio.studio.client.workbench.views.packages.model.PackageInfo;
 import org.rstudio.studio.client.workbench.views.packages.model.PackageInstallContext;
 import org.rstudio.studio.client.workbench.views.packages.model.PackageInstallOptions;
 import org.rstudio.studio.client.workbench.views.packages.model.PackageInstallRequest;
+import org.rstudio.studio.client.workbench.views.packages.model.PackageSearchIndex;
 import org.rstudio.studio.client.workbench.views.packages.model.PackageStatus;
 import org.rstudio.studio.client.workbench.views.packages.model.PackageUpdate;
 import org.rstudio.studio.client.workbench.views.packages.model.PackagesServerOperations;
 import org.rstudio.studio.client.workbench.views.packages.ui.CheckForUpdatesDialog;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 
@@ -76,7 +76,6 @@ public class Packages
       
       void installPackage(PackageInstallContext installContext,
                           PackageInstallOptions defaultInstallOptions,
-                          PackagesServerOperations server,
                           GlobalDisplay globalDisplay,
                           OperationWithInput<PackageInstallRequest> operation);
       
@@ -237,7 +236,6 @@ public class Packages
       view_.installPackage(
          installContext,
          installOptions_,
-         server_,
          globalDisplay_,
          new OperationWithInput<PackageInstallRequest>() 
          {
@@ -483,16 +481,9 @@ public class Packages
          @Override
          public void onResponseReceived(JsArray<PackageInfo> response)
          {
-            // sort the packages
-            allPackages_ = new ArrayList<PackageInfo>();
-            for (int i=0; i<response.length(); i++)
-               allPackages_.add(response.get(i));
-            Collections.sort(allPackages_, new Comparator<PackageInfo>() {
-               public int compare(PackageInfo o1, PackageInfo o2)
-               {
-                  return o1.getName().compareToIgnoreCase(o2.getName());
-               }
-            });
+            // sort and index the packages (a filter in effect still
+            // applies, but has to start over with the new list)
+            packageIndex_ = new PackageSearchIndex(response);
             
             view_.setProgress(false);
             setViewPackageList();
@@ -541,7 +532,10 @@ public class Packages
    public void onPackageFilterChanged(String filter)
    {
       packageFilter_ = filter.toLowerCase();
-      setViewPackageList();
+      
+      // searching is cheap but re-rendering the list isn't, so wait for
+      // a pause in typing
+      filterTimer_.schedule(FILTER_DELAY_MS);
    }
 
    public void onPackageStatusChanged(PackageStatusChangedEvent event)
@@ -552,37 +546,8 @@ public class Packages
    
    private void setViewPackageList()
    {
-      ArrayList<PackageInfo> packages = null; ;
-      
-      // apply filter (if any)
-      if (packageFilter_.length() > 0)
-      {
-         packages = new ArrayList<PackageInfo>();
-         
-         // first do prefix search
-         for (PackageInfo pkgInfo : allPackages_)
-         {
-            if (pkgInfo.getName().toLowerCase().startsWith(packageFilter_))
-               packages.add(pkgInfo);
-         }
-         
-         // then do contains search on name & desc
-         for (PackageInfo pkgInfo : allPackages_)
-         { 
-            if (pkgInfo.getName().toLowerCase().contains(packageFilter_) ||
-                pkgInfo.getDesc().toLowerCase().contains(packageFilter_))
-            {
-               if (!packages.contains(pkgInfo))
-                  packages.add(pkgInfo);
-            }
-         }
-      }
-      else
-      {
-         packages = allPackages_;
-      }
-      
-      view_.listPackages(packages);
+      filterTimer_.cancel();
+      view_.listPackages(packageIndex_.search(packageFilter_));
    }
    
    private void checkPackageStatusOnNextConsolePrompt(final String packageName)
@@ -653,8 +618,17 @@ public class Packages
 
    private final Display view_;
    private final PackagesServerOperations server_;
-   private ArrayList<PackageInfo> allPackages_ = new ArrayList<PackageInfo>();
+   private PackageSearchIndex packageIndex_ = new PackageSearchIndex(
+                                 JsArray.createArray().<JsArray<PackageInfo>>cast());
    private String packageFilter_ = new String();
+   private final Timer filterTimer_ = new Timer() {
+      @Override
+      public void run()
+      {
+         setViewPackageList();
+      }
+   };
+   private static final int FILTER_DELAY_MS = 100;
    private HandlerRegistration consolePromptHandlerReg_ = null;
    private final EventBus events_ ;
    private final GlobalDisplay globalDisplay_ ;
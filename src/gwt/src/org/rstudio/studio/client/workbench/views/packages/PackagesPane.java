@@ -38,7 +38,6 @@ import org.rstudio.studio.client.workbench.views.packages.model.PackageInfo;
 import org.rstudio.studio.client.workbench.views.packages.model.PackageInstallContext;
 import org.rstudio.studio.client.workbench.views.packages.model.PackageInstallOptions;
 import org.rstudio.studio.client.workbench.views.packages.model.PackageInstallRequest;
-import org.rstudio.studio.client.workbench.views.packages.model.PackagesServerOperations;
 import org.rstudio.studio.client.workbench.views.packages.ui.InstallPackageDialog;
 import org.rstudio.studio.client.workbench.views.packages.ui.PackagesCellTableResources;
 
@@ -69,13 +68,11 @@ public class PackagesPane extends WorkbenchPane implements Packages.Display
    
    public void installPackage(PackageInstallContext installContext,
                               PackageInstallOptions defaultInstallOptions,
-                              PackagesServerOperations server,
                               GlobalDisplay globalDisplay,
                               OperationWithInput<PackageInstallRequest> operation)
    {
       new InstallPackageDialog(installContext,
                                defaultInstallOptions,
-                               server, 
                                globalDisplay, 
                                operation).showModal();
    }
@@ -0,0 +1,167 @@
+/*
+ * CRANPackageCatalog.java
+ *
+ * Copyright (C) 2009-11 by RStudio, Inc.
+ *
+ * This program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.packages.model;
+
+import com.google.gwt.core.client.JsArrayString;
+import com.google.gwt.user.client.Command;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.rstudio.core.client.Debug;
+import org.rstudio.core.client.Invalidation;
+import org.rstudio.core.client.Invalidation.Token;
+import org.rstudio.studio.client.application.events.EventBus;
+import org.rstudio.studio.client.common.mirrors.events.CRANMirrorChangedEvent;
+import org.rstudio.studio.client.common.mirrors.events.CRANMirrorChangedHandler;
+import org.rstudio.studio.client.server.ServerError;
+import org.rstudio.studio.client.server.ServerRequestCallback;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * The names of the packages available from the configured repositories,
+ * fetched once per session (and again after the CRAN mirror changes)
+ * and kept sorted so that prefix lookups are a binary search.
+ */
+@Singleton
+public class CRANPackageCatalog implements CRANMirrorChangedHandler
+{
+   @Inject
+   public CRANPackageCatalog(PackagesServerOperations server,
+                             EventBus events)
+   {
+      server_ = server;
+      events.addHandler(CRANMirrorChangedEvent.TYPE, this);
+   }
+
+   /**
+    * Runs the command once the catalog is loaded (immediately if it
+    * already is), loading it if necessary.
+    */
+   public void whenLoaded(Command onLoaded)
+   {
+      if (names_ != null)
+      {
+         onLoaded.execute();
+         return;
+      }
+
+      pending_.add(onLoaded);
+      if (pending_.size() > 1)
+         return;
+
+      final Token token = invalidation_.getInvalidationToken();
+      server_.availablePackages(null,
+                                new ServerRequestCallback<JsArrayString>() {
+         @Override
+         public void onResponseReceived(JsArrayString packages)
+         {
+            if (token.isInvalid())
+               return;
+
+            setPackages(packages);
+
+            ArrayList<Command> pending = pending_;
+            pending_ = new ArrayList<Command>();
+            for (Command command : pending)
+               command.execute();
+         }
+
+         @Override
+         public void onError(ServerError error)
+         {
+            if (token.isInvalid())
+               return;
+
+            // let the next request try again
+            pending_.clear();
+            Debug.log("Error querying for packages: " +
+                      error.getUserMessage());
+         }
+      });
+   }
+
+   public boolean isLoaded()
+   {
+      return names_ != null;
+   }
+
+   /**
+    * Up to limit package names starting with the given prefix (ignoring
+    * case), in sorted order. Empty if the catalog isn't loaded.
+    */
+   public ArrayList<String> findByPrefix(String prefix, int limit)
+   {
+      ArrayList<String> results = new ArrayList<String>();
+      if (names_ == null)
+         return results;
+
+      String lowerPrefix = prefix.toLowerCase();
+      for (int i = lowerBound(lowerPrefix);
+           i < lowerNames_.length &&
+           results.size() < limit &&
+           lowerNames_[i].startsWith(lowerPrefix);
+           i++)
+      {
+         results.add(names_[i]);
+      }
+      return results;
+   }
+
+   public void onCRANMirrorChanged(CRANMirrorChangedEvent event)
+   {
+      invalidation_.invalidate();
+      names_ = null;
+      lowerNames_ = null;
+      pending_.clear();
+   }
+
+   private void setPackages(JsArrayString packages)
+   {
+      String[] names = new String[packages.length()];
+      for (int i=0; i<names.length; i++)
+         names[i] = packages.get(i);
+      Arrays.sort(names, String.CASE_INSENSITIVE_ORDER);
+
+      String[] lowerNames = new String[names.length];
+      for (int i=0; i<names.length; i++)
+         lowerNames[i] = names[i].toLowerCase();
+
+      names_ = names;
+      lowerNames_ = lowerNames;
+   }
+
+   // index of the first name not less than the (lower-case) prefix
+   private int lowerBound(String prefix)
+   {
+      int low = 0;
+      int high = lowerNames_.length;
+      while (low < high)
+      {
+         int mid = (low + high) >>> 1;
+         if (lowerNames_[mid].compareTo(prefix) < 0)
+            low = mid + 1;
+         else
+            high = mid;
+      }
+      return low;
+   }
+
+   private final PackagesServerOperations server_;
+   private final Invalidation invalidation_ = new Invalidation();
+   private ArrayList<Command> pending_ = new ArrayList<Command>();
+
+   // package names sorted ignoring case, and the same names lower-cased
+   private String[] names_ = null;
+   private String[] lowerNames_ = null;
+}
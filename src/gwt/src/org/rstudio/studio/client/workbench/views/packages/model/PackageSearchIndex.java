@@ -0,0 +1,129 @@
+/*
+ * PackageSearchIndex.java
+ *
+ * Copyright (C) 2009-11 by RStudio, Inc.
+ *
+ * This program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.packages.model;
+
+import com.google.gwt.core.client.JsArray;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ * The installed packages (sorted by name) along with their lower-cased
+ * names and descriptions, so that filtering doesn't need to lower-case or
+ * allocate anything per package. As filters are typically typed a
+ * character at a time, a search for a filter that extends the previous
+ * one only considers the previous matches.
+ */
+public class PackageSearchIndex
+{
+   public PackageSearchIndex(JsArray<PackageInfo> packages)
+   {
+      packages_ = new ArrayList<PackageInfo>(packages.length());
+      for (int i=0; i<packages.length(); i++)
+         packages_.add(packages.get(i));
+      Collections.sort(packages_, new Comparator<PackageInfo>() {
+         public int compare(PackageInfo o1, PackageInfo o2)
+         {
+            return o1.getName().compareToIgnoreCase(o2.getName());
+         }
+      });
+
+      int count = packages_.size();
+      names_ = new String[count];
+      descs_ = new String[count];
+      for (int i=0; i<count; i++)
+      {
+         PackageInfo pkgInfo = packages_.get(i);
+         names_[i] = pkgInfo.getName().toLowerCase();
+         descs_[i] = pkgInfo.getDesc() != null ?
+                                 pkgInfo.getDesc().toLowerCase() : "";
+      }
+   }
+
+   /**
+    * Packages whose name or description contains the given (lower-case)
+    * filter, ranked as names starting with the filter, then names
+    * containing it, then descriptions containing it (by name within each).
+    */
+   public ArrayList<PackageInfo> search(String filter)
+   {
+      if (filter.length() == 0)
+      {
+         lastFilter_ = null;
+         return packages_;
+      }
+
+      // anything matching this filter also matched a shorter prefix of it
+      int[] candidates;
+      int candidateCount;
+      if (lastFilter_ != null && filter.startsWith(lastFilter_))
+      {
+         candidates = lastMatches_;
+         candidateCount = lastMatchCount_;
+      }
+      else
+      {
+         candidates = null;
+         candidateCount = names_.length;
+      }
+
+      int[] matches = new int[candidateCount];
+      byte[] ranks = new byte[candidateCount];
+      int matchCount = 0;
+      int[] rankCounts = new int[3];
+      for (int c=0; c<candidateCount; c++)
+      {
+         int i = candidates != null ? candidates[c] : c;
+
+         int rank;
+         if (names_[i].startsWith(filter))
+            rank = 0;
+         else if (names_[i].indexOf(filter) != -1)
+            rank = 1;
+         else if (descs_[i].indexOf(filter) != -1)
+            rank = 2;
+         else
+            continue;
+
+         matches[matchCount] = i;
+         ranks[matchCount] = (byte) rank;
+         matchCount++;
+         rankCounts[rank]++;
+      }
+
+      lastFilter_ = filter;
+      lastMatches_ = matches;
+      lastMatchCount_ = matchCount;
+
+      // matches are in name order so a stable bucketing by rank is all
+      // the sorting we need
+      PackageInfo[] ranked = new PackageInfo[matchCount];
+      int[] next = new int[] {0, rankCounts[0], rankCounts[0] + rankCounts[1]};
+      for (int m=0; m<matchCount; m++)
+         ranked[next[ranks[m]]++] = packages_.get(matches[m]);
+
+      ArrayList<PackageInfo> results = new ArrayList<PackageInfo>(matchCount);
+      for (PackageInfo pkgInfo : ranked)
+         results.add(pkgInfo);
+      return results;
+   }
+
+   private final ArrayList<PackageInfo> packages_;
+   private final String[] names_;
+   private final String[] descs_;
+
+   private String lastFilter_ = null;
+   private int[] lastMatches_ = null;
+   private int lastMatchCount_ = 0;
+}
@@ -12,7 +12,8 @@
  */
 package org.rstudio.studio.client.workbench.views.packages.ui;
 
-import org.rstudio.core.client.Debug;
+import java.util.ArrayList;
+
 import org.rstudio.core.client.StringUtil;
 import org.rstudio.core.client.files.FileSystemContext;
 import org.rstudio.core.client.files.FileSystemItem;
@@ -28,12 +29,10 @@ import org.rstudio.core.client.widget.SmallButton;
 import org.rstudio.studio.client.RStudioGinjector;
 import org.rstudio.studio.client.common.FileDialogs;
 import org.rstudio.studio.client.common.GlobalDisplay;
-import org.rstudio.studio.client.server.ServerError;
-import org.rstudio.studio.client.server.ServerRequestCallback;
+import org.rstudio.studio.client.workbench.views.packages.model.CRANPackageCatalog;
 import org.rstudio.studio.client.workbench.views.packages.model.PackageInstallContext;
 import org.rstudio.studio.client.workbench.views.packages.model.PackageInstallOptions;
 import org.rstudio.studio.client.workbench.views.packages.model.PackageInstallRequest;
-import org.rstudio.studio.client.workbench.views.packages.model.PackagesServerOperations;
 
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.core.client.JsArrayString;
@@ -43,6 +42,8 @@ import com.google.gwt.event.dom.client.ClickEvent;
 import com.google.gwt.event.dom.client.ClickHandler;
 import com.google.gwt.resources.client.ClientBundle;
 import com.google.gwt.resources.client.CssResource;
+import com.google.gwt.safehtml.shared.SafeHtmlBuilder;
+import com.google.gwt.user.client.Command;
 import com.google.gwt.user.client.ui.CheckBox;
 import com.google.gwt.user.client.ui.FlowPanel;
 import com.google.gwt.user.client.ui.Focusable;
@@ -52,9 +53,10 @@ import com.google.gwt.user.client.ui.HorizontalPanel;
 import com.google.gwt.user.client.ui.Image;
 import com.google.gwt.user.client.ui.Label;
 import com.google.gwt.user.client.ui.ListBox;
-import com.google.gwt.user.client.ui.MultiWordSuggestOracle;
+import com.google.gwt.user.client.ui.MultiWordSuggestOracle.MultiWordSuggestion;
 import com.google.gwt.user.client.ui.SimplePanel;
 import com.google.gwt.user.client.ui.SuggestBox;
+import com.google.gwt.user.client.ui.SuggestOracle;
 import com.google.gwt.user.client.ui.TextBox;
 import com.google.gwt.user.client.ui.VerticalPanel;
 import com.google.gwt.user.client.ui.Widget;
@@ -65,7 +67,6 @@ public class InstallPackageDialog extends ModalDialog<PackageInstallRequest>
    public InstallPackageDialog(
                            PackageInstallContext installContext,
                            PackageInstallOptions defaultInstallOptions,
-                           PackagesServerOperations server,
                            GlobalDisplay globalDisplay,
                            OperationWithInput<PackageInstallRequest> operation)
 {
@@ -73,7 +74,6 @@ public class InstallPackageDialog extends ModalDialog<PackageInstallRequest>
       
       installContext_ = installContext;
       defaultInstallOptions_ = defaultInstallOptions;
-      server_ = server;
       globalDisplay_ = globalDisplay;
 
       setOkButtonCaption("Install");
@@ -347,28 +347,47 @@ public class InstallPackageDialog extends ModalDialog<PackageInstallRequest>
       
    };
    
-   private class PackageOracle extends MultiWordSuggestOracle
+   // strict (case-insensitive) prefix match against the package catalog,
+   // which is fetched once per session rather than once per dialog
+   private class PackageOracle extends SuggestOracle
    {
-      PackageOracle()
+      @Override
+      public boolean isDisplayStringHTML()
       {
-         // no separators (strict prefix match)
-         super("");
-         
-         server_.availablePackages(null,
-                                   new ServerRequestCallback<JsArrayString>() {
-            @Override
-            public void onResponseReceived(JsArrayString packages)
-            {
-               for (int i=0; i<packages.length(); i++)
-                  add(packages.get(i));
-            }
+         return true;
+      }
 
-            @Override
-            public void onError(ServerError error)
+      @Override
+      public void requestSuggestions(final Request request,
+                                     final Callback callback)
+      {
+         final String query = request.getQuery().trim();
+         if (query.length() == 0)
+         {
+            callback.onSuggestionsReady(request, new Response(
+                                       new ArrayList<Suggestion>()));
+            return;
+         }
+
+         // wait for the catalog if it isn't loaded yet (SuggestBox
+         // ignores responses to anything but its latest request)
+         packageCatalog_.whenLoaded(new Command() {
+            public void execute()
             {
-               Debug.log("Error querying for packages: " + 
-                         error.getUserMessage());
-            }  
+               ArrayList<Suggestion> suggestions = new ArrayList<Suggestion>();
+               for (String name : packageCatalog_.findByPrefix(
+                                                   query, request.getLimit()))
+               {
+                  SafeHtmlBuilder display = new SafeHtmlBuilder();
+                  display.appendHtmlConstant("<strong>");
+                  display.appendEscaped(name.substring(0, query.length()));
+                  display.appendHtmlConstant("</strong>");
+                  display.appendEscaped(name.substring(query.length()));
+                  suggestions.add(new MultiWordSuggestion(
+                                 name, display.toSafeHtml().asString()));
+               }
+               callback.onSuggestionsReady(request, new Response(suggestions));
+            }
          });
       }
    }
@@ -401,7 +420,6 @@ public class InstallPackageDialog extends ModalDialog<PackageInstallRequest>
    
    private final PackageInstallContext installContext_;
    private final PackageInstallOptions defaultInstallOptions_;
-   private final PackagesServerOperations server_;
    private final GlobalDisplay globalDisplay_;
    
    private HorizontalPanel reposHelpPanel_;
@@ -426,4 +444,7 @@ public class InstallPackageDialog extends ModalDialog<PackageInstallRequest>
    
    private final FileDialogs fileDialogs_ = 
       RStudioGinjector.INSTANCE.getFileDialogs();
+   
+   private final CRANPackageCatalog packageCatalog_ =
+      RStudioGinjector.INSTANCE.getCRANPackageCatalog();
 }
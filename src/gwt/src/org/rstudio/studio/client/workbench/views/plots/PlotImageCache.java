@@ -0,0 +1,81 @@
+/*
+ * PlotImageCache.java
+ *
+ * Copyright (C) 2009-11 by RStudio, Inc.
+ *
+ * This program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.plots;
+
+import com.google.gwt.dom.client.Document;
+import com.google.gwt.dom.client.ImageElement;
+import org.rstudio.core.client.Size;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Images of recently shown (or prefetched) plots in the history, keyed by
+ * plot index and size. Each entry holds an image element with the plot's
+ * url so that the browser has fetched and decoded it by the time we show
+ * it. As plot image urls are strong named an entry is only stale if the
+ * plots at each index change, which callers handle by clearing the cache.
+ */
+public class PlotImageCache
+{
+   public void put(int index, Size size, String url)
+   {
+      String key = key(index, size);
+      ImageElement image = images_.get(key);
+      if (image != null && url.equals(image.getAttribute("src")))
+         return;
+
+      image = Document.get().createImageElement();
+      image.setAttribute("src", url);
+      images_.put(key, image);
+   }
+
+   /**
+    * The url of the image for the plot at the given index and size, or
+    * null if there isn't one.
+    */
+   public String get(int index, Size size)
+   {
+      ImageElement image = images_.get(key(index, size));
+      return image != null ? image.getAttribute("src") : null;
+   }
+
+   public boolean contains(int index, Size size)
+   {
+      return images_.containsKey(key(index, size));
+   }
+
+   public void clear()
+   {
+      images_.clear();
+   }
+
+   private static String key(int index, Size size)
+   {
+      return index + ":" + size.width + "x" + size.height;
+   }
+
+   private static final int MAX_IMAGES = 12;
+
+   // access ordered so that the least recently used image is evicted
+   private final LinkedHashMap<String, ImageElement> images_ =
+         new LinkedHashMap<String, ImageElement>(16, 0.75f, true)
+         {
+            @Override
+            protected boolean removeEldestEntry(
+                                       Map.Entry<String, ImageElement> eldest)
+            {
+               return size() > MAX_IMAGES;
+            }
+         };
+}
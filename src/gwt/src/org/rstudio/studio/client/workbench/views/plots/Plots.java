@@ -13,17 +13,22 @@
 package org.rstudio.studio.client.workbench.views.plots;
 
 import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.JsArray;
 import com.google.gwt.event.dom.client.ClickEvent;
 import com.google.gwt.event.dom.client.ClickHandler;
 import com.google.gwt.event.logical.shared.HasResizeHandlers;
 import com.google.gwt.event.logical.shared.SelectionEvent;
 import com.google.gwt.event.logical.shared.SelectionHandler;
 import com.google.gwt.json.client.JSONObject;
+import com.google.gwt.user.client.Command;
 import com.google.gwt.user.client.Window;
 import com.google.gwt.user.client.ui.HasWidgets;
 import com.google.gwt.user.client.ui.Panel;
 import com.google.inject.Inject;
 
+import org.rstudio.core.client.Debug;
+import org.rstudio.core.client.Invalidation;
+import org.rstudio.core.client.Invalidation.Token;
 import org.rstudio.core.client.Point;
 import org.rstudio.core.client.Size;
 import org.rstudio.core.client.files.FileSystemItem;
@@ -53,13 +58,16 @@ import org.rstudio.studio.client.workbench.views.plots.events.LocatorHandler;
 import org.rstudio.studio.client.workbench.views.plots.events.PlotsChangedEvent;
 import org.rstudio.studio.client.workbench.views.plots.events.PlotsChangedHandler;
 import org.rstudio.studio.client.workbench.views.plots.model.ExportPlotOptions;
+import org.rstudio.studio.client.workbench.views.plots.model.PlotImage;
 import org.rstudio.studio.client.workbench.views.plots.model.SavePlotAsImageContext;
 import org.rstudio.studio.client.workbench.views.plots.model.PlotsServerOperations;
 import org.rstudio.studio.client.workbench.views.plots.model.PlotsState;
 import org.rstudio.studio.client.workbench.views.plots.model.SavePlotAsPdfOptions;
 import org.rstudio.studio.client.workbench.views.plots.ui.export.ExportPlot;
-import org.rstudio.studio.client.workbench.views.plots.ui.manipulator.ManipulatorChangedHandler;
 import org.rstudio.studio.client.workbench.views.plots.ui.manipulator.ManipulatorManager;
+import org.rstudio.studio.client.workbench.views.plots.ui.manipulator.ManipulatorUpdateScheduler;
+
+import java.util.ArrayList;
 
 public class Plots extends BasePresenter implements PlotsChangedHandler,
                                                     LocatorHandler,
@@ -120,13 +128,14 @@ public class Plots extends BasePresenter implements PlotsChangedHandler,
          view_.getPlotsSurface(),
          commands,
         
-         new ManipulatorChangedHandler()
+         new ManipulatorUpdateScheduler.Sender()
          { 
             @Override
-            public void onManipulatorChanged(JSONObject values)
+            public void send(JSONObject values, Command onCompleted)
             { 
-               server_.setManipulatorValues(values, 
-                                            new ManipulatorRequestCallback()); 
+               server_.setManipulatorValues(
+                              values,
+                              new ManipulatorRequestCallback(onCompleted)); 
             }           
          },
          
@@ -222,6 +231,24 @@ public class Plots extends BasePresenter implements PlotsChangedHandler,
       view_.setProgress(false);
       manipulatorManager_.setProgress(false);
       
+      // update plot size
+      plotSize_ = new Size(plotsState.getWidth(), plotsState.getHeight());
+
+      // indexes only refer to the same plots if none have been removed
+      if (plotsState.getPlotCount() < plotCount_)
+         imageCache_.clear();
+      
+      // while navigating we've already shown (or are waiting for) the plot 
+      // we're headed for, so don't flash the ones we pass through on the 
+      // way. a plot being added or removed supersedes the navigation
+      if (plotsState.getPlotCount() != plotCount_ ||
+          plotsState.getPlotIndex() == targetPlotIndex_)
+      {
+         targetPlotIndex_ = -1;
+      }
+      boolean showPlot = targetPlotIndex_ == -1;
+      plotCount_ = plotsState.getPlotCount();
+      
       // if this is the empty plot then clear the display
       // NOTE: we currently return a zero byte PNG as our "empty.png" from
       // the server. this is shown as a blank pane by Webkit, however
@@ -229,20 +256,22 @@ public class Plots extends BasePresenter implements PlotsChangedHandler,
       // pane. therefore, we put in this workaround. 
       if (plotsState.getFilename().startsWith("empty."))
       {
+         plotIndex_ = -1;
+         targetPlotIndex_ = -1;
          view_.showEmptyPlot(); 
       }
-      else
+      else if (showPlot)
       {
+         plotIndex_ = plotsState.getPlotIndex();
          String url = server_.getGraphicsUrl(plotsState.getFilename());
+         imageCache_.put(plotIndex_, plotSize_, url);
          view_.showPlot(url);
+         prefetchNeighbors();
       }
 
       // activate plots tab if requested
       if (plotsState.getActivatePlots())
          view_.bringToFront();
-      
-      // update plot size
-      plotSize_ = new Size(plotsState.getWidth(), plotsState.getHeight());
 
       // manipulator
       manipulatorManager_.setManipulator(plotsState.getManipulator(),
@@ -256,15 +285,96 @@ public class Plots extends BasePresenter implements PlotsChangedHandler,
    void onNextPlot()
    {
       view_.bringToFront();
-      setChangePlotProgress();
-      server_.nextPlot(new PlotRequestCallback());
+      if (navigateToPlot(plotIndex_ + 1))
+         server_.nextPlot(new NavigateRequestCallback());
    }
 
    void onPreviousPlot()
    {
       view_.bringToFront();
-      setChangePlotProgress();
-      server_.previousPlot(new PlotRequestCallback());
+      if (navigateToPlot(plotIndex_ - 1))
+         server_.previousPlot(new NavigateRequestCallback());
+   }
+   
+   // shows the plot at the given index straight away if we have its image
+   // (otherwise shows progress until the server sends it). returns false
+   // if there's no such plot.
+   private boolean navigateToPlot(int index)
+   {
+      if (index < 0 || index >= plotCount_)
+         return false;
+      
+      plotIndex_ = index;
+      targetPlotIndex_ = index;
+      
+      String url = plotSize_ != null ? imageCache_.get(index, plotSize_) 
+                                     : null;
+      if (url != null)
+      {
+         view_.showPlot(url);
+         prefetchNeighbors();
+      }
+      else
+      {
+         setChangePlotProgress();
+      }
+      
+      return true;
+   }
+   
+   // fetch the images of the plots either side of the current one (if 
+   // they were last rendered at the current size) so we can navigate to
+   // them without waiting on the server
+   private void prefetchNeighbors()
+   {
+      if (plotSize_ == null || plotIndex_ < 0)
+         return;
+      
+      ArrayList<Integer> indexes = new ArrayList<Integer>();
+      for (int index = plotIndex_ - 1; index <= plotIndex_ + 1; index += 2)
+      {
+         if (index >= 0 && index < plotCount_ &&
+             !imageCache_.contains(index, plotSize_))
+         {
+            indexes.add(index);
+         }
+      }
+      if (indexes.isEmpty())
+         return;
+      
+      int[] indexArray = new int[indexes.size()];
+      for (int i=0; i<indexArray.length; i++)
+         indexArray[i] = indexes.get(i);
+      
+      final Token token = prefetchInvalidation_.getInvalidationToken();
+      server_.getPlotImages(indexArray, 
+                            new ServerRequestCallback<JsArray<PlotImage>>() {
+         @Override
+         public void onResponseReceived(JsArray<PlotImage> images)
+         {
+            if (token.isInvalid())
+               return;
+            
+            for (int i=0; i<images.length(); i++)
+            {
+               PlotImage image = images.get(i);
+               Size size = new Size(image.getWidth(), image.getHeight());
+               if (size.equals(plotSize_))
+               {
+                  imageCache_.put(image.getIndex(), 
+                                  size, 
+                                  server_.getGraphicsUrl(image.getFilename()));
+               }
+            }
+         }
+         
+         @Override
+         public void onError(ServerError error)
+         {
+            // prefetching is only an optimization
+            Debug.logError(error);
+         }
+      });
    }
    
    void onRemovePlot()
@@ -283,6 +393,7 @@ public class Plots extends BasePresenter implements PlotsChangedHandler,
             public void execute(final ProgressIndicator indicator)
             {
                indicator.onProgress("Removing plot...");
+               invalidatePlotImages();
                server_.removePlot(new VoidServerRequestCallback(indicator));
             }
          },
@@ -310,6 +421,7 @@ public class Plots extends BasePresenter implements PlotsChangedHandler,
             public void execute(final ProgressIndicator indicator)
             {
                indicator.onProgress("Clearing plots...");
+               invalidatePlotImages();
                server_.clearPlots(new VoidServerRequestCallback(indicator));
             }
          },
@@ -503,6 +615,12 @@ public class Plots extends BasePresenter implements PlotsChangedHandler,
          view_.setProgress(true);
    }
    
+   private void invalidatePlotImages()
+   {
+      prefetchInvalidation_.invalidate();
+      imageCache_.clear();
+   }
+   
    private class PlotRequestCallback extends ServerRequestCallback<Void>
    {
       @Override
@@ -521,6 +639,17 @@ public class Plots extends BasePresenter implements PlotsChangedHandler,
                                          error.getUserMessage());
       }
    }
+   
+   private class NavigateRequestCallback extends PlotRequestCallback
+   {
+      @Override
+      public void onError(ServerError error)
+      {
+         // the plot we were headed for isn't coming
+         targetPlotIndex_ = -1;
+         super.onError(error);
+      }
+   }
 
    public void onLocator(LocatorEvent event)
    {
@@ -556,6 +685,12 @@ public class Plots extends BasePresenter implements PlotsChangedHandler,
    {
       public ManipulatorRequestCallback()
       {
+         this(null);
+      }
+      
+      public ManipulatorRequestCallback(Command onCompleted)
+      {
+         onCompleted_ = onCompleted;
          manipulatorManager_.setProgress(true);
       }
       
@@ -565,6 +700,10 @@ public class Plots extends BasePresenter implements PlotsChangedHandler,
          // we don't clear the progress until the GraphicsOutput
          // event is received (enables us to wait for rendering
          // to complete before clearing progress)
+         
+         // the server has rendered by the time it responds though
+         if (onCompleted_ != null)
+            onCompleted_.execute();
       }
 
       @Override
@@ -573,9 +712,11 @@ public class Plots extends BasePresenter implements PlotsChangedHandler,
          manipulatorManager_.setProgress(false);
          globalDisplay_.showErrorMessage("Server Error", 
                                          error.getUserMessage());
-         
+         if (onCompleted_ != null)
+            onCompleted_.execute();
       }
       
+      private final Command onCompleted_;
    }
 
    private final Display view_;
@@ -599,4 +740,12 @@ public class Plots extends BasePresenter implements PlotsChangedHandler,
   
    // size of most recently rendered plot
    Size plotSize_ = null;
+   
+   // the plot we're showing (or navigating to) and the number of plots
+   private int plotIndex_ = -1;
+   private int plotCount_ = 0;
+   // the plot we're navigating to until the server shows it (or -1)
+   private int targetPlotIndex_ = -1;
+   private final PlotImageCache imageCache_ = new PlotImageCache();
+   private final Invalidation prefetchInvalidation_ = new Invalidation();
 }
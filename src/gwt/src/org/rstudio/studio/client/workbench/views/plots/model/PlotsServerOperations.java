@@ -16,6 +16,7 @@ import org.rstudio.core.client.files.FileSystemItem;
 import org.rstudio.studio.client.server.Bool;
 import org.rstudio.studio.client.server.ServerRequestCallback;
 import org.rstudio.studio.client.server.Void;
+import com.google.gwt.core.client.JsArray;
 import com.google.gwt.json.client.JSONObject;
 
 
@@ -33,6 +34,9 @@ public interface PlotsServerOperations
    void nextPlot(ServerRequestCallback<Void> requestCallback);
    void previousPlot(ServerRequestCallback<Void> requestCallback);
    
+   void getPlotImages(int[] indexes,
+                      ServerRequestCallback<JsArray<PlotImage>> requestCallback);
+   
    void removePlot(ServerRequestCallback<Void> requestCallback);
    
    void clearPlots(ServerRequestCallback<Void> requestCallback);
@@ -17,4 +17,7 @@ import com.google.gwt.json.client.JSONObject;
 public interface ManipulatorChangedHandler
 {
    void onManipulatorChanged(JSONObject values);
+
+   // values of a control that is still changing (e.g. a dragged slider)
+   void onManipulatorChanging(JSONObject values);
 }
\ No newline at end of file
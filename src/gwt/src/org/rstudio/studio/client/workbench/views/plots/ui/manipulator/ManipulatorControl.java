@@ -46,10 +46,20 @@ public abstract class ManipulatorControl extends Composite implements CanFocus
    }
    
    protected void onValueChanged(JSONValue value)
+   {
+      changedHandler_.onManipulatorChanged(toValues(value));
+   }
+
+   protected void onValueChanging(JSONValue value)
+   {
+      changedHandler_.onManipulatorChanging(toValues(value));
+   }
+
+   private JSONObject toValues(JSONValue value)
    {
       JSONObject values = new JSONObject();
       values.put(variable_, value);
-      changedHandler_.onManipulatorChanged(values);
+      return values;
    }
    
    
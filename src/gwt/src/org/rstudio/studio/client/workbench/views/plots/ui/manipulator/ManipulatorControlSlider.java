@@ -94,14 +94,30 @@ public class ManipulatorControlSlider extends ManipulatorControl
          } 
       });
       sliderBar_.setCurrentValue(value);
+      lastValue_ = value;
       
-      // fire changed even on slide completed
+      // fire changing while the slider moves (the handler decides whether
+      // the plot can keep up) and changed once the slide is completed
+      sliderBar_.addChangeListener(new ChangeListener() {
+         @Override
+         public void onChange(Widget sender)
+         {
+            double currentValue = sliderBar_.getCurrentValue();
+            if (currentValue != lastValue_)
+            {
+               lastValue_ = currentValue;
+               ManipulatorControlSlider.this.onValueChanging(
+                                          new JSONNumber(currentValue));
+            }
+         }
+      });
       sliderBar_.addSlideCompletedListener(new ChangeListener() {
          @Override
          public void onChange(Widget sender)
          {
+            lastValue_ = sliderBar_.getCurrentValue();
             ManipulatorControlSlider.this.onValueChanged(
-                        new JSONNumber(sliderBar_.getCurrentValue()));
+                        new JSONNumber(lastValue_));
          }
          
       });
@@ -132,4 +148,5 @@ public class ManipulatorControlSlider extends ManipulatorControl
    }
    
    private SliderBar sliderBar_ ;
+   private double lastValue_;
 }
@@ -19,6 +19,8 @@ import org.rstudio.studio.client.workbench.views.plots.model.Manipulator;
 
 import com.google.gwt.event.dom.client.ClickEvent;
 import com.google.gwt.event.dom.client.ClickHandler;
+import com.google.gwt.json.client.JSONObject;
+import com.google.gwt.user.client.Command;
 import com.google.gwt.user.client.ui.Panel;
 import com.google.gwt.user.client.ui.PopupPanel.PositionCallback;
 
@@ -26,7 +28,7 @@ public class ManipulatorManager
 {
    public ManipulatorManager(Panel plotsSurface,
                              Commands commands,
-                             ManipulatorChangedHandler changedHandler,
+                             final ManipulatorUpdateScheduler.Sender valuesSender,
                              final ClickHandler plotsClickHandler)
    {
       ManipulatorResources resources = ManipulatorResources.INSTANCE;
@@ -49,7 +51,8 @@ public class ManipulatorManager
                }
             });
       manipulatorButton_.addStyleName(styles.manipulateButton());
-      manipulatorButton_.setTitle(commands.showManipulator().getTooltip());
+      buttonTooltip_ = commands.showManipulator().getTooltip();
+      manipulatorButton_.setTitle(buttonTooltip_);
       plotsSurface_.add(manipulatorButton_);
       manipulatorButton_.setVisible(false);
       manipulatorProgress_ = new ProgressImage(resources.manipulateProgress());
@@ -57,8 +60,26 @@ public class ManipulatorManager
       plotsSurface_.add(manipulatorProgress_);
       manipulatorProgress_.setVisible(false);
       
-      // create manipulator popup panel
-      manipulatorPopup_ = new ManipulatorPopupPanel(changedHandler);
+      // create manipulator popup panel (changes go through the scheduler
+      // so that renders don't queue up behind the controls)
+      updateScheduler_ = new ManipulatorUpdateScheduler(
+                                 new ManipulatorUpdateScheduler.Sender() {
+         public void send(JSONObject values, final Command onCompleted)
+         {
+            valuesSender.send(values, new Command() {
+               public void execute()
+               {
+                  onCompleted.execute();
+                  
+                  // let the user see how long the plot takes to update
+                  manipulatorButton_.setTitle(
+                        buttonTooltip_ + " (last update took " +
+                        updateScheduler_.getLastLatency() + " ms)");
+               }
+            });
+         }
+      });
+      manipulatorPopup_ = new ManipulatorPopupPanel(updateScheduler_);
       manipulatorPopup_.addAutoHidePartner(plotsSurface_.getElement());
       
       // forward click event to caller
@@ -80,8 +101,10 @@ public class ManipulatorManager
    {
       if (isNewManipulatorState(manipulator))
       {
-         // set active manipulator
+         // set active manipulator (values for the old one are moot)
          manipulator_ = manipulator;
+         updateScheduler_.discardPending();
+         manipulatorButton_.setTitle(buttonTooltip_);
              
          // set visibility of manipulator button
          manipulatorButton_.setVisible(manipulator_ != null);
@@ -182,7 +205,9 @@ public class ManipulatorManager
    private final Panel plotsSurface_;
    private Manipulator manipulator_;
    private ToolbarButton manipulatorButton_;
+   private final String buttonTooltip_;
    private ProgressImage manipulatorProgress_;
    private ManipulatorPopupPanel manipulatorPopup_;
+   private final ManipulatorUpdateScheduler updateScheduler_;
   
 }
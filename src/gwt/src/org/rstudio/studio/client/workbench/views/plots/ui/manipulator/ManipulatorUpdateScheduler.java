@@ -0,0 +1,141 @@
+/*
+ * ManipulatorUpdateScheduler.java
+ *
+ * Copyright (C) 2009-11 by RStudio, Inc.
+ *
+ * This program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.plots.ui.manipulator;
+
+import com.google.gwt.json.client.JSONObject;
+import com.google.gwt.json.client.JSONValue;
+import com.google.gwt.user.client.Command;
+
+import java.util.HashMap;
+
+/**
+ * Sends manipulator values to the server with at most one request in
+ * flight. Values changed while a render is in progress are merged (the
+ * latest value of each variable wins) and sent together once it finishes,
+ * so the plot never falls behind the controls by more than one render.
+ * Values reported while a control is still changing (e.g. a slider being
+ * dragged) are only sent if renders have recently been quick enough for
+ * that to keep up, and a value equal to the one last sent for its
+ * variable (e.g. the final value of a slide already sent while dragging)
+ * isn't sent again.
+ */
+public class ManipulatorUpdateScheduler implements ManipulatorChangedHandler
+{
+   public interface Sender
+   {
+      /**
+       * Sends the values, calling onCompleted once the server has rendered
+       * them (or failed to).
+       */
+      void send(JSONObject values, Command onCompleted);
+   }
+
+   public ManipulatorUpdateScheduler(Sender sender)
+   {
+      sender_ = sender;
+   }
+
+   public void onManipulatorChanged(JSONObject values)
+   {
+      merge(values);
+      if (!inFlight_)
+         sendPending();
+   }
+
+   public void onManipulatorChanging(JSONObject values)
+   {
+      if (lastLatency_ <= MAX_INTERACTIVE_LATENCY_MS)
+         onManipulatorChanged(values);
+   }
+
+   /**
+    * How long (in milliseconds) the most recent update took to render, or
+    * -1 if none has completed yet.
+    */
+   public int getLastLatency()
+   {
+      return lastLatency_;
+   }
+
+   /**
+    * Drops any values not yet sent (e.g. because they were for a
+    * manipulator that has since been replaced).
+    */
+   public void discardPending()
+   {
+      pending_ = null;
+      lastSent_.clear();
+   }
+
+   private void merge(JSONObject values)
+   {
+      for (String key : values.keySet())
+      {
+         JSONValue value = values.get(key);
+         boolean alreadySent = value.toString().equals(lastSent_.get(key));
+
+         // a value which is already pending is replaced (or dropped, if the
+         // variable has since gone back to the value last sent)
+         if (pending_ != null && pending_.containsKey(key))
+         {
+            if (alreadySent)
+               pending_.put(key, null);
+            else
+               pending_.put(key, value);
+         }
+         else if (!alreadySent)
+         {
+            if (pending_ == null)
+               pending_ = new JSONObject();
+            pending_.put(key, value);
+         }
+      }
+   }
+
+   private void sendPending()
+   {
+      if (pending_ == null || pending_.size() == 0)
+      {
+         pending_ = null;
+         return;
+      }
+
+      JSONObject values = pending_;
+      pending_ = null;
+      inFlight_ = true;
+      for (String key : values.keySet())
+         lastSent_.put(key, values.get(key).toString());
+
+      final long startTime = System.currentTimeMillis();
+      sender_.send(values, new Command()
+      {
+         public void execute()
+         {
+            lastLatency_ = (int) (System.currentTimeMillis() - startTime);
+            inFlight_ = false;
+            sendPending();
+         }
+      });
+   }
+
+   // beyond this, intermediate values are skipped in favor of final ones
+   private static final int MAX_INTERACTIVE_LATENCY_MS = 1000;
+
+   private final Sender sender_;
+   private JSONObject pending_ = null;
+   private boolean inFlight_ = false;
+   // the (serialized) value last sent for each variable
+   private final HashMap<String, String> lastSent_ =
+                                             new HashMap<String, String>();
+   private int lastLatency_ = -1;
+}
@@ -42,6 +42,7 @@ import org.rstudio.studio.client.common.FileDialogs;
 import org.rstudio.studio.client.common.GlobalDisplay;
 import org.rstudio.studio.client.common.SimpleRequestCallback;
 import org.rstudio.studio.client.common.filetypes.EditableFileType;
+import org.rstudio.studio.client.common.filetypes.FileType;
 import org.rstudio.studio.client.common.filetypes.FileTypeRegistry;
 import org.rstudio.studio.client.common.filetypes.TextFileType;
 import org.rstudio.studio.client.common.filetypes.events.OpenSourceFileEvent;
@@ -62,6 +63,7 @@ import org.rstudio.studio.client.workbench.views.data.events.ViewDataEvent;
 import org.rstudio.studio.client.workbench.views.data.events.ViewDataHandler;
 import org.rstudio.studio.client.workbench.views.source.editors.EditingTarget;
 import org.rstudio.studio.client.workbench.views.source.editors.EditingTargetSource;
+import org.rstudio.studio.client.workbench.views.source.editors.PlaceholderEditingTarget;
 import org.rstudio.studio.client.workbench.views.source.editors.codebrowser.CodeBrowserEditingTarget;
 import org.rstudio.studio.client.workbench.views.source.editors.data.DataEditingTarget;
 import org.rstudio.studio.client.workbench.views.source.editors.text.TextEditingTarget;
@@ -315,6 +317,10 @@ public class Source implements InsertSourceHandler,
       manageCommands();
       // Same with this event
       fireDocTabsChanged();
+      // Placeholders aren't loaded during initialization (when several tabs
+      // may be selected in turn), so load the one that ended up active
+      if (activeEditor_ != null)
+         withLoadedTarget(activeEditor_, null);
    }
 
    /**
@@ -348,7 +354,13 @@ public class Source implements InsertSourceHandler,
 
       for (int i = 0; i < docs.length(); i++)
       {
-         addTab(docs.get(i));
+         // saved files come without their contents, and are only loaded
+         // when their tabs are first activated
+         SourceDocument doc = docs.get(i);
+         if (doc.getContents() == null)
+            addPlaceholderTab(doc);
+         else
+            addTab(doc);
       }
    }
    
@@ -681,7 +693,7 @@ public class Source implements InsertSourceHandler,
                @Override
                public void execute(EditingTarget target, Command continuation)
                {
-                  view_.closeTab(target.asWidget(), false, continuation);
+                  view_.closeTab(editors_.indexOf(target), false, continuation);
                }
             });
             
@@ -758,7 +770,9 @@ public class Source implements InsertSourceHandler,
                else
                {
                   // untitled document -- just close the tab non-interactively
-                  view_.closeTab(saveTarget.asWidget(), false, continuation);
+                  view_.closeTab(editors_.indexOf(saveTarget),
+                                 false,
+                                 continuation);
                }
             }
          },
@@ -921,7 +935,15 @@ public class Source implements InsertSourceHandler,
             view_.selectTab(i);
             pMruList_.get().add(thisPath);
             if (resultCallback != null)
-               resultCallback.onSuccess(target);
+            {
+               withLoadedTarget(target, new CommandWithArg<EditingTarget>()
+               {
+                  public void execute(EditingTarget loaded)
+                  {
+                     resultCallback.onSuccess(loaded);
+                  }
+               });
+            }
             return;
          }
       }
@@ -1025,7 +1047,26 @@ public class Source implements InsertSourceHandler,
 
    private EditingTarget addTab(SourceDocument doc)
    {
-      final EditingTarget target = editingTargetSource_.getEditingTarget(
+      final EditingTarget target = createEditingTarget(doc);
+      
+      final Widget widget = target.asWidget();
+
+      editors_.add(target);
+      view_.addTab(widget,
+                   target.getIcon(),
+                   target.getName().getValue(),
+                   target.getTabTooltip(), // used as tooltip, if non-null
+                   true);
+      fireDocTabsChanged();
+
+      bindTab(target, widget);
+
+      return target;
+   }
+
+   private EditingTarget createEditingTarget(SourceDocument doc)
+   {
+      return editingTargetSource_.getEditingTarget(
             doc, fileContext_, new Provider<String>()
             {
                public String get()
@@ -1033,17 +1074,129 @@ public class Source implements InsertSourceHandler,
                   return getNextDefaultName();
                }
             });
-      
-      final Widget widget = target.asWidget();
+   }
+
+   private void addPlaceholderTab(SourceDocument doc)
+   {
+      FileType type = fileTypeRegistry_.getTypeByTypeName(doc.getType());
+      EditingTarget target = new PlaceholderEditingTarget(
+            doc,
+            type instanceof EditableFileType ? (EditableFileType) type
+                                             : FileTypeRegistry.TEXT);
 
       editors_.add(target);
-      view_.addTab(widget,
+      view_.addTab(target.asWidget(),
                    target.getIcon(),
                    target.getName().getValue(),
-                   target.getTabTooltip(), // used as tooltip, if non-null
-                   true);
+                   target.getTabTooltip(),
+                   false);
+      fireDocTabsChanged();
+   }
+
+   /**
+    * Runs the command with the given target once it's loaded, which is
+    * immediately unless it's a placeholder (in which case its document is
+    * fetched and it is replaced by a real editing target).
+    */
+   private void withLoadedTarget(EditingTarget target,
+                                 final CommandWithArg<EditingTarget> command)
+   {
+      withLoadedTarget(target, command, null);
+   }
+
+   private void withLoadedTarget(EditingTarget target,
+                                 final CommandWithArg<EditingTarget> command,
+                                 Command onFailed)
+   {
+      if (!(target instanceof PlaceholderEditingTarget))
+      {
+         if (command != null)
+            command.execute(target);
+         return;
+      }
+
+      final PlaceholderEditingTarget placeholder =
+                                          (PlaceholderEditingTarget) target;
+      boolean firstRequest = placeholder.addLoadedCommand(
+                                       new CommandWithArg<EditingTarget>()
+      {
+         public void execute(EditingTarget loaded)
+         {
+            if (command != null)
+               command.execute(loaded);
+         }
+      }, onFailed);
+      if (!firstRequest)
+         return;
+
+      server_.getSourceDocument(placeholder.getId(),
+                                new ServerRequestCallback<SourceDocument>()
+      {
+         @Override
+         public void onResponseReceived(SourceDocument doc)
+         {
+            // the tab may have been closed while we were waiting
+            int index = editors_.indexOf(placeholder);
+            if (index < 0)
+            {
+               placeholder.onLoadFailed();
+               return;
+            }
+
+            placeholder.onLoaded(replacePlaceholder(index, placeholder, doc));
+         }
+
+         @Override
+         public void onError(ServerError error)
+         {
+            placeholder.onLoadFailed();
+            globalDisplay_.showErrorMessage("Error Opening Document",
+                                            error.getUserMessage());
+         }
+      });
+   }
+
+   private EditingTarget replacePlaceholder(int index,
+                                            PlaceholderEditingTarget placeholder,
+                                            SourceDocument doc)
+   {
+      EditingTarget target = createEditingTarget(doc);
+      editors_.set(index, target);
+
+      // the placeholder's widget remains the tab's widget, and holds the
+      // real target's widget
+      Widget widget = placeholder.asWidget();
+      placeholder.setContent(target.asWidget());
+      bindTab(target, widget);
+      view_.renameTab(widget,
+                      target.getIcon(),
+                      target.getName().getValue(),
+                      target.getTabTooltip());
       fireDocTabsChanged();
 
+      if (activeEditor_ == placeholder)
+      {
+         activeEditor_ = target;
+         activeEditor_.onActivate();
+         manageCommands();
+         Scheduler.get().scheduleDeferred(new ScheduledCommand()
+         {
+            public void execute()
+            {
+               if (activeEditor_ != null)
+                  activeEditor_.focus();
+            }
+         });
+      }
+
+      // the document may have changed on disk since the session started
+      target.onInitiallyLoaded();
+
+      return target;
+   }
+
+   private void bindTab(final EditingTarget target, final Widget widget)
+   {
       target.getName().addValueChangeHandler(new ValueChangeHandler<String>()
       {
          public void onValueChange(ValueChangeEvent<String> event)
@@ -1081,8 +1234,6 @@ public class Source implements InsertSourceHandler,
             view_.closeTab(widget, false);
          }
       });
-
-      return target;
    }
 
    private String getNextDefaultName()
@@ -1192,6 +1343,7 @@ public class Source implements InsertSourceHandler,
          activeEditor_.onActivate();
          if (initialized_)
          {
+            withLoadedTarget(activeEditor_, null);
             Scheduler.get().scheduleDeferred(new ScheduledCommand()
             {
                public void execute()
@@ -1345,16 +1497,32 @@ public class Source implements InsertSourceHandler,
          }
          else
          {
+            // a placeholder target is loaded asynchronously, so adding
+            // navigations stays suspended until it has been (as with
+            // SourceNavigationResultCallback)
             suspendSourceNavigationAdding_ = true;
-            try
+            view_.selectTab(editors_.indexOf(target));
+            withLoadedTarget(target, new CommandWithArg<EditingTarget>()
             {
-               view_.selectTab(target.asWidget());
-               target.restorePosition(navigation.getPosition());
-            }
-            finally
+               public void execute(EditingTarget loaded)
+               {
+                  try
+                  {
+                     loaded.restorePosition(navigation.getPosition());
+                  }
+                  finally
+                  {
+                     suspendSourceNavigationAdding_ = false;
+                  }
+               }
+            },
+            new Command()
             {
-               suspendSourceNavigationAdding_ = false;
-            }
+               public void execute()
+               {
+                  suspendSourceNavigationAdding_ = false;
+               }
+            });
          }
       }
       
@@ -0,0 +1,257 @@
+/*
+ * PlaceholderEditingTarget.java
+ *
+ * Copyright (C) 2009-11 by RStudio, Inc.
+ *
+ * This program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors;
+
+import com.google.gwt.event.logical.shared.CloseHandler;
+import com.google.gwt.event.shared.GwtEvent;
+import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.gwt.resources.client.ImageResource;
+import com.google.gwt.user.client.Command;
+import com.google.gwt.user.client.ui.HasValue;
+import com.google.gwt.user.client.ui.SimpleLayoutPanel;
+import com.google.gwt.user.client.ui.Widget;
+import com.google.inject.Provider;
+import org.rstudio.core.client.CommandWithArg;
+import org.rstudio.core.client.command.AppCommand;
+import org.rstudio.core.client.events.EnsureVisibleHandler;
+import org.rstudio.core.client.files.FileSystemContext;
+import org.rstudio.core.client.files.FileSystemItem;
+import org.rstudio.studio.client.common.ReadOnlyValue;
+import org.rstudio.studio.client.common.Value;
+import org.rstudio.studio.client.common.filetypes.EditableFileType;
+import org.rstudio.studio.client.common.filetypes.FileType;
+import org.rstudio.studio.client.workbench.views.source.model.SourceDocument;
+import org.rstudio.studio.client.workbench.views.source.model.SourcePosition;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+/**
+ * Stands in for a restored document whose contents the server didn't send
+ * (a saved file with no unsaved changes) until its tab is first activated.
+ * It knows only what's needed to show the tab; Source replaces it with a
+ * real editing target once the document has been fetched, at which point
+ * the real target's widget is shown inside this one's (which stays as the
+ * tab's widget).
+ */
+public class PlaceholderEditingTarget implements EditingTarget
+{
+   public PlaceholderEditingTarget(SourceDocument document,
+                                   EditableFileType type)
+   {
+      doc_ = document;
+      type_ = type;
+      name_ = new Value<String>(
+                     FileSystemItem.createFile(document.getPath()).getName());
+      host_ = new SimpleLayoutPanel();
+      host_.setSize("100%", "100%");
+   }
+
+   /**
+    * Adds a command to run with the real target once it's loaded (and,
+    * optionally, one to run instead if it can't be loaded). Returns true if
+    * this is the first such command (i.e. the caller should start loading
+    * the document).
+    */
+   public boolean addLoadedCommand(CommandWithArg<EditingTarget> command,
+                                   Command onFailed)
+   {
+      loadedCommands_.add(command);
+      if (onFailed != null)
+         failedCommands_.add(onFailed);
+      return loadedCommands_.size() == 1;
+   }
+
+   /**
+    * Shows the real target's widget in place of this one's (empty) content.
+    */
+   public void setContent(Widget widget)
+   {
+      host_.setWidget(widget);
+   }
+
+   public void onLoaded(EditingTarget target)
+   {
+      ArrayList<CommandWithArg<EditingTarget>> commands = loadedCommands_;
+      loadedCommands_ = new ArrayList<CommandWithArg<EditingTarget>>();
+      failedCommands_ = new ArrayList<Command>();
+      for (CommandWithArg<EditingTarget> command : commands)
+         command.execute(target);
+   }
+
+   public void onLoadFailed()
+   {
+      ArrayList<Command> commands = failedCommands_;
+      loadedCommands_ = new ArrayList<CommandWithArg<EditingTarget>>();
+      failedCommands_ = new ArrayList<Command>();
+      for (Command command : commands)
+         command.execute();
+   }
+
+   public String getId()
+   {
+      return doc_.getId();
+   }
+
+   public HasValue<String> getName()
+   {
+      return name_;
+   }
+
+   public String getTitle()
+   {
+      return name_.getValue();
+   }
+
+   public String getPath()
+   {
+      return doc_.getPath();
+   }
+
+   public String getContext()
+   {
+      return null;
+   }
+
+   public ImageResource getIcon()
+   {
+      return type_.getDefaultIcon();
+   }
+
+   public String getTabTooltip()
+   {
+      return getPath();
+   }
+
+   public HashSet<AppCommand> getSupportedCommands()
+   {
+      return new HashSet<AppCommand>();
+   }
+
+   public void focus()
+   {
+   }
+
+   public void onActivate()
+   {
+   }
+
+   public void onDeactivate()
+   {
+   }
+
+   public void onInitiallyLoaded()
+   {
+   }
+
+   public void recordCurrentNavigationPosition()
+   {
+   }
+
+   public void navigateToPosition(SourcePosition position,
+                                  boolean recordCurrent)
+   {
+   }
+
+   public void restorePosition(SourcePosition position)
+   {
+   }
+
+   public boolean isAtSourceRow(SourcePosition position)
+   {
+      return false;
+   }
+
+   public boolean onBeforeDismiss()
+   {
+      return true;
+   }
+
+   public void onDismiss()
+   {
+   }
+
+   public ReadOnlyValue<Boolean> dirtyState()
+   {
+      return dirtyState_;
+   }
+
+   public void save(Command onCompleted)
+   {
+      onCompleted.execute();
+   }
+
+   public void saveWithPrompt(Command onCompleted)
+   {
+      onCompleted.execute();
+   }
+
+   public void revertChanges(Command onCompleted)
+   {
+      onCompleted.execute();
+   }
+
+   public void initialize(SourceDocument document,
+                          FileSystemContext fileContext,
+                          FileType type,
+                          Provider<String> defaultNameProvider)
+   {
+      // placeholders are constructed with their document, and the real
+      // target is initialized by Source when the document is loaded
+   }
+
+   public long getFileSizeLimit()
+   {
+      return Long.MAX_VALUE;
+   }
+
+   public long getLargeFileSize()
+   {
+      return Long.MAX_VALUE;
+   }
+
+   public Widget asWidget()
+   {
+      return host_;
+   }
+
+   public HandlerRegistration addEnsureVisibleHandler(EnsureVisibleHandler handler)
+   {
+      return new HandlerRegistration()
+      {
+         public void removeHandler()
+         {
+         }
+      };
+   }
+
+   public HandlerRegistration addCloseHandler(
+         CloseHandler<Void> voidCloseHandler)
+   {
+      return addEnsureVisibleHandler(null);
+   }
+
+   public void fireEvent(GwtEvent<?> event)
+   {
+      host_.fireEvent(event);
+   }
+
+   private final SourceDocument doc_;
+   private final EditableFileType type_;
+   private final Value<String> name_;
+   private final Value<Boolean> dirtyState_ = new Value<Boolean>(false);
+   private final SimpleLayoutPanel host_;
+   private ArrayList<CommandWithArg<EditingTarget>> loadedCommands_ =
+                              new ArrayList<CommandWithArg<EditingTarget>>();
+   private ArrayList<Command> failedCommands_ = new ArrayList<Command>();
+}
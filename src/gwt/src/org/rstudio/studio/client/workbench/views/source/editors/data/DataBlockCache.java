@@ -0,0 +1,233 @@
+/*
+ * DataBlockCache.java
+ *
+ * Copyright (C) 2009-11 by RStudio, Inc.
+ *
+ * This program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors.data;
+
+import com.google.gwt.core.client.JsArrayString;
+import org.rstudio.core.client.Invalidation;
+import org.rstudio.core.client.Invalidation.Token;
+import org.rstudio.studio.client.server.ServerError;
+import org.rstudio.studio.client.server.ServerRequestCallback;
+import org.rstudio.studio.client.workbench.views.source.model.DataBlock;
+import org.rstudio.studio.client.workbench.views.source.model.SourceServerOperations;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Fetches a data viewer's data from the server in fixed size blocks of
+ * rows and columns, keeping the most recently used blocks. Changing the
+ * sort or filter discards the cached blocks (along with any responses
+ * still in flight, since they are for the old row order).
+ */
+public class DataBlockCache
+{
+   public interface Observer
+   {
+      // one or more blocks arrived (the row count may have changed)
+      void onDataChanged();
+      void onError(String message);
+   }
+
+   public DataBlockCache(SourceServerOperations server,
+                         String cacheKey,
+                         int columnCount,
+                         Observer observer)
+   {
+      server_ = server;
+      cacheKey_ = cacheKey;
+      columnNames_ = new String[columnCount];
+      observer_ = observer;
+   }
+
+   public void setView(int sortColumn, boolean ascending, String filter)
+   {
+      sortColumn_ = sortColumn;
+      ascending_ = ascending;
+      filter_ = filter;
+
+      invalidation_.invalidate();
+      blocks_.clear();
+      pending_.clear();
+      totalRows_ = -1;
+   }
+
+   /**
+    * The number of rows matching the current filter, or -1 if the first
+    * block for the current view hasn't arrived yet.
+    */
+   public int getTotalRows()
+   {
+      return totalRows_;
+   }
+
+   public String getColumnName(int column)
+   {
+      return columnNames_[column];
+   }
+
+   /**
+    * Returns the block holding the given cell (in display order), or null
+    * if it isn't loaded yet. Loading blocks is left to ensureLoaded.
+    */
+   public DataBlock getBlock(int row, int column)
+   {
+      return blocks_.get(blockKey(row / ROWS_PER_BLOCK,
+                                  column / COLUMNS_PER_BLOCK));
+   }
+
+   public String getValue(int row, int column)
+   {
+      DataBlock block = getBlock(row, column);
+      if (block == null)
+         return null;
+
+      int blockRow = row % ROWS_PER_BLOCK;
+      if (blockRow >= block.getRowCount())
+         return null;
+      JsArrayString values = block.getColumn(column % COLUMNS_PER_BLOCK);
+      return values.get(blockRow);
+   }
+
+   public String getRowName(int row)
+   {
+      DataBlock block = getBlock(row, 0);
+      if (block == null || row % ROWS_PER_BLOCK >= block.getRowCount())
+         return null;
+      return block.getRowNames().get(row % ROWS_PER_BLOCK);
+   }
+
+   /**
+    * Requests whichever blocks covering the given rows and columns (plus
+    * the row blocks either side, so that scrolling a little doesn't wait on
+    * the server) aren't already loaded or loading. Only a few requests are
+    * kept in flight; the caller is expected to call again once data
+    * arrives, by which time it will usually be looking somewhere else.
+    */
+   public void ensureLoaded(int firstRow, int lastRow,
+                            int firstColumn, int lastColumn)
+   {
+      int firstRowBlock = Math.max(0, firstRow / ROWS_PER_BLOCK - 1);
+      int lastRowBlock = lastRow / ROWS_PER_BLOCK + 1;
+      if (totalRows_ >= 0)
+         lastRowBlock = Math.min(lastRowBlock,
+                                 Math.max(0, totalRows_ - 1) / ROWS_PER_BLOCK);
+      int firstColumnBlock = firstColumn / COLUMNS_PER_BLOCK;
+      int lastColumnBlock = Math.min(lastColumn,
+                                     columnNames_.length - 1)
+                            / COLUMNS_PER_BLOCK;
+
+      // the visible blocks first, then the ones either side
+      for (int pass = 0; pass < 2; pass++)
+      {
+         for (int rowBlock = firstRowBlock;
+              rowBlock <= lastRowBlock;
+              rowBlock++)
+         {
+            boolean visible = rowBlock * ROWS_PER_BLOCK <= lastRow &&
+                              (rowBlock + 1) * ROWS_PER_BLOCK > firstRow;
+            if (visible != (pass == 0))
+               continue;
+
+            for (int columnBlock = firstColumnBlock;
+                 columnBlock <= lastColumnBlock;
+                 columnBlock++)
+            {
+               if (pending_.size() >= MAX_PENDING)
+                  return;
+               requestBlock(rowBlock, columnBlock);
+            }
+         }
+      }
+   }
+
+   private void requestBlock(final int rowBlock, final int columnBlock)
+   {
+      final String key = blockKey(rowBlock, columnBlock);
+      if (pending_.contains(key) || blocks_.containsKey(key))
+         return;
+
+      pending_.add(key);
+      final Token token = invalidation_.getInvalidationToken();
+      server_.getDataBlock(cacheKey_,
+                           rowBlock * ROWS_PER_BLOCK,
+                           ROWS_PER_BLOCK,
+                           columnBlock * COLUMNS_PER_BLOCK,
+                           COLUMNS_PER_BLOCK,
+                           sortColumn_,
+                           ascending_,
+                           filter_,
+                           new ServerRequestCallback<DataBlock>()
+      {
+         @Override
+         public void onResponseReceived(DataBlock block)
+         {
+            if (token.isInvalid())
+               return;
+
+            pending_.remove(key);
+            blocks_.put(key, block);
+            totalRows_ = block.getTotalRows();
+
+            JsArrayString names = block.getColumnNames();
+            for (int i = 0; i < names.length(); i++)
+               columnNames_[columnBlock * COLUMNS_PER_BLOCK + i] = names.get(i);
+
+            observer_.onDataChanged();
+         }
+
+         @Override
+         public void onError(ServerError error)
+         {
+            if (token.isInvalid())
+               return;
+
+            pending_.remove(key);
+            observer_.onError(error.getUserMessage());
+         }
+      });
+   }
+
+   private String blockKey(int rowBlock, int columnBlock)
+   {
+      return rowBlock + "," + columnBlock;
+   }
+
+   public static final int ROWS_PER_BLOCK = 100;
+   public static final int COLUMNS_PER_BLOCK = 20;
+   private static final int MAX_BLOCKS = 100;
+   private static final int MAX_PENDING = 4;
+
+   @SuppressWarnings("serial")
+   private final LinkedHashMap<String, DataBlock> blocks_ =
+         new LinkedHashMap<String, DataBlock>(MAX_BLOCKS, 0.75f, true)
+   {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, DataBlock> eldest)
+      {
+         return size() > MAX_BLOCKS;
+      }
+   };
+   private final HashSet<String> pending_ = new HashSet<String>();
+   private final Invalidation invalidation_ = new Invalidation();
+
+   private final SourceServerOperations server_;
+   private final String cacheKey_;
+   private final String[] columnNames_;
+   private final Observer observer_;
+
+   private int sortColumn_ = -1;
+   private boolean ascending_ = true;
+   private String filter_ = "";
+   private int totalRows_ = -1;
+}
@@ -13,19 +13,30 @@
 package org.rstudio.studio.client.workbench.views.source.editors.data;
 
 import com.google.gwt.core.client.GWT;
+import com.google.gwt.dom.client.Style;
+import com.google.gwt.dom.client.Style.Position;
 import com.google.gwt.dom.client.Style.Unit;
+import com.google.gwt.event.dom.client.LoadEvent;
+import com.google.gwt.event.dom.client.LoadHandler;
+import com.google.gwt.event.logical.shared.ValueChangeEvent;
+import com.google.gwt.event.logical.shared.ValueChangeHandler;
 import com.google.gwt.resources.client.ClientBundle;
 import com.google.gwt.resources.client.CssResource;
+import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.ui.*;
 
 import org.rstudio.core.client.StringUtil;
 import org.rstudio.core.client.dom.IFrameElementEx;
+import org.rstudio.core.client.widget.SearchWidget;
 import org.rstudio.core.client.widget.Toolbar;
 import org.rstudio.studio.client.workbench.commands.Commands;
 import org.rstudio.studio.client.workbench.views.source.PanelWithToolbar;
 import org.rstudio.studio.client.workbench.views.source.editors.EditingTargetToolbar;
 import org.rstudio.studio.client.workbench.views.source.editors.urlcontent.UrlContentEditingTarget;
 import org.rstudio.studio.client.workbench.views.source.model.DataItem;
+import org.rstudio.studio.client.workbench.views.source.model.SourceServerOperations;
+
+import java.util.ArrayList;
 
 public class DataEditingTargetWidget extends Composite
    implements UrlContentEditingTarget.Display
@@ -51,52 +62,120 @@ public class DataEditingTargetWidget extends Composite
       resources.styles().ensureInjected();
    }
 
-   public DataEditingTargetWidget(Commands commands, DataItem dataItem)
+   public DataEditingTargetWidget(Commands commands,
+                                  SourceServerOperations server,
+                                  DataItem dataItem)
    {
       Styles styles = resources.styles();
 
       commands_ = commands;
+      dataItem_ = dataItem;
+
+      Widget mainWidget;
+      if (dataItem.getCacheKey() != null)
+         mainWidget = createGrid(server, dataItem, styles);
+      else
+         mainWidget = createFrame(dataItem, styles);
+
+      PanelWithToolbar panel = new PanelWithToolbar(createToolbar(dataItem,
+                                                                  styles),
+                                                    mainWidget);
 
+      initWidget(panel);
+
+   }
+
+   private Widget createGrid(SourceServerOperations server,
+                             DataItem dataItem,
+                             Styles styles)
+   {
+      cache_ = new DataBlockCache(server,
+                                  dataItem.getCacheKey(),
+                                  dataItem.getVariables(),
+                                  new DataBlockCache.Observer()
+      {
+         public void onDataChanged()
+         {
+            grid_.onDataChanged();
+            updateStatus(null);
+         }
+
+         public void onError(String message)
+         {
+            updateStatus(message);
+         }
+      });
+      grid_ = new DataViewerGrid(cache_, dataItem.getVariables());
+
+      statusBar_ = new FlowPanel();
+      statusBar_.setStylePrimaryName(styles.statusBar());
+      statusBar_.setSize("100%", "100%");
+      statusLabel_ = new Label();
+      statusLabel_.addStyleName(styles.statusBarDisplayed());
+      statusBar_.add(statusLabel_);
+
+      DockLayoutPanel dockPanel = new DockLayoutPanel(Unit.PX);
+      dockPanel.addSouth(statusBar_, 20);
+      dockPanel.add(grid_);
+      dockPanel.setSize("100%", "100%");
+      return dockPanel;
+   }
+
+   private Widget createFrame(DataItem dataItem, Styles styles)
+   {
       frame_ = new Frame(dataItem.getContentUrl());
       frame_.setSize("100%", "100%");
 
-      Widget mainWidget = frame_;
+      if (dataItem.getDisplayedObservations() == dataItem.getTotalObservations())
+         return frame_;
+
+      FlowPanel statusBar = new FlowPanel();
+      statusBar.setStylePrimaryName(styles.statusBar());
+      statusBar.setSize("100%", "100%");
+      Label label1 = new Label(
+            "Displayed "
+            + StringUtil.formatGeneralNumber(dataItem.getDisplayedObservations())
+            + " rows of "
+            + StringUtil.formatGeneralNumber(dataItem.getTotalObservations()));
+      int omitted = dataItem.getTotalObservations()
+                    - dataItem.getDisplayedObservations();
+      Label label2 = new Label("(" +
+                               StringUtil.formatGeneralNumber(omitted) +
+                               " omitted)");
+
+      label1.addStyleName(styles.statusBarDisplayed());
+      label2.addStyleName(styles.statusBarOmitted());
+
+      statusBar.add(label1);
+      statusBar.add(label2);
+
+      DockLayoutPanel dockPanel = new DockLayoutPanel(Unit.PX);
+      dockPanel.addSouth(statusBar, 20);
+      dockPanel.add(frame_);
+      dockPanel.setSize("100%", "100%");
+      return dockPanel;
+   }
 
-      if (dataItem.getDisplayedObservations() != dataItem.getTotalObservations())
+   private void updateStatus(String error)
+   {
+      if (error != null)
       {
-         FlowPanel statusBar = new FlowPanel();
-         statusBar.setStylePrimaryName(styles.statusBar());
-         statusBar.setSize("100%", "100%");
-         Label label1 = new Label(
-               "Displayed "
-               + StringUtil.formatGeneralNumber(dataItem.getDisplayedObservations())
-               + " rows of "
-               + StringUtil.formatGeneralNumber(dataItem.getTotalObservations()));
-         int omitted = dataItem.getTotalObservations()
-                       - dataItem.getDisplayedObservations();
-         Label label2 = new Label("(" +
-                                  StringUtil.formatGeneralNumber(omitted) +
-                                  " omitted)");
-
-         label1.addStyleName(styles.statusBarDisplayed());
-         label2.addStyleName(styles.statusBarOmitted());
-
-         statusBar.add(label1);
-         statusBar.add(label2);
-
-         DockLayoutPanel dockPanel = new DockLayoutPanel(Unit.PX);
-         dockPanel.addSouth(statusBar, 20);
-         dockPanel.add(frame_);
-         dockPanel.setSize("100%", "100%");
-         mainWidget = dockPanel;
+         statusLabel_.setText(error);
+         return;
       }
 
-      PanelWithToolbar panel = new PanelWithToolbar(createToolbar(dataItem,
-                                                                  styles),
-                                                    mainWidget);
-
-      initWidget(panel);
+      int rows = cache_.getTotalRows();
+      if (rows < 0)
+         return;
 
+      String text = StringUtil.formatGeneralNumber(rows) + " rows";
+      if (filter_.length() > 0)
+      {
+         text += " of " + StringUtil.formatGeneralNumber(
+                                    dataItem_.getTotalObservations())
+                 + " match \"" + filter_ + "\"";
+      }
+      statusLabel_.setText(text);
    }
 
    private Toolbar createToolbar(DataItem dataItem, Styles styles)
@@ -112,11 +191,61 @@ public class DataEditingTargetWidget extends Composite
       Toolbar toolbar = new EditingTargetToolbar(commands_);
       toolbar.addLeftWidget(commands_.popoutDoc().createToolbarButton());
       toolbar.addRightWidget(description);
+
+      if (grid_ != null)
+      {
+         toolbar.addRightSeparator();
+         filterWidget_ = new SearchWidget(new SuggestOracle() {
+            @Override
+            public void requestSuggestions(Request request, Callback callback)
+            {
+               // no suggestions
+               callback.onSuggestionsReady(
+                     request,
+                     new Response(new ArrayList<Suggestion>()));
+            }
+         });
+         filterWidget_.addValueChangeHandler(new ValueChangeHandler<String>() {
+            @Override
+            public void onValueChange(ValueChangeEvent<String> event)
+            {
+               pendingFilter_ = event.getValue().trim();
+               filterTimer_.schedule(FILTER_DELAY_MS);
+            }
+         });
+         toolbar.addRightWidget(filterWidget_);
+      }
       
       return toolbar;
    }
 
    public void print()
+   {
+      if (frame_ == null)
+      {
+         // the grid only holds what's in view, so print the (truncated)
+         // static rendering instead, loading it off screen on first use
+         frame_ = new Frame();
+         frame_.setPixelSize(800, 600);
+         Style style = frame_.getElement().getStyle();
+         style.setPosition(Position.ABSOLUTE);
+         style.setLeft(-10000, Unit.PX);
+         frame_.addLoadHandler(new LoadHandler()
+         {
+            public void onLoad(LoadEvent event)
+            {
+               printFrame();
+            }
+         });
+         statusBar_.add(frame_);
+         frame_.setUrl(dataItem_.getContentUrl());
+         return;
+      }
+
+      printFrame();
+   }
+
+   private void printFrame()
    {
       IFrameElementEx frameEl = (IFrameElementEx) frame_.getElement().cast();
       frameEl.getContentWindow().print();
@@ -128,5 +257,27 @@ public class DataEditingTargetWidget extends Composite
    }
 
    private final Commands commands_;
+   private final DataItem dataItem_;
    private Frame frame_;
+
+   private DataBlockCache cache_;
+   private DataViewerGrid grid_;
+   private FlowPanel statusBar_;
+   private Label statusLabel_;
+   private SearchWidget filterWidget_;
+   private String filter_ = "";
+   private String pendingFilter_ = "";
+
+   // filtering scans the whole data set on the server, so wait for a pause
+   // in typing
+   private final Timer filterTimer_ = new Timer()
+   {
+      @Override
+      public void run()
+      {
+         filter_ = pendingFilter_;
+         grid_.setFilter(filter_);
+      }
+   };
+   private static final int FILTER_DELAY_MS = 300;
 }
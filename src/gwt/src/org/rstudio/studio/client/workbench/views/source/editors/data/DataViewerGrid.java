@@ -0,0 +1,342 @@
+/*
+ * DataViewerGrid.java
+ *
+ * Copyright (C) 2009-11 by RStudio, Inc.
+ *
+ * This program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors.data;
+
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+import com.google.gwt.dom.client.Element;
+import com.google.gwt.dom.client.EventTarget;
+import com.google.gwt.dom.client.Style.Unit;
+import com.google.gwt.event.dom.client.ClickEvent;
+import com.google.gwt.event.dom.client.ClickHandler;
+import com.google.gwt.event.dom.client.ScrollEvent;
+import com.google.gwt.event.dom.client.ScrollHandler;
+import com.google.gwt.resources.client.ClientBundle;
+import com.google.gwt.resources.client.CssResource;
+import com.google.gwt.safehtml.shared.SafeHtml;
+import com.google.gwt.safehtml.shared.SafeHtmlBuilder;
+import com.google.gwt.user.client.ui.Composite;
+import com.google.gwt.user.client.ui.FlowPanel;
+import com.google.gwt.user.client.ui.HTML;
+import com.google.gwt.user.client.ui.RequiresResize;
+import com.google.gwt.user.client.ui.ScrollPanel;
+
+/**
+ * A grid that shows a data viewer's data by rendering only the rows and
+ * columns in view, fetching them through a DataBlockCache as needed. The
+ * rendered table is positioned over the visible part of a scroll area
+ * sized as if it held every row, and is re-rendered as that scrolls.
+ * Clicking a column header sorts by that column (ascending, descending,
+ * then back to the original order).
+ */
+public class DataViewerGrid extends Composite implements RequiresResize
+{
+   interface Resources extends ClientBundle
+   {
+      @Source("DataViewerGrid.css")
+      Styles styles();
+   }
+
+   public interface Styles extends CssResource
+   {
+      String grid();
+      String sizer();
+      String content();
+      String table();
+      String rowName();
+   }
+
+   public DataViewerGrid(DataBlockCache cache, int columnCount)
+   {
+      cache_ = cache;
+      columnCount_ = columnCount;
+
+      content_ = new HTML();
+      content_.setStylePrimaryName(styles_.content());
+      content_.addClickHandler(new ClickHandler()
+      {
+         public void onClick(ClickEvent event)
+         {
+            onContentClicked(event.getNativeEvent().getEventTarget());
+         }
+      });
+
+      sizer_ = new FlowPanel();
+      sizer_.setStylePrimaryName(styles_.sizer());
+      sizer_.add(content_);
+
+      scrollPanel_ = new ScrollPanel(sizer_);
+      scrollPanel_.setStylePrimaryName(styles_.grid());
+      scrollPanel_.setSize("100%", "100%");
+      scrollPanel_.addScrollHandler(new ScrollHandler()
+      {
+         public void onScroll(ScrollEvent event)
+         {
+            // scroll events come thick and fast; render at most once for
+            // each batch of them
+            if (renderScheduled_)
+               return;
+            renderScheduled_ = true;
+            Scheduler.get().scheduleDeferred(new ScheduledCommand()
+            {
+               public void execute()
+               {
+                  renderScheduled_ = false;
+                  render();
+               }
+            });
+         }
+      });
+
+      initWidget(scrollPanel_);
+   }
+
+   public void setFilter(String filter)
+   {
+      if (filter.equals(filter_))
+         return;
+      filter_ = filter;
+      onViewChanged();
+   }
+
+   /**
+    * Should be called when the cache has new data.
+    */
+   public void onDataChanged()
+   {
+      invalidateContent();
+      render();
+   }
+
+   @Override
+   protected void onLoad()
+   {
+      super.onLoad();
+
+      // we need our size before we can work out what's in view
+      Scheduler.get().scheduleDeferred(new ScheduledCommand()
+      {
+         public void execute()
+         {
+            render();
+         }
+      });
+   }
+
+   public void onResize()
+   {
+      invalidateContent();
+      render();
+   }
+
+   private void onContentClicked(EventTarget target)
+   {
+      if (!Element.is(target))
+         return;
+
+      Element el = Element.as(target);
+      while (el != null && el != content_.getElement())
+      {
+         String column = el.getAttribute(COLUMN_ATTRIBUTE);
+         if (column != null && column.length() > 0)
+         {
+            toggleSort(Integer.parseInt(column));
+            return;
+         }
+         el = el.getParentElement();
+      }
+   }
+
+   private void toggleSort(int column)
+   {
+      if (column != sortColumn_)
+      {
+         sortColumn_ = column;
+         ascending_ = true;
+      }
+      else if (ascending_)
+      {
+         ascending_ = false;
+      }
+      else
+      {
+         sortColumn_ = -1;
+         ascending_ = true;
+      }
+      onViewChanged();
+   }
+
+   private void onViewChanged()
+   {
+      cache_.setView(sortColumn_, ascending_, filter_);
+      scrollPanel_.setVerticalScrollPosition(0);
+      invalidateContent();
+      render();
+   }
+
+   private void invalidateContent()
+   {
+      renderedFirstRow_ = -1;
+   }
+
+   private void render()
+   {
+      if (!isAttached())
+         return;
+
+      Element scroller = scrollPanel_.getElement();
+      int viewHeight = scroller.getClientHeight();
+      int viewWidth = scroller.getClientWidth();
+      if (viewHeight <= 0)
+         return;
+
+      // until the first block arrives we don't know how many rows there are
+      int totalRows = Math.max(0, cache_.getTotalRows());
+      int visibleRows = Math.max(1, (viewHeight - ROW_HEIGHT) / ROW_HEIGHT + 1);
+      int visibleColumns = Math.max(1,
+                                    (viewWidth - ROW_NAME_WIDTH) / COLUMN_WIDTH
+                                    + 2);
+
+      // the scroll height is capped (browsers can't cope with elements
+      // millions of rows tall), in which case the scroll position maps to a
+      // row proportionally rather than one row per ROW_HEIGHT
+      int rowsHeight = (int) Math.min((double) totalRows * ROW_HEIGHT,
+                                      MAX_SCROLL_HEIGHT);
+      int sizerHeight = rowsHeight + ROW_HEIGHT;
+      int sizerWidth = ROW_NAME_WIDTH + columnCount_ * COLUMN_WIDTH;
+      sizer_.getElement().getStyle().setHeight(sizerHeight, Unit.PX);
+      sizer_.getElement().getStyle().setWidth(sizerWidth, Unit.PX);
+
+      int scrollTop = scrollPanel_.getVerticalScrollPosition();
+      int scrollLeft = scrollPanel_.getHorizontalScrollPosition();
+
+      int firstRow;
+      int maxFirstRow = Math.max(0, totalRows - visibleRows + 1);
+      int maxScrollTop = Math.max(1, sizerHeight - viewHeight);
+      if (rowsHeight < (double) totalRows * ROW_HEIGHT)
+         firstRow = (int) ((double) scrollTop / maxScrollTop * maxFirstRow);
+      else
+         firstRow = scrollTop / ROW_HEIGHT;
+      firstRow = Math.max(0, Math.min(firstRow, maxFirstRow));
+      int lastRow = Math.min(totalRows, firstRow + visibleRows) - 1;
+
+      int firstColumn = Math.min(scrollLeft / COLUMN_WIDTH,
+                                 Math.max(0, columnCount_ - 1));
+      int lastColumn = Math.min(columnCount_, firstColumn + visibleColumns) - 1;
+
+      cache_.ensureLoaded(firstRow,
+                          Math.max(firstRow, lastRow),
+                          firstColumn,
+                          Math.max(firstColumn, lastColumn));
+
+      Element contentEl = content_.getElement();
+      contentEl.getStyle().setTop(scrollTop, Unit.PX);
+      contentEl.getStyle().setLeft(scrollLeft, Unit.PX);
+
+      // scrolling within a row (or column) shows the same cells, so there's
+      // no need to build the table again
+      if (firstRow == renderedFirstRow_ &&
+          lastRow == renderedLastRow_ &&
+          firstColumn == renderedFirstColumn_ &&
+          lastColumn == renderedLastColumn_)
+      {
+         return;
+      }
+      renderedFirstRow_ = firstRow;
+      renderedLastRow_ = lastRow;
+      renderedFirstColumn_ = firstColumn;
+      renderedLastColumn_ = lastColumn;
+      content_.setHTML(renderTable(firstRow, lastRow, firstColumn, lastColumn));
+   }
+
+   private SafeHtml renderTable(int firstRow,
+                                int lastRow,
+                                int firstColumn,
+                                int lastColumn)
+   {
+      SafeHtmlBuilder sb = new SafeHtmlBuilder();
+      sb.appendHtmlConstant("<table class='" + styles_.table() + "'>");
+
+      sb.appendHtmlConstant("<colgroup><col style='width: " +
+                            ROW_NAME_WIDTH + "px'>");
+      for (int col = firstColumn; col <= lastColumn; col++)
+         sb.appendHtmlConstant("<col style='width: " + COLUMN_WIDTH + "px'>");
+      sb.appendHtmlConstant("</colgroup>");
+
+      sb.appendHtmlConstant("<tr><th></th>");
+      for (int col = firstColumn; col <= lastColumn; col++)
+      {
+         sb.appendHtmlConstant("<th " + COLUMN_ATTRIBUTE + "='" + col + "'>");
+         String name = cache_.getColumnName(col);
+         if (name != null)
+            sb.appendEscaped(name);
+         if (col == sortColumn_)
+            sb.appendEscaped(ascending_ ? " \u25B2" : " \u25BC");
+         sb.appendHtmlConstant("</th>");
+      }
+      sb.appendHtmlConstant("</tr>");
+
+      for (int row = firstRow; row <= lastRow; row++)
+      {
+         sb.appendHtmlConstant("<tr><td class='" + styles_.rowName() + "'>");
+         String rowName = cache_.getRowName(row);
+         if (rowName != null)
+            sb.appendEscaped(rowName);
+         sb.appendHtmlConstant("</td>");
+
+         for (int col = firstColumn; col <= lastColumn; col++)
+         {
+            sb.appendHtmlConstant("<td>");
+            String value = cache_.getValue(row, col);
+            if (value != null)
+               sb.appendEscaped(value);
+            sb.appendHtmlConstant("</td>");
+         }
+         sb.appendHtmlConstant("</tr>");
+      }
+
+      sb.appendHtmlConstant("</table>");
+      return sb.toSafeHtml();
+   }
+
+   private static final int ROW_HEIGHT = 22;
+   private static final int ROW_NAME_WIDTH = 60;
+   private static final int COLUMN_WIDTH = 110;
+   private static final double MAX_SCROLL_HEIGHT = 1000000;
+   private static final String COLUMN_ATTRIBUTE = "data-column";
+
+   private final DataBlockCache cache_;
+   private final int columnCount_;
+   private final ScrollPanel scrollPanel_;
+   private final FlowPanel sizer_;
+   private final HTML content_;
+
+   private int sortColumn_ = -1;
+   private boolean ascending_ = true;
+   private String filter_ = "";
+
+   private boolean renderScheduled_ = false;
+   // the cells the content currently shows (-1 if it needs rendering)
+   private int renderedFirstRow_ = -1;
+   private int renderedLastRow_ = -1;
+   private int renderedFirstColumn_ = -1;
+   private int renderedLastColumn_ = -1;
+
+   private static final Styles styles_ =
+         GWT.<Resources>create(Resources.class).styles();
+   static
+   {
+      styles_.ensureInjected();
+   }
+}
@@ -45,8 +45,6 @@ import org.rstudio.studio.client.application.Desktop;
 import org.rstudio.studio.client.common.codetools.CodeToolsServerOperations;
 import org.rstudio.studio.client.common.filetypes.TextFileType;
 import org.rstudio.studio.client.server.Void;
-import org.rstudio.studio.client.workbench.model.ChangeTracker;
-import org.rstudio.studio.client.workbench.model.EventBasedChangeTracker;
 import org.rstudio.studio.client.workbench.views.console.shell.assist.CompletionManager;
 import org.rstudio.studio.client.workbench.views.console.shell.assist.CompletionManager.InitCompletionFilter;
 import org.rstudio.studio.client.workbench.views.console.shell.assist.CompletionPopupPanel;
@@ -688,9 +686,9 @@ public class AceEditor implements DocDisplay,
          moveSelectionToNextLine(false);
    }
 
-   public ChangeTracker getChangeTracker()
+   public DocumentChangeTracker getChangeTracker()
    {
-      return new EventBasedChangeTracker<Void>(this);
+      return new DocumentChangeTracker(this, widget_.getEditor());
    }
 
    public AnchoredSelection createAnchoredSelection(Position startPos,
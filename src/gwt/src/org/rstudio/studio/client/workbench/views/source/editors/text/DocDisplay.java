@@ -14,7 +14,6 @@ package org.rstudio.studio.client.workbench.views.source.editors.text;
 
 import org.rstudio.studio.client.common.filetypes.TextFileType;
 import org.rstudio.studio.client.server.Void;
-import org.rstudio.studio.client.workbench.model.ChangeTracker;
 import org.rstudio.studio.client.workbench.views.console.shell.assist.CompletionManager;
 import org.rstudio.studio.client.workbench.views.console.shell.editor.InputEditorDisplay;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Position;
@@ -56,7 +55,7 @@ public interface DocDisplay extends HasValueChangeHandlers<Void>,
    void replaceSelection(String code);
    boolean moveSelectionToNextLine(boolean skipBlankLines);
    void reindent();
-   ChangeTracker getChangeTracker();
+   DocumentChangeTracker getChangeTracker();
 
    String getCode(Position start, Position end);
    DocDisplay.AnchoredSelection createAnchoredSelection(Position start,
@@ -0,0 +1,246 @@
+/*
+ * DocumentChangeTracker.java
+ *
+ * Copyright (C) 2009-11 by RStudio, Inc.
+ *
+ * This program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors.text;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.event.logical.shared.HasValueChangeHandlers;
+import org.rstudio.studio.client.server.Void;
+import org.rstudio.studio.client.workbench.model.EventBasedChangeTracker;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.AceEditorNative;
+import org.rstudio.studio.client.workbench.views.source.model.DocumentHunk;
+
+import java.util.ArrayList;
+
+/**
+ * A change tracker that, in addition to noting that the document changed,
+ * records the edits themselves (as character offset hunks) so that they
+ * can be sent to the server without copying the whole document.
+ *
+ * Hunks are only meaningful relative to a version of the document the
+ * server has, so collection starts out invalid. A save forks a recording
+ * at the moment it takes its snapshot, and promotes that recording to be
+ * the hunks sent by the next save only once the server has accepted the
+ * snapshot.
+ */
+public class DocumentChangeTracker extends EventBasedChangeTracker<Void>
+{
+   public DocumentChangeTracker(HasValueChangeHandlers<Void> source,
+                                AceEditorNative editor)
+   {
+      super(source);
+      editor_ = editor;
+      addDocumentChangeListener(editor);
+   }
+
+   /**
+    * True if every edit since a version the server has has been recorded.
+    */
+   public boolean hasValidHunks()
+   {
+      return hunks_ != null;
+   }
+
+   /**
+    * Stops recording edits, including those of any forks, until a fork
+    * made after this call is promoted.
+    */
+   public void invalidateHunks()
+   {
+      hunks_ = null;
+      forks_.clear();
+   }
+
+   /**
+    * Returns the edits recorded since the server's version and stops
+    * recording them; the caller should fork a recording relative to the
+    * version those edits produce.
+    */
+   public JsArray<DocumentHunk> takeHunks()
+   {
+      JsArray<DocumentHunk> hunks = hunks_;
+      hunks_ = null;
+      return hunks;
+   }
+
+   /**
+    * Starts recording edits relative to the current contents, separately
+    * from the hunks returned by takeHunks.
+    */
+   public JsArray<DocumentHunk> forkHunks()
+   {
+      // a save whose response never comes would leave its fork recording
+      // forever, so only the most recent few are kept (promoting one that
+      // was dropped just means the next save sends the whole document)
+      if (forks_.size() >= MAX_FORKS)
+         forks_.remove(0);
+
+      JsArray<DocumentHunk> fork = JavaScriptObject.createArray().cast();
+      forks_.add(fork);
+      return fork;
+   }
+
+   /**
+    * Makes the fork's edits the hunks for the next save, once the server
+    * has the contents the fork was made from. If the fork had to be
+    * abandoned (too many edits, or an edit we couldn't record) then the
+    * hunks become invalid instead.
+    */
+   public void promoteHunks(JsArray<DocumentHunk> fork)
+   {
+      hunks_ = forks_.remove(fork) ? fork : null;
+   }
+
+   /**
+    * Stops recording the fork, as the server doesn't have the contents it
+    * was made from.
+    */
+   public void discardHunks(JsArray<DocumentHunk> fork)
+   {
+      forks_.remove(fork);
+   }
+
+   /**
+    * The length of the document in characters (as returned by getCode),
+    * kept up to date as it changes rather than counted each time.
+    */
+   public int getDocumentLength()
+   {
+      if (documentLength_ < 0)
+         documentLength_ = computeDocumentLength();
+      return documentLength_;
+   }
+
+   private native int computeDocumentLength() /*-{
+      var doc = this.@org.rstudio.studio.client.workbench.views.source.editors.text.DocumentChangeTracker::editor_.getSession().getDocument();
+      var lines = doc.getLength();
+      var length = 0;
+      for (var i = 0; i < lines; i++)
+         length += doc.getLine(i).length;
+      return length + Math.max(lines - 1, 0) * doc.getNewLineCharacter().length;
+   }-*/;
+
+   private void onDocumentChange(int offset, int length, String text)
+   {
+      if (documentLength_ >= 0)
+         documentLength_ += text.length() - length;
+
+      if (hunks_ != null && !record(hunks_, offset, length, text))
+         hunks_ = null;
+
+      for (int i = forks_.size() - 1; i >= 0; i--)
+      {
+         if (!record(forks_.get(i), offset, length, text))
+            forks_.remove(i);
+      }
+   }
+
+   // returns false if there are too many hunks to be worth recording
+   private boolean record(JsArray<DocumentHunk> hunks,
+                          int offset,
+                          int length,
+                          String text)
+   {
+      // Coalesce runs of typing (and backspacing over what was just typed)
+      // into the previous hunk
+      if (hunks.length() > 0)
+      {
+         DocumentHunk last = hunks.get(hunks.length() - 1);
+         int lastEnd = last.getOffset() + last.getText().length();
+         if (length == 0 && offset == lastEnd)
+         {
+            last.setText(last.getText() + text);
+            return true;
+         }
+         else if (text.length() == 0 &&
+                  offset >= last.getOffset() &&
+                  offset + length == lastEnd)
+         {
+            last.setText(last.getText().substring(0,
+                                                  offset - last.getOffset()));
+            if (last.getLength() == 0 && last.getText().length() == 0)
+               hunks.setLength(hunks.length() - 1);
+            return true;
+         }
+      }
+
+      // Past a certain point it's cheaper to diff the whole document
+      if (hunks.length() >= MAX_HUNKS)
+         return false;
+
+      hunks.push(DocumentHunk.create(offset, length, text));
+      return true;
+   }
+
+   private native void addDocumentChangeListener(AceEditorNative editor) /*-{
+      var self = this;
+      var doc = editor.getSession().getDocument();
+
+      // the offset at which each row starts, for as many rows as are known.
+      // rows before the start of a change are unaffected by it (as is the
+      // offset of the row it starts on) so only the rows after that are
+      // forgotten, and the offset of an edit near the last one is cheap
+      var rowOffsets = [0];
+      var rowOffsetsNewLine = doc.getNewLineCharacter();
+
+      doc.on("change", $entry(function(e) {
+         var delta = e.data;
+         var nl = doc.getNewLineCharacter();
+         if (nl != rowOffsetsNewLine)
+         {
+            rowOffsets = [0];
+            rowOffsetsNewLine = nl;
+         }
+
+         var start = delta.range.start;
+         for (var row = rowOffsets.length; row <= start.row; row++)
+            rowOffsets.push(rowOffsets[row - 1] + doc.getLine(row - 1).length + nl.length);
+         rowOffsets.length = start.row + 1;
+         var offset = rowOffsets[start.row] + start.column;
+
+         var text;
+         switch (delta.action)
+         {
+            case "insertText":
+            case "removeText":
+               text = delta.text;
+               break;
+            case "insertLines":
+            case "removeLines":
+               text = delta.lines.join(nl) + nl;
+               break;
+            default:
+               rowOffsets = [0];
+               self.@org.rstudio.studio.client.workbench.views.source.editors.text.DocumentChangeTracker::documentLength_ = -1;
+               self.@org.rstudio.studio.client.workbench.views.source.editors.text.DocumentChangeTracker::invalidateHunks()();
+               return;
+         }
+
+         if (delta.action.indexOf("insert") == 0)
+            self.@org.rstudio.studio.client.workbench.views.source.editors.text.DocumentChangeTracker::onDocumentChange(IILjava/lang/String;)(offset, 0, text);
+         else
+            self.@org.rstudio.studio.client.workbench.views.source.editors.text.DocumentChangeTracker::onDocumentChange(IILjava/lang/String;)(offset, text.length, "");
+      }));
+   }-*/;
+
+   private final AceEditorNative editor_;
+   private JsArray<DocumentHunk> hunks_ = null;
+   // -1 until it's next needed, if a change couldn't be accounted for
+   private int documentLength_ = -1;
+   // recordings relative to snapshots that saves in flight are sending
+   private final ArrayList<JsArray<DocumentHunk>> forks_ =
+                                       new ArrayList<JsArray<DocumentHunk>>();
+
+   private static final int MAX_HUNKS = 1000;
+   private static final int MAX_FORKS = 4;
+}
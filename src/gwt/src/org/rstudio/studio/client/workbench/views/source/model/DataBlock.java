@@ -0,0 +1,53 @@
+/*
+ * DataBlock.java
+ *
+ * Copyright (C) 2009-11 by RStudio, Inc.
+ *
+ * This program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.model;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArrayString;
+
+/**
+ * A window of rows and columns of a data viewer's data (after the server
+ * has applied the viewer's sort and filter), as formatted values.
+ */
+public class DataBlock extends JavaScriptObject
+{
+   protected DataBlock()
+   {
+   }
+
+   // number of rows in the (filtered) data, not just in this block
+   public native final int getTotalRows() /*-{
+      return this.total_rows;
+   }-*/;
+
+   public native final int getRowCount() /*-{
+      return this.row_names.length;
+   }-*/;
+
+   // the original (1-based) row number of each row in the block
+   public native final JsArrayString getRowNames() /*-{
+      return this.row_names;
+   }-*/;
+
+   public native final int getColumnCount() /*-{
+      return this.columns.length;
+   }-*/;
+
+   public native final JsArrayString getColumnNames() /*-{
+      return this.column_names;
+   }-*/;
+
+   public native final JsArrayString getColumn(int index) /*-{
+      return this.columns[index];
+   }-*/;
+}
@@ -67,6 +67,14 @@ public class DataItem extends JavaScriptObject
       return this.contentUrl;
    }-*/;
 
+   /**
+    * Key of the data kept by the server for paging, or null if the data
+    * isn't available for paging (e.g. it was shown by an earlier session)
+    */
+   public native final String getCacheKey() /*-{
+      return this.cacheKey || null;
+   }-*/;
+
    public final void fillProperties(HashMap<String, String> properties)
    {
       // This has the unfortunate side-effect of converting the numeric values
@@ -78,6 +86,8 @@ public class DataItem extends JavaScriptObject
       properties.put("displayedObservations", getDisplayedObservations() + "");
       properties.put("variables", getVariables() + "");
       properties.put("contentUrl", getContentUrl());
+      if (getCacheKey() != null)
+         properties.put("cacheKey", getCacheKey());
    }
 
    public final void fillProperties(JsObject properties)
@@ -87,5 +97,7 @@ public class DataItem extends JavaScriptObject
       properties.setInteger("displayedObservations", getDisplayedObservations());
       properties.setInteger("variables", getVariables());
       properties.setString("contentUrl", getContentUrl());
+      if (getCacheKey() != null)
+         properties.setString("cacheKey", getCacheKey());
    }
 }
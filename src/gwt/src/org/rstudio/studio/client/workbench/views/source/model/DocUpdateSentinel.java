@@ -12,6 +12,7 @@
  */
 package org.rstudio.studio.client.workbench.views.source.model;
 
+import com.google.gwt.core.client.JsArray;
 import com.google.gwt.event.logical.shared.ValueChangeEvent;
 import com.google.gwt.event.logical.shared.ValueChangeHandler;
 import com.google.gwt.event.shared.HandlerRegistration;
@@ -34,6 +35,7 @@ import org.rstudio.studio.client.workbench.events.LastChanceSaveEvent;
 import org.rstudio.studio.client.workbench.events.LastChanceSaveHandler;
 import org.rstudio.studio.client.workbench.model.ChangeTracker;
 import org.rstudio.studio.client.workbench.views.source.editors.text.DocDisplay;
+import org.rstudio.studio.client.workbench.views.source.editors.text.DocumentChangeTracker;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -59,6 +61,11 @@ public class DocUpdateSentinel
          sourceDoc_ = response;
          docDisplay_.setCode(sourceDoc_.getContents(), true);
          dirtyState_.markClean();
+         
+         // the edits made by setCode aren't relative to anything the
+         // server has, so don't try to send them as hunks
+         changeTracker_.invalidateHunks();
+         contentsStale_ = false;
 
          if (progress_ != null)
             progress_.onCompleted();
@@ -223,6 +230,21 @@ public class DocUpdateSentinel
                           final String encoding,
                           final ProgressIndicator progress)
    {
+      // If we know every edit made since the server last received our
+      // contents then we can send just those edits, which avoids copying
+      // (and diffing) the whole document
+      if (changeTracker_.hasValidHunks())
+      {
+         JsArray<DocumentHunk> hunks = changeTracker_.takeHunks();
+         return doSaveHunks(hunks,
+                            changeTracker_.getDocumentLength(),
+                            changeTracker_.forkHunks(),
+                            path,
+                            fileType,
+                            encoding,
+                            progress);
+      }
+
       /* We need to fork the change tracker so that we can "mark" the moment
          in history when we took the contents from the source doc, so that
          if the document is edited while the save is in progress we don't
@@ -234,6 +256,31 @@ public class DocUpdateSentinel
       String oldContents = sourceDoc_.getContents();
       final String hash = sourceDoc_.getHash();
 
+      // Record edits relative to newContents, so that once the server has
+      // accepted them subsequent saves can send just the edits
+      final JsArray<DocumentHunk> hunkFork = changeTracker_.forkHunks();
+
+      // If our copy of the contents is out of date (because the last save
+      // sent hunks) we can't diff against it, so send the whole document
+      if (contentsStale_)
+      {
+         server_.saveDocument(
+               sourceDoc_.getId(),
+               path,
+               fileType,
+               encoding,
+               newContents,
+               new SaveCallback(thisChangeTracker,
+                                hunkFork,
+                                newContents,
+                                hash,
+                                path,
+                                fileType,
+                                encoding,
+                                progress));
+         return true;
+      }
+
       //String patch = DiffMatchPatch.diff(oldContents, newContents);
       SubstringDiff diff = new SubstringDiff(oldContents, newContents);
 
@@ -241,6 +288,8 @@ public class DocUpdateSentinel
       // wasteful, it causes the server to think the document is dirty.
       if (path == null && fileType == null && diff.isEmpty())
       {
+         // the server already has newContents
+         changeTracker_.promoteHunks(hunkFork);
          changesPending_ = false;
          return false;
       }
@@ -254,6 +303,7 @@ public class DocUpdateSentinel
          // acting funny. If we add the extra \n but don't do this
          // check, then reloading the browser causes empty documents
          // to appear dirty.
+         changeTracker_.discardHunks(hunkFork);
          changesPending_ = false;
          return false;
       }
@@ -267,6 +317,132 @@ public class DocUpdateSentinel
             diff.getOffset(),
             diff.getLength(),
             hash,
+            new SaveCallback(thisChangeTracker,
+                             hunkFork,
+                             newContents,
+                             hash,
+                             path,
+                             fileType,
+                             encoding,
+                             progress));
+
+      return true;
+   }
+
+   private class SaveCallback extends ServerRequestCallback<String>
+   {
+      public SaveCallback(ChangeTracker thisChangeTracker,
+                          JsArray<DocumentHunk> hunkFork,
+                          String newContents,
+                          String hash,
+                          String path,
+                          String fileType,
+                          String encoding,
+                          ProgressIndicator progress)
+      {
+         thisChangeTracker_ = thisChangeTracker;
+         hunkFork_ = hunkFork;
+         newContents_ = newContents;
+         hash_ = hash;
+         path_ = path;
+         fileType_ = fileType;
+         encoding_ = encoding;
+         progress_ = progress;
+      }
+
+      @Override
+      public void onError(ServerError error)
+      {
+         Debug.logError(error);
+         if (progress_ != null)
+            progress_.onError(error.getUserMessage());
+         changesPending_ = false;
+         changeTracker_.invalidateHunks();
+      }
+
+      @Override
+      public void onResponseReceived(String newHash)
+      {
+         if (newHash != null)
+         {
+            // If the document hasn't changed further since the version
+            // we saved, then we know we're all synced up.
+            if (!thisChangeTracker_.hasChanged())
+               changeTracker_.reset();
+
+            // the server has newContents, so edits since are what the
+            // next save needs to send
+            changeTracker_.promoteHunks(hunkFork_);
+
+            contentsStale_ = false;
+            onSuccessfulUpdate(newContents_,
+                               newHash,
+                               path_,
+                               fileType_,
+                               encoding_);
+            if (progress_ != null)
+               progress_.onCompleted();
+         }
+         else if (!hash_.equals(sourceDoc_.getHash()))
+         {
+            // We just hit a race condition where two updates
+            // happened at once. Try again (with the whole document, as
+            // the server never took newContents)
+            changeTracker_.invalidateHunks();
+            doSave(path_, fileType_, encoding_, progress_);
+         }
+         else
+         {
+            /*Debug.log("Diff-based save failed--falling back to " +
+                      "snapshot save");*/
+            changeTracker_.invalidateHunks();
+            server_.saveDocument(
+                  sourceDoc_.getId(),
+                  path_,
+                  fileType_,
+                  encoding_,
+                  newContents_,
+                  this);
+         }
+      }
+
+      private final ChangeTracker thisChangeTracker_;
+      private final JsArray<DocumentHunk> hunkFork_;
+      private final String newContents_;
+      private final String hash_;
+      private final String path_;
+      private final String fileType_;
+      private final String encoding_;
+      private final ProgressIndicator progress_;
+   }
+
+   private boolean doSaveHunks(final JsArray<DocumentHunk> hunks,
+                               final int expectedLength,
+                               final JsArray<DocumentHunk> hunkFork,
+                               final String path,
+                               final String fileType,
+                               final String encoding,
+                               final ProgressIndicator progress)
+   {
+      // Don't auto-save when there are no changes (see doSave)
+      if (path == null && fileType == null && hunks.length() == 0)
+      {
+         changeTracker_.promoteHunks(hunkFork);
+         changesPending_ = false;
+         return false;
+      }
+
+      final ChangeTracker thisChangeTracker = changeTracker_.fork();
+      final String hash = sourceDoc_.getHash();
+
+      server_.saveDocumentHunks(
+            sourceDoc_.getId(),
+            path,
+            fileType,
+            encoding,
+            hunks,
+            expectedLength,
+            hash,
             new ServerRequestCallback<String>()
             {
                @Override
@@ -276,6 +452,10 @@ public class DocUpdateSentinel
                   if (progress != null)
                      progress.onError(error.getUserMessage());
                   changesPending_ = false;
+
+                  // these hunks never made it to the server so the ones
+                  // we've recorded since aren't relative to its contents
+                  changeTracker_.invalidateHunks();
                }
 
                @Override
@@ -283,12 +463,13 @@ public class DocUpdateSentinel
                {
                   if (newHash != null)
                   {
-                     // If the document hasn't changed further since the version
-                     // we saved, then we know we're all synced up.
                      if (!thisChangeTracker.hasChanged())
                         changeTracker_.reset();
+                     changeTracker_.promoteHunks(hunkFork);
 
-                     onSuccessfulUpdate(newContents,
+                     // we no longer have a copy of what the server has
+                     contentsStale_ = true;
+                     onSuccessfulUpdate(null,
                                         newHash,
                                         path,
                                         fileType,
@@ -298,21 +479,20 @@ public class DocUpdateSentinel
                   }
                   else if (!hash.equals(sourceDoc_.getHash()))
                   {
-                     // We just hit a race condition where two updates
-                     // happened at once. Try again
+                     // Another save completed while this one was in
+                     // flight, so we can't tell what the server has;
+                     // send the whole document
+                     changeTracker_.invalidateHunks();
+                     contentsStale_ = true;
                      doSave(path, fileType, encoding, progress);
                   }
                   else
                   {
-                     /*Debug.log("Diff-based save failed--falling back to " +
-                               "snapshot save");*/
-                     server_.saveDocument(
-                           sourceDoc_.getId(),
-                           path,
-                           fileType,
-                           encoding,
-                           newContents,
-                           this);
+                     // The server couldn't apply the hunks; fall back to
+                     // sending the whole document
+                     changeTracker_.invalidateHunks();
+                     contentsStale_ = true;
+                     doSave(path, fileType, encoding, progress);
                   }
                }
             });
@@ -327,7 +507,8 @@ public class DocUpdateSentinel
                                    String encoding)
    {
       changesPending_ = false;
-      sourceDoc_.setContents(contents);
+      if (contents != null)
+         sourceDoc_.setContents(contents);
       sourceDoc_.setHash(hash);
       if (path != null)
       {
@@ -498,7 +679,9 @@ public class DocUpdateSentinel
    }
 
    private boolean changesPending_ = false;
-   private final ChangeTracker changeTracker_;
+   // true if sourceDoc_'s contents no longer match the server's
+   private boolean contentsStale_ = false;
+   private final DocumentChangeTracker changeTracker_;
    private final SourceServerOperations server_;
    private final DocDisplay docDisplay_;
    private SourceDocument sourceDoc_;
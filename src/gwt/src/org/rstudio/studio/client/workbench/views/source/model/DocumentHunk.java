@@ -0,0 +1,46 @@
+/*
+ * DocumentHunk.java
+ *
+ * Copyright (C) 2009-11 by RStudio, Inc.
+ *
+ * This program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.model;
+
+import com.google.gwt.core.client.JavaScriptObject;
+
+/**
+ * An edit to a source document: replaces the characters in the range
+ * [offset, offset+length) with text.
+ */
+public class DocumentHunk extends JavaScriptObject
+{
+   protected DocumentHunk() {}
+
+   public static native DocumentHunk create(int offset,
+                                            int length,
+                                            String text) /*-{
+      return {offset: offset, length: length, text: text};
+   }-*/;
+
+   public native final int getOffset() /*-{
+      return this.offset;
+   }-*/;
+
+   public native final int getLength() /*-{
+      return this.length;
+   }-*/;
+
+   public native final String getText() /*-{
+      return this.text;
+   }-*/;
+
+   public native final void setText(String text) /*-{
+      this.text = text;
+   }-*/;
+}
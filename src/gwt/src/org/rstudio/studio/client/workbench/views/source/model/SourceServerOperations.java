@@ -12,6 +12,7 @@
  */
 package org.rstudio.studio.client.workbench.views.source.model;
 
+import com.google.gwt.core.client.JsArray;
 import com.google.gwt.core.client.JsArrayString;
 import org.rstudio.core.client.js.JsObject;
 import org.rstudio.studio.client.common.codetools.CodeToolsServerOperations;
@@ -95,6 +96,24 @@ public interface SourceServerOperations extends FilesServerOperations,
                          String hash,
                          ServerRequestCallback<String> requestCallback);
 
+   /**
+    * Applies an ordered list of edits to the document. Each hunk is applied
+    * to the result of the ones before it; expectedLength is the length of
+    * the document after all of them have been applied.
+    *
+    * As with saveDocumentDiff, if the return value is null the save failed
+    * and saveDocument() should be used as a fallback. If the return value
+    * is non-null, it is the hash value of the new contents.
+    */
+   void saveDocumentHunks(String id,
+                          String path,
+                          String fileType,
+                          String encoding,
+                          JsArray<DocumentHunk> hunks,
+                          int expectedLength,
+                          String hash,
+                          ServerRequestCallback<String> requestCallback);
+
    void checkForExternalEdit(
          String id,
          ServerRequestCallback<CheckForExternalEditResult> requestCallback);
@@ -107,6 +126,13 @@ public interface SourceServerOperations extends FilesServerOperations,
     */
    void closeDocument(String id, ServerRequestCallback<Void> requestCallback);
 
+   /**
+    * Gets a document in the working list, including its contents (which
+    * are left out of the session info for saved files).
+    */
+   void getSourceDocument(String id,
+                          ServerRequestCallback<SourceDocument> requestCallback);
+
    /**
     * Clears the working list.
     */
@@ -154,6 +180,28 @@ public interface SourceServerOperations extends FilesServerOperations,
    void removeContentUrl(String contentUrl,
                          ServerRequestCallback<Void> requestCallback);
 
+   /**
+    * Gets a window of the data shown by a data viewer, after sorting and
+    * filtering the data (the server remembers the resulting row order so
+    * successive windows with the same sort and filter are cheap).
+    *
+    * @param sortColumn Column to sort by, -1 for the original order
+    * @param filter Only include rows where some value contains this text
+    *    (case insensitive), "" for all rows
+    */
+   void getDataBlock(String cacheKey,
+                     int rowStart,
+                     int rowCount,
+                     int columnStart,
+                     int columnCount,
+                     int sortColumn,
+                     boolean ascending,
+                     String filter,
+                     ServerRequestCallback<DataBlock> requestCallback);
+
+   void removeCachedData(String cacheKey,
+                         ServerRequestCallback<Void> requestCallback);
+
    void detectFreeVars(String code,
                        ServerRequestCallback<JsArrayString> requestCallback);
 
@@ -27,6 +27,7 @@ import com.google.gwt.text.shared.SafeHtmlRenderer;
 import com.google.gwt.user.cellview.client.CellTable;
 import com.google.gwt.user.cellview.client.Column;
 import com.google.gwt.user.cellview.client.ColumnSortEvent;
+import com.google.gwt.user.cellview.client.ColumnSortList;
 import com.google.gwt.user.cellview.client.TextColumn;
 import com.google.gwt.user.client.ui.AbstractImagePrototype;
 import com.google.gwt.user.client.ui.Composite;
@@ -42,7 +43,10 @@ import org.rstudio.studio.client.workbench.views.vcs.events.StageUnstageEvent;
 import org.rstudio.studio.client.workbench.views.vcs.events.StageUnstageHandler;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 
 public class ChangelistTable extends Composite
    implements HasKeyDownHandlers, HasClickHandlers
@@ -254,7 +258,7 @@ public class ChangelistTable extends Composite
          }
       });
       stagedColumn.setSortable(true);
-      sortHandler_.setComparator(stagedColumn, new Comparator<StatusAndPath>()
+      setComparator(stagedColumn, new Comparator<StatusAndPath>()
       {
          @Override
          public int compare(StatusAndPath a, StatusAndPath b)
@@ -283,7 +287,7 @@ public class ChangelistTable extends Composite
       statusColumn.setHorizontalAlignment(Column.ALIGN_CENTER);
       table_.addColumn(statusColumn, "Status");
       table_.setColumnWidth(statusColumn, "56px");
-      sortHandler_.setComparator(statusColumn, new Comparator<StatusAndPath>()
+      setComparator(statusColumn, new Comparator<StatusAndPath>()
       {
          @Override
          public int compare(StatusAndPath a, StatusAndPath b)
@@ -301,7 +305,7 @@ public class ChangelistTable extends Composite
          }
       };
       pathColumn.setSortable(true);
-      sortHandler_.setComparator(pathColumn, new Comparator<StatusAndPath>()
+      setComparator(pathColumn, new Comparator<StatusAndPath>()
       {
          private String[] splitDirAndName(String path)
          {
@@ -331,6 +335,36 @@ public class ChangelistTable extends Composite
       table_.getColumnSortList().push(pathColumn);
    }
 
+   private void setComparator(Column<StatusAndPath, ?> column,
+                              Comparator<StatusAndPath> comparator)
+   {
+      sortHandler_.setComparator(column, comparator);
+      comparators_.put(column, comparator);
+   }
+
+   // the comparator for the current sort order (null if unsorted)
+   private Comparator<StatusAndPath> getSortComparator()
+   {
+      ColumnSortList sortList = table_.getColumnSortList();
+      if (sortList.size() == 0)
+         return null;
+
+      ColumnSortList.ColumnSortInfo sortInfo = sortList.get(0);
+      final Comparator<StatusAndPath> comparator =
+                                    comparators_.get(sortInfo.getColumn());
+      if (comparator == null || sortInfo.isAscending())
+         return comparator;
+
+      return new Comparator<StatusAndPath>()
+      {
+         @Override
+         public int compare(StatusAndPath a, StatusAndPath b)
+         {
+            return comparator.compare(b, a);
+         }
+      };
+   }
+
    public HandlerRegistration addSelectionChangeHandler(
          SelectionChangeEvent.Handler handler)
    {
@@ -348,6 +382,79 @@ public class ChangelistTable extends Composite
 
    }
 
+   /**
+    * Updates individual items (identified by raw path) in place, so that
+    * only the affected rows are redrawn: changed items replace those with
+    * the same path (or are added in sort order if there are none), and
+    * items with the removed paths are removed.
+    */
+   public void updateItems(ArrayList<StatusAndPath> changed,
+                           ArrayList<String> removedPaths)
+   {
+      List<StatusAndPath> list = dataProvider_.getList();
+      Comparator<StatusAndPath> comparator = getSortComparator();
+
+      HashMap<String, Integer> indexes = new HashMap<String, Integer>();
+      for (int i = 0; i < list.size(); i++)
+         indexes.put(list.get(i).getRawPath(), i);
+
+      // replace items whose position doesn't change; the rest are removed
+      // and then reinserted
+      ArrayList<Integer> removeIndexes = new ArrayList<Integer>();
+      ArrayList<StatusAndPath> inserts = new ArrayList<StatusAndPath>();
+      for (StatusAndPath item : changed)
+      {
+         Integer index = indexes.get(item.getRawPath());
+         if (index != null &&
+             (comparator == null ||
+              comparator.compare(item, list.get(index)) == 0))
+         {
+            list.set(index, item);
+            continue;
+         }
+
+         if (index != null)
+            removeIndexes.add(index);
+         inserts.add(item);
+      }
+      for (String path : removedPaths)
+      {
+         Integer index = indexes.get(path);
+         if (index != null)
+            removeIndexes.add(index);
+      }
+
+      Collections.sort(removeIndexes);
+      for (int i = removeIndexes.size() - 1; i >= 0; i--)
+         list.remove(removeIndexes.get(i).intValue());
+
+      for (StatusAndPath item : inserts)
+         list.add(insertionPoint(list, item, comparator), item);
+
+      table_.setPageSize(list.size());
+   }
+
+   // the index after any items that sort before or equal to the item
+   private int insertionPoint(List<StatusAndPath> list,
+                              StatusAndPath item,
+                              Comparator<StatusAndPath> comparator)
+   {
+      if (comparator == null)
+         return list.size();
+
+      int low = 0;
+      int high = list.size();
+      while (low < high)
+      {
+         int mid = (low + high) >>> 1;
+         if (comparator.compare(list.get(mid), item) <= 0)
+            low = mid + 1;
+         else
+            high = mid;
+      }
+      return low;
+   }
+
    public ArrayList<StatusAndPath> getSelectedItems()
    {
       SelectionModel<? super StatusAndPath> selectionModel = table_.getSelectionModel();
@@ -429,6 +536,9 @@ public class ChangelistTable extends Composite
    private final MultiSelectionModel<StatusAndPath> selectionModel_;
    private final ColumnSortEvent.ListHandler<StatusAndPath> sortHandler_;
    private final ListDataProvider<StatusAndPath> dataProvider_;
+   private final HashMap<Column<StatusAndPath, ?>, Comparator<StatusAndPath>>
+         comparators_ =
+            new HashMap<Column<StatusAndPath, ?>, Comparator<StatusAndPath>>();
    private final ProgressPanel progressPanel_;
    private LayoutPanel layout_;
    private static final CellTableResources resources_ = GWT.<CellTableResources>create(CellTableResources.class);
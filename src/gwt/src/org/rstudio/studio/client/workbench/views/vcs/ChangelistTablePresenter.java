@@ -12,7 +12,6 @@
  */
 package org.rstudio.studio.client.workbench.views.vcs;
 
-import com.google.gwt.core.client.JsArray;
 import com.google.inject.Inject;
 import org.rstudio.studio.client.common.SimpleRequestCallback;
 import org.rstudio.studio.client.common.vcs.StatusAndPath;
@@ -64,11 +63,24 @@ public class ChangelistTablePresenter
          @Override
          public void onVcsRefresh(VcsRefreshEvent event)
          {
-            JsArray<StatusAndPath> status = vcsState_.getStatus();
-            ArrayList<StatusAndPath> list = new ArrayList<StatusAndPath>();
-            for (int i = 0; i < status.length(); i++)
-               list.add(status.get(i));
-            view_.setItems(list);
+            ArrayList<String> paths = event.getChangedPaths();
+            if (paths == null || paths.size() > MAX_INCREMENTAL_CHANGES)
+            {
+               view_.setItems(vcsState_.getStatus());
+               return;
+            }
+
+            ArrayList<StatusAndPath> changed = new ArrayList<StatusAndPath>();
+            ArrayList<String> removed = new ArrayList<String>();
+            for (String path : paths)
+            {
+               StatusAndPath status = vcsState_.getStatus(path);
+               if (status != null)
+                  changed.add(status);
+               else
+                  removed.add(path);
+            }
+            view_.updateItems(changed, removed);
          }
       });
    }
@@ -78,6 +90,9 @@ public class ChangelistTablePresenter
       return view_;
    }
 
+   // beyond this many changes it's quicker to rebuild the table
+   private static final int MAX_INCREMENTAL_CHANGES = 100;
+
    private final VCSServerOperations server_;
    private final ChangelistTable view_;
    private final VcsState vcsState_;
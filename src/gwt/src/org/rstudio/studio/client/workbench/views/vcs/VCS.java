@@ -12,7 +12,6 @@
  */
 package org.rstudio.studio.client.workbench.views.vcs;
 
-import com.google.gwt.core.client.JsArray;
 import com.google.gwt.event.dom.client.*;
 import com.google.gwt.event.shared.HandlerRegistration;
 import com.google.gwt.user.client.ui.IsWidget;
@@ -41,8 +40,6 @@ import org.rstudio.studio.client.workbench.WorkbenchView;
 import org.rstudio.studio.client.workbench.commands.Commands;
 import org.rstudio.studio.client.workbench.views.BasePresenter;
 import org.rstudio.studio.client.workbench.views.vcs.events.AskPassEvent;
-import org.rstudio.studio.client.workbench.views.vcs.events.VcsRefreshEvent;
-import org.rstudio.studio.client.workbench.views.vcs.events.VcsRefreshHandler;
 import org.rstudio.studio.client.workbench.views.vcs.frame.VCSPopup;
 import org.rstudio.studio.client.workbench.views.vcs.dialog.HistoryPresenter;
 import org.rstudio.studio.client.workbench.views.vcs.dialog.ReviewPresenter;
@@ -58,7 +55,6 @@ public class VCS extends BasePresenter implements IsWidget
 
    public interface Display extends WorkbenchView, IsWidget
    {
-      void setItems(ArrayList<StatusAndPath> items);
       ArrayList<String> getSelectedPaths();
       ArrayList<StatusAndPath> getSelectedItems();
       int getSelectedItemCount();
@@ -95,15 +91,6 @@ public class VCS extends BasePresenter implements IsWidget
 
       commandBinder.bind(commands, this);
 
-      vcsState_.addVcsRefreshHandler(new VcsRefreshHandler()
-      {
-         @Override
-         public void onVcsRefresh(VcsRefreshEvent event)
-         {
-            refresh();
-         }
-      });
-
       events.addHandler(AskPassEvent.TYPE, new org.rstudio.studio.client.workbench.views.vcs.events.AskPassEvent.Handler()
       {
          @Override
@@ -318,15 +305,6 @@ public class VCS extends BasePresenter implements IsWidget
       });
    }
 
-   private void refresh()
-   {
-      JsArray<StatusAndPath> status = vcsState_.getStatus();
-      ArrayList<StatusAndPath> list = new ArrayList<StatusAndPath>();
-      for (int i = 0; i < status.length(); i++)
-         list.add(status.get(i));
-      view_.setItems(list);
-   }
-
    private final Display view_;
    private final Provider<ReviewPresenter> pReviewPresenter_;
    private final Provider<HistoryPresenter> pHistoryPresenter_;
@@ -81,12 +81,6 @@ public class VCSPane extends WorkbenchPane implements Display
       return consoleBarFrame_;
    }
 
-   @Override
-   public void setItems(ArrayList<StatusAndPath> items)
-   {
-      table_.setItems(items);
-   }
-
    @Override
    public ArrayList<String> getSelectedPaths()
    {
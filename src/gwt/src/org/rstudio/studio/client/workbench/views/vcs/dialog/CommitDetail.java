@@ -15,8 +15,12 @@ package org.rstudio.studio.client.workbench.views.vcs.dialog;
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.core.client.Scheduler.RepeatingCommand;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+import com.google.gwt.dom.client.Element;
 import com.google.gwt.event.dom.client.ClickEvent;
 import com.google.gwt.event.dom.client.ClickHandler;
+import com.google.gwt.event.dom.client.ScrollEvent;
+import com.google.gwt.event.dom.client.ScrollHandler;
 import com.google.gwt.i18n.client.DateTimeFormat;
 import com.google.gwt.i18n.client.DateTimeFormat.PredefinedFormat;
 import com.google.gwt.uibinder.client.UiBinder;
@@ -44,7 +48,28 @@ public class CommitDetail extends Composite implements CommitDetailDisplay
 
    public void setScrollPanel(ScrollPanel container)
    {
-    container_ = container;
+      container_ = container;
+      container_.addScrollHandler(new ScrollHandler()
+      {
+         @Override
+         public void onScroll(ScrollEvent event)
+         {
+            // scroll events come thick and fast; expand at most once for
+            // each batch of them
+            if (expandScheduled_)
+               return;
+            expandScheduled_ = true;
+            Scheduler.get().scheduleDeferred(new ScheduledCommand()
+            {
+               @Override
+               public void execute()
+               {
+                  expandScheduled_ = false;
+                  expandFilesInView();
+               }
+            });
+         }
+      });
    }
 
    @Override
@@ -60,15 +85,22 @@ public class CommitDetail extends Composite implements CommitDetailDisplay
    public void clearDetails()
    {
       invalidation_.invalidate();
+      files_.clear();
       tocPanel_.clear();
       detailPanel_.clear();
    }
 
+   /**
+    * Only the file headers are read up front, to build the table of
+    * contents and a collapsed frame per file. Each file's chunks are parsed
+    * (and its table built) when it's expanded or scrolled near.
+    */
    @Override
    public void setDetails(final UnifiedParser unifiedParser)
    {
       invalidation_.invalidate();
       final Token token = invalidation_.getInvalidationToken();
+      files_.clear();
 
       Scheduler.get().scheduleIncremental(new RepeatingCommand() {
          @Override
@@ -77,43 +109,156 @@ public class CommitDetail extends Composite implements CommitDetailDisplay
             if (token.isInvalid())
                return false;
 
-            DiffFileHeader fileHeader = unifiedParser.nextFilePair();
-            if (fileHeader == null)
-               return false;
-
-            LineTableView view = new LineTableView();
-            view.setShowActions(false);
-            ArrayList<ChunkOrLine> lines = new ArrayList<ChunkOrLine>();
-            DiffChunk chunk;
-            while (null != (chunk = unifiedParser.nextChunk()))
+            boolean more = true;
+            for (int i = 0; more && i < FILES_PER_STEP; i++)
             {
-               lines.addAll(ChunkOrLine.fromChunk(chunk));
+               DiffFileSection section = unifiedParser.nextFileSection();
+               if (section == null)
+                  more = false;
+               else
+                  addFile(section);
             }
-            view.setData(lines, PatchMode.Stage);
-            view.setWidth("100%");
 
-            final DiffFrame diffFrame = new DiffFrame(
-                  null, fileHeader.getDescription(), null, view);
-            diffFrame.setWidth("100%");
-            detailPanel_.add(diffFrame);
+            expandFilesInView();
+            return more;
+         }
+      });
+   }
 
-            Anchor tocAnchor = new Anchor(fileHeader.getDescription());
-            tocAnchor.addClickHandler(new ClickHandler()
-            {
-               @Override
-               public void onClick(ClickEvent event)
-               {
-                  Point relativePosition = DomUtils.getRelativePosition(
-                        container_.getElement(),
-                        diffFrame.getElement());
-                  container_.setVerticalScrollPosition(relativePosition.getY());
-               }
-            });
-            tocPanel_.add(tocAnchor);
+   private void addFile(DiffFileSection section)
+   {
+      final FileDiff file = new FileDiff(section);
+      files_.add(file);
+      detailPanel_.add(file.getFrame());
 
-            return true;
+      Anchor tocAnchor = new Anchor(section.getHeader().getDescription());
+      tocAnchor.addClickHandler(new ClickHandler()
+      {
+         @Override
+         public void onClick(ClickEvent event)
+         {
+            file.expand(false);
+            Point relativePosition = DomUtils.getRelativePosition(
+                  container_.getElement(),
+                  file.getFrame().getElement());
+            container_.setVerticalScrollPosition(relativePosition.getY());
          }
       });
+      tocPanel_.add(tocAnchor);
+   }
+
+   // expands the collapsed files that are in view or nearly so
+   private void expandFilesInView()
+   {
+      if (container_ == null || !isAttached())
+         return;
+
+      // measure everything before expanding anything, so that the layout
+      // is only computed once rather than again after each expansion
+      Element scrollerEl = container_.getElement();
+      int top = container_.getVerticalScrollPosition();
+      int bottom = top + scrollerEl.getClientHeight() + NEAR_PX;
+      ArrayList<FileDiff> inView = new ArrayList<FileDiff>();
+      for (FileDiff file : files_)
+      {
+         Element frameEl = file.getFrame().getElement();
+         int frameTop = DomUtils.getRelativePosition(scrollerEl, frameEl).getY();
+         if (frameTop > bottom)
+            break;
+         if (!file.isExpanded() &&
+             frameTop + frameEl.getOffsetHeight() >= top)
+         {
+            inView.add(file);
+         }
+      }
+
+      for (FileDiff file : inView)
+         file.expand(false);
+   }
+
+   private class FileDiff
+   {
+      FileDiff(DiffFileSection section)
+      {
+         section_ = section;
+         frame_ = new DiffFrame(null, section.getHeader().getDescription(), null);
+         frame_.setWidth("100%");
+
+         Anchor showDiff = new Anchor(
+               "Show diff (" + section.getRowCount() + " lines)");
+         showDiff.addClickHandler(new ClickHandler()
+         {
+            @Override
+            public void onClick(ClickEvent event)
+            {
+               expand(false);
+            }
+         });
+         frame_.setContent(showDiff);
+      }
+
+      DiffFrame getFrame()
+      {
+         return frame_;
+      }
+
+      boolean isExpanded()
+      {
+         return expanded_;
+      }
+
+      /**
+       * Parses the file's chunks and shows them. Unless all is true, very
+       * large files are cut short, with a link to show the rest.
+       */
+      void expand(boolean all)
+      {
+         if (expanded_ && !(all && truncated_))
+            return;
+         expanded_ = true;
+
+         int limit = all ? Integer.MAX_VALUE : MAX_ROWS;
+         ArrayList<ChunkOrLine> lines = new ArrayList<ChunkOrLine>();
+         UnifiedParser parser = section_.createParser();
+         DiffChunk chunk;
+         while (lines.size() < limit && null != (chunk = parser.nextChunk()))
+            lines.addAll(ChunkOrLine.fromChunk(chunk));
+
+         truncated_ = section_.getRowCount() > limit;
+         if (lines.size() > limit)
+            lines = new ArrayList<ChunkOrLine>(lines.subList(0, limit));
+
+         LineTableView view = new LineTableView();
+         view.setShowActions(false);
+         view.setData(lines, PatchMode.Stage);
+         view.setWidth("100%");
+
+         if (!truncated_)
+         {
+            frame_.setContent(view);
+            return;
+         }
+
+         FlowPanel panel = new FlowPanel();
+         panel.add(view);
+         Anchor showAll = new Anchor(
+               "Show all " + section_.getRowCount() + " lines");
+         showAll.addClickHandler(new ClickHandler()
+         {
+            @Override
+            public void onClick(ClickEvent event)
+            {
+               expand(true);
+            }
+         });
+         panel.add(showAll);
+         frame_.setContent(panel);
+      }
+
+      private final DiffFileSection section_;
+      private final DiffFrame frame_;
+      private boolean expanded_ = false;
+      private boolean truncated_ = false;
    }
 
    private void updateInfo()
@@ -129,7 +274,16 @@ public class CommitDetail extends Composite implements CommitDetailDisplay
       labelParent_.setText(commit_.getParent());
    }
 
+   // files whose headers are read in each step of setDetails
+   private static final int FILES_PER_STEP = 100;
+   // how far below the visible area files are expanded
+   private static final int NEAR_PX = 500;
+   // rows shown for a file before the rest are left behind a link
+   private static final int MAX_ROWS = 2000;
+
    private final Invalidation invalidation_ = new Invalidation();
+   private boolean expandScheduled_ = false;
+   private final ArrayList<FileDiff> files_ = new ArrayList<FileDiff>();
    private CommitInfo commit_;
    @UiField
    Label labelId_;
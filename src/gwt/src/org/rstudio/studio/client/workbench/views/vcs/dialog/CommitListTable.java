@@ -18,19 +18,18 @@ import com.google.gwt.i18n.client.DateTimeFormat;
 import com.google.gwt.i18n.client.DateTimeFormat.PredefinedFormat;
 import com.google.gwt.user.cellview.client.CellTable;
 import com.google.gwt.user.cellview.client.TextColumn;
+import com.google.gwt.view.client.Range;
 import com.google.gwt.view.client.SelectionChangeEvent;
 import com.google.gwt.view.client.SingleSelectionModel;
 import org.rstudio.studio.client.workbench.views.vcs.ChangelistTable;
 import org.rstudio.studio.client.workbench.views.vcs.dialog.HistoryPresenter.CommitListDisplay;
 
-import java.util.ArrayList;
-
 public class CommitListTable extends CellTable<CommitInfo>
       implements CommitListDisplay
 {
    public CommitListTable()
    {
-      super(100,
+      super(PAGE_SIZE,
             GWT.<Resources>create(ChangelistTable.CellTableResources.class));
 
       TextColumn<CommitInfo> idCol = new TextColumn<CommitInfo>()
@@ -79,10 +78,30 @@ public class CommitListTable extends CellTable<CommitInfo>
       setSelectionModel(selectionModel_);
    }
 
-   public void setData(ArrayList<CommitInfo> commits)
+   @Override
+   public void clearData()
    {
-      setPageSize(commits.size());
-      setRowData(commits);
+      CommitInfo selected = getSelectedCommit();
+      if (selected != null)
+         selectionModel_.setSelected(selected, false);
+      setRowCount(0, false);
+      setVisibleRangeAndClearData(new Range(0, PAGE_SIZE), true);
+   }
+
+   /**
+    * Extends the visible range by another page, unless we're still waiting
+    * for the rows already in range or there are no more rows.
+    */
+   public void showMore()
+   {
+      Range range = getVisibleRange();
+      int end = range.getStart() + range.getLength();
+      if (getRowCount() < end)
+         return;
+      if (isRowCountExact() && getRowCount() == end)
+         return;
+
+      setVisibleRange(range.getStart(), range.getLength() + PAGE_SIZE);
    }
 
    public HandlerRegistration addSelectionChangeHandler(SelectionChangeEvent.Handler handler)
@@ -96,5 +115,7 @@ public class CommitListTable extends CellTable<CommitInfo>
       return selectionModel_.getSelectedObject();
    }
 
+   public static final int PAGE_SIZE = 100;
+
    private final SingleSelectionModel<CommitInfo> selectionModel_;
 }
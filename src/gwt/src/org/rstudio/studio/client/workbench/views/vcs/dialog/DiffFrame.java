@@ -50,6 +50,17 @@ public class DiffFrame extends Composite
                     String filename1,
                     String filename2,
                     LineTableView diff)
+   {
+      this(icon, filename1, filename2);
+      setContent(diff);
+   }
+
+   /**
+    * Creates a frame with just the header; its content can be set later.
+    */
+   public DiffFrame(ImageResource icon,
+                    String filename1,
+                    String filename2)
    {
       initWidget(GWT.<Binder>create(Binder.class).createAndBindUi(this));
 
@@ -58,7 +69,14 @@ public class DiffFrame extends Composite
                   FileSystemItem.createFile(filename2 == null ? filename1 : filename2)));
 
       headerLabel_.setText(filename1);
-      container_.add(diff);
+   }
+
+   public void setContent(Widget content)
+   {
+      if (content_ != null)
+         container_.remove(content_);
+      content_ = content;
+      container_.add(content_);
    }
 
    static
@@ -72,4 +90,5 @@ public class DiffFrame extends Composite
    Label headerLabel_;
    @UiField
    Image fileIcon_;
+   private Widget content_;
 }
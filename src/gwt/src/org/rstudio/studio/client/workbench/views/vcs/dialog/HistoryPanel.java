@@ -14,16 +14,22 @@ package org.rstudio.studio.client.workbench.views.vcs.dialog;
 
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.event.dom.client.ClickHandler;
+import com.google.gwt.dom.client.Element;
 import com.google.gwt.event.dom.client.HasClickHandlers;
+import com.google.gwt.event.dom.client.ScrollEvent;
+import com.google.gwt.event.dom.client.ScrollHandler;
+import com.google.gwt.event.logical.shared.HasValueChangeHandlers;
 import com.google.gwt.resources.client.ClientBundle;
 import com.google.gwt.uibinder.client.UiBinder;
 import com.google.gwt.uibinder.client.UiField;
 import com.google.gwt.user.client.ui.Composite;
 import com.google.gwt.user.client.ui.ScrollPanel;
 import com.google.gwt.user.client.ui.SplitLayoutPanel;
+import com.google.gwt.user.client.ui.SuggestOracle;
 import com.google.gwt.user.client.ui.Widget;
 import com.google.inject.Inject;
 import org.rstudio.core.client.widget.LeftRightToggleButton;
+import org.rstudio.core.client.widget.SearchWidget;
 import org.rstudio.core.client.widget.Toolbar;
 import org.rstudio.core.client.widget.ToolbarButton;
 import org.rstudio.studio.client.workbench.commands.Commands;
@@ -60,6 +66,21 @@ public class HistoryPanel extends Composite implements Display
 
       commitDetail_.setScrollPanel(detailScrollPanel_);
 
+      // ask the table for another page of commits as the user nears the
+      // bottom of those already shown
+      commitScrollPanel_.addScrollHandler(new ScrollHandler()
+      {
+         @Override
+         public void onScroll(ScrollEvent event)
+         {
+            Element el = commitScrollPanel_.getElement();
+            int remaining = el.getScrollHeight() - el.getScrollTop()
+                            - el.getClientHeight();
+            if (remaining < SHOW_MORE_THRESHOLD_PX)
+               commitTable_.showMore();
+         }
+      });
+
       topToolbar_.addStyleName(styles.toolbar());
 
       switchViewButton_ = new LeftRightToggleButton("Changes", "History", false);
@@ -83,12 +104,20 @@ public class HistoryPanel extends Composite implements Display
             "Push", commands.vcsPush().getImageResource(),
             commands.vcsPush()));
 
-   }
+      topToolbar_.addRightSeparator();
 
-   @Override
-   public void setData(ArrayList<CommitInfo> commits)
-   {
-      commitTable_.setData(commits);
+      filterWidget_ = new SearchWidget(new SuggestOracle()
+      {
+         @Override
+         public void requestSuggestions(Request request, Callback callback)
+         {
+            // no suggestions
+            callback.onSuggestionsReady(
+                  request,
+                  new Response(new ArrayList<Suggestion>()));
+         }
+      });
+      topToolbar_.addRightWidget(filterWidget_);
    }
 
    @Override
@@ -115,11 +144,19 @@ public class HistoryPanel extends Composite implements Display
       return refreshButton_;
    }
 
+   @Override
+   public HasValueChangeHandlers<String> getFilter()
+   {
+      return filterWidget_;
+   }
+
    @UiField(provided = true)
    SplitLayoutPanel splitPanel_;
    @UiField
    Toolbar topToolbar_;
    @UiField
+   ScrollPanel commitScrollPanel_;
+   @UiField
    CommitListTable commitTable_;
    @UiField
    CommitDetail commitDetail_;
@@ -134,4 +171,7 @@ public class HistoryPanel extends Composite implements Display
    }
 
    private ToolbarButton refreshButton_;
+   private SearchWidget filterWidget_;
+
+   private static final int SHOW_MORE_THRESHOLD_PX = 200;
 }
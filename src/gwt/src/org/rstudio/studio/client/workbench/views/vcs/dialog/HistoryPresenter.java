@@ -15,9 +15,16 @@ package org.rstudio.studio.client.workbench.views.vcs.dialog;
 import com.google.gwt.event.dom.client.ClickEvent;
 import com.google.gwt.event.dom.client.ClickHandler;
 import com.google.gwt.event.dom.client.HasClickHandlers;
+import com.google.gwt.event.logical.shared.HasValueChangeHandlers;
+import com.google.gwt.event.logical.shared.ValueChangeEvent;
+import com.google.gwt.event.logical.shared.ValueChangeHandler;
 import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.ui.IsWidget;
 import com.google.gwt.user.client.ui.Widget;
+import com.google.gwt.view.client.AsyncDataProvider;
+import com.google.gwt.view.client.HasData;
+import com.google.gwt.view.client.Range;
 import com.google.gwt.view.client.SelectionChangeEvent;
 import com.google.inject.Inject;
 import org.rstudio.core.client.Invalidation;
@@ -25,6 +32,7 @@ import org.rstudio.core.client.Invalidation.Token;
 import org.rstudio.core.client.jsonrpc.RpcObjectList;
 import org.rstudio.studio.client.common.SimpleRequestCallback;
 import org.rstudio.studio.client.common.vcs.VCSServerOperations;
+import org.rstudio.studio.client.server.ServerError;
 import org.rstudio.studio.client.workbench.views.vcs.diff.UnifiedParser;
 import org.rstudio.studio.client.workbench.views.vcs.events.SwitchViewEvent;
 
@@ -34,21 +42,23 @@ public class HistoryPresenter
 {
    public interface Display extends IsWidget
    {
-      void setData(ArrayList<CommitInfo> commits);
-
       HasClickHandlers getSwitchViewButton();
       CommitListDisplay getCommitList();
       CommitDetailDisplay getCommitDetail();
 
       HasClickHandlers getRefreshButton();
+      HasValueChangeHandlers<String> getFilter();
    }
 
-   public interface CommitListDisplay
+   public interface CommitListDisplay extends HasData<CommitInfo>
    {
       HandlerRegistration addSelectionChangeHandler(
             SelectionChangeEvent.Handler handler);
 
       CommitInfo getSelectedCommit();
+
+      // discard all rows and go back to showing the first page
+      void clearData();
    }
 
    public interface CommitDetailDisplay
@@ -96,7 +106,27 @@ public class HistoryPresenter
          }
       });
 
-      refreshHistory();
+      // commits are fetched a page at a time as the list's visible range
+      // grows (note that this requests the first page right away)
+      dataProvider_ = new AsyncDataProvider<CommitInfo>()
+      {
+         @Override
+         protected void onRangeChanged(HasData<CommitInfo> display)
+         {
+            loadHistory();
+         }
+      };
+      dataProvider_.addDataDisplay(view_.getCommitList());
+
+      view_.getFilter().addValueChangeHandler(new ValueChangeHandler<String>()
+      {
+         @Override
+         public void onValueChange(ValueChangeEvent<String> event)
+         {
+            pendingFilter_ = event.getValue().trim();
+            filterTimer_.schedule(FILTER_DELAY_MS);
+         }
+      });
 
       view_.getRefreshButton().addClickHandler(new ClickHandler()
       {
@@ -110,14 +140,64 @@ public class HistoryPresenter
 
    private void refreshHistory()
    {
+      historyInvalidation_.invalidate();
+      loadedCount_ = 0;
+      allLoaded_ = false;
+      loading_ = false;
+
+      // fires a range change, which loads the first page
+      view_.getCommitList().clearData();
+   }
+
+   /**
+    * Fetches the commits between those we already have and the end of the
+    * list's visible range. Only one page is in flight at a time; if the
+    * range grew while it was loading we go around again when it arrives.
+    */
+   private void loadHistory()
+   {
+      if (loading_ || allLoaded_)
+         return;
+
+      Range range = view_.getCommitList().getVisibleRange();
+      final int skip = loadedCount_;
+      final int count = range.getStart() + range.getLength() - skip;
+      if (count <= 0)
+         return;
+
+      loading_ = true;
+      final Token token = historyInvalidation_.getInvalidationToken();
       server_.vcsHistory("",
-                         -1,
+                         skip,
+                         count,
+                         filter_,
                          new SimpleRequestCallback<RpcObjectList<CommitInfo>>()
       {
          @Override
          public void onResponseReceived(RpcObjectList<CommitInfo> response)
          {
-            view_.setData(response.toArrayList());
+            if (token.isInvalid())
+               return;
+
+            loading_ = false;
+            ArrayList<CommitInfo> commits = response.toArrayList();
+            loadedCount_ += commits.size();
+            allLoaded_ = commits.size() < count;
+
+            dataProvider_.updateRowData(skip, commits);
+            dataProvider_.updateRowCount(loadedCount_, allLoaded_);
+
+            loadHistory();
+         }
+
+         @Override
+         public void onError(ServerError error)
+         {
+            if (token.isInvalid())
+               return;
+
+            loading_ = false;
+            super.onError(error);
          }
       });
    }
@@ -144,4 +224,28 @@ public class HistoryPresenter
    private final VCSServerOperations server_;
    private final Display view_;
    private final Invalidation invalidation_ = new Invalidation();
+
+   private final AsyncDataProvider<CommitInfo> dataProvider_;
+   private final Invalidation historyInvalidation_ = new Invalidation();
+   private int loadedCount_ = 0;
+   private boolean allLoaded_ = false;
+   private boolean loading_ = false;
+   private String filter_ = "";
+   private String pendingFilter_ = "";
+
+   // wait for a pause in typing before filtering (which starts over from
+   // the first page)
+   private final Timer filterTimer_ = new Timer()
+   {
+      @Override
+      public void run()
+      {
+         if (pendingFilter_.equals(filter_))
+            return;
+
+         filter_ = pendingFilter_;
+         refreshHistory();
+      }
+   };
+   private static final int FILTER_DELAY_MS = 300;
 }
@@ -0,0 +1,60 @@
+/*
+ * DiffFileSection.java
+ *
+ * Copyright (C) 2009-11 by RStudio, Inc.
+ *
+ * This program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.vcs.diff;
+
+/**
+ * One file's part of a multi-file diff, found by scanning the headers only,
+ * so that its chunks can be parsed later (if at all).
+ */
+public class DiffFileSection
+{
+   public DiffFileSection(DiffFileHeader header,
+                          String data,
+                          int start,
+                          int end,
+                          int rowCount)
+   {
+      header_ = header;
+      data_ = data;
+      start_ = start;
+      end_ = end;
+      rowCount_ = rowCount;
+   }
+
+   public DiffFileHeader getHeader()
+   {
+      return header_;
+   }
+
+   /**
+    * The number of rows the file's diff takes (chunk headers and lines).
+    */
+   public int getRowCount()
+   {
+      return rowCount_;
+   }
+
+   /**
+    * A parser positioned at the file's first chunk.
+    */
+   public UnifiedParser createParser()
+   {
+      return new UnifiedParser(data_, start_, end_);
+   }
+
+   private final DiffFileHeader header_;
+   private final String data_;
+   private final int start_;
+   private final int end_;
+   private final int rowCount_;
+}
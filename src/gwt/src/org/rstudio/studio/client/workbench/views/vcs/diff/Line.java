@@ -63,6 +63,27 @@ public class Line implements Comparable<Line>
       diffIndex_ = diffIndex;
    }
 
+   /**
+    * A line whose text is source[textStart, textEnd), which isn't copied
+    * out of the source until it's asked for.
+    */
+   Line(Type type,
+        int oldLine,
+        int newLine,
+        String source,
+        int textStart,
+        int textEnd,
+        int diffIndex)
+   {
+      type_ = type;
+      oldLine_ = oldLine;
+      newLine_ = newLine;
+      source_ = source;
+      textStart_ = textStart;
+      textEnd_ = textEnd;
+      diffIndex_ = diffIndex;
+   }
+
    public Type getType()
    {
       return type_;
@@ -80,6 +101,11 @@ public class Line implements Comparable<Line>
 
    public String getText()
    {
+      if (text_ == null && source_ != null)
+      {
+         text_ = source_.substring(textStart_, textEnd_);
+         source_ = null;
+      }
       return text_;
    }
 
@@ -90,6 +116,17 @@ public class Line implements Comparable<Line>
 
    public Line reverse()
    {
+      if (text_ == null)
+      {
+         return new Line(type_.getInverse(),
+                         newLine_,
+                         oldLine_,
+                         source_,
+                         textStart_,
+                         textEnd_,
+                         diffIndex_);
+      }
+
       return new Line(type_.getInverse(),
                       newLine_,
                       oldLine_,
@@ -126,6 +163,11 @@ public class Line implements Comparable<Line>
    private final Type type_;
    private final int oldLine_;
    private final int newLine_;
-   private final String text_;
    private final int diffIndex_;
+
+   // the text, or (until it's first needed) where to find it in source_
+   private String text_;
+   private String source_;
+   private int textStart_;
+   private int textEnd_;
 }
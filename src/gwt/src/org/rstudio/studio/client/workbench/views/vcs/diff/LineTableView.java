@@ -19,6 +19,8 @@ import com.google.gwt.dom.client.Element;
 import com.google.gwt.dom.client.NativeEvent;
 import com.google.gwt.dom.client.Node;
 import com.google.gwt.dom.client.Style.Unit;
+import com.google.gwt.event.dom.client.ScrollEvent;
+import com.google.gwt.event.dom.client.ScrollHandler;
 import com.google.gwt.event.shared.HandlerRegistration;
 import com.google.gwt.resources.client.CssResource.ImportedWithPrefix;
 import com.google.gwt.safehtml.shared.SafeHtmlBuilder;
@@ -26,6 +28,8 @@ import com.google.gwt.user.cellview.client.CellTable;
 import com.google.gwt.user.cellview.client.Column;
 import com.google.gwt.user.cellview.client.RowStyles;
 import com.google.gwt.user.cellview.client.TextColumn;
+import com.google.gwt.user.client.ui.ScrollPanel;
+import com.google.gwt.user.client.ui.Widget;
 import com.google.gwt.view.client.MultiSelectionModel;
 import com.google.gwt.view.client.ProvidesKey;
 import com.google.gwt.view.client.SelectionChangeEvent;
@@ -47,6 +51,12 @@ import org.rstudio.studio.client.workbench.views.vcs.events.DiffLineActionHandle
 import java.util.ArrayList;
 import java.util.HashSet;
 
+/**
+ * Shows diff lines in a table. Large diffs are rendered a window at a time:
+ * only the rows around the visible part of the enclosing ScrollPanel are
+ * in the table, with margins standing in for the rest, and the window moves
+ * as the panel scrolls.
+ */
 public class LineTableView extends MultiSelectCellTable<ChunkOrLine> implements Display
 {
    public interface LineTableResources extends CellTable.Resources
@@ -363,9 +373,11 @@ public class LineTableView extends MultiSelectCellTable<ChunkOrLine> implements
       }
 
       lines_ = diffData;
-      setPageSize(diffData.size());
       selectionModel_.clear();
-      setRowData(diffData);
+      setRowCount(diffData.size());
+      windowStart_ = -1;
+      windowEnd_ = -1;
+      updateWindow();
 
       startRows_.clear();
       endRows_.clear();
@@ -400,13 +412,117 @@ public class LineTableView extends MultiSelectCellTable<ChunkOrLine> implements
       }
    }
 
+   @Override
+   protected void onLoad()
+   {
+      super.onLoad();
+
+      Widget parent = getParent();
+      while (parent != null && !(parent instanceof ScrollPanel))
+         parent = parent.getParent();
+      scroller_ = (ScrollPanel) parent;
+
+      if (scroller_ != null)
+      {
+         scrollReg_ = scroller_.addScrollHandler(new ScrollHandler()
+         {
+            @Override
+            public void onScroll(ScrollEvent event)
+            {
+               updateWindow();
+            }
+         });
+      }
+      updateWindow();
+   }
+
+   @Override
+   protected void onUnload()
+   {
+      if (scrollReg_ != null)
+      {
+         scrollReg_.removeHandler();
+         scrollReg_ = null;
+      }
+      scroller_ = null;
+      super.onUnload();
+   }
+
+   /**
+    * Renders the rows around the visible part of the scroll panel, unless
+    * those are already rendered.
+    */
+   private void updateWindow()
+   {
+      int count = lines_.size();
+      int start;
+      int end;
+      if (count <= WINDOW_THRESHOLD || (isAttached() && scroller_ == null))
+      {
+         start = 0;
+         end = count;
+      }
+      else if (!isAttached())
+      {
+         // we can't tell what's visible until we're attached, so start
+         // with the top of the diff
+         start = 0;
+         end = Math.min(count, OVERSCAN_ROWS * 2);
+      }
+      else
+      {
+         // pixels of the rows that are scrolled out of view above us
+         Element scrollerEl = scroller_.getElement();
+         int above = scrollerEl.getAbsoluteTop() - getAbsoluteTop()
+                     + marginTop_;
+         int firstVisible = Math.max(0, above / rowHeight_);
+         int lastVisible = Math.min(
+               count - 1,
+               (above + scrollerEl.getClientHeight()) / rowHeight_);
+
+         if (firstVisible >= windowStart_ && lastVisible < windowEnd_)
+            return;
+
+         start = Math.max(0, Math.min(firstVisible, count - 1) - OVERSCAN_ROWS);
+         end = Math.min(count, Math.max(lastVisible, firstVisible)
+                               + 1 + OVERSCAN_ROWS);
+      }
+
+      if (start == windowStart_ && end == windowEnd_)
+         return;
+
+      // the first rows we render give us a better estimate of the row
+      // height; after that it stays put so that rows don't jump around
+      int rendered = windowEnd_ - windowStart_;
+      if (!rowHeightMeasured_ && rendered > 0 && isAttached())
+      {
+         int height = getOffsetHeight();
+         if (height > 0)
+         {
+            rowHeight_ = Math.max(1, height / rendered);
+            rowHeightMeasured_ = true;
+         }
+      }
+
+      windowStart_ = start;
+      windowEnd_ = end;
+      marginTop_ = start * rowHeight_;
+      getElement().getStyle().setMarginTop(marginTop_, Unit.PX);
+      getElement().getStyle().setMarginBottom((count - end) * rowHeight_,
+                                              Unit.PX);
+
+      setVisibleRange(start, end - start);
+      setRowData(start, lines_.subList(start, end));
+   }
+
    @Override
    protected boolean canSelectVisibleRow(int visibleRow)
    {
-      if (visibleRow < 0 || visibleRow >= lines_.size())
+      int row = getPageStart() + visibleRow;
+      if (visibleRow < 0 || row >= lines_.size())
          return false;
 
-      Line line = lines_.get(visibleRow).getLine();
+      Line line = lines_.get(row).getLine();
       return line != null && (line.getType() == Type.Insertion
                               || line.getType() == Type.Deletion);
    }
@@ -460,8 +576,21 @@ public class LineTableView extends MultiSelectCellTable<ChunkOrLine> implements
       RES.cellTableStyle().ensureInjected();
    }
 
+   // diffs with at most this many lines are rendered all at once
+   private static final int WINDOW_THRESHOLD = 1000;
+   // rows rendered beyond each edge of the visible part
+   private static final int OVERSCAN_ROWS = 100;
+
    private boolean showActions_ = true;
-   private ArrayList<ChunkOrLine> lines_;
+   private ArrayList<ChunkOrLine> lines_ = new ArrayList<ChunkOrLine>();
+   private ScrollPanel scroller_;
+   private HandlerRegistration scrollReg_;
+   // the rendered rows are [windowStart_, windowEnd_)
+   private int windowStart_ = -1;
+   private int windowEnd_ = -1;
+   private int marginTop_ = 0;
+   private int rowHeight_ = 15;
+   private boolean rowHeightMeasured_ = false;
    private SwitchableSelectionModel<ChunkOrLine> selectionModel_;
    private HashSet<Integer> startRows_ = new HashSet<Integer>();
    private HashSet<Integer> endRows_ = new HashSet<Integer>();
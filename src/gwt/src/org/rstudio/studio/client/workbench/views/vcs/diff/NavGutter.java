@@ -16,65 +16,129 @@ import com.google.gwt.canvas.client.Canvas;
 import com.google.gwt.canvas.dom.client.Context2d;
 import com.google.gwt.canvas.dom.client.CssColor;
 import com.google.gwt.user.client.ui.Composite;
+import com.google.gwt.user.client.ui.RequiresResize;
 import com.google.gwt.user.client.ui.SimplePanel;
 import org.rstudio.core.client.ValueSink;
 import org.rstudio.studio.client.workbench.views.vcs.diff.Line.Type;
 
 import java.util.ArrayList;
 
-public class NavGutter extends Composite implements ValueSink<ArrayList<ChunkOrLine>>
+/**
+ * An overview of where the changes are in a diff. The lines are reduced to
+ * runs of changes, which are scaled to the gutter's height when drawn, so
+ * drawing costs depend on the gutter's size rather than the diff's.
+ */
+public class NavGutter extends Composite
+      implements ValueSink<ArrayList<ChunkOrLine>>, RequiresResize
 {
+   private static class Span
+   {
+      Span(int start, int length, CssColor color)
+      {
+         this.start = start;
+         this.length = length;
+         this.color = color;
+      }
+
+      final int start;
+      int length;
+      final CssColor color;
+   }
+
    public NavGutter()
    {
       container_ = new SimplePanel();
       initWidget(container_);
    }
 
-   public void setData(CssColor background, ArrayList<CssColor> lines)
+   @Override
+   public void setValue(ArrayList<ChunkOrLine> value)
    {
-      Canvas newCanvas = Canvas.createIfSupported();
-      newCanvas.setSize("100%", "100%");
-      newCanvas.setCoordinateSpaceWidth(10);
-      newCanvas.setCoordinateSpaceHeight(lines.size());
-
-      Context2d ctx = newCanvas.getContext2d();
-      ctx.translate(0.5, 0.5);
-
-      ctx.setFillStyle(background.value());
-      ctx.fillRect(0, 0, 10, lines.size());
-
-      for (int i = 0; i < lines.size(); i++)
+      ArrayList<Span> spans = new ArrayList<Span>();
+      Span current = null;
+      for (int i = 0; i < value.size(); i++)
       {
-         CssColor color = lines.get(i);
-         if (color != null)
+         Line line = value.get(i).getLine();
+         Type type = line == null ? Type.Same : line.getType();
+
+         CssColor color;
+         switch (type)
          {
-            ctx.setFillStyle(color.value());
-            ctx.fillRect(0, i, 10, 1);
+            case Insertion:  color = INSERTION_COLOR; break;
+            case Deletion:   color = DELETION_COLOR; break;
+            default:
+            case Comment:
+            case Same:       color = null; break;
          }
+
+         if (color == null)
+            current = null;
+         else if (current != null && current.color == color)
+            current.length++;
+         else
+            spans.add(current = new Span(i, 1, color));
       }
 
-      container_.setWidget(newCanvas);
+      spans_ = spans;
+      lineCount_ = value.size();
+      draw();
    }
 
    @Override
-   public void setValue(ArrayList<ChunkOrLine> value)
+   protected void onLoad()
    {
-      ArrayList<CssColor> colors = new ArrayList<CssColor>(value.size());
-      for (ChunkOrLine item : value)
+      super.onLoad();
+      draw();
+   }
+
+   public void onResize()
+   {
+      draw();
+   }
+
+   private void draw()
+   {
+      int height = getOffsetHeight();
+      if (!isAttached() || height <= 0)
+         return;
+
+      Canvas newCanvas = Canvas.createIfSupported();
+      newCanvas.setSize("100%", "100%");
+      newCanvas.setCoordinateSpaceWidth(WIDTH);
+      newCanvas.setCoordinateSpaceHeight(height);
+
+      Context2d ctx = newCanvas.getContext2d();
+      ctx.setFillStyle(BACKGROUND_COLOR.value());
+      ctx.fillRect(0, 0, WIDTH, height);
+
+      // every span gets at least a pixel so that no change goes unseen, and
+      // spans within pixels that are already drawn are skipped (so at most
+      // one rectangle is drawn per pixel row)
+      double scale = lineCount_ > 0 ? (double) height / lineCount_ : 0;
+      int drawnTo = 0;
+      for (Span span : spans_)
       {
-         Line line = item.getLine();
-         Type type = line == null ? Type.Same : line.getType();
-         switch (type)
-         {
-            case Insertion:  colors.add(CssColor.make("#6F6")); break;
-            case Deletion:   colors.add(CssColor.make("pink")); break;
-            default:
-            case Comment:
-            case Same:       colors.add(null); break;
-         }
+         int top = (int) (span.start * scale);
+         int bottom = Math.max(top + 1,
+                               (int) ((span.start + span.length) * scale));
+         if (bottom <= drawnTo)
+            continue;
+         top = Math.max(top, drawnTo);
+
+         ctx.setFillStyle(span.color.value());
+         ctx.fillRect(0, top, WIDTH, bottom - top);
+         drawnTo = bottom;
       }
-      setData(CssColor.make("#e1e2e5"), colors);
+
+      container_.setWidget(newCanvas);
    }
 
+   private static final int WIDTH = 10;
+   private static final CssColor BACKGROUND_COLOR = CssColor.make("#e1e2e5");
+   private static final CssColor INSERTION_COLOR = CssColor.make("#6F6");
+   private static final CssColor DELETION_COLOR = CssColor.make("pink");
+
    private final SimplePanel container_;
+   private ArrayList<Span> spans_ = new ArrayList<Span>();
+   private int lineCount_ = 0;
 }
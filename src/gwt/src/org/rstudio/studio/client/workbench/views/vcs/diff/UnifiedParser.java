@@ -18,11 +18,27 @@ import org.rstudio.studio.client.workbench.views.vcs.diff.Line.Type;
 
 import java.util.ArrayList;
 
+/**
+ * Reads unified diffs. The data is scanned a line at a time by offsets
+ * into the original string, so nothing is copied out of it except file
+ * and chunk headers; the text of each diff line is only copied if it's
+ * asked for (see Line.getText).
+ */
 public class UnifiedParser
 {
    public UnifiedParser(String data)
+   {
+      this(data, 0, data.length());
+   }
+
+   /**
+    * Parses just the part of the data in [start, end).
+    */
+   public UnifiedParser(String data, int start, int end)
    {
       data_ = data;
+      pos_ = start;
+      end_ = end;
       diffIndex_ = 0;
    }
 
@@ -31,42 +47,71 @@ public class UnifiedParser
       ArrayList<String> headerLines = new ArrayList<String>();
 
       boolean inDiff = false;
-
-      String line;
-      while (null != (line = nextLine()) && !line.startsWith("--- "))
+      boolean found = false;
+      while (nextLine())
       {
-         if (line.startsWith("diff "))
+         if (lineStartsWith("--- "))
+         {
+            found = true;
+            break;
+         }
+
+         if (lineStartsWith("diff "))
             inDiff = true;
 
          if (inDiff)
-            headerLines.add(line);
+            headerLines.add(lineText(0));
       }
 
-      if (line == null)
+      if (!found)
          return null;
 
-      String fileA = line.substring(4);
-      line = nextLine();
-      if (line == null || !line.startsWith("+++ "))
+      String fileA = lineText(4);
+      if (!nextLine() || !lineStartsWith("+++ "))
          throw new DiffFormatException("Incomplete file header");
-      String fileB = line.substring(4);
+      String fileB = lineText(4);
       return new DiffFileHeader(headerLines, fileA, fileB);
    }
 
+   /**
+    * Reads the next file's header and skips over its chunks without parsing
+    * them (other than their headers, to know where they end). Returns null
+    * at the end of the diff.
+    */
+   public DiffFileSection nextFileSection()
+   {
+      DiffFileHeader header = nextFilePair();
+      if (header == null)
+         return null;
+
+      int start = pos_;
+      int lineCount = skipChunks();
+      return new DiffFileSection(header, data_, start, pos_, lineCount);
+   }
+
    public DiffChunk nextChunk()
    {
-      String line;
-      while (null != (line = nextLine()) && !(line.startsWith("@@ ") || line.startsWith("--- ")))
+      boolean found = false;
+      while (nextLine())
       {
-      }
+         // leave the next file's header for nextFilePair
+         if (lineStartsWith("--- "))
+         {
+            pos_ = lineStart_;
+            return null;
+         }
 
-      if (line == null)
-         return null;
+         if (lineStartsWith("@@ "))
+         {
+            found = true;
+            break;
+         }
+      }
 
-      if (line.startsWith("--- "))
+      if (!found)
          return null;
 
-      Match match = range_.match(line, 0);
+      Match match = range_.match(lineText(0), 0);
       if (match == null)
          throw new DiffFormatException("Malformed chunk header");
 
@@ -86,12 +131,14 @@ public class UnifiedParser
            oldRowsLeft > 0 || newRowsLeft > 0 || nextLineIsComment();
            diffIndex_++)
       {
-         String diffLine = nextLine();
-         if (diffLine == null)
+         if (!nextLine())
             throw new DiffFormatException("Diff ended prematurely");
-         if (diffLine.length() == 0)
+         if (lineEnd_ == lineStart_)
             throw new DiffFormatException("Unexpected blank line");
-         switch (diffLine.charAt(0))
+
+         // the text is everything after the leading character
+         int textStart = lineStart_ + 1;
+         switch (data_.charAt(lineStart_))
          {
             case ' ':
                oldRowsLeft--;
@@ -99,7 +146,7 @@ public class UnifiedParser
                lines.add(new Line(Type.Same,
                                   oldRow++,
                                   newRow++,
-                                  diffLine.substring(1),
+                                  data_, textStart, lineEnd_,
                                   diffIndex_));
                break;
             case '-':
@@ -107,7 +154,7 @@ public class UnifiedParser
                lines.add(new Line(Type.Deletion,
                                   oldRow++,
                                   newRow-1,
-                                  diffLine.substring(1),
+                                  data_, textStart, lineEnd_,
                                   diffIndex_));
                break;
             case '+':
@@ -115,7 +162,7 @@ public class UnifiedParser
                lines.add(new Line(Type.Insertion,
                                   oldRow-1,
                                   newRow++,
-                                  diffLine.substring(1),
+                                  data_, textStart, lineEnd_,
                                   diffIndex_));
                break;
             case '\\':
@@ -123,7 +170,7 @@ public class UnifiedParser
                lines.add(new Line(Type.Comment,
                                   oldRow-1,
                                   newRow-1,
-                                  diffLine.substring(1),
+                                  data_, textStart, lineEnd_,
                                   diffIndex_));
                break;
             default:
@@ -138,9 +185,57 @@ public class UnifiedParser
                            text, lines);
    }
 
+   // returns the number of rows the skipped chunks would display (a row
+   // for each chunk header and one for each of its lines)
+   private int skipChunks()
+   {
+      int rowCount = 0;
+      while (nextLine())
+      {
+         if (lineStartsWith("--- ") || lineStartsWith("diff "))
+         {
+            pos_ = lineStart_;
+            break;
+         }
+         if (!lineStartsWith("@@ "))
+            continue;
+
+         Match match = range_.match(lineText(0), 0);
+         if (match == null)
+            throw new DiffFormatException("Malformed chunk header");
+
+         int oldRowsLeft = match.hasGroup(2) ? Integer.parseInt(match.getGroup(2)) : 1;
+         int newRowsLeft = match.hasGroup(4) ? Integer.parseInt(match.getGroup(4)) : 1;
+         rowCount++;
+
+         while ((oldRowsLeft > 0 || newRowsLeft > 0 || nextLineIsComment()) &&
+                nextLine())
+         {
+            if (lineEnd_ > lineStart_)
+            {
+               switch (data_.charAt(lineStart_))
+               {
+                  case ' ':
+                     oldRowsLeft--;
+                     newRowsLeft--;
+                     break;
+                  case '-':
+                     oldRowsLeft--;
+                     break;
+                  case '+':
+                     newRowsLeft--;
+                     break;
+               }
+            }
+            rowCount++;
+         }
+      }
+      return rowCount;
+   }
+
    private boolean isEOL()
    {
-      return pos_ >= data_.length();
+      return pos_ >= end_;
    }
 
    private boolean nextLineIsComment()
@@ -148,29 +243,46 @@ public class UnifiedParser
       return !isEOL() && data_.charAt(pos_) == '\\';
    }
 
-   private String nextLine()
+   // moves to the next line, setting lineStart_ and lineEnd_ (which
+   // excludes the line terminator); returns false at the end of the data
+   private boolean nextLine()
    {
       if (isEOL())
-         return null;
+         return false;
 
-      Match match = newline_.match(data_, pos_);
-      if (match == null)
+      lineStart_ = pos_;
+      int newline = data_.indexOf('\n', pos_);
+      if (newline == -1 || newline >= end_)
       {
-         int pos = pos_;
-         pos_ = data_.length();
-         return data_.substring(pos);
+         lineEnd_ = end_;
+         pos_ = end_;
       }
       else
       {
-         String value = data_.substring(pos_, match.getIndex());
-         pos_ = match.getIndex() + match.getValue().length();
-         return value;
+         boolean crlf = newline > lineStart_ && data_.charAt(newline - 1) == '\r';
+         lineEnd_ = crlf ? newline - 1 : newline;
+         pos_ = newline + 1;
       }
+      return true;
+   }
+
+   private boolean lineStartsWith(String prefix)
+   {
+      return lineEnd_ - lineStart_ >= prefix.length() &&
+             data_.startsWith(prefix, lineStart_);
+   }
+
+   private String lineText(int offset)
+   {
+      return data_.substring(lineStart_ + offset, lineEnd_);
    }
 
    private final String data_;
    private int pos_;
-   private final Pattern newline_ = Pattern.create("\\r?\\n");
+   private final int end_;
+   // the current line is [lineStart_, lineEnd_)
+   private int lineStart_;
+   private int lineEnd_;
    private final Pattern range_ = Pattern.create("^@@\\s*-([\\d]+)(?:,([\\d]+))?\\s+\\+([\\d]+)(?:,([\\d]+))?\\s*@@( (.*))?$", "m");
    private int diffIndex_;
 }
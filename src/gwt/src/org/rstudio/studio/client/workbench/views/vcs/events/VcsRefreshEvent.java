@@ -14,17 +14,26 @@ package org.rstudio.studio.client.workbench.views.vcs.events;
 
 import com.google.gwt.event.shared.GwtEvent;
 
+import java.util.ArrayList;
+
 public class VcsRefreshEvent extends GwtEvent<VcsRefreshHandler>
 {
    public enum Reason { NA, FileChange, VcsOperation }
 
    private final Reason reason_;
+   private final ArrayList<String> changedPaths_;
 
    public static final Type<VcsRefreshHandler> TYPE = new Type<VcsRefreshHandler>();
 
    public VcsRefreshEvent(Reason reason)
+   {
+      this(reason, null);
+   }
+
+   public VcsRefreshEvent(Reason reason, ArrayList<String> changedPaths)
    {
       reason_ = reason;
+      changedPaths_ = changedPaths;
    }
 
    public Reason getReason()
@@ -32,6 +41,15 @@ public class VcsRefreshEvent extends GwtEvent<VcsRefreshHandler>
       return reason_;
    }
 
+   /**
+    * The raw paths whose status changed, or null if any status may have
+    * changed.
+    */
+   public ArrayList<String> getChangedPaths()
+   {
+      return changedPaths_;
+   }
+
    @Override
    public Type<VcsRefreshHandler> getAssociatedType()
    {
@@ -13,6 +13,8 @@
 package org.rstudio.studio.client.workbench.views.vcs.model;
 
 import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
 import com.google.gwt.event.shared.HandlerManager;
 import com.google.gwt.event.shared.HandlerRegistration;
 import com.google.gwt.user.client.ui.Widget;
@@ -22,7 +24,6 @@ import org.rstudio.core.client.Debug;
 import org.rstudio.core.client.HandlerRegistrations;
 import org.rstudio.core.client.StringUtil;
 import org.rstudio.core.client.WidgetHandlerRegistration;
-import org.rstudio.core.client.dom.DomUtils;
 import org.rstudio.core.client.files.FileSystemItem;
 import org.rstudio.studio.client.application.events.EventBus;
 import org.rstudio.studio.client.common.GlobalDisplay;
@@ -39,6 +40,9 @@ import org.rstudio.studio.client.workbench.views.vcs.events.VcsRefreshEvent;
 import org.rstudio.studio.client.workbench.views.vcs.events.VcsRefreshEvent.Reason;
 import org.rstudio.studio.client.workbench.views.vcs.events.VcsRefreshHandler;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
 @Singleton
 public class VcsState
 {
@@ -82,27 +86,7 @@ public class VcsState
             }
 
             if (status_ != null)
-            {
-               for (int i = 0; i < status_.length(); i++)
-               {
-                  if (status.getRawPath().equals(status_.get(i).getRawPath()))
-                  {
-                     if (StringUtil.notNull(status.getStatus()).trim().length() == 0)
-                        DomUtils.splice(status_, i, 1);
-                     else
-                        status_.set(i, status);
-                     handlers_.fireEvent(new VcsRefreshEvent(Reason.FileChange));
-                     return;
-                  }
-               }
-
-               if (status.getStatus().trim().length() != 0)
-               {
-                  status_.push(status);
-                  handlers_.fireEvent(new VcsRefreshEvent(Reason.FileChange));
-                  return;
-               }
-            }
+               queueStatusChange(status);
          }
       }));
 
@@ -134,9 +118,24 @@ public class VcsState
       return hreg;
    }
 
-   public JsArray<StatusAndPath> getStatus()
+   /**
+    * The status of each changed file, in the order the server listed them
+    * (with files that have changed since appended).
+    */
+   public ArrayList<StatusAndPath> getStatus()
    {
-      return status_;
+      if (status_ == null)
+         return new ArrayList<StatusAndPath>();
+      return new ArrayList<StatusAndPath>(status_.values());
+   }
+
+   /**
+    * The status of the file with the given raw path, or null if it is
+    * unchanged.
+    */
+   public StatusAndPath getStatus(String rawPath)
+   {
+      return status_ != null ? status_.get(rawPath) : null;
    }
 
    public BranchesInfo getBranchInfo()
@@ -149,49 +148,148 @@ public class VcsState
       refresh(true);
    }
 
+   /**
+    * Fetches the branches and the status together. Only the latest refresh
+    * applies its results, so a slow response to an earlier one can't
+    * overwrite newer state.
+    */
    public void refresh(final boolean showError)
    {
+      final int generation = ++refreshGeneration_;
+      final RefreshResults results = new RefreshResults();
+
       server_.vcsListBranches(new ServerRequestCallback<BranchesInfo>()
       {
          @Override
          public void onResponseReceived(BranchesInfo response)
          {
-            branches_ = response;
+            results.branches = response;
+            onRefreshResult(generation, results);
+         }
 
-            server_.vcsFullStatus(new ServerRequestCallback<JsArray<StatusAndPath>>()
-            {
-               @Override
-               public void onResponseReceived(JsArray<StatusAndPath> response)
-               {
-                  status_ = response;
-
-                  handlers_.fireEvent(new VcsRefreshEvent(Reason.VcsOperation));
-               }
-
-               @Override
-               public void onError(ServerError error)
-               {
-                  Debug.logError(error);
-                  if (showError)
-                     globalDisplay_.showErrorMessage("Error",
-                                                     error.getUserMessage());
-               }
-            });
+         @Override
+         public void onError(ServerError error)
+         {
+            onRefreshError(generation, results, error, showError);
+         }
+      });
+
+      server_.vcsFullStatus(new ServerRequestCallback<JsArray<StatusAndPath>>()
+      {
+         @Override
+         public void onResponseReceived(JsArray<StatusAndPath> response)
+         {
+            results.status = response;
+            onRefreshResult(generation, results);
          }
 
          @Override
          public void onError(ServerError error)
          {
-            Debug.logError(error);
-            if (showError)
-               globalDisplay_.showErrorMessage("Error",
-                                               error.getUserMessage());
+            onRefreshError(generation, results, error, showError);
+         }
+      });
+   }
+
+   private void onRefreshResult(int generation, RefreshResults results)
+   {
+      if (generation != refreshGeneration_ || results.failed)
+         return;
+      if (results.branches == null || results.status == null)
+         return;
+
+      branches_ = results.branches;
+      status_ = new LinkedHashMap<String, StatusAndPath>();
+      for (int i = 0; i < results.status.length(); i++)
+         status_.put(results.status.get(i).getRawPath(), results.status.get(i));
+      pendingStatus_.clear();
+
+      handlers_.fireEvent(new VcsRefreshEvent(Reason.VcsOperation));
+   }
+
+   private void onRefreshError(int generation,
+                               RefreshResults results,
+                               ServerError error,
+                               boolean showError)
+   {
+      Debug.logError(error);
+
+      // report only the first failure of the latest refresh
+      if (generation != refreshGeneration_ || results.failed)
+         return;
+      results.failed = true;
+
+      if (showError)
+         globalDisplay_.showErrorMessage("Error", error.getUserMessage());
+   }
+
+   // file changes tend to arrive in bursts (e.g. when switching branches)
+   // so we apply all of those that arrive in one go together
+   private void queueStatusChange(StatusAndPath status)
+   {
+      boolean scheduled = !pendingStatus_.isEmpty();
+      pendingStatus_.put(status.getRawPath(), status);
+      if (scheduled)
+         return;
+
+      Scheduler.get().scheduleFinally(new ScheduledCommand()
+      {
+         @Override
+         public void execute()
+         {
+            applyStatusChanges();
          }
       });
    }
 
+   private void applyStatusChanges()
+   {
+      if (pendingStatus_.isEmpty() || status_ == null)
+         return;
+
+      ArrayList<String> changedPaths = new ArrayList<String>();
+      for (StatusAndPath status : pendingStatus_.values())
+      {
+         String path = status.getRawPath();
+         StatusAndPath previous = status_.get(path);
+         if (StringUtil.notNull(status.getStatus()).trim().length() == 0)
+         {
+            if (previous == null)
+               continue;
+            status_.remove(path);
+         }
+         else
+         {
+            if (previous != null &&
+                previous.getStatus().equals(status.getStatus()) &&
+                previous.getPath().equals(status.getPath()))
+            {
+               continue;
+            }
+            status_.put(path, status);
+         }
+         changedPaths.add(path);
+      }
+      pendingStatus_.clear();
+
+      if (!changedPaths.isEmpty())
+         handlers_.fireEvent(new VcsRefreshEvent(Reason.FileChange,
+                                                 changedPaths));
+   }
+
+   private static class RefreshResults
+   {
+      BranchesInfo branches;
+      JsArray<StatusAndPath> status;
+      boolean failed;
+   }
+
    private final HandlerManager handlers_ = new HandlerManager(this);
-   private JsArray<StatusAndPath> status_;
+   private int refreshGeneration_ = 0;
+   // keyed by raw path
+   private LinkedHashMap<String, StatusAndPath> status_;
+   private final LinkedHashMap<String, StatusAndPath> pendingStatus_ =
+                                 new LinkedHashMap<String, StatusAndPath>();
    private BranchesInfo branches_;
    private final VCSServerOperations server_;
    private final EventBus eventBus_;
@@ -13,8 +13,11 @@
 package org.rstudio.studio.client.workbench.views.workspace;
 
 
+import com.google.gwt.core.client.JsArrayString;
 import com.google.gwt.user.client.ui.IsWidget;
 import com.google.inject.Inject;
+import org.rstudio.core.client.Invalidation;
+import org.rstudio.core.client.Invalidation.Token;
 import org.rstudio.core.client.StringUtil;
 import org.rstudio.core.client.command.CommandBinder;
 import org.rstudio.core.client.command.Handler;
@@ -42,6 +45,7 @@ import org.rstudio.studio.client.workbench.views.workspace.dataimport.ImportGoog
 import org.rstudio.studio.client.workbench.views.workspace.events.*;
 import org.rstudio.studio.client.workbench.views.workspace.model.DownloadInfo;
 import org.rstudio.studio.client.workbench.views.workspace.model.GoogleSpreadsheetImportSpec;
+import org.rstudio.studio.client.workbench.views.workspace.model.WorkspaceObjectChanges;
 import org.rstudio.studio.client.workbench.views.workspace.model.WorkspaceObjectInfo;
 import org.rstudio.studio.client.workbench.views.workspace.model.WorkspaceServerOperations;
 import org.rstudio.studio.client.workbench.views.workspace.table.WorkspaceObjectTable;
@@ -99,7 +103,7 @@ public class Workspace
    public void onBeforeSelected()
    {
       super.onBeforeSelected();
-      synchronizeView();
+      resynchronizeView();
    }
 
    public void onWorkspaceRefresh(WorkspaceRefreshEvent event)
@@ -412,30 +416,49 @@ public class Workspace
 
    private void synchronizeView()
    {
-      refreshView(false);
+      refreshView(false, false);
+   }
+   
+   // objects modified in place (e.g. x[1] <- 0) aren't seen as changed by
+   // the server's change tracking, so when the pane is shown we ask for a
+   // full listing and let the table apply only the values that differ
+   private void resynchronizeView()
+   {
+      refreshView(false, true);
    }
    
    private void refreshView()
    {
-      refreshView(true);
+      refreshView(true, true);
    }
    
-   private void refreshView(final boolean reset)
+   private void refreshView(final boolean reset, boolean fullListing)
    {  
       // show progress if we are doing a full reset
       final boolean showProgress = reset;
       if (showProgress)
          view_.setProgress(true);
       
-      // clean out existing if we doing a reseta 
+      // clean out existing if we doing a reset (and ask for everything
+      // rather than just what changed since the version we last saw) 
       if (reset)
+      {
          objects_.clearObjects();
+         version_ = -1;
+      }
+
+      // only the latest request's response is applied
+      final Token token = listInvalidation_.getInvalidationToken();
        
-      server_.listObjects(new ServerRequestCallback<RpcObjectList<WorkspaceObjectInfo>>()
+      server_.listObjectsSince(fullListing ? -1 : version_,
+                               new ServerRequestCallback<WorkspaceObjectChanges>()
       {
          @Override
          public void onError(ServerError error)
          {
+            if (token.isInvalid())
+               return;
+
             globalDisplay_.showErrorMessage("Error Listing Objects",
                                            error.getUserMessage());
             
@@ -445,51 +468,41 @@ public class Workspace
          }
 
          @Override
-         public void onResponseReceived(RpcObjectList<WorkspaceObjectInfo> response)
+         public void onResponseReceived(WorkspaceObjectChanges changes)
          {
-            // if this is not a full reset then we need to perform the 
-            // deletes manually because we never cleared the existing
-            // object table. this state is here so we can implement "silent"
-            // refreshes of the workspace that don't flash and reset the
-            // user's scroll position
-            if (!reset)
-            {
-               ArrayList<String> objectNames = objects_.getObjectNames();
-               for (int i=0; i<objectNames.size(); i++)
-               {
-                  String objectName = objectNames.get(i);
-                  if (!containsObject(response, objectName))
-                     objects_.removeObject(objectName);
-               }
-            }
-            
-            // perform updates (will add or update as necessary)
-            for (int i = 0; i < response.length(); i++)
+            if (token.isInvalid())
+               return;
+
+            version_ = changes.getVersion();
+
+            ArrayList<WorkspaceObjectInfo> updated =
+                                       new ArrayList<WorkspaceObjectInfo>();
+            RpcObjectList<WorkspaceObjectInfo> objects = changes.getObjects();
+            for (int i = 0; i < objects.length(); i++)
             {
-               WorkspaceObjectInfo objectInfo = response.get(i);
+               WorkspaceObjectInfo objectInfo = objects.get(i);
                if (!objectInfo.isHidden())
-                  objects_.updateObject(objectInfo);
-            } 
+                  updated.add(objectInfo);
+            }
+
+            ArrayList<String> removed = new ArrayList<String>();
+            JsArrayString removedNames = changes.getRemoved();
+            for (int i = 0; i < removedNames.length(); i++)
+               removed.add(removedNames.get(i));
+
+            // only the objects that changed are touched (a full listing is
+            // compared against what the table shows) so that "silent"
+            // refreshes of the workspace don't flash and reset the user's
+            // scroll position
+            objects_.applyChanges(updated,
+                                  removed,
+                                  changes.isFullListing());
             
             if (showProgress)
                view_.setProgress(false);
          }
       });
    }
-   
-   
-   public boolean containsObject(RpcObjectList<WorkspaceObjectInfo> objects,
-                                 String name)
-   {
-      for (int i=0; i<objects.length(); i++)
-      {
-         if (objects.get(i).getName().equals(name))
-            return true;
-      }
-      
-      // didn't find it
-      return false;
-   }
 
    private final Workspace.Display view_ ;
    private final WorkspaceServerOperations server_;
@@ -500,4 +513,8 @@ public class Workspace
    private final RemoteFileSystemContext fsContext_;
    private final ConsoleDispatcher consoleDispatcher_;
    private final FileDialogs fileDialogs_;
+   private final Invalidation listInvalidation_ = new Invalidation();
+
+   // the workspace version the object table reflects (-1 for none)
+   private int version_ = -1;
 }
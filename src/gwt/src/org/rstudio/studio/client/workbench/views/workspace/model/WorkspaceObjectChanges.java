@@ -0,0 +1,45 @@
+/*
+ * WorkspaceObjectChanges.java
+ *
+ * Copyright (C) 2009-11 by RStudio, Inc.
+ *
+ * This program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.workspace.model;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArrayString;
+import org.rstudio.core.client.jsonrpc.RpcObjectList;
+
+// the objects assigned and removed since a given workspace version
+public class WorkspaceObjectChanges extends JavaScriptObject
+{
+   protected WorkspaceObjectChanges()
+   {
+   }
+
+   // the version to ask for changes since next time
+   public final native int getVersion() /*-{
+      return this.version;
+   }-*/;
+
+   // true if the changes couldn't be computed for the requested version,
+   // in which case getObjects is every object and anything else should
+   // be removed
+   public final native boolean isFullListing() /*-{
+      return this.full;
+   }-*/;
+
+   public final native RpcObjectList<WorkspaceObjectInfo> getObjects() /*-{
+      return this.objects;
+   }-*/;
+
+   public final native JsArrayString getRemoved() /*-{
+      return this.removed;
+   }-*/;
+}
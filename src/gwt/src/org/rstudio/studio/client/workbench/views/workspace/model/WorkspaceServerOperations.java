@@ -22,6 +22,12 @@ public interface WorkspaceServerOperations
    // list all objects in the global namespace
    void listObjects(
          ServerRequestCallback<RpcObjectList<WorkspaceObjectInfo>> requestCallback);
+
+   // list the objects assigned or removed since the given version (pass -1
+   // for a full listing)
+   void listObjectsSince(
+         int version,
+         ServerRequestCallback<WorkspaceObjectChanges> requestCallback);
    
    void removeAllObjects(ServerRequestCallback<Void> requestCallback);
       
@@ -12,11 +12,15 @@
  */
 package org.rstudio.studio.client.workbench.views.workspace.table;
 
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
 import com.google.gwt.dom.client.NodeList;
 import com.google.gwt.dom.client.TableCellElement;
 import com.google.gwt.dom.client.TableRowElement;
 import com.google.gwt.event.dom.client.ClickEvent;
 import com.google.gwt.event.dom.client.ClickHandler;
+import com.google.gwt.event.dom.client.ScrollEvent;
+import com.google.gwt.event.dom.client.ScrollHandler;
 import com.google.gwt.event.logical.shared.SelectionEvent;
 import com.google.gwt.event.logical.shared.SelectionHandler;
 import com.google.gwt.event.shared.GwtEvent;
@@ -24,6 +28,7 @@ import com.google.gwt.event.shared.HandlerManager;
 import com.google.gwt.user.client.ui.HTMLTable;
 import com.google.gwt.user.client.ui.ScrollPanel;
 import com.google.inject.Inject;
+import org.rstudio.core.client.StringUtil;
 import org.rstudio.core.client.dom.DomUtils;
 import org.rstudio.core.client.theme.res.ThemeResources;
 import org.rstudio.core.client.theme.res.ThemeStyles;
@@ -32,6 +37,7 @@ import org.rstudio.studio.client.common.GlobalDisplay;
 import org.rstudio.studio.client.workbench.views.workspace.model.WorkspaceObjectInfo;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -63,21 +69,70 @@ public class WorkspaceObjectTable
       
       public void clearTable()
       {
-         while (table_.getRowCount() > 0)
-            table_.removeRow(0) ;
+         table_.removeAllRows() ;
          sections_.clear() ;
          
          for (int i = 0; i < SECTION_NAMES.length; i++)
          {
-            table_.setText(i, 0, SECTION_NAMES[i]) ;
-            table_.getFlexCellFormatter().setColSpan(i, 0, 2) ;
-            table_.getRowFormatter().setStylePrimaryName(
-                  i,
-                  ThemeResources.INSTANCE.themeStyles().workspaceSectionHead());
+            addHeadingRow(i, i) ;
             sections_.add(new ArrayList<String>()) ;
             manageHeadingVisibility(i);
          }
       }
+
+      /**
+       * Replaces the contents of the table with rows for the given objects,
+       * appending the rows in order rather than inserting each one where
+       * it belongs. Returns the table row index for each object name.
+       */
+      public HashMap<String, Integer> rebuildTable(
+                                 Collection<WorkspaceObjectInfo> objects)
+      {
+         table_.removeAllRows() ;
+         sections_.clear() ;
+         for (int i = 0; i < SECTION_NAMES.length; i++)
+            sections_.add(new ArrayList<String>()) ;
+
+         for (WorkspaceObjectInfo obj : objects)
+            sections_.get(chooseSection(obj)).add(obj.getName()) ;
+
+         HashMap<String, Integer> rowIndexes = new HashMap<String, Integer>() ;
+         int row = 0 ;
+         for (int i = 0; i < sections_.size(); i++)
+         {
+            ArrayList<String> section = sections_.get(i) ;
+            Collections.sort(section) ;
+
+            addHeadingRow(row++, i) ;
+            manageHeadingVisibility(i) ;
+            for (String name : section)
+            {
+               addDataRow(row) ;
+               rowIndexes.put(name, row++) ;
+            }
+         }
+         return rowIndexes ;
+      }
+
+      private void addHeadingRow(int row, int section)
+      {
+         table_.setText(row, 0, SECTION_NAMES[section]) ;
+         table_.getFlexCellFormatter().setColSpan(row, 0, 2) ;
+         table_.getRowFormatter().setStylePrimaryName(
+               row,
+               ThemeResources.INSTANCE.themeStyles().workspaceSectionHead());
+      }
+
+      private void addDataRow(int row)
+      {
+         table_.insertRow(row) ;
+         table_.getRowFormatter().setStylePrimaryName(
+               row,
+               ThemeResources.INSTANCE.themeStyles().workspaceDataRow());
+         table_.getRowFormatter().addStyleName(
+               row,
+               FontSizer.getNormalFontSizeClass());
+      }
       
       /**
        * Returns the table row index where this object should go.
@@ -100,13 +155,7 @@ public class WorkspaceObjectTable
          index = -(index+1) ;
          section.add(index, obj.getName()) ;
          int tableIndex = index + getSectionStart(sectionId) ;
-         table_.insertRow(tableIndex) ;
-         table_.getRowFormatter().setStylePrimaryName(
-               tableIndex,
-               ThemeResources.INSTANCE.themeStyles().workspaceDataRow());
-         table_.getRowFormatter().addStyleName(
-               tableIndex,
-               FontSizer.getNormalFontSizeClass());
+         addDataRow(tableIndex) ;
          manageHeadingVisibility(sectionId);
          return tableIndex ;
       }
@@ -245,6 +294,9 @@ public class WorkspaceObjectTable
             if (objectName == null)
                return;
 
+            if (pendingEditors_.containsKey(objectName))
+               createEditor(row, pendingEditors_.remove(objectName));
+
             if (editHandlers_.containsKey(objectName))
             {
                editHandlers_.get(objectName).onClick(event);
@@ -264,6 +316,13 @@ public class WorkspaceObjectTable
       
       table_.setWidth("100%");
       scrollPanel_ = new ScrollPanel(table_);
+      scrollPanel_.addScrollHandler(new ScrollHandler()
+      {
+         public void onScroll(ScrollEvent event)
+         {
+            scheduleCreateVisibleEditors();
+         }
+      });
       
       rowManager_ = new RowManager() ;
 
@@ -296,13 +355,17 @@ public class WorkspaceObjectTable
 
    public void clearObjects()
    {
+      objects_.clear();
       editHandlers_.clear();
+      pendingEditors_.clear();
       rowManager_.clearTable() ;
    }
 
    public void removeObject(String name)
    {
+      objects_.remove(name);
       editHandlers_.remove(name);
+      pendingEditors_.remove(name);
       rowManager_.removeRow(name) ;
    }
    
@@ -312,10 +375,82 @@ public class WorkspaceObjectTable
    }
    
    public void updateObject(WorkspaceObjectInfo object)
+   {
+      objects_.put(object.getName(), object);
+      renderObject(rowManager_.getRowIndex(object), object);
+   }
+
+   /**
+    * Applies a set of changes at once. If there are more than a few then
+    * rather than inserting and removing rows one at a time the table is
+    * rebuilt from scratch. A full listing is first reduced to the objects
+    * whose values differ from what the table shows (plus removal of those
+    * not in the listing), so re-listing an unchanged workspace is cheap.
+    */
+   public void applyChanges(ArrayList<WorkspaceObjectInfo> updated,
+                            ArrayList<String> removed,
+                            boolean fullListing)
+   {
+      if (fullListing)
+      {
+         HashSet<String> listed = new HashSet<String>();
+         ArrayList<WorkspaceObjectInfo> changed =
+                                       new ArrayList<WorkspaceObjectInfo>();
+         for (WorkspaceObjectInfo object : updated)
+         {
+            listed.add(object.getName());
+            if (!isSameValue(objects_.get(object.getName()), object))
+               changed.add(object);
+         }
+
+         removed = new ArrayList<String>();
+         for (String name : objects_.keySet())
+         {
+            if (!listed.contains(name))
+               removed.add(name);
+         }
+         updated = changed;
+      }
+
+      if (updated.size() + removed.size() <= REBUILD_THRESHOLD)
+      {
+         for (String name : removed)
+            removeObject(name);
+         for (WorkspaceObjectInfo object : updated)
+            updateObject(object);
+         return;
+      }
+
+      for (String name : removed)
+         objects_.remove(name);
+      for (WorkspaceObjectInfo object : updated)
+         objects_.put(object.getName(), object);
+
+      editHandlers_.clear();
+      pendingEditors_.clear();
+      HashMap<String, Integer> rowIndexes =
+                                 rowManager_.rebuildTable(objects_.values());
+      for (WorkspaceObjectInfo object : objects_.values())
+         renderObject(rowIndexes.get(object.getName()), object);
+   }
+
+   private boolean isSameValue(WorkspaceObjectInfo a, WorkspaceObjectInfo b)
+   {
+      return a != null &&
+             StringUtil.notNull(a.getType()).equals(
+                                          StringUtil.notNull(b.getType())) &&
+             a.getLength() == b.getLength() &&
+             StringUtil.notNull(a.getValue()).equals(
+                                          StringUtil.notNull(b.getValue())) &&
+             StringUtil.notNull(a.getExtra()).equals(
+                                          StringUtil.notNull(b.getExtra()));
+   }
+
+   private void renderObject(int index, WorkspaceObjectInfo object)
    {
       editHandlers_.remove(object.getName());
+      pendingEditors_.remove(object.getName());
 
-      int index = rowManager_.getRowIndex(object) ;
       String type = object.getType() ;
       if ("function".equals(type))
       {
@@ -327,23 +462,19 @@ public class WorkspaceObjectTable
       else
       {
          table_.setText(index, 0, object.getName()) ;
-         ScalarEdit<?> editor = null ;
-         if (object.getLength() == 1)
-         {
-            if (genericTypes.contains(type)
-                && !"NO_VALUE".equals(object.getValue()))
-            {
-               editor = new ScalarEdit<String>(globalDisplay_,
-                                               new RLiteralConversionStrategy(),
-                                               object.getValue()) ;
-            }
-         }
-
-         if (editor != null)
+         if (isEditable(object))
          {
-            editHandlers_.put(object.getName(), editor);
-            inlineEditorFactory_.create(object, editor) ;
-            table_.setWidget(index, 1, editor);
+            // show the value as the editor would, but leave creating the
+            // editor itself until the row is scrolled into view
+            table_.setHTML(index, 1,
+                           "<div class=\"" +
+                           ThemeStyles.INSTANCE.scalarEdit() + "\">" +
+                           DomUtils.textToHtml(
+                                 literalConversion_.convertToDisplayString(
+                                                      object.getValue())) +
+                           "</div>");
+            pendingEditors_.put(object.getName(), object);
+            scheduleCreateVisibleEditors();
          }
          else if (isData(type))
          {
@@ -359,6 +490,78 @@ public class WorkspaceObjectTable
       }
    }
 
+   private boolean isEditable(WorkspaceObjectInfo object)
+   {
+      return object.getLength() == 1 &&
+             genericTypes.contains(object.getType()) &&
+             !"NO_VALUE".equals(object.getValue());
+   }
+
+   private void createEditor(int index, WorkspaceObjectInfo object)
+   {
+      ScalarEdit<String> editor = new ScalarEdit<String>(
+                                                globalDisplay_,
+                                                literalConversion_,
+                                                object.getValue()) ;
+      editHandlers_.put(object.getName(), editor);
+      inlineEditorFactory_.create(object, editor) ;
+      table_.setWidget(index, 1, editor);
+   }
+
+   private void scheduleCreateVisibleEditors()
+   {
+      if (createEditorsScheduled_ || pendingEditors_.isEmpty())
+         return;
+
+      createEditorsScheduled_ = true;
+      Scheduler.get().scheduleDeferred(new ScheduledCommand()
+      {
+         public void execute()
+         {
+            createEditorsScheduled_ = false;
+            createVisibleEditors();
+         }
+      });
+   }
+
+   // create editors for the rows that are in view (or nearly so)
+   private void createVisibleEditors()
+   {
+      if (pendingEditors_.isEmpty())
+         return;
+
+      int viewHeight = scrollPanel_.getOffsetHeight();
+      if (viewHeight <= 0)
+         return;
+      int top = scrollPanel_.getVerticalScrollPosition() - viewHeight;
+      int bottom = scrollPanel_.getVerticalScrollPosition() + 2 * viewHeight;
+
+      // rows are laid out in order, so find the first one in view by
+      // binary search rather than measuring them all
+      int rowCount = table_.getRowCount();
+      int low = 0;
+      int high = rowCount;
+      while (low < high)
+      {
+         int mid = (low + high) >>> 1;
+         TableRowElement rowEl = table_.getRowElement(mid);
+         if (rowEl.getOffsetTop() + rowEl.getOffsetHeight() < top)
+            low = mid + 1;
+         else
+            high = mid;
+      }
+
+      for (int row = low; row < rowCount; row++)
+      {
+         if (table_.getRowElement(row).getOffsetTop() > bottom)
+            break;
+
+         String name = rowManager_.getObjectNameForIndex(row);
+         if (name != null && pendingEditors_.containsKey(name))
+            createEditor(row, pendingEditors_.remove(name));
+      }
+   }
+
    public void fireEvent(GwtEvent<?> gwtEvent)
    {
       handlerManager_.fireEvent(gwtEvent);
@@ -405,11 +608,22 @@ public class WorkspaceObjectTable
    private final HandlerManager handlerManager_ = new HandlerManager(null);
    private final HashMap<String, ClickHandler> editHandlers_ =
                                             new HashMap<String, ClickHandler>(); 
+   // objects in the table, and those whose rows still need an editor
+   private final HashMap<String, WorkspaceObjectInfo> objects_ =
+                                    new HashMap<String, WorkspaceObjectInfo>();
+   private final HashMap<String, WorkspaceObjectInfo> pendingEditors_ =
+                                    new HashMap<String, WorkspaceObjectInfo>();
+   private boolean createEditorsScheduled_ = false;
+   private final RLiteralConversionStrategy literalConversion_ =
+                                             new RLiteralConversionStrategy();
    private final InlineEditorFactory inlineEditorFactory_;
    private final GlobalDisplay globalDisplay_ ;
    private final FlexTableEx table_;
    private final ScrollPanel scrollPanel_;
    
+   // more changes than this are applied by rebuilding the table
+   private static final int REBUILD_THRESHOLD = 20;
+
    private static HashSet<String> genericTypes = new HashSet<String>() ;
    static {
       genericTypes.add("NULL") ;
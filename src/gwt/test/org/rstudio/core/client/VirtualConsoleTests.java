@@ -0,0 +1,122 @@
+/*
+ * VirtualConsoleTests.java
+ *
+ * Copyright (C) 2009-11 by RStudio, Inc.
+ *
+ * This program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client;
+
+import junit.framework.Assert ;
+
+import com.google.gwt.junit.client.GWTTestCase ;
+
+public class VirtualConsoleTests extends GWTTestCase
+{
+   @Override
+   public String getModuleName()
+   {
+      return "org.rstudio.studio.RStudio" ;
+   }
+
+   public void testPlainText()
+   {
+      Assert.assertEquals("", VirtualConsole.consolify("")) ;
+      Assert.assertEquals("foo\nbar", VirtualConsole.consolify("foo\nbar")) ;
+   }
+
+   public void testCarriageReturn()
+   {
+      Assert.assertEquals("xyzdef", VirtualConsole.consolify("abcdef\rxyz")) ;
+      Assert.assertEquals("ab\nxy", VirtualConsole.consolify("ab\ncd\rxy")) ;
+      Assert.assertEquals("xycdef\n",
+                          VirtualConsole.consolify("abcdef\rxy\n")) ;
+   }
+
+   public void testBackspace()
+   {
+      Assert.assertEquals("abd", VirtualConsole.consolify("abc\bd")) ;
+      Assert.assertEquals("abcd", VirtualConsole.consolify("ab\n\bcd")) ;
+      Assert.assertEquals("", VirtualConsole.consolify("\b\b")) ;
+   }
+
+   public void testLineCount()
+   {
+      VirtualConsole vc = new VirtualConsole() ;
+      vc.submit("a\nb\nc") ;
+      Assert.assertEquals(2, vc.getLineCount()) ;
+      Assert.assertTrue(vc.hasPartialLine()) ;
+      vc.submit("\n") ;
+      Assert.assertEquals(3, vc.getLineCount()) ;
+      Assert.assertFalse(vc.hasPartialLine()) ;
+      vc.submit("\b") ;
+      Assert.assertEquals(2, vc.getLineCount()) ;
+      Assert.assertEquals("a\nb\nc", vc.toString()) ;
+   }
+
+   public void testDirtyRange()
+   {
+      VirtualConsole vc = new VirtualConsole() ;
+      vc.submit("line 1\n  |===   |  30%") ;
+      vc.markClean() ;
+      Assert.assertFalse(vc.isDirty()) ;
+
+      vc.submit("\r  |====  |  40%") ;
+      Assert.assertTrue(vc.isDirty()) ;
+      Assert.assertEquals(7, vc.getDirtyStart()) ;
+      Assert.assertEquals("  |====  |  40%", vc.getDirtyText()) ;
+
+      vc.markClean() ;
+      vc.submit("\n") ;
+      Assert.assertEquals(vc.getLength() - 1, vc.getDirtyStart()) ;
+      Assert.assertEquals("\n", vc.getDirtyText()) ;
+   }
+
+   /**
+    * Simulates txtProgressBar(style = 3) output over 100k iterations and
+    * checks that the text each chunk needs patched into the DOM stays the
+    * size of the progress line rather than growing with the amount of
+    * output already in the console, and that the console ends up showing
+    * what a single pass over all of the output would.
+    */
+   public void testProgressBarOutput()
+   {
+      final int ITERATIONS = 100000;
+
+      VirtualConsole vc = new VirtualConsole() ;
+      vc.submit("Processing...\n") ;
+      vc.markClean() ;
+
+      int maxDirty = 0;
+      for (int i = 0; i < ITERATIONS; i++)
+      {
+         int pct = (int) Math.round(100.0 * (i + 1) / ITERATIONS);
+         String line = "  |" + progressBar(pct) + "| " + pct + "%";
+         vc.submit("\r" + line) ;
+
+         // only the progress line is ever rewritten
+         Assert.assertEquals(vc.getLength() - line.length(),
+                             vc.getDirtyStart()) ;
+         maxDirty = Math.max(maxDirty, vc.getDirtyText().length());
+         vc.markClean();
+      }
+
+      Assert.assertTrue(maxDirty < 70) ;
+      Assert.assertEquals(1, vc.getLineCount()) ;
+      Assert.assertEquals("Processing...\n  |" + progressBar(100) + "| 100%",
+                          vc.toString()) ;
+   }
+
+   private String progressBar(int pct)
+   {
+      StringBuilder bar = new StringBuilder() ;
+      for (int i = 0; i < 50; i++)
+         bar.append(i < pct / 2 ? '=' : ' ') ;
+      return bar.toString() ;
+   }
+}
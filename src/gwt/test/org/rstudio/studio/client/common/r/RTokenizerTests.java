@@ -16,8 +16,11 @@ import junit.framework.Assert ;
 
 import com.google.gwt.junit.client.GWTTestCase ;
 import org.rstudio.studio.client.common.r.RToken;
+import org.rstudio.studio.client.common.r.RTokenBuffer;
 import org.rstudio.studio.client.common.r.RTokenizer;
 
+import java.util.ArrayList;
+
 public class RTokenizerTests extends GWTTestCase
 {
    @Override
@@ -118,6 +121,98 @@ public class RTokenizerTests extends GWTTestCase
       }) ;
    }
    
+   public void testBuffer()
+   {
+      String code = "x <- foo[[1]](a, 'b\\'c', `d e`) %in% y # z\n" ;
+      RTokenBuffer buffer = RTokenizer.tokenize(code, new RTokenBuffer()) ;
+      
+      int[] types = new int[] {
+         RToken.ID, RToken.WHITESPACE, RToken.OPER, RToken.WHITESPACE,
+         RToken.ID, RToken.LDBRACKET, RToken.NUMBER, RToken.RDBRACKET,
+         RToken.LPAREN, RToken.ID, RToken.COMMA, RToken.WHITESPACE,
+         RToken.STRING, RToken.COMMA, RToken.WHITESPACE, RToken.ID,
+         RToken.RPAREN, RToken.WHITESPACE, RToken.UOPER, RToken.WHITESPACE,
+         RToken.ID, RToken.WHITESPACE, RToken.COMMENT, RToken.WHITESPACE
+      } ;
+      String[] contents = new String[] {
+         "x", " ", "<-", " ",
+         "foo", "[[", "1", "]]",
+         "(", "a", ",", " ",
+         "'b\\'c'", ",", " ", "`d e`",
+         ")", " ", "%in%", " ",
+         "y", " ", "# z", "\n"
+      } ;
+      Assert.assertEquals(types.length, buffer.size()) ;
+      
+      int offset = 0 ;
+      for (int i = 0; i < buffer.size(); i++)
+      {
+         Assert.assertEquals(types[i], buffer.getTokenType(i)) ;
+         Assert.assertEquals(offset, buffer.getOffset(i)) ;
+         Assert.assertEquals(contents[i].length(), buffer.getLength(i)) ;
+         Assert.assertEquals(contents[i], buffer.getContent(i)) ;
+         Assert.assertTrue(buffer.contentEquals(i, contents[i])) ;
+         
+         RToken token = buffer.getToken(i) ;
+         Assert.assertEquals(types[i], token.getTokenType()) ;
+         Assert.assertEquals(offset, token.getOffset()) ;
+         Assert.assertEquals(contents[i], token.getContent()) ;
+         offset += contents[i].length() ;
+      }
+      Assert.assertEquals(code.length(), offset) ;
+      
+      // reusing the buffer replaces its tokens
+      RTokenizer.tokenize("a", buffer) ;
+      Assert.assertEquals(1, buffer.size()) ;
+      Assert.assertEquals(RToken.ID, buffer.getTokenType(0)) ;
+   }
+   
+   public void testMatchesRegexTokenizer()
+   {
+      String sample = 
+         "summarize <- function(data, by = NULL, ...) {\n" +
+         "   # split the data into groups and summarize each\n" +
+         "   groups <- split(data, data[[by]])\n" +
+         "   result <- lapply(groups, function(g) c(mean = mean(g$x), " +
+                                                  "sd = sd(g$x)))\n" +
+         "   if (length(result) >= 1e3L && !is.null(by))\n" +
+         "      warning(\"many groups: \", length(result))\n" +
+         "   do.call(rbind, result) %*% matrix(0x1F, 2, 2)\n" +
+         "}\n" +
+         "`odd name` <- .5e-2i; x[-1] -> y; a %in% b; 'it\\'s'\r\n" +
+         "z <- \u00A0\u3000q @ 1.x != 2 # trailing\r" +
+         "% oops ` unclosed '\n" ;
+      StringBuilder code = new StringBuilder() ;
+      for (int i = 0; i < 100; i++)
+         code.append(sample) ;
+      String data = code.toString() ;
+      
+      ArrayList<RToken> expected = RegexRTokenizer.asTokens(data) ;
+      ArrayList<RToken> actual = RTokenizer.asTokens(data) ;
+      Assert.assertEquals(expected.size(), actual.size()) ;
+      
+      RTokenBuffer buffer = RTokenizer.tokenize(data, new RTokenBuffer()) ;
+      Assert.assertEquals(expected.size(), buffer.size()) ;
+      
+      for (int i = 0; i < expected.size(); i++)
+      {
+         RToken e = expected.get(i) ;
+         RToken a = actual.get(i) ;
+         Assert.assertEquals(e, a) ;
+         if (e instanceof RStringToken)
+         {
+            Assert.assertEquals(((RStringToken)e).isWellFormed(),
+                                ((RStringToken)a).isWellFormed()) ;
+            Assert.assertEquals(((RStringToken)e).isWellFormed(),
+                                buffer.isWellFormed(i)) ;
+         }
+         
+         Assert.assertEquals(e.getTokenType(), buffer.getTokenType(i)) ;
+         Assert.assertEquals(e.getOffset(), buffer.getOffset(i)) ;
+         Assert.assertEquals(e.getLength(), buffer.getLength(i)) ;
+      }
+   }
+   
    protected void verify(String data,
                          int tokenType,
                          String content)
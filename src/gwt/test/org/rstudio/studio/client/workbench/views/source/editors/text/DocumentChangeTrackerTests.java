@@ -0,0 +1,187 @@
+/*
+ * DocumentChangeTrackerTests.java
+ *
+ * Copyright (C) 2009-11 by RStudio, Inc.
+ *
+ * This program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors.text;
+
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.event.logical.shared.HasValueChangeHandlers;
+import com.google.gwt.event.logical.shared.ValueChangeEvent;
+import com.google.gwt.event.logical.shared.ValueChangeHandler;
+import com.google.gwt.event.shared.GwtEvent;
+import com.google.gwt.event.shared.HandlerManager;
+import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.gwt.junit.client.GWTTestCase;
+import junit.framework.Assert;
+import org.rstudio.studio.client.server.Void;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.AceEditorNative;
+import org.rstudio.studio.client.workbench.views.source.model.DocumentHunk;
+
+/**
+ * Follows the hunk bookkeeping DocUpdateSentinel does around saves: a save
+ * forks a recording when it takes its snapshot, promotes it only when the
+ * server accepts the snapshot, and invalidates the hunks otherwise.
+ */
+public class DocumentChangeTrackerTests extends GWTTestCase
+{
+   private static class ChangeSource implements HasValueChangeHandlers<Void>
+   {
+      public HandlerRegistration addValueChangeHandler(
+            ValueChangeHandler<Void> handler)
+      {
+         return handlers_.addHandler(ValueChangeEvent.getType(), handler);
+      }
+
+      public void fireEvent(GwtEvent<?> event)
+      {
+         handlers_.fireEvent(event);
+      }
+
+      private final HandlerManager handlers_ = new HandlerManager(this);
+   }
+
+   @Override
+   public String getModuleName()
+   {
+      return "org.rstudio.studio.RStudio";
+   }
+
+   @Override
+   protected void gwtSetUp()
+   {
+      editor_ = createEditor("x <- 1\ny <- 2\n");
+      tracker_ = new DocumentChangeTracker(new ChangeSource(), editor_);
+   }
+
+   public void testRejectedSaveRetriesWithoutHunks()
+   {
+      // nothing is known about the server's contents yet, so the first
+      // save sends the whole document
+      Assert.assertFalse(tracker_.hasValidHunks());
+      JsArray<DocumentHunk> fork = tracker_.forkHunks();
+
+      // the user keeps typing while the save is in flight
+      insert(editor_, 0, 6, "0");
+
+      // the server rejects the save because another update got there
+      // first; the retry must send the whole document again
+      tracker_.invalidateHunks();
+      Assert.assertFalse(tracker_.hasValidHunks());
+
+      // even if the rejected save's response is (wrongly) handled later
+      tracker_.promoteHunks(fork);
+      Assert.assertFalse(tracker_.hasValidHunks());
+   }
+
+   public void testFailedSaveLeavesHunksInvalid()
+   {
+      JsArray<DocumentHunk> fork = tracker_.forkHunks();
+      insert(editor_, 1, 0, "z <- 3\n");
+
+      // a transport error; the next autosave must not send hunks
+      tracker_.invalidateHunks();
+      tracker_.promoteHunks(fork);
+      Assert.assertFalse(tracker_.hasValidHunks());
+   }
+
+   public void testAcceptedSaveSendsEditsSince()
+   {
+      JsArray<DocumentHunk> fork = tracker_.forkHunks();
+      insert(editor_, 0, 6, "0");
+      insert(editor_, 0, 7, "0");
+
+      // until the server accepts the snapshot its edits aren't sendable
+      Assert.assertFalse(tracker_.hasValidHunks());
+
+      tracker_.promoteHunks(fork);
+      Assert.assertTrue(tracker_.hasValidHunks());
+
+      JsArray<DocumentHunk> hunks = tracker_.takeHunks();
+      Assert.assertEquals(1, hunks.length());
+      Assert.assertEquals(6, hunks.get(0).getOffset());
+      Assert.assertEquals(0, hunks.get(0).getLength());
+      Assert.assertEquals("00", hunks.get(0).getText());
+
+      // taking the hunks stops recording until the next fork is promoted
+      Assert.assertFalse(tracker_.hasValidHunks());
+   }
+
+   public void testDiscardedForkIsNotPromoted()
+   {
+      JsArray<DocumentHunk> fork = tracker_.forkHunks();
+      tracker_.discardHunks(fork);
+      tracker_.promoteHunks(fork);
+      Assert.assertFalse(tracker_.hasValidHunks());
+   }
+
+   public void testOffsetsFollowEditsOnOtherRows()
+   {
+      Assert.assertEquals(14, tracker_.getDocumentLength());
+
+      JsArray<DocumentHunk> fork = tracker_.forkHunks();
+      insert(editor_, 1, 0, "z <- 3\n");
+      insert(editor_, 0, 6, "0");
+      insert(editor_, 2, 0, "w");
+      tracker_.promoteHunks(fork);
+
+      JsArray<DocumentHunk> hunks = tracker_.takeHunks();
+      Assert.assertEquals(3, hunks.length());
+      Assert.assertEquals(7, hunks.get(0).getOffset());
+      Assert.assertEquals(6, hunks.get(1).getOffset());
+      Assert.assertEquals(15, hunks.get(2).getOffset());
+      Assert.assertEquals(23, tracker_.getDocumentLength());
+   }
+
+   public void testOldestForksAreDropped()
+   {
+      JsArray<DocumentHunk> oldest = tracker_.forkHunks();
+      for (int i = 0; i < 4; i++)
+         tracker_.forkHunks();
+
+      tracker_.promoteHunks(oldest);
+      Assert.assertFalse(tracker_.hasValidHunks());
+   }
+
+   // a stand-in for the Ace editor with just what the tracker uses
+   private static native AceEditorNative createEditor(String code) /*-{
+      var lines = code.split("\n");
+      var doc = {
+         listeners: [],
+         on: function(event, listener) { this.listeners.push(listener); },
+         getLength: function() { return lines.length; },
+         getLine: function(row) { return lines[row]; },
+         getNewLineCharacter: function() { return "\n"; },
+         insert: function(row, column, text) {
+            var line = lines[row];
+            var inserted = (line.substring(0, column) + text +
+                            line.substring(column)).split("\n");
+            lines.splice.apply(lines, [row, 1].concat(inserted));
+            var e = {data: {action: "insertText",
+                            range: {start: {row: row, column: column}},
+                            text: text}};
+            for (var i = 0; i < this.listeners.length; i++)
+               this.listeners[i](e);
+         }
+      };
+      var session = { getDocument: function() { return doc; } };
+      return { getSession: function() { return session; } };
+   }-*/;
+
+   private static native void insert(AceEditorNative editor,
+                                     int row,
+                                     int column,
+                                     String text) /*-{
+      editor.getSession().getDocument().insert(row, column, text);
+   }-*/;
+
+   private AceEditorNative editor_;
+   private DocumentChangeTracker tracker_;
+}
@@ -0,0 +1,227 @@
+/*
+ * UnifiedParserTests.java
+ *
+ * Copyright (C) 2009-11 by RStudio, Inc.
+ *
+ * This program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.vcs.diff;
+
+import com.google.gwt.junit.client.GWTTestCase;
+import junit.framework.Assert;
+import org.rstudio.studio.client.workbench.views.vcs.diff.Line.Type;
+
+public class UnifiedParserTests extends GWTTestCase
+{
+   @Override
+   public String getModuleName()
+   {
+      return "org.rstudio.studio.RStudio";
+   }
+
+   public void testParse()
+   {
+      UnifiedParser parser = new UnifiedParser(SAMPLE);
+
+      DiffFileHeader header = parser.nextFilePair();
+      Assert.assertEquals("foo.R", header.getDescription());
+
+      DiffChunk chunk = parser.nextChunk();
+      Assert.assertEquals(1, chunk.oldRowStart);
+      Assert.assertEquals(3, chunk.oldRowCount);
+      Assert.assertEquals(4, chunk.newRowCount);
+      Assert.assertEquals("summarize", chunk.lineText);
+      Assert.assertEquals(6, chunk.diffLines.size());
+      verifyLine(chunk.diffLines.get(0), Type.Same, 1, 1, "x <- 1");
+      verifyLine(chunk.diffLines.get(1), Type.Deletion, 2, 1, "-- y");
+      verifyLine(chunk.diffLines.get(2), Type.Insertion, 2, 2, "y <- 2");
+      verifyLine(chunk.diffLines.get(5), Type.Comment, 3, 4,
+                 " No newline at end of file");
+
+      chunk = parser.nextChunk();
+      Assert.assertEquals(10, chunk.oldRowStart);
+      Assert.assertEquals(1, chunk.oldRowCount);
+      Assert.assertEquals(3, chunk.diffLines.size());
+      Assert.assertNull(parser.nextChunk());
+
+      // the second file uses CRLF line endings
+      header = parser.nextFilePair();
+      Assert.assertEquals("bar.txt", header.getDescription());
+      chunk = parser.nextChunk();
+      verifyLine(chunk.diffLines.get(0), Type.Insertion, -1, 1, "hello");
+      verifyLine(chunk.diffLines.get(1), Type.Insertion, -1, 2, "");
+      Assert.assertNull(parser.nextChunk());
+      Assert.assertNull(parser.nextFilePair());
+   }
+
+   public void testFileSections()
+   {
+      UnifiedParser parser = new UnifiedParser(SAMPLE);
+
+      DiffFileSection section = parser.nextFileSection();
+      Assert.assertEquals("foo.R", section.getHeader().getDescription());
+      Assert.assertEquals(11, section.getRowCount());
+      UnifiedParser fileParser = section.createParser();
+      Assert.assertEquals(6, fileParser.nextChunk().diffLines.size());
+      Assert.assertEquals(3, fileParser.nextChunk().diffLines.size());
+      Assert.assertNull(fileParser.nextChunk());
+
+      section = parser.nextFileSection();
+      Assert.assertEquals("bar.txt", section.getHeader().getDescription());
+      Assert.assertEquals(3, section.getRowCount());
+
+      Assert.assertNull(parser.nextFileSection());
+   }
+
+   /**
+    * Checks the parser reads the same files, chunks and lines from a large
+    * diff as the regex based parser it replaced.
+    */
+   public void testMatchesRegexParser()
+   {
+      String data = createLargeDiff(400, 8);
+
+      verifySameAsRegexParser(data);
+
+      int rows = parse(data);
+      Assert.assertTrue(rows > 0);
+      Assert.assertEquals(parseWithRegexParser(data), rows);
+   }
+
+   private void verifySameAsRegexParser(String data)
+   {
+      UnifiedParser parser = new UnifiedParser(data);
+      RegexUnifiedParser regexParser = new RegexUnifiedParser(data);
+
+      DiffFileHeader header;
+      while (null != (header = parser.nextFilePair()))
+      {
+         DiffFileHeader regexHeader = regexParser.nextFilePair();
+         Assert.assertNotNull(regexHeader);
+         Assert.assertEquals(regexHeader.getDescription(),
+                             header.getDescription());
+
+         DiffChunk chunk;
+         while (null != (chunk = parser.nextChunk()))
+         {
+            DiffChunk regexChunk = regexParser.nextChunk();
+            Assert.assertNotNull(regexChunk);
+            Assert.assertEquals(regexChunk.oldRowStart, chunk.oldRowStart);
+            Assert.assertEquals(regexChunk.oldRowCount, chunk.oldRowCount);
+            Assert.assertEquals(regexChunk.newRowStart, chunk.newRowStart);
+            Assert.assertEquals(regexChunk.newRowCount, chunk.newRowCount);
+            Assert.assertEquals(regexChunk.lineText, chunk.lineText);
+            Assert.assertEquals(regexChunk.diffLines.size(),
+                                chunk.diffLines.size());
+            for (int i = 0; i < chunk.diffLines.size(); i++)
+            {
+               Line expected = regexChunk.diffLines.get(i);
+               verifyLine(chunk.diffLines.get(i),
+                          expected.getType(),
+                          expected.getOldLine(),
+                          expected.getNewLine(),
+                          expected.getText());
+               Assert.assertEquals(expected.getDiffIndex(),
+                                   chunk.diffLines.get(i).getDiffIndex());
+            }
+         }
+         Assert.assertNull(regexParser.nextChunk());
+      }
+      Assert.assertNull(regexParser.nextFilePair());
+   }
+
+   private int parse(String data)
+   {
+      int rows = 0;
+      UnifiedParser parser = new UnifiedParser(data);
+      while (parser.nextFilePair() != null)
+      {
+         DiffChunk chunk;
+         while (null != (chunk = parser.nextChunk()))
+            rows += 1 + chunk.diffLines.size();
+      }
+      return rows;
+   }
+
+   private int parseWithRegexParser(String data)
+   {
+      int rows = 0;
+      RegexUnifiedParser parser = new RegexUnifiedParser(data);
+      while (parser.nextFilePair() != null)
+      {
+         DiffChunk chunk;
+         while (null != (chunk = parser.nextChunk()))
+            rows += 1 + chunk.diffLines.size();
+      }
+      return rows;
+   }
+
+   private String createLargeDiff(int files, int chunksPerFile)
+   {
+      StringBuilder diff = new StringBuilder();
+      for (int f = 0; f < files; f++)
+      {
+         String name = "R/file" + f + ".R";
+         diff.append("diff --git a/" + name + " b/" + name + "\n");
+         diff.append("index 3f2a1c4..8b7d9e0 100644\n");
+         diff.append("--- a/" + name + "\n");
+         diff.append("+++ b/" + name + "\n");
+         for (int c = 0; c < chunksPerFile; c++)
+         {
+            int row = 1 + c * 40;
+            diff.append("@@ -" + row + ",7 +" + row + ",8 @@ summarize <- function(data)\n");
+            diff.append("    groups <- split(data, data[[by]])\n");
+            diff.append("    result <- lapply(groups, summary)\n");
+            diff.append("-   if (length(result) > 1000)\n");
+            diff.append("+   if (length(result) >= 1e3L && !is.null(by))\n");
+            diff.append("+      warning(\"many groups: \", length(result))\n");
+            diff.append("    do.call(rbind, result)\n");
+            diff.append(" }\n");
+            diff.append(" \n");
+            diff.append(" # end of section " + c + "\n");
+         }
+      }
+      return diff.toString();
+   }
+
+   private void verifyLine(Line line,
+                           Type type,
+                           int oldLine,
+                           int newLine,
+                           String text)
+   {
+      Assert.assertEquals(type, line.getType());
+      Assert.assertEquals(oldLine, line.getOldLine());
+      Assert.assertEquals(newLine, line.getNewLine());
+      Assert.assertEquals(text, line.getText());
+   }
+
+   private static final String SAMPLE =
+         "diff --git a/foo.R b/foo.R\n" +
+         "index 1a2b3c4..5d6e7f8 100644\n" +
+         "--- a/foo.R\n" +
+         "+++ b/foo.R\n" +
+         "@@ -1,3 +1,4 @@ summarize\n" +
+         " x <- 1\n" +
+         "--- y\n" +
+         "+y <- 2\n" +
+         "+z\n" +
+         " w\n" +
+         "\\ No newline at end of file\n" +
+         "@@ -10 +11,2 @@\n" +
+         "-a\n" +
+         "+b\n" +
+         "+c\n" +
+         "diff --git a/bar.txt b/bar.txt\n" +
+         "new file mode 100644\n" +
+         "--- /dev/null\n" +
+         "+++ b/bar.txt\r\n" +
+         "@@ -0,0 +1,2 @@\r\n" +
+         "+hello\r\n" +
+         "+\r\n";
+}